@@ -0,0 +1,52 @@
+/*
+ * Copyright (c) 2024. Robin Hillyard
+ */
+
+package com.phasmidsoftware.dsaipg.projects.adt.bqs;
+
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.random.RandomGenerator;
+
+/**
+ * Class to implement a (primitive) iterator over the indices 0 thru n-1, in random order.
+ * This is the int equivalent of {@link UnorderedIterator}, for when the elements are in an array or a random-access list:
+ * iterate over indices instead, and nothing is copied or boxed.
+ * <p>
+ * The permutation is built lazily: the slots are left at zero (as allocated), which means that slot k holds k;
+ * otherwise slot k holds its index plus one. So the first element costs O(1) regardless of n (apart from the allocation).
+ */
+public class UnorderedIntIterator implements PrimitiveIterator.OfInt {
+
+    /**
+     * Constructor.
+     *
+     * @param n      the number of indices.
+     * @param random the random source.
+     */
+    public UnorderedIntIterator(int n, RandomGenerator random) {
+        this.slots = new int[n];
+        this.remaining = n;
+        this.random = random;
+    }
+
+    public boolean hasNext() {
+        return remaining > 0;
+    }
+
+    public int nextInt() {
+        if (remaining == 0) throw new NoSuchElementException();
+        int i = random.nextInt(remaining);
+        int result = get(i);
+        slots[i] = get(--remaining) + 1;
+        return result;
+    }
+
+    private int get(int k) {
+        return slots[k] == 0 ? k : slots[k] - 1;
+    }
+
+    private final int[] slots;
+    private final RandomGenerator random;
+    private int remaining;
+}
@@ -5,10 +5,15 @@
 package com.phasmidsoftware.dsaipg.projects.adt.bqs;
 
 import java.util.*;
+import java.util.random.RandomGenerator;
 
 /**
  * Class to implement an Iterator of T based on a Collection or Array of T.
  * The order of elements in the iterator is random.
+ * <p>
+ * The elements are copied (once) into an array, which is then shuffled lazily by a partial Fisher-Yates shuffle:
+ * each call of next swaps a randomly chosen element of the unvisited prefix with its last element, and shortens the prefix.
+ * Thus each element costs O(1), and taking only the first few elements costs nothing for the rest.
  *
  * @param <T> the underlying type.
  */
@@ -22,7 +27,7 @@ public class UnorderedIterator<T> implements Iterator<T> {
      * @return {@code true} if the iteration has more elements
      */
     public boolean hasNext() {
-        return !list.isEmpty();
+        return remaining > 0;
     }
 
     /**
@@ -32,13 +37,13 @@ public class UnorderedIterator<T> implements Iterator<T> {
      * @throws NoSuchElementException if the iteration has no more elements
      */
     public T next() {
-        if (list.isEmpty()) throw new NoSuchElementException();
-        int i = random.nextInt(list.size());
-        try {
-            return list.remove(i);
-        } catch (UnsupportedOperationException e) {
-            throw new RuntimeException("UnorderedIterator: cannot remove element " + i + " from list of type: " + list.getClass());
-        }
+        if (remaining == 0) throw new NoSuchElementException();
+        int i = random.nextInt(remaining);
+        Object result = elements[i];
+        elements[i] = elements[--remaining];
+        elements[remaining] = result;
+        @SuppressWarnings("unchecked") T t = (T) result;
+        return t;
     }
 
     /**
@@ -47,8 +52,8 @@ public class UnorderedIterator<T> implements Iterator<T> {
      * @param collection the collection of T over which to iterate.
      * @param random     an explicit random source.
      */
-    public UnorderedIterator(Collection<T> collection, Random random) {
-        this(copyCollection(collection), random);
+    public UnorderedIterator(Collection<T> collection, RandomGenerator random) {
+        this(random, collection.toArray());
     }
 
     /**
@@ -57,7 +62,7 @@ public class UnorderedIterator<T> implements Iterator<T> {
      * @param collection the collection of T over which to iterate.
      */
     public UnorderedIterator(Collection<T> collection) {
-        this(collection, new Random());
+        this(collection, new SplittableRandom());
     }
 
     /**
@@ -66,8 +71,8 @@ public class UnorderedIterator<T> implements Iterator<T> {
      * @param array  an array of T.
      * @param random an explicit random source.
      */
-    public UnorderedIterator(T[] array, Random random) {
-        this(copyCollection(Arrays.asList(array)), random);
+    public UnorderedIterator(T[] array, RandomGenerator random) {
+        this(random, Arrays.copyOf(array, array.length, Object[].class));
     }
 
     /**
@@ -76,36 +81,30 @@ public class UnorderedIterator<T> implements Iterator<T> {
      * @param array an array of T.
      */
     public UnorderedIterator(T[] array) {
-        this(array, new Random());
+        this(array, new SplittableRandom());
     }
 
     /**
      * Primary (private) constructor.
      *
-     * @param list   a mutable list of T which will be mutated, ending as empty.
-     * @param random a Random source.
+     * @param random   a random source.
+     * @param elements an array of T which is owned (and will be permuted) by this iterator.
      */
-    private UnorderedIterator(List<T> list, Random random) {
-        this.list = list;
+    private UnorderedIterator(RandomGenerator random, Object[] elements) {
+        this.elements = elements;
+        this.remaining = elements.length;
         this.random = random;
     }
 
-    public static <X> UnorderedIterator<X> createDeterministic(Collection<X> collection, Random random) {
-        return new UnorderedIterator<>(copyCollection(collection), random);
+    public static <X> UnorderedIterator<X> createDeterministic(Collection<X> collection, RandomGenerator random) {
+        return new UnorderedIterator<>(collection, random);
     }
 
     public static <X> UnorderedIterator<X> createDeterministic(Collection<X> collection, long seed) {
-        return createDeterministic(collection, new Random(seed));
+        return createDeterministic(collection, new SplittableRandom(seed));
     }
 
-    private static <X> List<X> copyCollection(Collection<X> collection) {
-        if (collection instanceof ArrayList) {
-            ArrayList<X> result = new ArrayList<>(collection);
-            Collections.copy(result, (ArrayList<X>) collection);
-            return result;
-        } else return new ArrayList<>(collection);
-    }
-
-    private final List<T> list;
-    private final Random random;
-}
\ No newline at end of file
+    private final Object[] elements;
+    private final RandomGenerator random;
+    private int remaining;
+}
@@ -0,0 +1,66 @@
+/*
+ * Copyright (c) 2024. Robin Hillyard
+ */
+
+package com.phasmidsoftware.dsaipg.projects.adt.bqs;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Benchmark of {@link UnorderedIterator} and {@link UnorderedIntIterator}, compared with the old UnorderedIterator
+ * (which copied the elements twice and removed each one from an ArrayList):
+ * iterating all of the elements (as when a node is expanded) and taking only the first (as when a move is chosen at random).
+ */
+public class UnorderedIteratorBenchmark {
+
+    /**
+     * Method to run the benchmark.
+     *
+     * @param args the number of elements (default 436, the number of moves of an opening state of mini Balatro)
+     *             and the repetitions (default 20,000).
+     */
+    public static void main(String[] args) {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 436;
+        int repetitions = args.length > 1 ? Integer.parseInt(args[1]) : 20_000;
+        List<Integer> elements = new ArrayList<>();
+        for (int i = 0; i < n; i++) elements.add(i);
+        SplittableRandom random = new SplittableRandom(0L);
+        long check = 0;
+        for (int pass = 0; pass < 2; pass++) {
+            long start = System.nanoTime();
+            for (int r = 0; r < repetitions; r++) {
+                List<Integer> list = new ArrayList<>(new ArrayList<>(elements));
+                while (!list.isEmpty()) check += list.remove(random.nextInt(list.size()));
+            }
+            long legacy = System.nanoTime();
+            for (int r = 0; r < repetitions; r++)
+                for (Iterator<Integer> iterator = new UnorderedIterator<>(elements, random); iterator.hasNext(); )
+                    check += iterator.next();
+            long swap = System.nanoTime();
+            for (int r = 0; r < repetitions; r++)
+                for (UnorderedIntIterator iterator = new UnorderedIntIterator(elements.size(), random); iterator.hasNext(); )
+                    check += elements.get(iterator.nextInt());
+            long indices = System.nanoTime();
+            for (int r = 0; r < repetitions; r++) {
+                List<Integer> list = new ArrayList<>(new ArrayList<>(elements));
+                check += list.remove(random.nextInt(list.size()));
+            }
+            long legacyFirst = System.nanoTime();
+            for (int r = 0; r < repetitions; r++) check += new UnorderedIterator<>(elements, random).next();
+            long swapFirst = System.nanoTime();
+            for (int r = 0; r < repetitions; r++) check += elements.get(new UnorderedIntIterator(elements.size(), random).nextInt());
+            long indicesFirst = System.nanoTime();
+            // NOTE: the first pass is for warm-up only.
+            if (pass > 0) {
+                System.out.printf("Elements: %d (check %d)%n", n, check);
+                System.out.printf("All elements: ArrayList.remove %.2f us | swap-remove %.2f us | int indices %.2f us%n",
+                        (legacy - start) / 1.0E3 / repetitions, (swap - legacy) / 1.0E3 / repetitions, (indices - swap) / 1.0E3 / repetitions);
+                System.out.printf("First element: ArrayList.remove %.2f us | swap-remove %.2f us | int indices %.2f us%n",
+                        (legacyFirst - indices) / 1.0E3 / repetitions, (swapFirst - legacyFirst) / 1.0E3 / repetitions, (indicesFirst - swapFirst) / 1.0E3 / repetitions);
+            }
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.phasmidsoftware.dsaipg.projects.com.phasmidsoftware.dsaipg.projects.test.blackJack;
+
+import com.phasmidsoftware.dsaipg.projects.mcts.blackJack.BlackjackCodec;
+import com.phasmidsoftware.dsaipg.projects.mcts.blackJack.BlackjackGame;
+import com.phasmidsoftware.dsaipg.projects.mcts.blackJack.BlackjackMove;
+import com.phasmidsoftware.dsaipg.projects.mcts.blackJack.BlackjackState;
+import com.phasmidsoftware.dsaipg.projects.mcts.core.RecordFormat;
+import org.junit.jupiter.api.Test;
+import java.nio.ByteBuffer;
+import java.util.SplittableRandom;
+import static org.junit.jupiter.api.Assertions.*;
+
+class BlackjackCodecTest {
+
+    @Test
+    void testRoundTrip() {
+        BlackjackGame game = new BlackjackGame(0L);
+        BlackjackCodec codec = new BlackjackCodec(game, new SplittableRandom(0L));
+        assertEquals(RecordFormat.GAME_BLACKJACK, codec.game());
+        BlackjackState state = (BlackjackState) game.start().next(new BlackjackMove(BlackjackMove.Action.HIT, 0));
+        ByteBuffer buffer = ByteBuffer.allocate(256);
+        codec.encode(state, buffer);
+        buffer.flip();
+        BlackjackState decoded = (BlackjackState) codec.decode(buffer);
+        assertFalse(buffer.hasRemaining());
+        assertEquals(state.player, decoded.player);
+        assertEquals(state.playerHand, decoded.playerHand);
+        assertEquals(state.dealerHand, decoded.dealerHand);
+        assertEquals(state.moves(state.player), decoded.moves(decoded.player));
+        // NOTE: the deck is not visible here, so it is compared by encoding the decoded state again.
+        ByteBuffer again = ByteBuffer.allocate(256);
+        codec.encode(decoded, again);
+        again.flip();
+        buffer.rewind();
+        assertEquals(buffer, again);
+    }
+}
@@ -2,7 +2,15 @@ package com.phasmidsoftware.dsaipg.projects.com.phasmidsoftware.dsaipg.projects.
 
 
 import com.phasmidsoftware.dsaipg.projects.mcts.blackJack.*;
+import com.phasmidsoftware.dsaipg.projects.mcts.core.SearchResult;
+import com.phasmidsoftware.dsaipg.projects.mcts.core.SearchSnapshot;
+import com.phasmidsoftware.dsaipg.projects.mcts.core.SearchService;
 import org.junit.jupiter.api.Test;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.random.RandomGenerator;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 class BlackjackMCTSTest {
@@ -32,4 +40,180 @@ class BlackjackMCTSTest {
 
         assertTrue(currentState.isTerminal());
     }
-}
\ No newline at end of file
+
+    @Test
+    void testSolver() {
+        BlackjackGame game = new BlackjackGame();
+        Deque<Integer> deck = new ArrayDeque<>(List.of(5, 9, 3));
+        BlackjackState state = new BlackjackState(game, new ArrayList<>(List.of(10, 10)), new ArrayList<>(List.of(10, 7)), deck, 0, new Random(0L));
+        BlackjackNode rootNode = new BlackjackNode(state);
+        BlackjackMCTS mcts = new BlackjackMCTS(rootNode, 1000);
+        mcts.setSolver(true);
+        BlackjackMove bestMove = (BlackjackMove) mcts.findBestMove();
+        assertEquals(BlackjackMove.Action.STAND, bestMove.getAction());
+        assertTrue(rootNode.isSolved());
+        assertEquals(0, rootNode.proof());
+        assertTrue(mcts.getIterations() < 10);
+    }
+
+    @Test
+    void testSolverAllLost() {
+        BlackjackGame game = new BlackjackGame();
+        Deque<Integer> deck = new ArrayDeque<>(Collections.nCopies(20, 10));
+        BlackjackState state = new BlackjackState(game, new ArrayList<>(List.of(10, 9)), new ArrayList<>(List.of(1, 10)), deck, 0, new Random(0L));
+        BlackjackNode rootNode = new BlackjackNode(state);
+        BlackjackMCTS mcts = new BlackjackMCTS(rootNode, 1000);
+        mcts.setSolver(true);
+        assertNotNull(mcts.findBestMove());
+        assertTrue(rootNode.isSolved());
+        assertEquals(1, rootNode.proof());
+    }
+
+    @Test
+    void testResample() {
+        BlackjackState state = (BlackjackState) new BlackjackGame(0L).start();
+        Set<Integer> holeCards = new HashSet<>();
+        SplittableRandom random = new SplittableRandom(1L);
+        for (int i = 0; i < 20; i++) {
+            BlackjackState resampled = state.resample(random);
+            assertEquals(state.playerHand, resampled.playerHand);
+            assertEquals(state.dealerHand.get(0), resampled.dealerHand.get(0));
+            assertEquals(state.dealerHand.size(), resampled.dealerHand.size());
+            holeCards.add(resampled.dealerHand.get(1));
+        }
+        assertTrue(holeCards.size() > 1);
+    }
+
+    @Test
+    void testOpenLoop() {
+        BlackjackState state = (BlackjackState) new BlackjackGame(0L).start();
+        BlackjackNode rootNode = new BlackjackNode(state);
+        BlackjackMCTS mcts = new BlackjackMCTS(rootNode, 500);
+        mcts.setOpenLoop(true);
+        mcts.setSeed(1L);
+        BlackjackMove bestMove = (BlackjackMove) mcts.findBestMove();
+        assertNotNull(bestMove);
+        assertEquals(500, mcts.getIterations());
+        assertTrue(rootNode.childCount() <= 2);
+        // NOTE: a child (even a terminal one) is credited only with the iterations which passed through it.
+        int playouts = 0;
+        for (int i = 0; i < rootNode.childCount(); i++) playouts += rootNode.child(i).playouts();
+        assertEquals(rootNode.playouts(), playouts);
+    }
+
+    @Test
+    void testTerminalChildren() {
+        // NOTE: the player has 16 against the dealer's 20, with a ten to come: hitting busts and standing loses.
+        Deque<Integer> deck = new ArrayDeque<>(List.of(10, 10, 10, 10));
+        BlackjackState state = new BlackjackState(new BlackjackGame(0L), new ArrayList<>(List.of(10, 6)), new ArrayList<>(List.of(10, 10)), deck, 0, new SplittableRandom(0L));
+        BlackjackNode rootNode = new BlackjackNode(state);
+        BlackjackMCTS mcts = new BlackjackMCTS(rootNode, 2);
+        mcts.setSeed(1L);
+        mcts.findBestMove();
+        assertEquals(2, rootNode.childCount());
+        for (int i = 0; i < rootNode.childCount(); i++) {
+            assertEquals(1, rootNode.child(i).playouts());
+            assertEquals(0, rootNode.child(i).wins());
+        }
+        assertEquals(2, rootNode.playouts());
+    }
+
+    @Test
+    void testWithNextDraw() {
+        BlackjackState state = (BlackjackState) new BlackjackGame(0L).start();
+        double[] probabilities = state.drawProbabilities();
+        assertEquals(1.0, Arrays.stream(probabilities).sum(), 1E-9);
+        for (int stratum = 0; stratum < BlackjackState.DRAW_STRATA; stratum++) {
+            if (probabilities[stratum] == 0) continue;
+            BlackjackState next = (BlackjackState) state.withNextDraw(stratum, new SplittableRandom(stratum)).next(new BlackjackMove(BlackjackMove.Action.HIT, 0));
+            assertEquals(stratum + 1, Math.min(next.playerHand.get(next.playerHand.size() - 1), 10));
+        }
+    }
+
+    @Test
+    void testChanceNodes() {
+        BlackjackState state = (BlackjackState) new BlackjackGame(0L).start();
+        BlackjackNode rootNode = new BlackjackNode(state);
+        BlackjackMCTS mcts = new BlackjackMCTS(rootNode, 500);
+        mcts.setChanceNodes(true);
+        mcts.setSeed(1L);
+        assertNotNull(mcts.findBestMove());
+        assertEquals(500, mcts.getIterations());
+        BlackjackNode hit = rootNode.getChild(new BlackjackMove(BlackjackMove.Action.HIT, 0));
+        if (hit != null) {
+            assertNotNull(hit.getChance());
+            assertTrue(hit.getChance().playouts() > 0);
+            assertTrue(hit.getChance().playouts() <= hit.getPlayouts());
+        }
+    }
+
+    @Test
+    void testTimeBudget() {
+        BlackjackMCTS mcts = new BlackjackMCTS(new BlackjackNode(new BlackjackGame(0L).start()), Integer.MAX_VALUE);
+        mcts.setTimeBudget(20);
+        SearchResult<BlackjackGame> result = mcts.search();
+        assertNotNull(result.move());
+        assertTrue(result.iterations() > 0);
+        assertTrue(result.saved() > 0);
+    }
+
+    @Test
+    void testInterrupted() {
+        BlackjackMCTS mcts = new BlackjackMCTS(new BlackjackNode(new BlackjackGame(0L).start()), 1000);
+        Thread.currentThread().interrupt();
+        try {
+            SearchResult<BlackjackGame> result = mcts.search();
+            assertNotNull(result.move());
+            assertEquals(1, result.iterations());
+        } finally {
+            Thread.interrupted();
+        }
+    }
+
+    @Test
+    void testTimeBudgetInvalid() {
+        assertThrows(IllegalArgumentException.class, () -> new BlackjackMCTS(new BlackjackNode(new BlackjackGame(0L).start()), 100).setTimeBudget(-1));
+    }
+
+    @Test
+    void testPonder() throws Exception {
+        BlackjackNode root = new BlackjackNode(new BlackjackGame(0L).start());
+        SearchService service = new SearchService();
+        CompletableFuture<SearchResult<BlackjackGame>> ponder = service.ponder(new BlackjackMCTS(root, Integer.MAX_VALUE));
+        Thread.sleep(50);
+        assertTrue(service.stop());
+        SearchResult<BlackjackGame> pondered = ponder.get(5, TimeUnit.SECONDS);
+        assertNotNull(pondered.move());
+        assertTrue(pondered.iterations() > 0);
+        assertEquals(pondered.iterations(), root.playouts());
+        SearchResult<BlackjackGame> result = service.submit(new BlackjackMCTS(root, 100)).get(5, TimeUnit.SECONDS);
+        assertEquals(100, result.iterations());
+        assertEquals(pondered.iterations() + 100, root.playouts());
+    }
+
+    @Test
+    void testSnapshots() {
+        BlackjackMCTS mcts = new BlackjackMCTS(new BlackjackNode(new BlackjackGame(0L).start()), 500);
+        List<SearchSnapshot<BlackjackGame>> snapshots = new ArrayList<>();
+        mcts.setSnapshots(1, 2, snapshots::add);
+        SearchResult<BlackjackGame> result = mcts.search();
+        assertFalse(snapshots.isEmpty());
+        SearchSnapshot<BlackjackGame> last = snapshots.get(snapshots.size() - 1);
+        assertEquals(500, last.iterations());
+        assertEquals(result.move(), last.best());
+        for (SearchSnapshot.Entry<BlackjackGame> entry : last.entries()) assertTrue(entry.mean() >= 0 && entry.mean() <= 2);
+    }
+
+    @Test
+    void testSearchLeavesGameRandomAlone() {
+        RandomGenerator random = () -> {
+            throw new IllegalStateException("the search drew on the random source of the game");
+        };
+        Deque<Integer> deck = new ArrayDeque<>(List.of(2, 3, 4, 5, 6, 7, 8, 9, 10, 2, 3, 4, 5, 6));
+        BlackjackState state = new BlackjackState(new BlackjackGame(random), new ArrayList<>(List.of(2, 3)), new ArrayList<>(List.of(10, 7)), deck, 0, random);
+        BlackjackNode root = new BlackjackNode(state);
+        BlackjackMCTS mcts = new BlackjackMCTS(root, 200);
+        mcts.setSeed(1L);
+        assertNotNull(mcts.findBestMove());
+    }
+}
@@ -1,6 +1,7 @@
 package com.phasmidsoftware.dsaipg.projects.com.phasmidsoftware.dsaipg.projects.test.blackJack;
 
 import com.phasmidsoftware.dsaipg.projects.mcts.blackJack.BlackjackGame;
+import com.phasmidsoftware.dsaipg.projects.mcts.blackJack.BlackjackMove;
 import com.phasmidsoftware.dsaipg.projects.mcts.blackJack.BlackjackNode;
 import com.phasmidsoftware.dsaipg.projects.mcts.blackJack.BlackjackState;
 import org.junit.jupiter.api.Test;
@@ -33,6 +34,19 @@ class BlackjackNodeTest {
         assertTrue(node.isFullyExpanded());
     }
 
+    @Test
+    void testAddChildNode() {
+        BlackjackState state = (BlackjackState) new BlackjackGame(0L).start();
+        BlackjackNode node = new BlackjackNode(state);
+        BlackjackMove stand = new BlackjackMove(BlackjackMove.Action.STAND, 0);
+        node.addChild(state.next(stand));
+        assertFalse(node.hasChildForMove(stand));
+        BlackjackNode child = node.addChildNode(new BlackjackNode(state.next(stand), stand));
+        assertTrue(node.hasChildForMove(stand));
+        assertSame(child, node.getChild(stand));
+        assertEquals(2, node.childCount());
+    }
+
     @Test
     void testLeafNode() {
         BlackjackGame game = new BlackjackGame();
@@ -0,0 +1,25 @@
+package com.phasmidsoftware.dsaipg.projects.com.phasmidsoftware.dsaipg.projects.test.blackJack;
+
+import com.phasmidsoftware.dsaipg.projects.mcts.blackJack.BlackjackTableSimulator;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BlackjackTableSimulatorTest {
+
+    @Test
+    void testRun() throws Exception {
+        BlackjackTableSimulator.Report report = new BlackjackTableSimulator(8, 3, 50, 2).run();
+        assertEquals(8, report.tables);
+        assertEquals(24, report.hands);
+        assertTrue(report.decisions > 0);
+        assertTrue(report.p50 > 0);
+        assertTrue(report.p50 <= report.p99);
+        assertTrue(report.handsPerSecond() > 0);
+    }
+
+    @Test
+    void testInvalid() {
+        assertThrows(IllegalArgumentException.class, () -> new BlackjackTableSimulator(0, 1, 1, 1));
+    }
+}
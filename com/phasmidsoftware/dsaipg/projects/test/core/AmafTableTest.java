@@ -0,0 +1,30 @@
+package com.phasmidsoftware.dsaipg.projects.com.phasmidsoftware.dsaipg.projects.test.core;
+
+import com.phasmidsoftware.dsaipg.projects.mcts.core.AmafTable;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class AmafTableTest {
+
+    @Test
+    public void testUpdate() {
+        AmafTable target = new AmafTable(1);
+        for (long code = 0; code < 20; code++) target.update(code << 40, (int) code);
+        target.update(3L << 40, 2);
+        assertEquals(20, target.size());
+        assertEquals(5, target.wins(3L << 40));
+        assertEquals(2, target.playouts(3L << 40));
+        assertEquals(1, target.playouts(19L << 40));
+        assertEquals(0, target.playouts(20L << 40));
+        assertEquals(0, target.wins(20L << 40));
+    }
+
+    @Test
+    public void testBeta() {
+        assertEquals(1.0, AmafTable.beta(0, 100), 1E-9);
+        assertEquals(0.5, AmafTable.beta(100, 100), 1E-9);
+        assertTrue(AmafTable.beta(1000, 100) < AmafTable.beta(100, 100));
+        assertEquals(0.0, AmafTable.beta(10, 0), 1E-9);
+    }
+}
@@ -0,0 +1,57 @@
+package com.phasmidsoftware.dsaipg.projects.com.phasmidsoftware.dsaipg.projects.test.core;
+
+import com.phasmidsoftware.dsaipg.projects.mcts.core.ChanceTable;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class ChanceTableTest {
+
+    @Test
+    public void testChooseStratified() {
+        ChanceTable target = new ChanceTable(3);
+        double[] probabilities = {0.5, 0.25, 0.25};
+        for (int i = 0; i < 100; i++) target.update(probabilities, target.choose(probabilities), 0);
+        assertEquals(100, target.playouts());
+        assertEquals(50, target.playouts(0));
+        assertEquals(25, target.playouts(1));
+        assertEquals(25, target.playouts(2));
+    }
+
+    @Test
+    public void testChooseSkipsImpossible() {
+        ChanceTable target = new ChanceTable(3);
+        double[] probabilities = {0, 1, 0};
+        for (int i = 0; i < 10; i++) assertEquals(1, target.choose(probabilities));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testChooseNothingPossible() {
+        new ChanceTable(2).choose(new double[]{0, 0});
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testWrongLength() {
+        new ChanceTable(2).choose(new double[]{1});
+    }
+
+    @Test
+    public void testMeanWeighted() {
+        ChanceTable target = new ChanceTable(2);
+        assertTrue(Double.isNaN(target.mean()));
+        double[] probabilities = {0.75, 0.25};
+        // NOTE: the strata are visited equally (not in proportion to their probabilities), yet the mean is weighted correctly.
+        for (int i = 0; i < 10; i++) {
+            target.update(probabilities, 0, 2);
+            target.update(probabilities, 1, 0);
+        }
+        assertEquals(1.5, target.mean(), 1E-9);
+    }
+
+    @Test
+    public void testMeanUnvisitedStratum() {
+        ChanceTable target = new ChanceTable(2);
+        target.update(new double[]{0.5, 0.5}, 1, 4);
+        assertEquals(4, target.mean(), 1E-9);
+    }
+}
@@ -0,0 +1,50 @@
+package com.phasmidsoftware.dsaipg.projects.com.phasmidsoftware.dsaipg.projects.test.core;
+
+import com.phasmidsoftware.dsaipg.projects.mcts.core.ChildIndex;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class ChildIndexTest {
+
+    @Test
+    public void testEmpty() {
+        ChildIndex target = new ChildIndex();
+        assertEquals(0, target.size());
+        assertEquals(-1, target.get(0L));
+        assertFalse(target.contains(42L));
+    }
+
+    @Test
+    public void testPutAndGet() {
+        ChildIndex target = new ChildIndex();
+        target.put(1L << 52 | 7L, 0);
+        target.put(7L, 1);
+        assertEquals(0, target.get(1L << 52 | 7L));
+        assertEquals(1, target.get(7L));
+        assertEquals(2, target.size());
+    }
+
+    @Test
+    public void testReplace() {
+        ChildIndex target = new ChildIndex();
+        target.put(3L, 0);
+        target.put(3L, 5);
+        assertEquals(5, target.get(3L));
+        assertEquals(1, target.size());
+    }
+
+    @Test
+    public void testGrowth() {
+        ChildIndex target = new ChildIndex(1);
+        for (int i = 0; i < 400; i++) target.put((long) i << 20, i);
+        assertEquals(400, target.size());
+        for (int i = 0; i < 400; i++) assertEquals(i, target.get((long) i << 20));
+        assertFalse(target.contains(1L));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNegativePosition() {
+        new ChildIndex().put(1L, -1);
+    }
+}
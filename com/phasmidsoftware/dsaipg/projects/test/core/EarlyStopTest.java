@@ -0,0 +1,35 @@
+package com.phasmidsoftware.dsaipg.projects.com.phasmidsoftware.dsaipg.projects.test.core;
+
+import com.phasmidsoftware.dsaipg.projects.mcts.core.EarlyStop;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class EarlyStopTest {
+
+    @Test
+    public void testNever() {
+        assertFalse(EarlyStop.never().test(new int[]{1000, 0}, new double[]{2, 0}, 0, 0, 2));
+    }
+
+    @Test
+    public void testVisits() {
+        EarlyStop target = EarlyStop.visits();
+        assertTrue(target.test(new int[]{500, 100, 50}, new double[]{1, 1, 1}, 0, 399, 2));
+        assertFalse(target.test(new int[]{500, 100, 50}, new double[]{1, 1, 1}, 0, 400, 2));
+        assertFalse(target.test(new int[]{100, 500}, new double[]{1, 1}, 0, 0, 2));
+    }
+
+    @Test
+    public void testConfidence() {
+        EarlyStop target = EarlyStop.confidence(0.05);
+        assertTrue(target.test(new int[]{1000, 1000}, new double[]{1.8, 0.2}, 0, 1000, 2));
+        assertFalse(target.test(new int[]{1000, 1000}, new double[]{1.05, 0.95}, 0, 1000, 2));
+        assertFalse("an unvisited child cannot be ruled out", target.test(new int[]{1000, 0}, new double[]{1.8, 0}, 0, 1000, 2));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testConfidenceInvalid() {
+        EarlyStop.confidence(0);
+    }
+}
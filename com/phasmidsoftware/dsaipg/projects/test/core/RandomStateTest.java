@@ -3,9 +3,13 @@ package com.phasmidsoftware.dsaipg.projects.com.phasmidsoftware.dsaipg.projects.
 import com.phasmidsoftware.dsaipg.projects.mcts.core.RandomState;
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Random;
+import java.util.SplittableRandom;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
 
 public class RandomStateTest {
 
@@ -56,4 +60,30 @@ public class RandomStateTest {
         boolean expected = new Random(0L).nextBoolean();
         assertEquals(expected, actual);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void split() {
+        SplittableRandom[] first = new RandomState(1000, 0L).split(3);
+        SplittableRandom[] second = new RandomState(1000, 0L).split(3);
+        for (int i = 0; i < 3; i++) assertEquals(first[i].nextLong(), second[i].nextLong());
+        assertNotEquals(first[0].nextLong(), first[1].nextLong());
+    }
+
+    @Test
+    public void splitIndependentOfValues() {
+        RandomState target = new RandomState(1000, 0L);
+        target.longValue();
+        assertEquals(new RandomState(1000, 0L).split().nextLong(), target.split().nextLong());
+    }
+
+    @Test
+    public void shuffle() {
+        List<Integer> list = new ArrayList<>();
+        for (int i = 0; i < 52; i++) list.add(i);
+        List<Integer> copy = new ArrayList<>(list);
+        RandomState.shuffle(copy, new SplittableRandom(0L));
+        assertNotEquals(list, copy);
+        copy.sort(null);
+        assertEquals(list, copy);
+    }
+}
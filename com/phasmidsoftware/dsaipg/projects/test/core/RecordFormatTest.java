@@ -0,0 +1,32 @@
+package com.phasmidsoftware.dsaipg.projects.com.phasmidsoftware.dsaipg.projects.test.core;
+
+import com.phasmidsoftware.dsaipg.projects.mcts.core.RecordFormat;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.*;
+
+public class RecordFormatTest {
+
+    @Test
+    public void testVarint() {
+        ByteBuffer buffer = ByteBuffer.allocate(64);
+        long[] values = {0, 1, 127, 128, 300, 1L << 52 | 0xFFF, -1};
+        for (long value : values) RecordFormat.putVarint(buffer, value);
+        assertEquals(1 + 1 + 1 + 2 + 2 + 8 + 10, buffer.position());
+        buffer.flip();
+        for (long value : values) assertEquals(value, RecordFormat.getVarint(buffer));
+        assertFalse(buffer.hasRemaining());
+    }
+
+    @Test
+    public void testSigned() {
+        ByteBuffer buffer = ByteBuffer.allocate(64);
+        long[] values = {0, -1, 1, -64, 63, Long.MIN_VALUE, Long.MAX_VALUE};
+        for (long value : values) RecordFormat.putSigned(buffer, value);
+        assertEquals("small values take one byte", 5 + 10 + 10, buffer.position());
+        buffer.flip();
+        for (long value : values) assertEquals(value, RecordFormat.getSigned(buffer));
+    }
+}
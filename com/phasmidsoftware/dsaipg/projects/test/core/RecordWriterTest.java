@@ -0,0 +1,94 @@
+package com.phasmidsoftware.dsaipg.projects.com.phasmidsoftware.dsaipg.projects.test.core;
+
+import com.phasmidsoftware.dsaipg.projects.mcts.core.Move;
+import com.phasmidsoftware.dsaipg.projects.mcts.core.Node;
+import com.phasmidsoftware.dsaipg.projects.mcts.core.RecordFormat;
+import com.phasmidsoftware.dsaipg.projects.mcts.core.RecordReader;
+import com.phasmidsoftware.dsaipg.projects.mcts.core.RecordWriter;
+import com.phasmidsoftware.dsaipg.projects.mcts.core.State;
+import com.phasmidsoftware.dsaipg.projects.mcts.tictactoe.MCTS;
+import com.phasmidsoftware.dsaipg.projects.mcts.tictactoe.TicTacToe;
+import com.phasmidsoftware.dsaipg.projects.mcts.tictactoe.TicTacToeCodec;
+import com.phasmidsoftware.dsaipg.projects.mcts.tictactoe.TicTacToeNode;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class RecordWriterTest {
+
+    @Test
+    public void testWriteAndRead() throws IOException {
+        TicTacToe game = new TicTacToe(0L);
+        TicTacToeCodec codec = new TicTacToeCodec(game);
+        Path path = Files.createTempFile("tictactoe", ".mctr");
+        try {
+            List<State<TicTacToe>> states = new ArrayList<>();
+            List<Long> chosen = new ArrayList<>();
+            List<Integer> playouts = new ArrayList<>();
+            try (RecordWriter<TicTacToe> writer = new RecordWriter<>(path, codec)) {
+                State<TicTacToe> state = game.start();
+                while (!state.isTerminal()) {
+                    TicTacToeNode root = new TicTacToeNode(state);
+                    Move<TicTacToe> move = new MCTS(root, 200).findBestMove();
+                    writer.add(root, move);
+                    states.add(state);
+                    chosen.add(move.code());
+                    playouts.add(root.children().stream().mapToInt(Node::playouts).sum());
+                    state = state.next(move);
+                }
+                writer.endGame(state.winner().orElse(-1));
+                writer.add(new TicTacToeNode(game.start()), game.start().chooseMove(TicTacToe.X));
+                assertEquals("the unfinished game is not counted", states.size(), writer.records());
+            }
+            // NOTE: a second writer appends to the same file.
+            try (RecordWriter<TicTacToe> writer = new RecordWriter<>(path, codec)) {
+                TicTacToeNode root = new TicTacToeNode(game.start());
+                Move<TicTacToe> move = new MCTS(root, 50).findBestMove();
+                writer.add(root, move);
+                writer.endGame(7);
+            }
+            try (RecordReader reader = new RecordReader(path)) {
+                assertEquals(RecordFormat.GAME_TICTACTOE, reader.game());
+                assertEquals(RecordFormat.VERSION, reader.version());
+                for (int i = 0; i < states.size(); i++) {
+                    assertTrue(reader.next());
+                    State<TicTacToe> decoded = codec.decode(reader.state());
+                    assertEquals(((TicTacToe.TicTacToeState) states.get(i)).position(), ((TicTacToe.TicTacToeState) decoded).position());
+                    assertEquals(states.get(i).player(), decoded.player());
+                    assertEquals(chosen.get(i).longValue(), reader.chosen());
+                    int visits = 0;
+                    boolean found = false;
+                    for (int j = 0; j < reader.moves(); j++) {
+                        visits += reader.visits(j);
+                        if (reader.move(j) == reader.chosen()) found = true;
+                    }
+                    assertTrue(found);
+                    assertEquals(playouts.get(i).intValue(), visits);
+                }
+                assertTrue(reader.next());
+                assertEquals(7, reader.outcome());
+                assertFalse(reader.next());
+                assertEquals(states.size() + 1, reader.records());
+            }
+        } finally {
+            Files.delete(path);
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void testNotRecordFile() throws IOException {
+        Path path = Files.createTempFile("tictactoe", ".mctr");
+        try {
+            Files.write(path, new byte[]{1, 2, 3, 4, 5, 6, 7});
+            new RecordReader(path);
+        } finally {
+            Files.delete(path);
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package com.phasmidsoftware.dsaipg.projects.com.phasmidsoftware.dsaipg.projects.test.core;
+
+import com.phasmidsoftware.dsaipg.projects.mcts.core.SearchResult;
+import com.phasmidsoftware.dsaipg.projects.mcts.core.SearchService;
+import com.phasmidsoftware.dsaipg.projects.mcts.core.Searcher;
+import com.phasmidsoftware.dsaipg.projects.mcts.tictactoe.TicTacToe;
+import org.junit.Test;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class SearchServiceTest {
+
+    @Test
+    public void testSubmit() throws Exception {
+        SearchService target = new SearchService(250);
+        Blocking searcher = new Blocking(false);
+        SearchResult<TicTacToe> result = target.submit(searcher).get(5, TimeUnit.SECONDS);
+        assertEquals(7, result.iterations());
+        assertEquals(250, searcher.timeBudget);
+    }
+
+    @Test
+    public void testNoTimeBudget() throws Exception {
+        Blocking searcher = new Blocking(false);
+        searcher.timeBudget = 99;
+        new SearchService().submit(searcher).get(5, TimeUnit.SECONDS);
+        assertEquals(99, searcher.timeBudget);
+    }
+
+    @Test
+    public void testSubmitCancelsPrevious() throws Exception {
+        SearchService target = new SearchService();
+        Blocking first = new Blocking(true);
+        CompletableFuture<SearchResult<TicTacToe>> stale = target.submit(first);
+        assertTrue(first.started.await(5, TimeUnit.SECONDS));
+        CompletableFuture<SearchResult<TicTacToe>> fresh = target.submit(new Blocking(false));
+        assertTrue(stale.isCancelled());
+        assertTrue(first.interrupted.await(5, TimeUnit.SECONDS));
+        assertEquals(7, fresh.get(5, TimeUnit.SECONDS).iterations());
+    }
+
+    @Test
+    public void testCancel() throws Exception {
+        SearchService target = new SearchService();
+        assertFalse(target.cancel());
+        Blocking searcher = new Blocking(true);
+        CompletableFuture<SearchResult<TicTacToe>> future = target.submit(searcher);
+        assertTrue(searcher.started.await(5, TimeUnit.SECONDS));
+        assertTrue(target.cancel());
+        assertTrue(searcher.interrupted.await(5, TimeUnit.SECONDS));
+        try {
+            future.get();
+            fail("expected CancellationException");
+        } catch (CancellationException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testPonder() throws Exception {
+        SearchService target = new SearchService(250);
+        assertFalse(target.stop());
+        Blocking searcher = new Blocking(true);
+        CompletableFuture<SearchResult<TicTacToe>> future = target.ponder(searcher);
+        assertTrue(searcher.started.await(5, TimeUnit.SECONDS));
+        assertEquals(0, searcher.timeBudget);
+        assertTrue(target.stop());
+        assertEquals(7, future.get(5, TimeUnit.SECONDS).iterations());
+        assertFalse(future.isCancelled());
+        assertFalse(target.stop());
+    }
+
+    @Test
+    public void testStopBeforeStart() throws Exception {
+        SearchService target = new SearchService();
+        Blocking searcher = new Blocking(false);
+        CompletableFuture<SearchResult<TicTacToe>> future;
+        // NOTE: holding the monitor of the service keeps the task (if the pool has taken it) from starting its search.
+        synchronized (target) {
+            future = target.ponder(searcher);
+            Thread.sleep(100);
+            assertFalse(target.stop());
+        }
+        assertTrue(future.isCancelled());
+        assertFalse(searcher.started.await(200, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void testFailure() throws Exception {
+        Searcher<TicTacToe> searcher = new Blocking(false) {
+            @Override
+            public SearchResult<TicTacToe> search() {
+                throw new IllegalStateException("failed");
+            }
+        };
+        try {
+            new SearchService().submit(searcher).get(5, TimeUnit.SECONDS);
+            fail("expected ExecutionException");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof IllegalStateException);
+        }
+    }
+
+    @Test
+    public void testClose() throws Exception {
+        SearchService target = new SearchService();
+        target.close();
+        CompletableFuture<SearchResult<TicTacToe>> future = target.submit(new Blocking(false));
+        assertTrue(future.isCompletedExceptionally());
+        try {
+            future.get();
+            fail("expected ExecutionException");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof RejectedExecutionException);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNegativeTimeBudget() {
+        new SearchService(-1);
+    }
+
+    /**
+     * A Searcher which (if blocking) waits until it is interrupted.
+     */
+    private static class Blocking implements Searcher<TicTacToe> {
+        Blocking(boolean blocking) {
+            this.blocking = blocking;
+        }
+
+        @Override
+        public SearchResult<TicTacToe> search() {
+            started.countDown();
+            if (blocking) {
+                try {
+                    Thread.sleep(60_000);
+                } catch (InterruptedException e) {
+                    interrupted.countDown();
+                }
+            }
+            return new SearchResult<>(null, 7, 10, 0);
+        }
+
+        @Override
+        public void setTimeBudget(long millis) {
+            timeBudget = millis;
+        }
+
+        private final boolean blocking;
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch interrupted = new CountDownLatch(1);
+        long timeBudget;
+    }
+}
@@ -0,0 +1,51 @@
+package com.phasmidsoftware.dsaipg.projects.com.phasmidsoftware.dsaipg.projects.test.core;
+
+import com.phasmidsoftware.dsaipg.projects.mcts.core.Node;
+import com.phasmidsoftware.dsaipg.projects.mcts.core.SearchSnapshot;
+import com.phasmidsoftware.dsaipg.projects.mcts.tictactoe.MCTS;
+import com.phasmidsoftware.dsaipg.projects.mcts.tictactoe.TicTacToe;
+import com.phasmidsoftware.dsaipg.projects.mcts.tictactoe.TicTacToeNode;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class SearchSnapshotTest {
+
+    @Test
+    public void testOf() {
+        Node<TicTacToe> root = new TicTacToeNode(new TicTacToe(0L).start());
+        new MCTS(root, 500).findBestMove();
+        SearchSnapshot<TicTacToe> target = SearchSnapshot.of(root, 3, 500, 1234);
+        assertEquals(500, target.iterations());
+        assertEquals(1234, target.nanos());
+        List<SearchSnapshot.Entry<TicTacToe>> entries = target.entries();
+        assertEquals(3, entries.size());
+        int mostVisited = 0;
+        for (int i = 0; i < root.childCount(); i++) mostVisited = Math.max(mostVisited, root.child(i).playouts());
+        assertEquals(mostVisited, entries.get(0).playouts());
+        assertEquals(entries.get(0).move(), target.best());
+        for (int i = 1; i < entries.size(); i++) assertTrue(entries.get(i - 1).playouts() >= entries.get(i).playouts());
+        for (SearchSnapshot.Entry<TicTacToe> entry : entries) assertTrue(entry.mean() >= 0 && entry.mean() <= 2);
+    }
+
+    @Test
+    public void testOfUnvisited() {
+        SearchSnapshot<TicTacToe> target = SearchSnapshot.of(new TicTacToeNode(new TicTacToe(0L).start()), 3, 0, 0);
+        assertTrue(target.entries().isEmpty());
+        assertNull(target.best());
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testImmutable() {
+        Node<TicTacToe> root = new TicTacToeNode(new TicTacToe(0L).start());
+        new MCTS(root, 100).findBestMove();
+        SearchSnapshot.of(root, 3, 100, 0).entries().clear();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidSize() {
+        SearchSnapshot.of(new TicTacToeNode(new TicTacToe(0L).start()), 0, 0, 0);
+    }
+}
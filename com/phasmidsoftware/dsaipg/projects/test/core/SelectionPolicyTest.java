@@ -0,0 +1,40 @@
+package com.phasmidsoftware.dsaipg.projects.com.phasmidsoftware.dsaipg.projects.test.core;
+
+import com.phasmidsoftware.dsaipg.projects.mcts.core.SelectionPolicy;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class SelectionPolicyTest {
+
+    @Test
+    public void testUcb1() {
+        SelectionPolicy target = SelectionPolicy.ucb1(Math.sqrt(2));
+        assertEquals(0.5 + Math.sqrt(2 * Math.log(100) / 10), target.score(0.5, 0, 10, 1, 100, Math.log(100)), 1E-9);
+        assertEquals(Double.POSITIVE_INFINITY, target.firstPlayUrgency(), 0);
+    }
+
+    @Test
+    public void testUcb1Tuned() {
+        SelectionPolicy target = SelectionPolicy.ucb1Tuned();
+        double log = Math.log(10000);
+        assertEquals("the variance bound is capped at 1/4", 0.5 + Math.sqrt(log / 10 * 0.25), target.score(0.5, 0.25, 10, 1, 10000, log), 1E-9);
+        assertTrue("a child with a low variance is explored less",
+                target.score(0.5, 0.01, 1000, 1, 10000, log) < target.score(0.5, 0.25, 1000, 1, 10000, log));
+    }
+
+    @Test
+    public void testPuct() {
+        SelectionPolicy target = SelectionPolicy.puct(1.5);
+        assertEquals(0.5 + 1.5 * 0.2 * 10 / 5, target.score(0.5, 0, 4, 0.2, 100, Math.log(100)), 1E-9);
+        assertTrue("the more probable move is preferred",
+                target.score(0.5, 0, 4, 0.6, 100, Math.log(100)) > target.score(0.5, 0, 4, 0.2, 100, Math.log(100)));
+    }
+
+    @Test
+    public void testWithFirstPlayUrgency() {
+        SelectionPolicy target = SelectionPolicy.ucb1Tuned().withFirstPlayUrgency(0.75);
+        assertEquals(0.75, target.firstPlayUrgency(), 0);
+        assertEquals(SelectionPolicy.ucb1Tuned().score(0.5, 0.1, 10, 1, 100, Math.log(100)), target.score(0.5, 0.1, 10, 1, 100, Math.log(100)), 0);
+    }
+}
@@ -0,0 +1,75 @@
+package com.phasmidsoftware.dsaipg.projects.com.phasmidsoftware.dsaipg.projects.test.core;
+
+import com.phasmidsoftware.dsaipg.projects.adt.bqs.UnorderedIntIterator;
+import com.phasmidsoftware.dsaipg.projects.adt.bqs.UnorderedIterator;
+import org.junit.Test;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class UnorderedIteratorTest {
+
+    @Test
+    public void testPermutation() {
+        List<Integer> list = new ArrayList<>();
+        for (int i = 0; i < 300; i++) list.add(i);
+        Iterator<Integer> iterator = UnorderedIterator.createDeterministic(list, 0L);
+        Set<Integer> seen = new HashSet<>();
+        List<Integer> order = new ArrayList<>();
+        while (iterator.hasNext()) {
+            Integer next = iterator.next();
+            assertTrue(seen.add(next));
+            order.add(next);
+        }
+        assertEquals(300, seen.size());
+        assertNotEquals(list, order);
+        // NOTE: the source collection is not disturbed.
+        for (int i = 0; i < 300; i++) assertEquals(i, list.get(i).intValue());
+    }
+
+    @Test
+    public void testDeterministic() {
+        List<String> list = Arrays.asList("a", "b", "c", "d", "e", "f");
+        List<String> first = new ArrayList<>();
+        List<String> second = new ArrayList<>();
+        UnorderedIterator.createDeterministic(list, 42L).forEachRemaining(first::add);
+        UnorderedIterator.createDeterministic(list, 42L).forEachRemaining(second::add);
+        assertEquals(first, second);
+    }
+
+    @Test
+    public void testFirstElementUniform() {
+        List<Integer> list = Arrays.asList(0, 1, 2, 3);
+        int[] counts = new int[4];
+        SplittableRandom random = new SplittableRandom(0L);
+        for (int i = 0; i < 40000; i++) counts[new UnorderedIterator<>(list, random).next()]++;
+        for (int count : counts) assertEquals(10000, count, 500);
+    }
+
+    @Test(expected = NoSuchElementException.class)
+    public void testExhausted() {
+        Iterator<String> iterator = new UnorderedIterator<>(new String[]{"x"}, new SplittableRandom(0L));
+        iterator.next();
+        iterator.next();
+    }
+
+    @Test
+    public void testIntIterator() {
+        UnorderedIntIterator iterator = new UnorderedIntIterator(300, new SplittableRandom(0L));
+        boolean[] seen = new boolean[300];
+        int count = 0;
+        while (iterator.hasNext()) {
+            int next = iterator.nextInt();
+            assertFalse(seen[next]);
+            seen[next] = true;
+            count++;
+        }
+        assertEquals(300, count);
+    }
+
+    @Test(expected = NoSuchElementException.class)
+    public void testIntIteratorEmpty() {
+        new UnorderedIntIterator(0, new SplittableRandom(0L)).nextInt();
+    }
+}
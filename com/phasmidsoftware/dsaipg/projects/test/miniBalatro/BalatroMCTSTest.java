@@ -1,14 +1,30 @@
 package com.phasmidsoftware.dsaipg.projects.com.phasmidsoftware.dsaipg.projects.test.miniBalatro;
 
+import com.phasmidsoftware.dsaipg.projects.mcts.miniBalatro.BalatroCodec;
+import com.phasmidsoftware.dsaipg.projects.mcts.miniBalatro.BalatroEvaluator;
 import com.phasmidsoftware.dsaipg.projects.mcts.miniBalatro.BalatroGame;
+import com.phasmidsoftware.dsaipg.projects.mcts.miniBalatro.BalatroMove;
+import com.phasmidsoftware.dsaipg.projects.mcts.miniBalatro.Card;
 import com.phasmidsoftware.dsaipg.projects.mcts.miniBalatro.BalatroMCTS;
+import com.phasmidsoftware.dsaipg.projects.mcts.miniBalatro.BalatroMacro;
 import com.phasmidsoftware.dsaipg.projects.mcts.core.Move;
+import com.phasmidsoftware.dsaipg.projects.mcts.core.SearchResult;
+import com.phasmidsoftware.dsaipg.projects.mcts.core.SearchSnapshot;
 import com.phasmidsoftware.dsaipg.projects.mcts.core.State;
 import com.phasmidsoftware.dsaipg.projects.mcts.miniBalatro.BalatroNode;
+import com.phasmidsoftware.dsaipg.projects.mcts.miniBalatro.BalatroState;
+import com.phasmidsoftware.dsaipg.projects.mcts.miniBalatro.BalatroValueModel;
+import com.phasmidsoftware.dsaipg.projects.mcts.miniBalatro.BalatroGreedyPolicy;
 import org.junit.Test;
 
 import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.random.RandomGenerator;
 
 import static org.junit.Assert.*;
 
@@ -63,4 +79,386 @@ public class BalatroMCTSTest {
         Move<BalatroGame> move = mcts.findBestMove();
         assertNotNull("Best move should not be null", move);
     }
+
+    @Test
+    public void testProgressiveWidening() {
+        BalatroNode root = new BalatroNode(new BalatroGame(0L).start());
+        BalatroMCTS mcts = new BalatroMCTS(root, 100);
+        mcts.setProgressiveWidening(2, 0.5);
+        assertNotNull(mcts.findBestMove());
+        assertTrue("root is limited to ceil(2 * sqrt(100)) children", root.children().size() <= 20);
+        assertTrue("the search goes beyond one ply", root.depth() > 1);
+        assertEquals(root.state().moves(0).size(), ((BalatroState) root.state()).movesByPrior().size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testProgressiveWideningInvalid() {
+        new BalatroMCTS(new BalatroNode(new BalatroGame(0L).start()), 100).setProgressiveWidening(2, 1.5);
+    }
+
+    @Test
+    public void testAddChildNode() {
+        State<BalatroGame> state = new BalatroGame(0L).start();
+        BalatroNode node = new BalatroNode(state);
+        Move<BalatroGame> move = state.moves(0).iterator().next();
+        node.addChild(state.next(move));
+        assertFalse(node.hasChildForMove(move));
+        BalatroNode child = node.addChildNode(new BalatroNode(state.next(move), move));
+        assertTrue(node.hasChildForMove(move));
+        assertSame(child, node.child(1));
+    }
+
+    @Test
+    public void testCanonicalMoves() {
+        Card twoC = new Card(2, Card.Suit.CLUBS), twoD = new Card(2, Card.Suit.DIAMONDS), nineH = new Card(9, Card.Suit.HEARTS);
+        List<Card> hand = new ArrayList<>(List.of(twoC, twoD, nineH, new Card(9, Card.Suit.SPADES),
+                new Card(13, Card.Suit.CLUBS), new Card(13, Card.Suit.DIAMONDS), new Card(7, Card.Suit.HEARTS), new Card(7, Card.Suit.SPADES)));
+        BalatroState state = new BalatroState(new BalatroGame(0L), hand, new ArrayList<>(), new ArrayDeque<>(), 5, 3, new Random(0L), 0);
+        Set<Move<BalatroGame>> canonical = new HashSet<>(state.canonicalMoves());
+        assertTrue(canonical.size() < state.moves(0).size());
+        assertTrue(canonical.contains(new BalatroMove(BalatroMove.Action.DISCARD, List.of(twoC), 0)));
+        assertFalse("discarding either two is the same, up to suits", canonical.contains(new BalatroMove(BalatroMove.Action.DISCARD, List.of(twoD), 0)));
+        assertTrue(canonical.contains(new BalatroMove(BalatroMove.Action.DISCARD, List.of(nineH), 0)));
+    }
+
+    @Test
+    public void testCanonicalMovesWithTable() {
+        Card twoC = new Card(2, Card.Suit.CLUBS), twoD = new Card(2, Card.Suit.DIAMONDS);
+        List<Card> hand = new ArrayList<>(List.of(twoC, twoD, new Card(9, Card.Suit.HEARTS), new Card(9, Card.Suit.SPADES),
+                new Card(13, Card.Suit.CLUBS), new Card(13, Card.Suit.DIAMONDS), new Card(7, Card.Suit.HEARTS), new Card(7, Card.Suit.SPADES)));
+        List<Card> table = new ArrayList<>(List.of(new Card(4, Card.Suit.CLUBS), new Card(5, Card.Suit.CLUBS)));
+        BalatroState state = new BalatroState(new BalatroGame(0L), hand, table, new ArrayDeque<>(), 5, 3, new Random(0L), 0);
+        Set<Move<BalatroGame>> canonical = new HashSet<>(state.canonicalMoves());
+        assertTrue(canonical.contains(new BalatroMove(BalatroMove.Action.DISCARD, List.of(twoC), 0)));
+        assertTrue("clubs are scarcer than diamonds, having been played", canonical.contains(new BalatroMove(BalatroMove.Action.DISCARD, List.of(twoD), 0)));
+    }
+
+    @Test
+    public void testFindBestMoveWithCanonicalMoves() {
+        BalatroNode root = new BalatroNode(new BalatroGame(0L).start());
+        BalatroMCTS mcts = new BalatroMCTS(root, 100);
+        mcts.setCanonicalMoves(true);
+        Move<BalatroGame> move = mcts.findBestMove();
+        assertTrue(((BalatroState) root.state()).canonicalMoves().contains(move));
+    }
+
+    @Test
+    public void testMacroActions() {
+        List<Card> hand = new ArrayList<>(List.of(new Card(2, Card.Suit.HEARTS), new Card(5, Card.Suit.HEARTS), new Card(9, Card.Suit.HEARTS),
+                new Card(11, Card.Suit.HEARTS), new Card(13, Card.Suit.HEARTS), new Card(13, Card.Suit.CLUBS), new Card(4, Card.Suit.SPADES), new Card(7, Card.Suit.DIAMONDS)));
+        Deque<Card> deck = new ArrayDeque<>(List.of(new Card(3, Card.Suit.CLUBS)));
+        BalatroState state = new BalatroState(new BalatroGame(0L), hand, new ArrayList<>(), deck, 5, 3, new Random(0L), 0);
+        BalatroMove flush = BalatroMacro.PLAY_FLUSH.resolve(state);
+        assertNotNull(flush);
+        assertTrue(flush.getCards().stream().allMatch(card -> card.getSuit() == Card.Suit.HEARTS));
+        List<Card> pair = BalatroMacro.PLAY_PAIR.resolve(state).getCards();
+        assertEquals("the kings, with three kickers", 2, pair.stream().filter(card -> card.getRank() == 13).count());
+        assertEquals(5, pair.size());
+        assertNull(BalatroMacro.PLAY_FOUR_OF_A_KIND.resolve(state));
+        BalatroMove discard = BalatroMacro.DISCARD_TOWARD_FLUSH.resolve(state);
+        assertEquals(BalatroMove.Action.DISCARD, discard.getAction());
+        assertEquals(3, discard.getCards().size());
+        assertTrue(discard.getCards().stream().noneMatch(card -> card.getSuit() == Card.Suit.HEARTS));
+        List<Move<BalatroGame>> moves = BalatroMacro.moves(state);
+        assertTrue(moves.size() <= BalatroMacro.values().length);
+        assertEquals(moves.size(), new HashSet<>(moves).size());
+    }
+
+    @Test
+    public void testFindBestMoveWithMacroActions() {
+        BalatroNode root = new BalatroNode(new BalatroGame(0L).start());
+        BalatroMCTS mcts = new BalatroMCTS(root, 200);
+        mcts.setMacroActions(true);
+        Move<BalatroGame> move = mcts.findBestMove();
+        assertTrue(BalatroMacro.moves((BalatroState) root.state()).contains(move));
+        assertTrue(root.depth() > 2);
+    }
+
+    @Test
+    public void testSequentialHalving() {
+        BalatroNode root = new BalatroNode(new BalatroGame(0L).start());
+        BalatroMCTS mcts = new BalatroMCTS(root, 100);
+        mcts.setSequentialHalving(true);
+        mcts.setParallel(true);
+        Move<BalatroGame> move = mcts.findBestMove();
+        assertTrue(root.state().moves(0).contains(move));
+        assertEquals("the flat search builds no tree", 0, root.childCount());
+    }
+
+    @Test
+    public void testSequentialHalvingReproducible() {
+        List<Move<BalatroGame>> moves = new ArrayList<>();
+        for (boolean parallel : new boolean[]{false, true, true}) {
+            BalatroMCTS mcts = new BalatroMCTS(new BalatroNode(new BalatroGame(0L).start()), 400);
+            mcts.setSequentialHalving(true);
+            mcts.setParallel(parallel);
+            mcts.setSeed(1L);
+            moves.add(mcts.findBestMove());
+        }
+        assertEquals(moves.get(0), moves.get(1));
+        assertEquals(moves.get(0), moves.get(2));
+    }
+
+    @Test
+    public void testResample() {
+        BalatroState state = (BalatroState) new BalatroGame(0L).start();
+        Move<BalatroGame> discard = state.moves(0).stream().filter(m -> ((BalatroMove) m).getAction() == BalatroMove.Action.DISCARD).findFirst().orElseThrow();
+        Set<Set<Move<BalatroGame>>> draws = new HashSet<>();
+        SplittableRandom random = new SplittableRandom(1L);
+        for (int i = 0; i < 10; i++) {
+            BalatroState resampled = state.resample(random);
+            // NOTE: the hand is known, so the moves are the same; only the draws differ.
+            assertEquals(new HashSet<>(state.moves(0)), new HashSet<>(resampled.moves(0)));
+            assertEquals(state.getScore(), resampled.getScore());
+            draws.add(new HashSet<>(resampled.next(discard).moves(0)));
+        }
+        assertTrue(draws.size() > 1);
+    }
+
+    @Test
+    public void testFindBestMoveOpenLoop() {
+        BalatroNode root = new BalatroNode(new BalatroGame(0L).start());
+        BalatroMCTS mcts = new BalatroMCTS(root, 300);
+        mcts.setOpenLoop(true);
+        mcts.setProgressiveWidening(2, 0.5);
+        mcts.setSeed(1L);
+        Move<BalatroGame> move = mcts.findBestMove();
+        assertTrue(root.state().moves(0).contains(move));
+        assertEquals(300, mcts.getIterations());
+        assertTrue(root.size() <= 301);
+    }
+
+    @Test
+    public void testOpenLoopTerminalChildren() {
+        List<Card> hand = new ArrayList<>(List.of(new Card(2, Card.Suit.HEARTS), new Card(5, Card.Suit.HEARTS), new Card(9, Card.Suit.CLUBS),
+                new Card(11, Card.Suit.HEARTS), new Card(13, Card.Suit.SPADES), new Card(13, Card.Suit.CLUBS), new Card(4, Card.Suit.SPADES), new Card(7, Card.Suit.DIAMONDS)));
+        Deque<Card> deck = new ArrayDeque<>(List.of(new Card(3, Card.Suit.CLUBS), new Card(8, Card.Suit.HEARTS), new Card(12, Card.Suit.DIAMONDS)));
+        // NOTE: with one play and no discards left, every move ends the game.
+        BalatroState state = new BalatroState(new BalatroGame(0L), hand, new ArrayList<>(), deck, 1, 0, new Random(0L), 0);
+        BalatroNode root = new BalatroNode(state);
+        BalatroMCTS mcts = new BalatroMCTS(root, 100);
+        mcts.setOpenLoop(true);
+        mcts.setSeed(1L);
+        mcts.findBestMove();
+        int playouts = 0;
+        for (int i = 0; i < root.childCount(); i++) playouts += root.child(i).playouts();
+        assertEquals(100, root.playouts());
+        assertEquals(100, playouts);
+    }
+
+    @Test
+    public void testTerminalChildren() {
+        List<Card> hand = new ArrayList<>(List.of(new Card(2, Card.Suit.HEARTS), new Card(5, Card.Suit.HEARTS), new Card(9, Card.Suit.CLUBS),
+                new Card(11, Card.Suit.HEARTS), new Card(13, Card.Suit.SPADES), new Card(13, Card.Suit.CLUBS), new Card(4, Card.Suit.SPADES), new Card(7, Card.Suit.DIAMONDS)));
+        Deque<Card> deck = new ArrayDeque<>(List.of(new Card(3, Card.Suit.CLUBS), new Card(8, Card.Suit.HEARTS), new Card(12, Card.Suit.DIAMONDS)));
+        // NOTE: with one play and no discards left, every move ends the game.
+        BalatroState state = new BalatroState(new BalatroGame(0L), hand, new ArrayList<>(), deck, 1, 0, new Random(0L), 0);
+        BalatroNode root = new BalatroNode(state);
+        BalatroMCTS mcts = new BalatroMCTS(root, 100);
+        mcts.setSeed(1L);
+        mcts.findBestMove();
+        int playouts = 0;
+        for (int i = 0; i < root.childCount(); i++) playouts += root.child(i).playouts();
+        assertEquals(100, root.playouts());
+        assertEquals(100, playouts);
+        for (int i = 0; i < root.childCount(); i++) {
+            BalatroNode child = root.child(i);
+            if (child.playouts() > 0) assertEquals(((BalatroState) child.state()).getScore() * child.playouts(), child.wins());
+        }
+    }
+
+    @Test
+    public void testWithNextDraw() {
+        BalatroState state = (BalatroState) new BalatroGame(0L).start();
+        double[] probabilities = state.drawProbabilities();
+        assertEquals(1.0, Arrays.stream(probabilities).sum(), 1E-9);
+        Set<Move<BalatroGame>> before = new HashSet<>(state.moves(0));
+        Move<BalatroGame> discard = before.stream().filter(m -> ((BalatroMove) m).getAction() == BalatroMove.Action.DISCARD).findFirst().orElseThrow();
+        int drawn = ((BalatroMove) discard).getCards().size();
+        for (int stratum = 0; stratum < BalatroState.DRAW_STRATA; stratum++) {
+            if (probabilities[stratum] == 0) continue;
+            State<BalatroGame> next = state.withNextDraw(stratum, new SplittableRandom(stratum)).next(discard);
+            // NOTE: the cards drawn are those which may now be played alone (but could not be before).
+            List<Integer> ranks = new ArrayList<>();
+            for (Move<BalatroGame> move : next.moves(0)) {
+                BalatroMove balatroMove = (BalatroMove) move;
+                if (balatroMove.getAction() == BalatroMove.Action.PLAY && balatroMove.getCards().size() == 1 && !before.contains(move))
+                    ranks.add(balatroMove.getCards().get(0).getRank());
+            }
+            assertEquals(drawn, ranks.size());
+            assertTrue(ranks.contains(stratum + 1));
+        }
+    }
+
+    @Test
+    public void testFindBestMoveWithChanceNodes() {
+        BalatroNode root = new BalatroNode(new BalatroGame(0L).start());
+        BalatroMCTS mcts = new BalatroMCTS(root, 300);
+        mcts.setChanceNodes(true);
+        mcts.setProgressiveWidening(2, 0.5);
+        mcts.setSeed(1L);
+        Move<BalatroGame> move = mcts.findBestMove();
+        assertTrue(root.state().moves(0).contains(move));
+        assertEquals(300, mcts.getIterations());
+        for (int i = 0; i < root.childCount(); i++) {
+            BalatroNode child = root.child(i);
+            assertNotNull(child.getChance());
+            assertEquals(child.playouts(), child.getChance().playouts());
+        }
+    }
+
+    @Test
+    public void testEvaluator() {
+        List<Card> hand = new ArrayList<>(List.of(new Card(2, Card.Suit.HEARTS), new Card(5, Card.Suit.HEARTS), new Card(9, Card.Suit.HEARTS),
+                new Card(11, Card.Suit.HEARTS), new Card(13, Card.Suit.HEARTS), new Card(13, Card.Suit.CLUBS), new Card(4, Card.Suit.SPADES), new Card(7, Card.Suit.DIAMONDS)));
+        BalatroEvaluator target = new BalatroEvaluator(10);
+        BalatroState state = new BalatroState(new BalatroGame(0L), hand, new ArrayList<>(), new ArrayDeque<>(), 5, 3, new Random(0L), 12);
+        assertEquals("the score so far, a flush, and no cards to draw", 12 + 90, target.evaluate(state, 0));
+        // NOTE: the deck has just eight cards, so every hand drawn from it is all of them (which make a flush).
+        Deque<Card> deck = new ArrayDeque<>(List.of(new Card(2, Card.Suit.CLUBS), new Card(3, Card.Suit.CLUBS), new Card(5, Card.Suit.CLUBS),
+                new Card(8, Card.Suit.CLUBS), new Card(9, Card.Suit.CLUBS), new Card(4, Card.Suit.SPADES), new Card(7, Card.Suit.DIAMONDS), new Card(13, Card.Suit.DIAMONDS)));
+        state = new BalatroState(new BalatroGame(0L), hand, new ArrayList<>(), deck, 5, 3, new Random(0L), 12);
+        assertEquals("the score so far, a flush, and four more flushes", 12 + 90 + 4 * 90, target.evaluate(state, 0));
+        assertEquals("the deck is not disturbed", new Card(2, Card.Suit.CLUBS), deck.peek());
+        // NOTE: a hand of two from a run of spades makes only a high card, but with a discard it sees seven (a straight flush).
+        Deque<Card> spades = new ArrayDeque<>();
+        for (int rank = 2; rank <= 9; rank++) spades.add(new Card(rank, Card.Suit.SPADES));
+        List<Card> pair = new ArrayList<>(List.of(new Card(12, Card.Suit.CLUBS), new Card(12, Card.Suit.DIAMONDS)));
+        int without = target.evaluate(new BalatroState(new BalatroGame(0L), pair, new ArrayList<>(), new ArrayDeque<>(spades), 2, 0, new Random(0L), 0), 0);
+        int with = target.evaluate(new BalatroState(new BalatroGame(0L), pair, new ArrayList<>(), new ArrayDeque<>(spades), 2, 1, new Random(0L), 0), 0);
+        assertTrue(with > without);
+        List<Card> royal = new ArrayList<>(List.of(new Card(10, Card.Suit.SPADES), new Card(11, Card.Suit.SPADES), new Card(12, Card.Suit.SPADES),
+                new Card(13, Card.Suit.SPADES), new Card(1, Card.Suit.SPADES), new Card(13, Card.Suit.CLUBS), new Card(13, Card.Suit.HEARTS)));
+        assertEquals(800, target.evaluate(new BalatroState(new BalatroGame(0L), royal, new ArrayList<>(), new ArrayDeque<>(), 1, 0, new Random(0L), 0), 0));
+        assertEquals("a terminal state is just its score", 77, target.evaluate(new BalatroState(new BalatroGame(0L), hand, new ArrayList<>(), new ArrayDeque<>(), 0, 3, new Random(0L), 77), 0));
+        double expected = BalatroEvaluator.expectedBestPlay(8, 200, new Random(0L));
+        assertTrue(expected > 8 && expected < 90);
+    }
+
+    @Test
+    public void testFindBestMoveWithCutoff() {
+        BalatroNode root = new BalatroNode(new BalatroGame(0L).start());
+        BalatroMCTS mcts = new BalatroMCTS(root, 200);
+        mcts.setCutoff(1, new BalatroEvaluator());
+        Move<BalatroGame> move = mcts.findBestMove();
+        assertTrue(root.state().moves(0).contains(move));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testCutoffInvalid() {
+        new BalatroMCTS(new BalatroNode(new BalatroGame(0L).start()), 100).setCutoff(-1, new BalatroEvaluator());
+    }
+
+    @Test
+    public void testValueModel() throws IOException {
+        List<BalatroValueModel.Sample> samples = BalatroValueModel.selfPlay(200, new BalatroGreedyPolicy(), 0L);
+        assertTrue(samples.size() >= 200 * 5);
+        BalatroValueModel model = BalatroValueModel.fit(samples, 1.0);
+        double[] mean = new double[BalatroValueModel.FEATURES];
+        mean[0] = 1;
+        assertTrue("the model does better than predicting zero", model.rmse(samples) < new BalatroValueModel(mean).rmse(samples));
+        Path path = Files.createTempFile("balatro", ".txt");
+        try {
+            model.save(path);
+            assertArrayEquals(model.weights(), BalatroValueModel.load(path).weights(), 0);
+        } finally {
+            Files.delete(path);
+        }
+        State<BalatroGame> state = new BalatroGame(1L).start();
+        assertTrue(model.evaluate(state, 0) >= 0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testValueModelInvalid() {
+        new BalatroValueModel(new double[3]);
+    }
+
+    @Test
+    public void testFindBestMoveWithValueFunction() {
+        BalatroNode root = new BalatroNode(new BalatroGame(0L).start());
+        BalatroMCTS mcts = new BalatroMCTS(root, 100);
+        mcts.setValueFunction(new BalatroEvaluator(), 1);
+        Move<BalatroGame> move = mcts.findBestMove();
+        assertTrue(root.state().moves(0).contains(move));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testValueFunctionInvalid() {
+        new BalatroMCTS(new BalatroNode(new BalatroGame(0L).start()), 100).setValueFunction(new BalatroEvaluator(), 1.5);
+    }
+
+    @Test
+    public void testCodec() {
+        BalatroGame game = new BalatroGame(0L);
+        BalatroCodec codec = new BalatroCodec(game, new Random(0L));
+        State<BalatroGame> state = game.start();
+        state = state.next(state.moves(0).iterator().next());
+        ByteBuffer buffer = ByteBuffer.allocate(256);
+        codec.encode(state, buffer);
+        buffer.flip();
+        BalatroState decoded = (BalatroState) codec.decode(buffer);
+        assertFalse(buffer.hasRemaining());
+        assertEquals(state.toString(), decoded.toString());
+        assertEquals(((BalatroState) state).getScore(), decoded.getScore());
+        assertEquals(state.moves(0), decoded.moves(0));
+    }
+
+    @Test
+    public void testTimeBudget() {
+        BalatroMCTS mcts = new BalatroMCTS(new BalatroNode(new BalatroGame(0L).start()), Integer.MAX_VALUE);
+        mcts.setTimeBudget(20);
+        SearchResult<BalatroGame> result = mcts.search();
+        assertNotNull(result.move());
+        assertTrue(result.iterations() > 0);
+        assertTrue(result.saved() > 0);
+    }
+
+    @Test
+    public void testInterrupted() {
+        BalatroMCTS mcts = new BalatroMCTS(new BalatroNode(new BalatroGame(0L).start()), 1000);
+        Thread.currentThread().interrupt();
+        try {
+            SearchResult<BalatroGame> result = mcts.search();
+            assertNotNull(result.move());
+            assertEquals(1, result.iterations());
+        } finally {
+            Thread.interrupted();
+        }
+    }
+
+    @Test
+    public void testSnapshots() {
+        BalatroMCTS mcts = new BalatroMCTS(new BalatroNode(new BalatroGame(0L).start()), 500);
+        List<SearchSnapshot<BalatroGame>> snapshots = new ArrayList<>();
+        mcts.setSnapshots(1, 3, snapshots::add);
+        SearchResult<BalatroGame> result = mcts.search();
+        assertFalse(snapshots.isEmpty());
+        SearchSnapshot<BalatroGame> last = snapshots.get(snapshots.size() - 1);
+        assertEquals(500, last.iterations());
+        assertEquals(result.move(), last.best());
+        assertTrue(last.entries().size() <= 3);
+        for (int i = 1; i < snapshots.size(); i++)
+            assertTrue(snapshots.get(i - 1).iterations() <= snapshots.get(i).iterations());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testSnapshotsInvalid() {
+        new BalatroMCTS(new BalatroNode(new BalatroGame(0L).start()), 100).setSnapshots(0, 3, snapshot -> {
+        });
+    }
+
+    @Test
+    public void testSearchLeavesGameRandomAlone() {
+        SplittableRandom shuffler = new SplittableRandom(0L);
+        boolean[] searching = new boolean[1];
+        RandomGenerator random = () -> {
+            if (searching[0]) throw new IllegalStateException("the search drew on the random source of the game");
+            return shuffler.nextLong();
+        };
+        BalatroNode root = new BalatroNode(new BalatroGame(random).start());
+        searching[0] = true;
+        BalatroMCTS mcts = new BalatroMCTS(root, 200);
+        mcts.setSeed(1L);
+        assertNotNull(mcts.findBestMove());
+    }
 }
@@ -0,0 +1,92 @@
+package com.phasmidsoftware.dsaipg.projects.com.phasmidsoftware.dsaipg.projects.test.mnk;
+
+import com.phasmidsoftware.dsaipg.projects.mcts.core.Move;
+import com.phasmidsoftware.dsaipg.projects.mcts.core.State;
+import com.phasmidsoftware.dsaipg.projects.mcts.mnk.MNKGame;
+import com.phasmidsoftware.dsaipg.projects.mcts.mnk.MNKMCTS;
+import com.phasmidsoftware.dsaipg.projects.mcts.mnk.MNKMove;
+import com.phasmidsoftware.dsaipg.projects.mcts.mnk.MNKNode;
+import com.phasmidsoftware.dsaipg.projects.mcts.mnk.MNKState;
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class MNKGameTest {
+
+    /**
+     * Play the given cells alternately, starting with X.
+     */
+    private static State<MNKGame> play(MNKGame game, int[][] cells) {
+        State<MNKGame> state = game.start();
+        for (int[] cell : cells) state = state.next(game.move(state.player(), cell[0], cell[1]));
+        return state;
+    }
+
+    @Test
+    public void testStart() {
+        MNKGame game = MNKGame.gomoku();
+        State<MNKGame> state = game.start();
+        assertEquals(MNKGame.X, state.player());
+        assertFalse(state.isTerminal());
+        assertEquals(225, state.moves(MNKGame.X).size());
+    }
+
+    @Test
+    public void testHorizontalWin() {
+        MNKGame game = new MNKGame(15, 15, 5, 0L);
+        State<MNKGame> state = play(game, new int[][]{{7, 3}, {0, 0}, {7, 4}, {0, 1}, {7, 5}, {0, 2}, {7, 7}, {0, 3}});
+        assertFalse(state.isTerminal());
+        state = state.next(game.move(MNKGame.X, 7, 6));
+        assertTrue("Five in a row, completed in the middle", state.isTerminal());
+        assertEquals(Integer.valueOf(MNKGame.X), state.winner().orElse(null));
+    }
+
+    @Test
+    public void testDiagonalWin() {
+        MNKGame game = new MNKGame(15, 15, 5, 0L);
+        State<MNKGame> state = play(game, new int[][]{{0, 0}, {14, 10}, {1, 1}, {13, 11}, {2, 2}, {12, 12}, {3, 3}, {11, 13}, {5, 5}, {10, 14}});
+        assertTrue("Anti-diagonal win for O at the edge of the board", state.isTerminal());
+        assertEquals(Integer.valueOf(MNKGame.O), state.winner().orElse(null));
+    }
+
+    @Test
+    public void testTicTacToeDraw() {
+        MNKGame game = new MNKGame(3, 3, 3, 0L);
+        State<MNKGame> state = play(game, new int[][]{{0, 0}, {1, 1}, {2, 2}, {0, 1}, {2, 1}, {2, 0}, {0, 2}, {1, 2}, {1, 0}});
+        assertTrue(state.isTerminal());
+        assertTrue(state.winner().isEmpty());
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void testOccupied() {
+        MNKGame game = new MNKGame(3, 3, 3, 0L);
+        play(game, new int[][]{{0, 0}, {0, 0}});
+    }
+
+    @Test
+    public void testChooseMove() {
+        // A 9x9 board is more than half full after 41 moves, which exercises both ways of choosing a move.
+        MNKGame game = new MNKGame(9, 9, 10, 0L);
+        State<MNKGame> state = game.start();
+        Set<Integer> cells = new HashSet<>();
+        while (!state.isTerminal()) {
+            Move<MNKGame> move = state.chooseMove(state.player());
+            assertTrue(((MNKState) state).isFree(((MNKMove) move).cell()));
+            cells.add(((MNKMove) move).cell());
+            state = state.next(move);
+        }
+        assertEquals("Nobody can win, so the board fills up", 81, cells.size());
+    }
+
+    @Test
+    public void testFindWinningMove() {
+        MNKGame game = new MNKGame(7, 7, 4, 0L);
+        State<MNKGame> state = play(game, new int[][]{{3, 1}, {0, 0}, {3, 2}, {6, 6}, {3, 3}, {0, 6}});
+        MNKMCTS mcts = new MNKMCTS(new MNKNode(state), 2000);
+        Move<MNKGame> move = mcts.findBestMove();
+        assertTrue("X should complete four in a row: " + move, state.next(move).winner().isPresent());
+    }
+}
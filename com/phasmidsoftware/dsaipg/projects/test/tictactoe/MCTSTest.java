@@ -1,14 +1,21 @@
 package com.phasmidsoftware.dsaipg.projects.com.phasmidsoftware.dsaipg.projects.test.tictactoe;
 
 import com.phasmidsoftware.dsaipg.projects.mcts.tictactoe.MCTS;
+import com.phasmidsoftware.dsaipg.projects.mcts.tictactoe.Position;
 import com.phasmidsoftware.dsaipg.projects.mcts.tictactoe.TicTacToe;
 import com.phasmidsoftware.dsaipg.projects.mcts.tictactoe.TicTacToeNode;
+import com.phasmidsoftware.dsaipg.projects.mcts.tictactoe.TicTacToeRolloutPolicy;
+import com.phasmidsoftware.dsaipg.projects.mcts.tictactoe.TicTacToeSolver;
+import com.phasmidsoftware.dsaipg.projects.mcts.core.EarlyStop;
 import com.phasmidsoftware.dsaipg.projects.mcts.core.Move;
+import com.phasmidsoftware.dsaipg.projects.mcts.core.SearchResult;
+import com.phasmidsoftware.dsaipg.projects.mcts.core.SelectionPolicy;
 import com.phasmidsoftware.dsaipg.projects.mcts.core.State;
 import org.junit.Test;
 import static org.junit.Assert.*;
 import java.io.ByteArrayOutputStream;
 import java.io.PrintStream;
+import java.util.random.RandomGenerator;
 
 public class MCTSTest {
 
@@ -23,6 +30,25 @@ public class MCTSTest {
         assertNotNull("Best move should not be null", bestMove);
     }
 
+    @Test
+    public void testTerminalChildren() {
+        TicTacToe game = new TicTacToe(0L);
+        State<TicTacToe> state = game.new TicTacToeState(Position.parsePosition("O O .\nX . .\n. . X", TicTacToe.O));
+        TicTacToeNode rootNode = new TicTacToeNode(state);
+        MCTS mcts = new MCTS(rootNode, 2000);
+        mcts.setSeed(1L);
+        mcts.findBestMove();
+        // NOTE: wherever X fails to block, O's winning reply (at code 2) is a loss for X, the player at the root.
+        for (int i = 0; i < rootNode.childCount(); i++) {
+            TicTacToeNode child = rootNode.child(i);
+            if (child.getMove().code() == 2) continue;
+            for (int j = 0; j < child.childCount(); j++) {
+                TicTacToeNode reply = child.child(j);
+                if (reply.getMove().code() == 2) assertEquals(0, reply.wins());
+            }
+        }
+    }
+
     @Test
     public void testPlayFullGameRuntime() {
         // Capture System.out output to verify runtime recording
@@ -77,4 +103,113 @@ public class MCTSTest {
             System.setOut(originalOut);
         }
     }
+
+    @Test
+    public void testBestMoveAgreesWithSolver() {
+        // Use the exact solution as an oracle: the chosen move must preserve the game-theoretic value.
+        TicTacToeSolver solver = TicTacToeSolver.getInstance();
+        String[][] positions = {
+                {"X X .\n. O .\nO . .", "0"}, // X to win
+                {"O O .\nX X .\nX . .", "1"}, // O to win (rather than block)
+                {"X . .\n. O .\n. . X", "1"}, // O must not take a corner
+                {"X . .\n. X .\nO . .", "1"}  // O must block
+        };
+        for (String[] p : positions) {
+            TicTacToe game = new TicTacToe(0L);
+            State<TicTacToe> state = game.new TicTacToeState(Position.parsePosition(p[0], Integer.parseInt(p[1])));
+            MCTS mcts = new MCTS(new TicTacToeNode(state), 1000);
+            Move<TicTacToe> bestMove = mcts.findBestMove();
+            int player = state.player();
+            assertEquals("Move " + bestMove + " for\n" + p[0], solver.value(state, player), solver.value(state.next(bestMove), player));
+        }
+    }
+
+    @Test
+    public void testFindBestMoveWithLeafEvaluator() {
+        TicTacToe game = new TicTacToe(0L);
+        State<TicTacToe> state = game.new TicTacToeState(Position.parsePosition("X . .\n. X .\nO . .", 1));
+        MCTS mcts = new MCTS(new TicTacToeNode(state), 500);
+        mcts.setLeafEvaluator(TicTacToeSolver.getInstance().exactRollouts());
+        Move<TicTacToe> bestMove = mcts.findBestMove();
+        State<TicTacToe> next = state.next(bestMove);
+        assertEquals("O must block at (2, 2)", 0, TicTacToeSolver.getInstance().value(next, state.player()));
+    }
+
+    @Test
+    public void testFindBestMoveWithRave() {
+        TicTacToe game = new TicTacToe(0L);
+        State<TicTacToe> state = game.new TicTacToeState(Position.parsePosition("X . .\n. X .\nO . .", 1));
+        MCTS mcts = new MCTS(new TicTacToeNode(state), 1000);
+        mcts.setRave(100);
+        Move<TicTacToe> bestMove = mcts.findBestMove();
+        State<TicTacToe> next = state.next(bestMove);
+        assertEquals("O must block at (2, 2)", 0, TicTacToeSolver.getInstance().value(next, state.player()));
+    }
+
+    @Test
+    public void testFindBestMoveWithSelectionPolicies() {
+        TicTacToe game = new TicTacToe(0L);
+        State<TicTacToe> state = game.new TicTacToeState(Position.parsePosition("X . .\n. X .\nO . .", 1));
+        for (SelectionPolicy policy : new SelectionPolicy[]{SelectionPolicy.ucb1Tuned(), SelectionPolicy.ucb1Tuned().withFirstPlayUrgency(1), SelectionPolicy.puct(1.5)}) {
+            MCTS mcts = new MCTS(new TicTacToeNode(state), 1000);
+            mcts.setSelectionPolicy(policy);
+            mcts.setMovePrior(TicTacToeRolloutPolicy.prior());
+            State<TicTacToe> next = state.next(mcts.findBestMove());
+            assertEquals("O must block at (2, 2)", 0, TicTacToeSolver.getInstance().value(next, state.player()));
+        }
+    }
+
+    @Test
+    public void testSolver() {
+        TicTacToe game = new TicTacToe(0L);
+        State<TicTacToe> state = game.new TicTacToeState(Position.parsePosition("X X .\nO O .\n. . .", 0));
+        TicTacToeNode rootNode = new TicTacToeNode(state);
+        MCTS mcts = new MCTS(rootNode, 1000);
+        mcts.setSolver(true);
+        Move<TicTacToe> bestMove = mcts.findBestMove();
+        assertEquals(Integer.valueOf(TicTacToe.X), state.next(bestMove).winner().orElse(null));
+        assertTrue(rootNode.isSolved());
+        assertEquals(TicTacToe.X, rootNode.proof());
+        assertTrue("the search stops once the root is solved", mcts.getIterations() < 1000);
+    }
+
+    @Test
+    public void testSolverAgreesWithSolver() {
+        TicTacToe game = new TicTacToe(0L);
+        State<TicTacToe> state = game.new TicTacToeState(Position.parsePosition("X . .\n. X .\nO . .", 1));
+        TicTacToeNode rootNode = new TicTacToeNode(state);
+        MCTS mcts = new MCTS(rootNode, 100000);
+        mcts.setSolver(true);
+        Move<TicTacToe> bestMove = mcts.findBestMove();
+        assertTrue(rootNode.isSolved());
+        assertEquals(TicTacToeSolver.getInstance().value(state, state.player()), TicTacToeSolver.getInstance().value(state.next(bestMove), state.player()));
+    }
+
+    @Test
+    public void testEarlyStop() {
+        TicTacToe game = new TicTacToe(0L);
+        State<TicTacToe> state = game.new TicTacToeState(Position.parsePosition("X X .\nO O .\n. . .", 0));
+        MCTS mcts = new MCTS(new TicTacToeNode(state), 5000);
+        mcts.setEarlyStop(EarlyStop.visits());
+        SearchResult<TicTacToe> result = mcts.search();
+        assertEquals(Integer.valueOf(TicTacToe.X), state.next(result.move()).winner().orElse(null));
+        assertEquals(5000, result.budget());
+        assertTrue("an obvious win should not need the whole budget", result.saved() > 0);
+        assertEquals(result.budget() - result.iterations(), result.saved());
+    }
+
+    @Test
+    public void testSearchLeavesGameRandomAlone() {
+        RandomGenerator random = () -> {
+            throw new IllegalStateException("the search drew on the random source of the game");
+        };
+        TicTacToe game = new TicTacToe(random);
+        MCTS mcts = new MCTS(new TicTacToeNode(game.start()), 500);
+        mcts.setSeed(1L);
+        assertNotNull(mcts.findBestMove());
+        mcts = new MCTS(new TicTacToeNode(game.start()), 500);
+        mcts.setSeed(1L);
+        mcts.setLeafEvaluator(TicTacToeSolver.getInstance().exactRollouts());
+        assertNotNull(mcts.findBestMove());
+    }
 }
@@ -57,12 +57,38 @@ public class PositionTest {
 
     @Test
     public void testReflect() {
-        // Add appropriate test implementation for reflect method if needed
+        Position target = Position.parsePosition("X O .\n. X .\n. . O", 0);
+        assertEquals("Reflection about the middle row", Position.parsePosition(". . O\n. X .\nX O .", 0), target.reflect(0));
+        assertEquals("Reflection about the middle column", Position.parsePosition(". O X\n. X .\nO . .", 0), target.reflect(1));
     }
 
     @Test
     public void testRotate() {
-        // Add appropriate test implementation for rotate method if needed
+        Position target = Position.parsePosition("X O .\n. X .\n. . O", 0);
+        assertEquals("Rotation by 90 degrees", Position.parsePosition(". . O\nO X .\nX . .", 0), target.rotate());
+        assertEquals("Four rotations are the identity", target, target.rotate().rotate().rotate().rotate());
+    }
+
+    @Test
+    public void testFree() {
+        Position target = Position.parsePosition("X . .\n. O .\n. . X", 1);
+        assertEquals("Free cells should be the complement of the occupied cells", 0b011_101_110, target.free());
+        assertEquals(0, Position.parsePosition("X X 0\nX O 0\nX X 0", 1).free());
+    }
+
+    @Test
+    public void testIndex() {
+        Position target = Position.parsePosition("X . .\n. O .\n. . X", 1);
+        assertEquals("Index should be the X mask followed by the O mask", 0b100_000_001 << 9 | 0b000_010_000, target.index());
+        assertEquals("hashCode should be the index", target.index(), target.hashCode());
+        assertEquals(0, Position.parsePosition(". . .\n. . .\n. . .", -1).index());
+    }
+
+    @Test
+    public void testMoveByCell() {
+        Position target = Position.parsePosition("X . .\n. O .\n. . X", 1);
+        assertEquals(target.move(0, 1, 2), target.move(0, 5));
+        assertFalse(target.move(0, 5).won());
     }
 
     @Test
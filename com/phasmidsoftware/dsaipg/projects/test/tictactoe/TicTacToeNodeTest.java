@@ -3,6 +3,7 @@ package com.phasmidsoftware.dsaipg.projects.com.phasmidsoftware.dsaipg.projects.
 import com.phasmidsoftware.dsaipg.projects.mcts.tictactoe.Position;
 import com.phasmidsoftware.dsaipg.projects.mcts.tictactoe.TicTacToe;
 import com.phasmidsoftware.dsaipg.projects.mcts.tictactoe.TicTacToeNode;
+import com.phasmidsoftware.dsaipg.projects.mcts.core.Node;
 import com.phasmidsoftware.dsaipg.projects.mcts.core.State;
 import org.junit.Test;
 import static org.junit.Assert.*;
@@ -17,14 +18,9 @@ public class TicTacToeNodeTest {
         TicTacToeNode node = new TicTacToeNode(terminalState);
         // For a terminal state, the node should be a leaf.
         assertTrue("Terminal node should be a leaf", node.isLeaf());
-        // If a winner is present, wins should be 2; otherwise (draw) wins should be 1.
-        if (terminalState.winner().isPresent()) {
-            assertEquals("Wins should be 2 for a winning terminal state", 2, node.wins());
-        } else {
-            assertEquals("Wins should be 1 for a terminal draw state", 1, node.wins());
-        }
-        // Terminal nodes have 1 playout.
-        assertEquals("Playouts for a terminal node should be 1", 1, node.playouts());
+        // A terminal node starts with no statistics: the search backs up its result from the root player's point of view.
+        assertEquals("Wins for a new terminal node should be 0", 0, node.wins());
+        assertEquals("Playouts for a new terminal node should be 0", 0, node.playouts());
     }
 
     @Test
@@ -107,4 +103,23 @@ public class TicTacToeNodeTest {
         double expectedWinRate = (double) (2 + 0 + 1) / 3;
         assertEquals("Win rate should be computed correctly", expectedWinRate, node.getWinRate(), 0.0001);
     }
+
+    @Test
+    public void testChildAccess() {
+        TicTacToe.TicTacToeState state = new TicTacToe().new TicTacToeState();
+        TicTacToeNode node = new TicTacToeNode(state);
+        assertEquals(0, node.childCount());
+        node.explore();
+        assertEquals(9, node.childCount());
+        int i = 0;
+        for (Node<TicTacToe> child : node.children()) assertSame(child, node.child(i++));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testChildrenReadOnly() {
+        TicTacToe.TicTacToeState state = new TicTacToe().new TicTacToeState();
+        TicTacToeNode node = new TicTacToeNode(state);
+        node.explore();
+        node.children().clear();
+    }
 }
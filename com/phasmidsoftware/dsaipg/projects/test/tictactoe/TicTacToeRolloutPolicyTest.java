@@ -0,0 +1,43 @@
+package com.phasmidsoftware.dsaipg.projects.com.phasmidsoftware.dsaipg.projects.test.tictactoe;
+
+import com.phasmidsoftware.dsaipg.projects.mcts.core.Move;
+import com.phasmidsoftware.dsaipg.projects.mcts.core.RolloutPolicy;
+import com.phasmidsoftware.dsaipg.projects.mcts.core.State;
+import com.phasmidsoftware.dsaipg.projects.mcts.tictactoe.MCTS;
+import com.phasmidsoftware.dsaipg.projects.mcts.tictactoe.Position;
+import com.phasmidsoftware.dsaipg.projects.mcts.tictactoe.TicTacToe;
+import com.phasmidsoftware.dsaipg.projects.mcts.tictactoe.TicTacToeNode;
+import com.phasmidsoftware.dsaipg.projects.mcts.tictactoe.TicTacToeRolloutPolicy;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class TicTacToeRolloutPolicyTest {
+
+    @Test
+    public void testWins() {
+        State<TicTacToe> state = new TicTacToe(0L).new TicTacToeState(Position.parsePosition("X X .\nO O .\n. . .", 0));
+        Move<TicTacToe> move = new TicTacToeRolloutPolicy().choose(state, TicTacToe.X);
+        assertEquals(Integer.valueOf(TicTacToe.X), state.next(move).winner().orElse(null));
+    }
+
+    @Test
+    public void testBlocks() {
+        State<TicTacToe> state = new TicTacToe(0L).new TicTacToeState(Position.parsePosition("X . .\nO O .\nX . .", 0));
+        Move<TicTacToe> move = new TicTacToeRolloutPolicy().choose(state, TicTacToe.X);
+        assertEquals(TicTacToe.X, ((TicTacToe.TicTacToeState) state.next(move)).position().cell(1, 2));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testEpsilonGreedyBounds() {
+        RolloutPolicy.epsilonGreedy(new TicTacToeRolloutPolicy(), 1.5);
+    }
+
+    @Test
+    public void testFindBestMoveWithRolloutPolicy() {
+        State<TicTacToe> state = new TicTacToe(0L).new TicTacToeState(Position.parsePosition("X X .\nO O .\n. . .", 0));
+        MCTS mcts = new MCTS(new TicTacToeNode(state), 200);
+        mcts.setRolloutPolicy(new TicTacToeRolloutPolicy());
+        assertEquals(Integer.valueOf(TicTacToe.X), state.next(mcts.findBestMove()).winner().orElse(null));
+    }
+}
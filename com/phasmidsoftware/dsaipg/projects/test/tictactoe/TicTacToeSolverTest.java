@@ -0,0 +1,71 @@
+package com.phasmidsoftware.dsaipg.projects.com.phasmidsoftware.dsaipg.projects.test.tictactoe;
+
+import com.phasmidsoftware.dsaipg.projects.mcts.core.LeafEvaluator;
+import com.phasmidsoftware.dsaipg.projects.mcts.core.State;
+import com.phasmidsoftware.dsaipg.projects.mcts.tictactoe.Position;
+import com.phasmidsoftware.dsaipg.projects.mcts.tictactoe.TicTacToe;
+import com.phasmidsoftware.dsaipg.projects.mcts.tictactoe.TicTacToeSolver;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class TicTacToeSolverTest {
+
+    @Test
+    public void testSize() {
+        assertEquals("There are 5,478 reachable positions", TicTacToeSolver.POSITIONS, TicTacToeSolver.getInstance().size());
+    }
+
+    @Test
+    public void testStartingPosition() {
+        TicTacToeSolver solver = TicTacToeSolver.getInstance();
+        Position start = TicTacToe.startingPosition();
+        assertEquals("TicTacToe is a draw with perfect play", 0, solver.value(start));
+        // These are the well-known exact results of random play: 737, 363, and 160 out of 1260.
+        assertEquals(737.0 / 1260, solver.probability(start, TicTacToe.X), 1E-6);
+        assertEquals(363.0 / 1260, solver.probability(start, TicTacToe.O), 1E-6);
+        assertEquals(160.0 / 1260, solver.drawProbability(start), 1E-6);
+    }
+
+    @Test
+    public void testValue() {
+        TicTacToeSolver solver = TicTacToeSolver.getInstance();
+        assertEquals("O takes a corner and X forks", 1, solver.value(Position.parsePosition("X . .\n. O .\n. . X", 1).move(0, 0, 2)));
+        assertEquals("O takes an edge", 0, solver.value(Position.parsePosition("X . .\n. O .\n. . X", 1).move(0, 0, 1)));
+        assertEquals("X has won", 1, solver.value(Position.parsePosition("X O .\nX O .\nX . .", 1)));
+        assertEquals("O has won", -1, solver.value(Position.parsePosition("X O X\nX O .\n. O .", 0)));
+    }
+
+    @Test
+    public void testContains() {
+        TicTacToeSolver solver = TicTacToeSolver.getInstance();
+        assertTrue(solver.contains(TicTacToe.startingPosition()));
+        assertFalse("O cannot have moved twice", solver.contains(Position.parsePosition("O O .\n. . .\n. . .", 0)));
+    }
+
+    @Test
+    public void testBestMoveWins() {
+        TicTacToe game = new TicTacToe(0L);
+        State<TicTacToe> state = game.new TicTacToeState(Position.parsePosition("X X .\n. O .\nO . .", 0));
+        State<TicTacToe> next = state.next(TicTacToeSolver.getInstance().bestMove(state));
+        assertEquals(Integer.valueOf(TicTacToe.X), next.winner().orElse(null));
+    }
+
+    @Test
+    public void testPerfectPlayDraws() {
+        TicTacToeSolver solver = TicTacToeSolver.getInstance();
+        State<TicTacToe> state = new TicTacToe(0L).start();
+        while (!state.isTerminal()) state = state.next(solver.bestMove(state));
+        assertTrue(state.winner().isEmpty());
+    }
+
+    @Test
+    public void testExactRollouts() {
+        LeafEvaluator<TicTacToe> evaluator = TicTacToeSolver.getInstance().exactRollouts();
+        State<TicTacToe> state = new TicTacToe(0L).start();
+        int n = 20000;
+        int total = 0;
+        for (int i = 0; i < n; i++) total += evaluator.evaluate(state, TicTacToe.X);
+        assertEquals("Mean result should be 2 P(X) + P(draw)", (2 * 737.0 + 160) / 1260, (double) total / n, 0.03);
+    }
+}
@@ -1,5 +1,8 @@
 package com.phasmidsoftware.dsaipg.projects.mcts.blackJack;
 
+import com.phasmidsoftware.dsaipg.projects.mcts.core.SearchResult;
+import com.phasmidsoftware.dsaipg.projects.mcts.core.SearchService;
+import javafx.animation.PauseTransition;
 import javafx.application.Application;
 import javafx.application.Platform;
 import javafx.geometry.Insets;
@@ -14,11 +17,12 @@ import javafx.scene.text.Font;
 import javafx.scene.text.FontWeight;
 import javafx.scene.text.Text;
 import javafx.stage.Stage;
+import javafx.util.Duration;
 
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 public class AnimatedBlackjackFXWithMCTS extends Application {
@@ -53,7 +57,13 @@ public class AnimatedBlackjackFXWithMCTS extends Application {
     private AtomicBoolean aiMoveInProgress = new AtomicBoolean(false);
     private AtomicBoolean gameInProgress = new AtomicBoolean(false);
 
-    private ExecutorService executorService;
+    private final SearchService searchService = new SearchService(SEARCH_TIME_BUDGET);
+    private BlackjackState ponderState;
+    private BlackjackNode ponderRoot;
+    private CompletableFuture<SearchResult<BlackjackGame>> ponder;
+
+    private static final int SEARCH_ITERATIONS = 1000;
+    private static final long SEARCH_TIME_BUDGET = 2000;
 
     public static void main(String[] args) {
         launch(args);
@@ -61,8 +71,6 @@ public class AnimatedBlackjackFXWithMCTS extends Application {
 
     @Override
     public void start(Stage primaryStage) {
-        executorService = Executors.newSingleThreadExecutor();
-
         game = new BlackjackGame();
         animations = new BlackjackCardAnimations();
 
@@ -225,6 +233,7 @@ public class AnimatedBlackjackFXWithMCTS extends Application {
         }
 
         aiPlayerMode = aiModeToggle.isSelected();
+        if (!aiPlayerMode) searchService.cancel();
         aiModeToggle.setText("AI Player: " + (aiPlayerMode ? "ON" : "OFF"));
 
         updateButtonStates();
@@ -239,6 +248,7 @@ public class AnimatedBlackjackFXWithMCTS extends Application {
             return;
         }
 
+        searchService.cancel();
         gameInProgress.set(true);
         animationInProgress.set(true);
 
@@ -297,14 +307,8 @@ public class AnimatedBlackjackFXWithMCTS extends Application {
         updateButtonStates();
 
         if (aiPlayerMode && !currentState.isTerminal()) {
-            executorService.submit(() -> {
-                try {
-                    Thread.sleep(500);
-                    Platform.runLater(this::makeAIMove);
-                } catch (InterruptedException e) {
-                    Thread.currentThread().interrupt();
-                }
-            });
+            startPondering();
+            pause(500, this::makeAIMove);
         }
     }
 
@@ -319,20 +323,32 @@ public class AnimatedBlackjackFXWithMCTS extends Application {
 
         aiThinkingLabel.setVisible(true);
 
-        executorService.submit(() -> {
-            BlackjackNode rootNode = new BlackjackNode(currentState);
-            BlackjackMCTS mcts = new BlackjackMCTS(rootNode, 1000);
-            BlackjackMove bestMove = (BlackjackMove) mcts.findBestMove();
+        BlackjackState state = currentState;
+        boolean pondered = ponder != null && ponderState == state;
+        CompletableFuture<SearchResult<BlackjackGame>> search = pondered ? commitPondering() :
+                searchService.submit(new BlackjackMCTS(new BlackjackNode(state), SEARCH_ITERATIONS));
+        ponder = null;
+        ponderState = null;
+        ponderRoot = null;
+        long start = System.currentTimeMillis();
+        search.whenComplete((result, exception) -> Platform.runLater(() -> {
+            // NOTE: unless the move comes from a pondered tree, the AI is shown thinking for at least aiThinkingTime
+            // (but without holding a search thread).
+            long remaining = (pondered ? 0 : aiThinkingTime) - (System.currentTimeMillis() - start);
+            pause(remaining, () -> {
+                aiThinkingLabel.setVisible(false);
 
-            try {
-                Thread.sleep(aiThinkingTime);
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-            }
+                if (exception != null || state != currentState) {
+                    Throwable cause = exception instanceof CompletionException ? exception.getCause() : exception;
+                    if (cause != null && !(cause instanceof CancellationException))
+                        gameStatusText.setText("AI search failed");
+                    aiMoveInProgress.set(false);
 
-            Platform.runLater(() -> {
-                aiThinkingLabel.setVisible(false);
+                    updateButtonStates();
+                    return;
+                }
 
+                BlackjackMove bestMove = (BlackjackMove) result.move();
                 if (bestMove != null) {
                     if (bestMove.getAction() == BlackjackMove.Action.HIT) {
                         gameStatusText.setText("AI chooses to HIT");
@@ -355,9 +371,48 @@ public class AnimatedBlackjackFXWithMCTS extends Application {
                     updateButtonStates();
                 }
             });
+        }));
+    }
+
+    /**
+     * Method to ponder on the current state (see {@link SearchService#ponder}) while the table animates,
+     * so that the next AI move can be made at once from the tree grown meanwhile.
+     */
+    private void startPondering() {
+        ponderState = currentState;
+        ponderRoot = new BlackjackNode(currentState);
+        ponder = searchService.ponder(new BlackjackMCTS(ponderRoot, Integer.MAX_VALUE));
+    }
+
+    /**
+     * Method to stop pondering and to yield the move from the pondered tree,
+     * topped up (by a new engine on the same root) to SEARCH_ITERATIONS if pondering ran fewer
+     * (or did not start at all).
+     */
+    private CompletableFuture<SearchResult<BlackjackGame>> commitPondering() {
+        BlackjackNode root = ponderRoot;
+        CompletableFuture<SearchResult<BlackjackGame>> pondered = ponder;
+        searchService.stop();
+        return pondered.handle((result, exception) -> result).thenCompose(result -> {
+            int iterations = result == null ? 0 : result.iterations();
+            return iterations >= SEARCH_ITERATIONS ? CompletableFuture.completedFuture(result) :
+                    searchService.submit(new BlackjackMCTS(root, SEARCH_ITERATIONS - iterations));
         });
     }
 
+    /**
+     * Method to run an action on the JavaFX thread after the given delay (or at once, if it is not positive).
+     */
+    private void pause(long millis, Runnable action) {
+        if (millis <= 0) {
+            action.run();
+            return;
+        }
+        PauseTransition pause = new PauseTransition(Duration.millis(millis));
+        pause.setOnFinished(e -> action.run());
+        pause.play();
+    }
+
     private void playerHit() {
         if (animationInProgress.get() || aiMoveInProgress.get() || (aiPlayerMode && !gameStatusText.getText().contains("AI chooses"))) {
             return;
@@ -371,6 +426,7 @@ public class AnimatedBlackjackFXWithMCTS extends Application {
 
         BlackjackState previousState = currentState;
         currentState = (BlackjackState) currentState.next(move);
+        if (aiPlayerMode && !currentState.isTerminal()) startPondering();
 
         int newCardValue = currentState.playerHand.get(currentState.playerHand.size() - 1);
 
@@ -389,14 +445,7 @@ public class AnimatedBlackjackFXWithMCTS extends Application {
                     if (currentState.isTerminal()) {
                         handleGameOver();
                     } else if (aiPlayerMode) {
-                        executorService.submit(() -> {
-                            try {
-                                Thread.sleep(300);
-                                Platform.runLater(this::makeAIMove);
-                            } catch (InterruptedException e) {
-                                Thread.currentThread().interrupt();
-                            }
-                        });
+                        pause(300, this::makeAIMove);
                     } else {
                         updateButtonStates();
                     }
@@ -547,8 +596,6 @@ public class AnimatedBlackjackFXWithMCTS extends Application {
 
     @Override
     public void stop() {
-        if (executorService != null) {
-            executorService.shutdown();
-        }
+        searchService.close();
     }
 }
\ No newline at end of file
@@ -0,0 +1,49 @@
+package com.phasmidsoftware.dsaipg.projects.mcts.blackJack;
+
+import com.phasmidsoftware.dsaipg.projects.mcts.core.Move;
+import com.phasmidsoftware.dsaipg.projects.mcts.core.RolloutPolicy;
+import com.phasmidsoftware.dsaipg.projects.mcts.core.State;
+
+/**
+ * A rollout policy which plays Blackjack's basic strategy (restricted to HIT and STAND, since this game has no doubling or splitting).
+ * The decision is a table lookup by the player's total (hard or soft) and the dealer's up-card.
+ */
+public class BlackjackBasicStrategy implements RolloutPolicy<BlackjackGame> {
+
+    @Override
+    public Move<BlackjackGame> choose(State<BlackjackGame> state, int player) {
+        BlackjackState blackjackState = (BlackjackState) state;
+        return shouldHit(blackjackState) ? HIT : STAND;
+    }
+
+    /**
+     * Method to look up the basic strategy for the given state.
+     *
+     * @param state a state in which the player is to move.
+     * @return true to HIT, false to STAND.
+     */
+    public static boolean shouldHit(BlackjackState state) {
+        int total = BlackjackState.handValue(state.playerHand);
+        if (total >= 21) return false;
+        int upCard = state.dealerHand.isEmpty() ? 10 : state.dealerHand.get(0);
+        int dealer = upCard == 1 ? 11 : Math.min(upCard, 10);
+        return BlackjackState.isSoft(state.playerHand) ? SOFT[total].charAt(dealer - 2) == 'H' : HARD[total].charAt(dealer - 2) == 'H';
+    }
+
+    private static final Move<BlackjackGame> HIT = new BlackjackMove(BlackjackMove.Action.HIT, 0);
+    private static final Move<BlackjackGame> STAND = new BlackjackMove(BlackjackMove.Action.STAND, 0);
+
+    // Indexed by the player's total, then by the dealer's up-card: 2, 3, 4, 5, 6, 7, 8, 9, 10, A.
+    private static final String[] HARD = new String[21];
+    private static final String[] SOFT = new String[21];
+
+    static {
+        for (int total = 0; total <= 11; total++) HARD[total] = "HHHHHHHHHH";
+        HARD[12] = "HHSSSHHHHH";
+        for (int total = 13; total <= 16; total++) HARD[total] = "SSSSSHHHHH";
+        for (int total = 17; total <= 20; total++) HARD[total] = "SSSSSSSSSS";
+        for (int total = 0; total <= 17; total++) SOFT[total] = "HHHHHHHHHH";
+        SOFT[18] = "SSSSSSSHHH";
+        for (int total = 19; total <= 20; total++) SOFT[total] = "SSSSSSSSSS";
+    }
+}
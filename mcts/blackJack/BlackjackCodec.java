@@ -0,0 +1,55 @@
+package com.phasmidsoftware.dsaipg.projects.mcts.blackJack;
+
+import com.phasmidsoftware.dsaipg.projects.mcts.core.RecordFormat;
+import com.phasmidsoftware.dsaipg.projects.mcts.core.State;
+import com.phasmidsoftware.dsaipg.projects.mcts.core.StateCodec;
+
+import java.nio.ByteBuffer;
+import java.util.*;
+import java.util.random.RandomGenerator;
+
+/**
+ * The binary encoding of a Blackjack State: the player to move (a byte),
+ * then the player's hand, the dealer's hand and the deck, each as a byte count followed by a byte per card.
+ */
+public class BlackjackCodec implements StateCodec<BlackjackGame> {
+
+    public BlackjackCodec(BlackjackGame game, RandomGenerator random) {
+        this.game = game;
+        this.random = random;
+    }
+
+    public int game() {
+        return RecordFormat.GAME_BLACKJACK;
+    }
+
+    public void encode(State<BlackjackGame> state, ByteBuffer buffer) {
+        BlackjackState blackjackState = (BlackjackState) state;
+        buffer.put((byte) blackjackState.player);
+        putCards(buffer, blackjackState.playerHand);
+        putCards(buffer, blackjackState.dealerHand);
+        putCards(buffer, blackjackState.deck);
+    }
+
+    public State<BlackjackGame> decode(ByteBuffer buffer) {
+        int player = buffer.get();
+        List<Integer> playerHand = getCards(buffer, new ArrayList<>());
+        List<Integer> dealerHand = getCards(buffer, new ArrayList<>());
+        Deque<Integer> deck = getCards(buffer, new ArrayDeque<>());
+        return new BlackjackState(game, playerHand, dealerHand, deck, player, random);
+    }
+
+    private static void putCards(ByteBuffer buffer, Collection<Integer> cards) {
+        buffer.put((byte) cards.size());
+        for (int card : cards) buffer.put((byte) card);
+    }
+
+    private static <C extends Collection<Integer>> C getCards(ByteBuffer buffer, C cards) {
+        int n = buffer.get();
+        for (int i = 0; i < n; i++) cards.add((int) buffer.get());
+        return cards;
+    }
+
+    private final BlackjackGame game;
+    private final RandomGenerator random;
+}
@@ -1,10 +1,26 @@
 package com.phasmidsoftware.dsaipg.projects.mcts.blackJack;
 
 import com.phasmidsoftware.dsaipg.projects.mcts.core.Game;
+import com.phasmidsoftware.dsaipg.projects.mcts.core.RandomState;
 import com.phasmidsoftware.dsaipg.projects.mcts.core.State;
 
 import java.util.*;
+import java.util.random.RandomGenerator;
 public class BlackjackGame implements Game<BlackjackGame> {
+    private final RandomGenerator random;
+
+    public BlackjackGame(RandomGenerator random) {
+        this.random = random;
+    }
+
+    public BlackjackGame(long seed) {
+        this(new SplittableRandom(seed));
+    }
+
+    public BlackjackGame() {
+        this(new SplittableRandom());
+    }
+
     @Override
     public State<BlackjackGame> start() {
         List<Integer> deckList = new ArrayList<>();
@@ -13,7 +29,7 @@ public class BlackjackGame implements Game<BlackjackGame> {
                 deckList.add(i);
             }
         }
-        Collections.shuffle(deckList);
+        RandomState.shuffle(deckList, random);
         Deque<Integer> deck = new ArrayDeque<>(deckList);
 
         List<Integer> playerHand = new ArrayList<>();
@@ -24,7 +40,7 @@ public class BlackjackGame implements Game<BlackjackGame> {
         dealerHand.add(deck.pop());
         dealerHand.add(deck.pop());
 
-        return new BlackjackState(this, playerHand, dealerHand, deck, 0, new Random());
+        return new BlackjackState(this, playerHand, dealerHand, deck, 0, random);
     }
 
     @Override
@@ -1,25 +1,72 @@
 package com.phasmidsoftware.dsaipg.projects.mcts.blackJack;
 
+import com.phasmidsoftware.dsaipg.projects.mcts.core.ChanceTable;
+import com.phasmidsoftware.dsaipg.projects.mcts.core.EarlyStop;
 import com.phasmidsoftware.dsaipg.projects.mcts.core.Move;
-import com.phasmidsoftware.dsaipg.projects.mcts.core.Node;
+import com.phasmidsoftware.dsaipg.projects.mcts.core.MovePrior;
+import com.phasmidsoftware.dsaipg.projects.mcts.core.Proof;
+import com.phasmidsoftware.dsaipg.projects.mcts.core.RecordWriter;
+import com.phasmidsoftware.dsaipg.projects.mcts.core.RolloutPolicy;
+import com.phasmidsoftware.dsaipg.projects.mcts.core.SearchResult;
+import com.phasmidsoftware.dsaipg.projects.mcts.core.SearchSnapshot;
+import com.phasmidsoftware.dsaipg.projects.mcts.core.Searcher;
+import com.phasmidsoftware.dsaipg.projects.mcts.core.SelectionPolicy;
 import com.phasmidsoftware.dsaipg.projects.mcts.core.State;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.random.RandomGenerator;
+import java.util.function.Consumer;
 
-public class BlackjackMCTS {
+public class BlackjackMCTS implements Searcher<BlackjackGame> {
 
     private final double explorationParameter = Math.sqrt(2);
     private final int maxIterations;
-    private final Random random;
+    private RandomGenerator random;
     private final BlackjackNode root;
+    private RolloutPolicy<BlackjackGame> rolloutPolicy = RolloutPolicy.random();
+    private boolean solver;
+    private int iterations;
+    private EarlyStop earlyStop = EarlyStop.never();
+    private SelectionPolicy selectionPolicy = SelectionPolicy.ucb1(explorationParameter / 2);
+    private MovePrior<BlackjackGame> movePrior = MovePrior.uniform();
+    private boolean openLoop;
+    private boolean chanceNodes;
+    private long timeBudget;
+    private long deadline;
+    private Consumer<SearchSnapshot<BlackjackGame>> snapshotListener;
+    private long snapshotInterval;
+    private int snapshotSize;
+    private long nextSnapshot;
 
     public static void main(String[] args) {
         BlackjackGame game = new BlackjackGame();
         benchmarkMCTS();
         //playFullGame(game);
+        //benchmarkEarlyStop();
+        //benchmarkOpenLoop();
+        //benchmarkChanceNodes();
     }
 
     public static void playFullGame(BlackjackGame game) {
+        try {
+            playFullGame(game, null);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Method to play a game, recording each move (see {@link RecordWriter}).
+     * The outcome of each record is the winner (0 for the player, 1 for the dealer, or -1 for a draw).
+     *
+     * @param game     the game.
+     * @param recorder the RecordWriter (or null not to record the game).
+     * @throws IOException if the records cannot be written.
+     */
+    public static void playFullGame(BlackjackGame game, RecordWriter<BlackjackGame> recorder) throws IOException {
         long startTime = System.currentTimeMillis();
         State<BlackjackGame> currentState = game.start();
 
@@ -38,11 +85,13 @@ public class BlackjackMCTS {
                 break;
             }
 
+            if (recorder != null) recorder.add(rootNode, bestMove);
             System.out.println("Move chosen: " + bestMove);
             currentState = currentState.next(bestMove);
             System.out.println(currentState);
         }
 
+        if (recorder != null) recorder.endGame(currentState.winner().orElse(-1));
         System.out.println("\nGame Over!");
         if (currentState.winner().isPresent()) {
             int winner = currentState.winner().get();
@@ -57,33 +106,294 @@ public class BlackjackMCTS {
     public BlackjackMCTS(BlackjackNode root, int maxIterations) {
         this.root = root;
         this.maxIterations = maxIterations;
-        this.random = new Random();
+        this.random = new SplittableRandom();
+    }
+
+    /**
+     * Method to seed the random source of this engine (by default, it is unseeded).
+     * NOTE: the search draws on this random source alone (never on that of the game, which may be in use on another thread),
+     * so a search from a given tree is reproducible from this seed.
+     *
+     * @param seed the seed.
+     */
+    public void setSeed(long seed) {
+        this.random = new SplittableRandom(seed);
+    }
+
+    /**
+     * Method to set the policy by which moves are chosen in rollouts (the default is uniformly random).
+     *
+     * @param rolloutPolicy the policy, for example {@link BlackjackBasicStrategy}.
+     */
+    public void setRolloutPolicy(RolloutPolicy<BlackjackGame> rolloutPolicy) {
+        this.rolloutPolicy = rolloutPolicy;
+    }
+
+    /**
+     * Method to enable MCTS-Solver: nodes are proven won, lost or drawn (see {@link Proof}), the proofs are propagated
+     * up the tree, solved nodes are no longer searched below, and the search stops as soon as the root is solved.
+     * NOTE: since the engine sees the order of the deck, late in a hand every line is soon decided.
+     *
+     * @param solver true to enable MCTS-Solver.
+     */
+    public void setSolver(boolean solver) {
+        this.solver = solver;
+    }
+
+    /**
+     * @return the number of iterations run by the last search (fewer than maxIterations if the root was solved or the search stopped early).
+     */
+    public int getIterations() {
+        return iterations;
+    }
+
+    /**
+     * Method to set the selection policy (the default is UCB1 with c = sqrt(2) on the original 2/1/0 scale of results).
+     *
+     * @param selectionPolicy for example {@link SelectionPolicy#ucb1Tuned()} or {@link SelectionPolicy#puct(double)}.
+     */
+    public void setSelectionPolicy(SelectionPolicy selectionPolicy) {
+        this.selectionPolicy = selectionPolicy;
+    }
+
+    /**
+     * Method to set the prior probabilities of moves, as used by PUCT (the default is uniform).
+     *
+     * @param movePrior the prior.
+     */
+    public void setMovePrior(MovePrior<BlackjackGame> movePrior) {
+        this.movePrior = movePrior;
+    }
+
+    /**
+     * Method to enable open-loop search: on each iteration, the unseen cards are reshuffled (see {@link BlackjackState#resample(RandomGenerator)})
+     * and the tree is descended by moves alone, the states being regenerated by playing those moves on the resampled state.
+     * A node then stands for a sequence of moves rather than for one state (which, with the deck known, the engine could otherwise exploit),
+     * and its statistics are averaged over deals.
+     * MCTS-Solver does not apply to open-loop search (since a node no longer has one outcome).
+     * NOTE: the resampling draws on this engine's random source (see {@link #setSeed(long)}), which is also passed on to the rollouts.
+     *
+     * @param openLoop true for open-loop search.
+     */
+    public void setOpenLoop(boolean openLoop) {
+        this.openLoop = openLoop;
+    }
+
+    /**
+     * Method to treat each HIT in the tree as a chance node (see {@link ChanceTable}), whose outcomes are stratified
+     * by the value of the card drawn, weighted by the composition of the deck:
+     * the draws are spread over the values in proportion to their probabilities,
+     * and the value of the HIT is the probability-weighted mean over the values, rather than the plain mean of its results.
+     * Chance nodes apply only to open-loop search, which this implies (see {@link #setOpenLoop(boolean)}).
+     *
+     * @param chanceNodes true for chance nodes.
+     */
+    public void setChanceNodes(boolean chanceNodes) {
+        this.chanceNodes = chanceNodes;
+    }
+
+    /**
+     * Method to set a rule by which the search may stop before maxIterations (the default never stops early).
+     *
+     * @param earlyStop for example {@link EarlyStop#visits()} or {@link EarlyStop#confidence(double)}.
+     */
+    public void setEarlyStop(EarlyStop earlyStop) {
+        this.earlyStop = earlyStop;
+    }
+
+    /**
+     * Method to limit the time of each search (see {@link Searcher#setTimeBudget(long)}).
+     * Whether or not a time budget is set, the search also stops if its thread is interrupted.
+     *
+     * @param millis the time budget in milliseconds (0 for no limit).
+     */
+    @Override
+    public void setTimeBudget(long millis) {
+        if (millis < 0) throw new IllegalArgumentException("time budget must not be negative: " + millis);
+        this.timeBudget = millis;
+    }
+
+    /**
+     * Method to publish a snapshot of the search (see {@link SearchSnapshot}) every so often, and once more at its end.
+     * The listener is called by the thread running the search, so it should return quickly
+     * (for example, by handing the snapshot to the thread of a front-end).
+     *
+     * @param intervalMillis the interval between snapshots in milliseconds (positive).
+     * @param size           the number of moves in each snapshot (the most visited).
+     * @param listener       the listener, or null to publish no snapshots.
+     */
+    public void setSnapshots(long intervalMillis, int size, Consumer<SearchSnapshot<BlackjackGame>> listener) {
+        if (listener != null && intervalMillis <= 0) throw new IllegalArgumentException("snapshot interval must be positive: " + intervalMillis);
+        if (listener != null && size <= 0) throw new IllegalArgumentException("snapshot size must be positive: " + size);
+        this.snapshotListener = listener;
+        this.snapshotInterval = TimeUnit.MILLISECONDS.toNanos(intervalMillis);
+        this.snapshotSize = size;
     }
 
     public Move<BlackjackGame> findBestMove() {
+        return search().move();
+    }
+
+    /**
+     * Method to search for the best move, reporting also the iterations run (and so saved).
+     *
+     * @return a SearchResult.
+     */
+    @Override
+    public SearchResult<BlackjackGame> search() {
+        long start = System.nanoTime();
+        deadline = start + TimeUnit.MILLISECONDS.toNanos(timeBudget);
+        nextSnapshot = start + snapshotInterval;
         if (root.isLeaf()) {
-            return null;
+            return new SearchResult<>(null, 0, maxIterations, System.nanoTime() - start);
         }
-        for (int i = 0; i < maxIterations; i++) {
+        for (iterations = 0; iterations < maxIterations && !(solver && !openLoop && !chanceNodes && root.solve()) && !stopEarly() && !outOfTime(); iterations++) {
+            if (snapshotListener != null) publishSnapshot(start, false);
+            if (openLoop || chanceNodes) {
+                iterateOpenLoop();
+                continue;
+            }
             List<BlackjackNode> path = new ArrayList<>();
             BlackjackNode selected = selectWithPath(root, path);
-            BlackjackNode expanded = selected.isLeaf() ? selected : expand(selected);
+            BlackjackNode expanded = selected.isLeaf() || isSolved(selected) ? selected : expand(selected);
             if (expanded != selected) path.add(expanded);
             int result = simulate(expanded);
             backpropagate(path, result);
+            if (solver) for (int j = path.size() - 1; j >= 0 && path.get(j).solve(); j--) ;
+        }
+        if (snapshotListener != null) publishSnapshot(start, true);
+        if (isSolved(root)) {
+            // The proof of the root is that of its best child.
+            for (int i = 0, n = root.childCount(); i < n; i++)
+                if (root.child(i).proof() == root.proof())
+                    return new SearchResult<>(root.child(i).getMove(), iterations, maxIterations, System.nanoTime() - start);
+        }
+        return new SearchResult<>(getMostVisitedChild(root).getMove(), iterations, maxIterations, System.nanoTime() - start);
+    }
+
+    private boolean stopEarly() {
+        if (iterations == 0 || !root.isFullyExpanded()) return false;
+        int n = root.childCount();
+        int[] playouts = new int[n];
+        double[] means = new double[n];
+        int best = 0;
+        for (int i = 0; i < n; i++) {
+            BlackjackNode child = root.child(i);
+            playouts[i] = child.playouts();
+            means[i] = playouts[i] == 0 ? 0 : (double) child.wins() / playouts[i];
+            if (playouts[i] > playouts[best]) best = i;
+        }
+        return earlyStop.test(playouts, means, best, maxIterations - iterations, 2);
+    }
+
+    private void publishSnapshot(long start, boolean last) {
+        long now = System.nanoTime();
+        if (!last && now - nextSnapshot < 0) return;
+        nextSnapshot = now + snapshotInterval;
+        snapshotListener.accept(SearchSnapshot.of(root, snapshotSize, iterations, now - start));
+    }
+
+    private boolean outOfTime() {
+        return iterations > 0 && (Thread.currentThread().isInterrupted() || timeBudget > 0 && System.nanoTime() - deadline >= 0);
+    }
+
+    private boolean isSolved(BlackjackNode node) {
+        return solver && !openLoop && !chanceNodes && node.isSolved();
+    }
+
+    /**
+     * Method to run one iteration of open-loop search (see {@link #setOpenLoop(boolean)}).
+     */
+    private void iterateOpenLoop() {
+        State<BlackjackGame> state = root.state().resample(random);
+        List<BlackjackNode> path = new ArrayList<>();
+        List<Draw> draws = new ArrayList<>();
+        BlackjackNode node = root;
+        path.add(node);
+        while (!state.isTerminal()) {
+            Collection<Move<BlackjackGame>> moves = state.moves(state.player());
+            List<Move<BlackjackGame>> untriedMoves = new ArrayList<>();
+            BlackjackNode bestChild = null;
+            double bestValue = Double.NEGATIVE_INFINITY;
+            double logPlayouts = Math.log(node.getPlayouts());
+            // NOTE: only the children whose moves are legal in this state may be selected.
+            for (Move<BlackjackGame> move : moves) {
+                BlackjackNode child = node.getChild(move);
+                if (child == null) untriedMoves.add(move);
+                else if (child.getPlayouts() > 0) {
+                    double value = value(node, child, logPlayouts);
+                    if (value > bestValue) {
+                        bestValue = value;
+                        bestChild = child;
+                    }
+                }
+            }
+            if (!untriedMoves.isEmpty() && (bestChild == null || bestValue < selectionPolicy.firstPlayUrgency())) {
+                Move<BlackjackGame> move = untriedMoves.get(random.nextInt(untriedMoves.size()));
+                // NOTE: the first draw through a new chance node is not stratified: it is the card on top of the sampled deck.
+                boolean draw = isDraw(state, move);
+                double[] probabilities = draw ? ((BlackjackState) state).drawProbabilities() : null;
+                int stratum = draw ? Math.min(((BlackjackState) state).deck.peek(), 10) - 1 : -1;
+                State<BlackjackGame> next = state.next(move);
+                BlackjackNode child = node.addChild(next, move);
+                child.setPrior(movePrior.prior(state, moves, move));
+                if (draw) draws.add(new Draw(child, probabilities, stratum));
+                state = next;
+                path.add(child);
+                break;
+            }
+            if (bestChild == null) break;
+            node = bestChild;
+            if (isDraw(state, node.getMove())) {
+                BlackjackState blackjackState = (BlackjackState) state;
+                double[] probabilities = blackjackState.drawProbabilities();
+                int stratum = node.chance(BlackjackState.DRAW_STRATA).choose(probabilities);
+                draws.add(new Draw(node, probabilities, stratum));
+                state = blackjackState.withNextDraw(stratum, random);
+            }
+            state = state.next(node.getMove());
+            path.add(node);
+        }
+        while (!state.isTerminal()) state = state.next(rolloutPolicy.choose(state, 0));
+        int result = evaluateTerminalState(state);
+        backpropagate(path, result);
+        for (Draw draw : draws) draw.node.chance(BlackjackState.DRAW_STRATA).update(draw.probabilities, draw.stratum, result);
+    }
+
+    private boolean isDraw(State<BlackjackGame> state, Move<BlackjackGame> move) {
+        return chanceNodes && ((BlackjackMove) move).getAction() == BlackjackMove.Action.HIT && !((BlackjackState) state).deck.isEmpty();
+    }
+
+    /**
+     * The stratum of a draw through a chance node in one iteration, and the probabilities of the strata at the time.
+     */
+    private static class Draw {
+        Draw(BlackjackNode node, double[] probabilities, int stratum) {
+            this.node = node;
+            this.probabilities = probabilities;
+            this.stratum = stratum;
         }
-        return getMostVisitedChild(root).getMove();
+
+        final BlackjackNode node;
+        final double[] probabilities;
+        final int stratum;
     }
 
     private BlackjackNode selectWithPath(BlackjackNode node, List<BlackjackNode> path) {
         BlackjackNode currentNode = node;
         path.add(currentNode);
 
-        while (!currentNode.isLeaf() && currentNode.isFullyExpanded()) {
-            BlackjackNode bestChild = getBestChild(currentNode, explorationParameter);
+        while (!currentNode.isLeaf() && !isSolved(currentNode)) {
+            BlackjackNode bestChild = getBestChild(currentNode);
             if (bestChild == null) {
                 break;
             }
+            if (!currentNode.isFullyExpanded()) {
+                // NOTE: descend before full expansion only if the best child beats the first-play urgency.
+                double urgency = selectionPolicy.firstPlayUrgency();
+                if (urgency == Double.POSITIVE_INFINITY || value(currentNode, bestChild, Math.log(currentNode.getPlayouts())) < urgency)
+                    break;
+            }
             currentNode = bestChild;
             path.add(currentNode);
         }
@@ -96,15 +406,7 @@ public class BlackjackMCTS {
 
         List<Move<BlackjackGame>> untriedMoves = new ArrayList<>();
         for (Move<BlackjackGame> move : possibleMoves) {
-            boolean alreadyTried = false;
-            for (Node<BlackjackGame> child : node.children()) {
-                Move<BlackjackGame> childMove = ((BlackjackNode) child).getMove();
-                if (childMove != null && childMove.equals(move)) {
-                    alreadyTried = true;
-                    break;
-                }
-            }
-            if (!alreadyTried) {
+            if (!node.hasChildForMove(move)) {
                 untriedMoves.add(move);
             }
         }
@@ -113,16 +415,22 @@ public class BlackjackMCTS {
 
         Move<BlackjackGame> move = untriedMoves.get(random.nextInt(untriedMoves.size()));
         State<BlackjackGame> newState = node.state().next(move);
-        node.addChild(newState, move);
-        return new BlackjackNode(newState, move);
+        BlackjackNode child = node.addChild(newState, move);
+        child.setPrior(movePrior.prior(node.state(), possibleMoves, move));
+        return child;
     }
 
     private int simulate(BlackjackNode node) {
-        State<BlackjackGame> currentState = node.state();
+        if (isSolved(node)) {
+            return Proof.score(node.proof(), 0);
+        }
+
+        // NOTE: the rollout draws on this engine's random source, not on the game's (see State.random()).
+        State<BlackjackGame> currentState = ((BlackjackState) node.state()).withRandom(random);
 
         while (!currentState.isTerminal()) {
-            Move<BlackjackGame> randomMove = currentState.chooseMove(0);
-            currentState = currentState.next(randomMove);
+            Move<BlackjackGame> move = rolloutPolicy.choose(currentState, 0);
+            currentState = currentState.next(move);
         }
 
         return evaluateTerminalState(currentState);
@@ -147,23 +455,21 @@ public class BlackjackMCTS {
         }
     }
 
-    private BlackjackNode getBestChild(BlackjackNode node, double explorationValue) {
-        Collection<Node<BlackjackGame>> children = node.children();
-
+    private BlackjackNode getBestChild(BlackjackNode node) {
         BlackjackNode bestChild = null;
         double bestValue = Double.NEGATIVE_INFINITY;
+        double logPlayouts = Math.log(node.getPlayouts());
 
-        for (Node<BlackjackGame> childNode : children) {
-            BlackjackNode child = (BlackjackNode) childNode;
+        for (int i = 0, n = node.childCount(); i < n; i++) {
+            BlackjackNode child = node.child(i);
 
             if (child.getPlayouts() == 0) continue;
+            // NOTE: a child proven lost is never worth selecting.
+            if (isSolved(child) && child.proof() == 1) continue;
 
-            double exploitationTerm = (double) child.getWins() / child.getPlayouts();
-            double explorationTerm = explorationValue * Math.sqrt(Math.log(node.getPlayouts()) / child.getPlayouts());
-            double uctValue = exploitationTerm + explorationTerm;
-
-            if (uctValue > bestValue) {
-                bestValue = uctValue;
+            double value = value(node, child, logPlayouts);
+            if (value > bestValue) {
+                bestValue = value;
                 bestChild = child;
             }
         }
@@ -171,29 +477,134 @@ public class BlackjackMCTS {
         return bestChild;
     }
 
-    private BlackjackNode getMostVisitedChild(BlackjackNode node) {
-        Collection<Node<BlackjackGame>> children = node.children();
+    /**
+     * Method to evaluate a (visited) child for selection, with results normalized from 2/1/0 to 1/0.5/0.
+     */
+    private double value(BlackjackNode node, BlackjackNode child, double logPlayouts) {
+        int playouts = child.getPlayouts();
+        double score = (double) child.getWins() / playouts;
+        double variance = Math.max(0, (double) child.getSumOfSquares() / playouts - score * score) / 4;
+        ChanceTable chance = child.getChance();
+        if (chance != null && chance.playouts() > 0) score = chance.mean();
+        return selectionPolicy.score(score / 2, variance, playouts, child.getPrior(), node.getPlayouts(), logPlayouts);
+    }
 
+    private BlackjackNode getMostVisitedChild(BlackjackNode node) {
         BlackjackNode mostVisitedChild = null;
         int mostVisits = -1;
 
-        for (Node<BlackjackGame> childNode : children) {
-            BlackjackNode child = (BlackjackNode) childNode;
+        for (int i = 0, n = node.childCount(); i < n; i++) {
+            BlackjackNode child = node.child(i);
+            if (isSolved(child) && child.proof() == 1 && n > 1) continue;
             if (child.getPlayouts() > mostVisits) {
                 mostVisits = child.getPlayouts();
                 mostVisitedChild = child;
             }
         }
 
-        return mostVisitedChild;
+        // NOTE: if every child is proven lost, any of them will do.
+        return mostVisitedChild != null ? mostVisitedChild : node.child(0);
     }
 
     public static void benchmarkMCTS() {
-        int[] iterationLimits = {200, 1000, 3000, 5000};
-        int gamesPerSetting = 50;
+        benchmarkMCTS(new int[]{200, 1000, 3000, 5000}, 50, mcts -> {
+        });
+    }
+
+    /**
+     * Method to compare early-stopping rules by win rate, iterations run and latency per hand.
+     */
+    public static void benchmarkEarlyStop() {
+        int[] iterationLimits = {200, 1000, 5000};
+        System.out.println("Early stop: never");
+        benchmarkMCTS(iterationLimits, 500, mcts -> {
+        });
+        System.out.println("Early stop: visits");
+        benchmarkMCTS(iterationLimits, 500, mcts -> mcts.setEarlyStop(EarlyStop.visits()));
+        System.out.println("Early stop: confidence (delta=0.05)");
+        benchmarkMCTS(iterationLimits, 500, mcts -> mcts.setEarlyStop(EarlyStop.confidence(0.05)));
+    }
+
+    /**
+     * Method to compare plain UCT with MCTS-Solver by win rate and by the iterations actually run per decision.
+     */
+    public static void benchmarkSolver() {
+        int[] iterationLimits = {50, 200, 1000, 5000};
+        System.out.println("UCT");
+        benchmarkMCTS(iterationLimits, 500, mcts -> {
+        });
+        System.out.println("MCTS-Solver");
+        benchmarkMCTS(iterationLimits, 500, mcts -> mcts.setSolver(true));
+    }
+
+    /**
+     * Method to compare closed-loop search (which, since each node holds a state, in effect knows the order of the deck)
+     * with open-loop search (which does not) by win rate.
+     */
+    public static void benchmarkOpenLoop() {
+        int[] iterationLimits = {50, 200, 1000, 5000};
+        System.out.println("Closed loop");
+        benchmarkMCTS(iterationLimits, 500, mcts -> {
+        });
+        System.out.println("Open loop");
+        benchmarkMCTS(iterationLimits, 500, mcts -> mcts.setOpenLoop(true));
+        System.out.println("Open loop, basic strategy rollouts");
+        benchmarkMCTS(iterationLimits, 500, mcts -> {
+            mcts.setOpenLoop(true);
+            mcts.setRolloutPolicy(new BlackjackBasicStrategy());
+        });
+    }
+
+    /**
+     * Method to compare open-loop search with and without chance nodes: by the stability of the decision
+     * (how often two searches of the same position, with different seeds, agree), and by win rate.
+     */
+    public static void benchmarkChanceNodes() {
+        int[] iterationLimits = {20, 50, 200, 1000};
+        Map<String, Consumer<BlackjackMCTS>> settings = new LinkedHashMap<>();
+        settings.put("Open loop", mcts -> mcts.setOpenLoop(true));
+        settings.put("Open loop, chance nodes", mcts -> mcts.setChanceNodes(true));
+        for (Map.Entry<String, Consumer<BlackjackMCTS>> entry : settings.entrySet()) {
+            System.out.println(entry.getKey());
+            for (int iterLimit : iterationLimits) {
+                int positions = 500;
+                int agreements = 0;
+                for (int i = 0; i < positions; i++) {
+                    State<BlackjackGame> state = new BlackjackGame(i).start();
+                    List<Move<BlackjackGame>> moves = new ArrayList<>();
+                    for (int j = 0; j < 2; j++) {
+                        BlackjackMCTS mcts = new BlackjackMCTS(new BlackjackNode(state), iterLimit);
+                        entry.getValue().accept(mcts);
+                        mcts.setSeed(i * 2L + j);
+                        moves.add(mcts.findBestMove());
+                    }
+                    if (moves.get(0).equals(moves.get(1))) agreements++;
+                }
+                System.out.printf("Iterations: %d | Agreement: %.1f%%%n", iterLimit, agreements * 100.0 / positions);
+            }
+            benchmarkMCTS(iterationLimits, 500, entry.getValue());
+        }
+    }
+
+    /**
+     * Method to compare the random rollout policy with basic strategy (pure, and epsilon-greedy)
+     * by win rate over a range of iteration budgets.
+     */
+    public static void benchmarkRolloutPolicies() {
+        int[] iterationLimits = {10, 50, 200, 1000};
+        System.out.println("Rollout policy: random");
+        benchmarkMCTS(iterationLimits, 500, mcts -> mcts.setRolloutPolicy(RolloutPolicy.random()));
+        System.out.println("Rollout policy: basic strategy");
+        benchmarkMCTS(iterationLimits, 500, mcts -> mcts.setRolloutPolicy(new BlackjackBasicStrategy()));
+        System.out.println("Rollout policy: basic strategy (epsilon=0.1)");
+        benchmarkMCTS(iterationLimits, 500, mcts -> mcts.setRolloutPolicy(RolloutPolicy.epsilonGreedy(new BlackjackBasicStrategy(), 0.1)));
+    }
 
+    private static void benchmarkMCTS(int[] iterationLimits, int gamesPerSetting, Consumer<BlackjackMCTS> configure) {
         for (int iterLimit : iterationLimits) {
             long totalTime = 0;
+            long iterationsRun = 0;
+            int decisions = 0;
             int playerWins = 0;
             int dealerWins = 0;
             int draws = 0;
@@ -206,8 +617,11 @@ public class BlackjackMCTS {
                 while (!state.isTerminal()) {
                     BlackjackNode rootNode = new BlackjackNode(state);
                     BlackjackMCTS mcts = new BlackjackMCTS(rootNode, iterLimit);
+                    configure.accept(mcts);
                     Move<BlackjackGame> bestMove = mcts.findBestMove();
                     if (bestMove == null) break;
+                    iterationsRun += mcts.getIterations();
+                    decisions++;
                     state = state.next(bestMove);
                 }
 
@@ -228,8 +642,8 @@ public class BlackjackMCTS {
             double winRate = playerWins * 100.0 / gamesPerSetting;
             double drawRate = draws * 100.0 / gamesPerSetting;
 
-            System.out.printf("Iterations: %d | Avg Time: %.2f ms | Win Rate: %.2f%% | Draw Rate: %.2f%% | Dealer Win: %.2f%%\n",
-                    iterLimit, avgTime, winRate, drawRate, 100.0 - winRate - drawRate);
+            System.out.printf("Iterations: %d | Avg Iterations Run: %.1f | Avg Time: %.2f ms | Win Rate: %.2f%% | Draw Rate: %.2f%% | Dealer Win: %.2f%%\n",
+                    iterLimit, (double) iterationsRun / Math.max(1, decisions), avgTime, winRate, drawRate, 100.0 - winRate - drawRate);
         }
     }
 }
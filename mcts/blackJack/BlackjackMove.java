@@ -22,6 +22,23 @@ public class BlackjackMove implements Move<BlackjackGame> {
         return player;
     }
 
+    @Override
+    public long code() {
+        return action.ordinal();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof BlackjackMove that)) return false;
+        return action == that.action && player == that.player;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * player + action.ordinal();
+    }
+
     @Override
     public String toString() {
         return action.toString();
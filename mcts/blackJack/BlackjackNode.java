@@ -1,18 +1,26 @@
 package com.phasmidsoftware.dsaipg.projects.mcts.blackJack;
 
+import com.phasmidsoftware.dsaipg.projects.mcts.core.ChanceTable;
 import com.phasmidsoftware.dsaipg.projects.mcts.core.Node;
+import com.phasmidsoftware.dsaipg.projects.mcts.core.Proof;
 import com.phasmidsoftware.dsaipg.projects.mcts.core.State;
 import com.phasmidsoftware.dsaipg.projects.mcts.core.Move;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 
 public class BlackjackNode implements Node<BlackjackGame> {
     private final State<BlackjackGame> state;
     private final ArrayList<BlackjackNode> children;
+    private final BlackjackNode[] childrenByCode = new BlackjackNode[BlackjackMove.Action.values().length];
     private int wins;
     private int playouts;
+    private long sumOfSquares;
+    private double prior = 1;
     private final Move<BlackjackGame> move;
+    private int proof;
+    private ChanceTable chance;
 
     public BlackjackNode(State<BlackjackGame> state) {
         this(state, null);
@@ -22,13 +30,9 @@ public class BlackjackNode implements Node<BlackjackGame> {
         this.state = state;
         this.move = move;
         this.children = new ArrayList<>();
-        if (state.isTerminal()) {
-            playouts = 1;
-            wins = state.winner().isPresent() ? 2 : 1;
-        } else {
-            playouts = 0;
-            wins = 0;
-        }
+        this.proof = Proof.of(state);
+        // NOTE: even a terminal node starts with no statistics: each iteration which reaches it backs up its result
+        // (from the point of view of the player to move at the root).
     }
 
     @Override
@@ -48,18 +52,91 @@ public class BlackjackNode implements Node<BlackjackGame> {
 
     @Override
     public Collection<Node<BlackjackGame>> children() {
-        return new ArrayList<>(children);
+        return Collections.unmodifiableList(children);
+    }
+
+    @Override
+    public int childCount() {
+        return children.size();
+    }
+
+    @Override
+    public BlackjackNode child(int i) {
+        return children.get(i);
     }
 
     @Override
     public void addChild(State<BlackjackGame> state) {
-        BlackjackNode child = new BlackjackNode(state, null);
-        children.add(child);
+        addChildNode(new BlackjackNode(state, null));
+    }
+
+    public BlackjackNode addChild(State<BlackjackGame> state, Move<BlackjackGame> move) {
+        return addChildNode(new BlackjackNode(state, move));
     }
 
-    public void addChild(State<BlackjackGame> state, Move<BlackjackGame> move) {
-        BlackjackNode child = new BlackjackNode(state, move);
+    /**
+     * Method to add a child, indexed by its move (if it has one) for {@link #getChild(Move)}.
+     *
+     * @param child the child.
+     * @return the child.
+     */
+    public BlackjackNode addChildNode(BlackjackNode child) {
         children.add(child);
+        if (child.move != null) childrenByCode[(int) child.move.code()] = child;
+        return child;
+    }
+
+
+    /**
+     * @return the proof of this node (see {@link Proof}): the winner, Proof.DRAW, or Proof.UNSOLVED.
+     */
+    public int proof() {
+        return proof;
+    }
+
+    public boolean isSolved() {
+        return proof != Proof.UNSOLVED;
+    }
+
+    /**
+     * Method to try to prove this node from the proofs of its children.
+     *
+     * @return true if this node is (now) solved.
+     */
+    public boolean solve() {
+        if (isSolved()) return true;
+        int[] proofs = new int[children.size()];
+        for (int i = 0; i < proofs.length; i++) proofs[i] = children.get(i).proof;
+        proof = Proof.solve(state.player(), proofs, isFullyExpanded());
+        return isSolved();
+    }
+
+    /**
+     * @return the chance table of this node (see {@link ChanceTable}), or null if its move has not been treated as a chance node.
+     */
+    public ChanceTable getChance() {
+        return chance;
+    }
+
+    /**
+     * @param strata the number of strata (used only if the table must be created).
+     * @return the chance table of this node, created if necessary.
+     */
+    public ChanceTable chance(int strata) {
+        if (chance == null) chance = new ChanceTable(strata);
+        return chance;
+    }
+
+    public boolean hasChildForMove(Move<BlackjackGame> move) {
+        return childrenByCode[(int) move.code()] != null;
+    }
+
+    /**
+     * @param move a Move.
+     * @return the child for the given move, or null if it has not been added.
+     */
+    public BlackjackNode getChild(Move<BlackjackGame> move) {
+        return childrenByCode[(int) move.code()];
     }
 
     @Override
@@ -79,6 +156,11 @@ public class BlackjackNode implements Node<BlackjackGame> {
         return move;
     }
 
+    @Override
+    public Move<BlackjackGame> move() {
+        return move;
+    }
+
     public int getPlayouts() {
         return playouts;
     }
@@ -91,8 +173,27 @@ public class BlackjackNode implements Node<BlackjackGame> {
         return children.size() >= state.moves(state.player()).size();
     }
 
+    /**
+     * @return the sum of the squares of the results backpropagated through this node (for the variance).
+     */
+    public long getSumOfSquares() {
+        return sumOfSquares;
+    }
+
+    /**
+     * @return the prior probability of the move to this node (1 unless set by the engine).
+     */
+    public double getPrior() {
+        return prior;
+    }
+
+    public void setPrior(double prior) {
+        this.prior = prior;
+    }
+
     public void updateStats(int result) {
         wins += result;
+        sumOfSquares += (long) result * result;
         playouts++;
     }
 }
\ No newline at end of file
@@ -1,7 +1,9 @@
 package com.phasmidsoftware.dsaipg.projects.mcts.blackJack;
 
+import com.phasmidsoftware.dsaipg.projects.mcts.core.RandomState;
 import com.phasmidsoftware.dsaipg.projects.mcts.core.State;
 import java.util.*;
+import java.util.random.RandomGenerator;
 
 public class BlackjackState implements State<BlackjackGame> {
     final BlackjackGame game;
@@ -9,9 +11,9 @@ public class BlackjackState implements State<BlackjackGame> {
     public final List<Integer> dealerHand;
     final Deque<Integer> deck;
     public final int player;
-    final Random random;
+    final RandomGenerator random;
 
-    public BlackjackState(BlackjackGame game, List<Integer> playerHand, List<Integer> dealerHand, Deque<Integer> deck, int player, Random random) {
+    public BlackjackState(BlackjackGame game, List<Integer> playerHand, List<Integer> dealerHand, Deque<Integer> deck, int player, RandomGenerator random) {
         this.game = game;
         this.playerHand = playerHand;
         this.dealerHand = dealerHand;
@@ -36,10 +38,76 @@ public class BlackjackState implements State<BlackjackGame> {
     }
 
     @Override
-    public Random random() {
+    public RandomGenerator random() {
         return random;
     }
 
+    /**
+     * Method to yield this state with a different random source (which is passed on to its successors),
+     * for example, so that a search does not share the random source of the game.
+     *
+     * @param random the random source.
+     * @return a BlackjackState which differs from this only in its random source.
+     */
+    public BlackjackState withRandom(RandomGenerator random) {
+        return new BlackjackState(game, playerHand, dealerHand, deck, player, random);
+    }
+
+    /**
+     * Method to yield this state with the unseen cards (the dealer's hole card, while the player is to move, and the deck) reshuffled.
+     *
+     * @param random the random source for the shuffle (which is also passed on to the new state).
+     * @return a BlackjackState.
+     */
+    @Override
+    public BlackjackState resample(RandomGenerator random) {
+        int seen = player == 0 ? Math.min(1, dealerHand.size()) : dealerHand.size();
+        List<Integer> unseen = new ArrayList<>(dealerHand.subList(seen, dealerHand.size()));
+        unseen.addAll(deck);
+        RandomState.shuffle(unseen, random);
+        Deque<Integer> newDeck = new ArrayDeque<>(unseen);
+        List<Integer> newDealerHand = new ArrayList<>(dealerHand.subList(0, seen));
+        while (newDealerHand.size() < dealerHand.size()) newDealerHand.add(newDeck.pop());
+        return new BlackjackState(game, playerHand, newDealerHand, newDeck, player, random);
+    }
+
+    /**
+     * The number of strata of a draw (see {@link #drawProbabilities()}): the card values, from 1 (ace) thru 10 (ten or court card).
+     */
+    public static final int DRAW_STRATA = 10;
+
+    /**
+     * @return the probability of each value (stratum value - 1) of the next card to be drawn, from the composition of the deck.
+     */
+    public double[] drawProbabilities() {
+        double[] result = new double[DRAW_STRATA];
+        for (int card : deck) result[Math.min(card, 10) - 1]++;
+        for (int i = 0; i < DRAW_STRATA; i++) result[i] /= deck.size();
+        return result;
+    }
+
+    /**
+     * Method to yield this state with the deck rearranged so that the next card drawn is in the given stratum:
+     * the top card is swapped with a card of that value, chosen at random.
+     *
+     * @param stratum the stratum (value - 1) of the next card.
+     * @param random  the random source.
+     * @return a BlackjackState.
+     */
+    public BlackjackState withNextDraw(int stratum, RandomGenerator random) {
+        List<Integer> cards = new ArrayList<>(deck);
+        int count = 0;
+        for (int card : cards) if (Math.min(card, 10) - 1 == stratum) count++;
+        if (count == 0) throw new IllegalArgumentException("no card in the deck for stratum " + stratum);
+        int choice = random.nextInt(count);
+        for (int i = 0; i < cards.size(); i++)
+            if (Math.min(cards.get(i), 10) - 1 == stratum && choice-- == 0) {
+                Collections.swap(cards, 0, i);
+                break;
+            }
+        return new BlackjackState(game, playerHand, dealerHand, new ArrayDeque<>(cards), player, random);
+    }
+
     @Override
     public Collection<com.phasmidsoftware.dsaipg.projects.mcts.core.Move<BlackjackGame>> moves(int player) {
         List<com.phasmidsoftware.dsaipg.projects.mcts.core.Move<BlackjackGame>> moves = new ArrayList<>();
@@ -87,7 +155,7 @@ public class BlackjackState implements State<BlackjackGame> {
         return playerTotal > dealerTotal ? Optional.of(0) : (playerTotal < dealerTotal ? Optional.of(1) : Optional.empty());
     }
 
-    private int handValue(List<Integer> hand) {
+    static int handValue(List<Integer> hand) {
         int total = 0;
         int aceCount = 0;
         for (int card : hand) {
@@ -102,6 +170,22 @@ public class BlackjackState implements State<BlackjackGame> {
         return total;
     }
 
+    /**
+     * Method to determine if a hand is soft, i.e. it includes an ace which is counted as 11.
+     *
+     * @param hand a list of card ranks (1 thru 13).
+     * @return true if the hand is soft.
+     */
+    static boolean isSoft(List<Integer> hand) {
+        int total = 0;
+        boolean ace = false;
+        for (int card : hand) {
+            total += Math.min(card, 10);
+            if (card == 1) ace = true;
+        }
+        return ace && total + 10 <= 21;
+    }
+
     private boolean dealerShouldHit() {
         return dealerShouldHit(dealerHand);
     }
@@ -0,0 +1,187 @@
+package com.phasmidsoftware.dsaipg.projects.mcts.blackJack;
+
+import com.phasmidsoftware.dsaipg.projects.mcts.core.Move;
+import com.phasmidsoftware.dsaipg.projects.mcts.core.State;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.OperatingSystemMXBean;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.LongStream;
+
+/**
+ * A simulator of many Blackjack tables played at once, each by the MCTS player, for sizing hardware:
+ * it reports the throughput (hands per second), the latency of each decision (from the table asking for a move
+ * to its getting one, so including the wait for a search thread) and the CPU utilization, as the number of tables grows.
+ * <p>
+ * Each table has its own thread, which spends most of its time waiting for its searches;
+ * the searches of all tables share one pool bounded by the number of processors.
+ * The table threads are virtual if the platform has them (Java 21 or later), otherwise they are platform threads.
+ */
+public class BlackjackTableSimulator {
+
+    /**
+     * Method to run the simulator for a growing number of tables.
+     *
+     * @param args the hands per table (default 20), the iterations per decision (default 200)
+     *             and then the numbers of tables (default 1, 10, 100 and 1000).
+     */
+    public static void main(String[] args) throws InterruptedException, ExecutionException {
+        int hands = args.length > 0 ? Integer.parseInt(args[0]) : 20;
+        int iterations = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+        int[] tables = args.length > 2 ? Arrays.stream(args, 2, args.length).mapToInt(Integer::parseInt).toArray() : new int[]{1, 10, 100, 1000};
+        int threads = Runtime.getRuntime().availableProcessors();
+        System.out.println("Tables on " + (virtualThreads() ? "virtual" : "platform") + " threads; searches on " + threads + " threads; "
+                + hands + " hands per table; " + iterations + " iterations per decision");
+        for (int n : tables) System.out.println(new BlackjackTableSimulator(n, hands, iterations, threads).run());
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param tables     the number of tables.
+     * @param hands      the number of hands played at each table.
+     * @param iterations the iterations of each search.
+     * @param threads    the number of threads for searches.
+     */
+    public BlackjackTableSimulator(int tables, int hands, int iterations, int threads) {
+        if (tables <= 0 || hands <= 0 || iterations <= 0 || threads <= 0)
+            throw new IllegalArgumentException("tables, hands, iterations and threads must be positive");
+        this.tables = tables;
+        this.hands = hands;
+        this.iterations = iterations;
+        this.threads = threads;
+    }
+
+    /**
+     * Method to play all the hands at all the tables.
+     *
+     * @return a Report.
+     */
+    public Report run() throws InterruptedException, ExecutionException {
+        ExecutorService searchPool = Executors.newFixedThreadPool(threads);
+        ExecutorService tablePool = tableExecutor();
+        try {
+            long cpuStart = processCpuTime();
+            long start = System.nanoTime();
+            List<Future<long[]>> futures = new ArrayList<>();
+            for (int i = 0; i < tables; i++) {
+                long seed = i;
+                futures.add(tablePool.submit(() -> playTable(seed, searchPool)));
+            }
+            long[][] latencies = new long[tables][];
+            for (int i = 0; i < tables; i++) latencies[i] = futures.get(i).get();
+            long nanos = System.nanoTime() - start;
+            long cpu = processCpuTime() - cpuStart;
+            long[] all = Arrays.stream(latencies).flatMapToLong(Arrays::stream).sorted().toArray();
+            double utilization = cpuStart < 0 ? Double.NaN : (double) cpu / nanos / Runtime.getRuntime().availableProcessors();
+            return new Report(tables, tables * hands, all.length, nanos, percentile(all, 0.5), percentile(all, 0.99), utilization);
+        } finally {
+            tablePool.shutdownNow();
+            searchPool.shutdownNow();
+        }
+    }
+
+    /**
+     * The result of a simulation.
+     */
+    public static class Report {
+        public Report(int tables, int hands, int decisions, long nanos, long p50, long p99, double utilization) {
+            this.tables = tables;
+            this.hands = hands;
+            this.decisions = decisions;
+            this.nanos = nanos;
+            this.p50 = p50;
+            this.p99 = p99;
+            this.utilization = utilization;
+        }
+
+        /**
+         * @return the hands played per second.
+         */
+        public double handsPerSecond() {
+            return hands * 1E9 / nanos;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("Tables: %d | Hands: %d | Decisions: %d | Hands/sec: %.1f | Decision p50: %.2f ms | p99: %.2f ms | CPU: %.0f%%",
+                    tables, hands, decisions, handsPerSecond(), p50 / 1E6, p99 / 1E6, utilization * 100);
+        }
+
+        public final int tables;
+        public final int hands;
+        public final int decisions;
+        public final long nanos;
+        public final long p50;
+        public final long p99;
+        // NOTE: the process CPU time as a fraction of the wall time of all processors (NaN if the platform does not report it).
+        public final double utilization;
+    }
+
+    /**
+     * Method to play the hands of one table, each decision being searched on the search pool.
+     *
+     * @return the latency of each decision, in nanoseconds.
+     */
+    private long[] playTable(long seed, ExecutorService searchPool) throws InterruptedException, ExecutionException {
+        BlackjackGame game = new BlackjackGame(seed);
+        LongStream.Builder latencies = LongStream.builder();
+        for (int i = 0; i < hands; i++) {
+            State<BlackjackGame> state = game.start();
+            while (!state.isTerminal()) {
+                State<BlackjackGame> current = state;
+                long start = System.nanoTime();
+                Move<BlackjackGame> move = searchPool.submit(() -> {
+                    BlackjackMCTS mcts = new BlackjackMCTS(new BlackjackNode(current), iterations);
+                    mcts.setSeed(seed);
+                    return mcts.findBestMove();
+                }).get();
+                latencies.add(System.nanoTime() - start);
+                if (move == null) break;
+                state = state.next(move);
+            }
+        }
+        return latencies.build().toArray();
+    }
+
+    private static long percentile(long[] sorted, double p) {
+        return sorted.length == 0 ? 0 : sorted[(int) Math.round(p * (sorted.length - 1))];
+    }
+
+    private static long processCpuTime() {
+        OperatingSystemMXBean bean = ManagementFactory.getOperatingSystemMXBean();
+        return bean instanceof com.sun.management.OperatingSystemMXBean ? ((com.sun.management.OperatingSystemMXBean) bean).getProcessCpuTime() : -1;
+    }
+
+    /**
+     * Method to yield an executor with a thread per task: virtual threads if the platform has them, otherwise platform threads.
+     * NOTE: virtual threads are looked up reflectively, so that this compiles (and runs) on Java 17.
+     */
+    private static ExecutorService tableExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newCachedThreadPool();
+        }
+    }
+
+    private static boolean virtualThreads() {
+        try {
+            Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return true;
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+
+    private final int tables;
+    private final int hands;
+    private final int iterations;
+    private final int threads;
+}
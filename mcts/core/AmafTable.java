@@ -0,0 +1,98 @@
+/*
+ * Copyright (c) 2024. Robin Hillyard
+ */
+
+package com.phasmidsoftware.dsaipg.projects.mcts.core;
+
+import java.util.Arrays;
+
+/**
+ * All-moves-as-first (AMAF) statistics for the moves available at one Node, keyed by Move code (see {@link Move#code()}).
+ * After each iteration, every move made (in the tree or in the rollout) by the player to move at a Node
+ * is credited at that Node with the result, as if it had been played first.
+ * RAVE blends these (many, but biased) samples with the (few, but unbiased) direct samples of each child,
+ * using {@link #beta(int, int)}.
+ */
+public class AmafTable {
+
+    /**
+     * Method to credit the given move with a result.
+     *
+     * @param code  the code of a Move.
+     * @param score the result of the iteration.
+     */
+    public void update(long code, int score) {
+        int position = index.get(code);
+        if (position < 0) {
+            position = index.size();
+            if (position == wins.length) {
+                wins = Arrays.copyOf(wins, position * 2);
+                playouts = Arrays.copyOf(playouts, position * 2);
+            }
+            index.put(code, position);
+        }
+        wins[position] += score;
+        playouts[position]++;
+    }
+
+    /**
+     * @param code the code of a Move.
+     * @return the total of the results credited to the move.
+     */
+    public long wins(long code) {
+        int position = index.get(code);
+        return position < 0 ? 0 : wins[position];
+    }
+
+    /**
+     * @param code the code of a Move.
+     * @return the number of results credited to the move.
+     */
+    public int playouts(long code) {
+        int position = index.get(code);
+        return position < 0 ? 0 : playouts[position];
+    }
+
+    /**
+     * @return the number of distinct moves in this AmafTable.
+     */
+    public int size() {
+        return index.size();
+    }
+
+    /**
+     * Method to yield the weight of the AMAF value of a child, as it decays with the child's own playouts.
+     * This is the schedule of Gelly and Silver: beta = sqrt(k / (3n + k)), so that beta is one half when n = k.
+     *
+     * @param playouts    the number of direct playouts (n) of the child.
+     * @param equivalence the equivalence parameter (k): the number of playouts at which both values are weighted equally.
+     * @return a value between 0 and 1.
+     */
+    public static double beta(int playouts, int equivalence) {
+        if (equivalence <= 0) return 0;
+        return Math.sqrt((double) equivalence / (3.0 * playouts + equivalence));
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param expected the expected number of distinct moves.
+     */
+    public AmafTable(int expected) {
+        int capacity = Math.max(expected, 1);
+        index = new ChildIndex(capacity);
+        wins = new long[capacity];
+        playouts = new int[capacity];
+    }
+
+    /**
+     * Constructor with a small default capacity.
+     */
+    public AmafTable() {
+        this(4);
+    }
+
+    private final ChildIndex index;
+    private long[] wins;
+    private int[] playouts;
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright (c) 2024. Robin Hillyard
+ */
+
+package com.phasmidsoftware.dsaipg.projects.mcts.core;
+
+/**
+ * The chance node below a Move which draws (for example, a card): its outcomes are grouped into strata
+ * (for example, by the rank of the card drawn), each with a probability (for example, from the composition of the deck).
+ * Each iteration through the move is assigned a stratum by {@link #choose(double[])}, which keeps the visits of the strata
+ * in proportion to their probabilities (stratified sampling), and its result is credited to that stratum.
+ * The value of the move is then the probability-weighted mean of the strata (see {@link #mean()}),
+ * rather than the plain mean of its results, which removes the variance due to the luck of the draw amongst strata.
+ * <p>
+ * Since the probabilities may differ from one visit to the next (in an open-loop search, the deck below the root varies),
+ * the weight of each stratum is the mean of its probabilities over all visits.
+ */
+public class ChanceTable {
+
+    /**
+     * Constructor.
+     *
+     * @param strata the number of strata (positive).
+     */
+    public ChanceTable(int strata) {
+        if (strata <= 0) throw new IllegalArgumentException("ChanceTable: strata must be positive: " + strata);
+        this.probabilities = new double[strata];
+        this.wins = new long[strata];
+        this.playouts = new int[strata];
+    }
+
+    /**
+     * Method to choose the stratum of the next iteration: the possible stratum whose share of the visits
+     * falls furthest short of its probability.
+     *
+     * @param probabilities the probability of each stratum (for this visit).
+     * @return the index of a stratum whose probability is positive.
+     */
+    public int choose(double[] probabilities) {
+        checkLength(probabilities);
+        int result = -1;
+        double bestDeficit = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < probabilities.length; i++) {
+            if (probabilities[i] <= 0) continue;
+            double deficit = probabilities[i] * (total + 1) - playouts[i];
+            if (deficit > bestDeficit) {
+                bestDeficit = deficit;
+                result = i;
+            }
+        }
+        if (result < 0) throw new IllegalArgumentException("ChanceTable: no stratum is possible");
+        return result;
+    }
+
+    /**
+     * Method to credit a stratum with a result.
+     *
+     * @param probabilities the probability of each stratum (for this visit).
+     * @param stratum       the stratum of this visit.
+     * @param score         the result of the iteration.
+     */
+    public void update(double[] probabilities, int stratum, int score) {
+        checkLength(probabilities);
+        for (int i = 0; i < probabilities.length; i++) this.probabilities[i] += probabilities[i];
+        wins[stratum] += score;
+        playouts[stratum]++;
+        total++;
+    }
+
+    /**
+     * @return the mean of the strata visited so far, each weighted by its (mean) probability; or NaN if there have been no visits.
+     */
+    public double mean() {
+        double result = 0;
+        double weight = 0;
+        for (int i = 0; i < playouts.length; i++) {
+            if (playouts[i] == 0) continue;
+            result += probabilities[i] * wins[i] / playouts[i];
+            weight += probabilities[i];
+        }
+        return weight > 0 ? result / weight : Double.NaN;
+    }
+
+    /**
+     * @param stratum the index of a stratum.
+     * @return the number of results credited to the stratum.
+     */
+    public int playouts(int stratum) {
+        return playouts[stratum];
+    }
+
+    /**
+     * @return the number of results credited to all strata.
+     */
+    public int playouts() {
+        return total;
+    }
+
+    /**
+     * @return the number of strata.
+     */
+    public int strata() {
+        return playouts.length;
+    }
+
+    private void checkLength(double[] probabilities) {
+        if (probabilities.length != playouts.length)
+            throw new IllegalArgumentException("ChanceTable: expected " + playouts.length + " probabilities but got " + probabilities.length);
+    }
+
+    private final double[] probabilities;
+    private final long[] wins;
+    private final int[] playouts;
+    private int total;
+}
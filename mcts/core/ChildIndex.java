@@ -0,0 +1,113 @@
+/*
+ * Copyright (c) 2024. Robin Hillyard
+ */
+
+package com.phasmidsoftware.dsaipg.projects.mcts.core;
+
+import java.util.Arrays;
+
+/**
+ * A minimal open-addressing map from Move codes (see {@link Move#code()}) to child positions.
+ * It is intended for Nodes whose moves have codes too sparse to index an array directly.
+ * Unlike a Map of Move to Node, it neither boxes its keys nor calls Move.equals.
+ */
+public class ChildIndex {
+
+    /**
+     * Method to get the position associated with the given code.
+     *
+     * @param code the code of a Move.
+     * @return the position of the corresponding child, or -1 if there is no such child.
+     */
+    public int get(long code) {
+        for (int i = slot(code); ; i = (i + 1) & (keys.length - 1)) {
+            if (positions[i] < 0) return -1;
+            if (keys[i] == code) return positions[i];
+        }
+    }
+
+    /**
+     * Method to determine if there is a position for the given code.
+     *
+     * @param code the code of a Move.
+     * @return true if the code has been put.
+     */
+    public boolean contains(long code) {
+        return get(code) >= 0;
+    }
+
+    /**
+     * Method to associate a position with the given code.
+     * If the code is already present, its position is replaced.
+     *
+     * @param code     the code of a Move.
+     * @param position the (non-negative) position of the corresponding child.
+     */
+    public void put(long code, int position) {
+        if (position < 0) throw new IllegalArgumentException("ChildIndex: negative position: " + position);
+        if (2 * (size + 1) > keys.length) resize(keys.length * 2);
+        insert(code, position);
+    }
+
+    /**
+     * @return the number of codes in this ChildIndex.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param expected the expected number of children (used only to choose the initial capacity).
+     */
+    public ChildIndex(int expected) {
+        int capacity = 4;
+        while (capacity < 2 * expected) capacity <<= 1;
+        keys = new long[capacity];
+        positions = new int[capacity];
+        Arrays.fill(positions, -1);
+    }
+
+    /**
+     * Constructor with a small default capacity.
+     */
+    public ChildIndex() {
+        this(4);
+    }
+
+    private void insert(long code, int position) {
+        for (int i = slot(code); ; i = (i + 1) & (keys.length - 1)) {
+            if (positions[i] < 0) {
+                keys[i] = code;
+                positions[i] = position;
+                size++;
+                return;
+            }
+            if (keys[i] == code) {
+                positions[i] = position;
+                return;
+            }
+        }
+    }
+
+    private void resize(int capacity) {
+        long[] oldKeys = keys;
+        int[] oldPositions = positions;
+        keys = new long[capacity];
+        positions = new int[capacity];
+        Arrays.fill(positions, -1);
+        size = 0;
+        for (int i = 0; i < oldKeys.length; i++)
+            if (oldPositions[i] >= 0) insert(oldKeys[i], oldPositions[i]);
+    }
+
+    private int slot(long code) {
+        long h = code * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & (keys.length - 1);
+    }
+
+    private long[] keys;
+    private int[] positions;
+    private int size;
+}
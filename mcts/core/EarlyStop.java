@@ -0,0 +1,68 @@
+/*
+ * Copyright (c) 2024. Robin Hillyard
+ */
+
+package com.phasmidsoftware.dsaipg.projects.mcts.core;
+
+/**
+ * A rule for stopping a search before its budget is exhausted.
+ * It is consulted by an engine (after each iteration) with the statistics of the children of the root,
+ * once every move of the root has been expanded.
+ * The engine chooses the most-visited child, which is the first argument of each statistic.
+ */
+@FunctionalInterface
+public interface EarlyStop {
+
+    /**
+     * Method to determine if the search may stop.
+     *
+     * @param playouts  the playouts of each child of the root.
+     * @param means     the mean result of each child, from the point of view of the player to move at the root.
+     * @param best      the index of the most-visited child.
+     * @param remaining the number of iterations remaining in the budget.
+     * @param range     the range of a single result (for example, 2 for the 2/1/0 scale).
+     * @return true if the search should stop.
+     */
+    boolean test(int[] playouts, double[] means, int best, int remaining, double range);
+
+    /**
+     * @return an EarlyStop which never stops the search.
+     */
+    static EarlyStop never() {
+        return (playouts, means, best, remaining, range) -> false;
+    }
+
+    /**
+     * Method to yield an EarlyStop which stops when the remaining budget could not change the most-visited child,
+     * even if every remaining iteration went to the runner-up. This never changes the move chosen.
+     *
+     * @return an EarlyStop.
+     */
+    static EarlyStop visits() {
+        return (playouts, means, best, remaining, range) -> {
+            for (int i = 0; i < playouts.length; i++)
+                if (i != best && playouts[i] + remaining >= playouts[best]) return false;
+            return true;
+        };
+    }
+
+    /**
+     * Method to yield an EarlyStop which stops when the most-visited child is better than every other,
+     * with confidence 1-delta (by Hoeffding bounds on each mean, of radius range * sqrt(ln(2/delta) / 2n)).
+     * This may change the move chosen, but only if the statistics are misleading.
+     *
+     * @param delta the probability of error allowed for each comparison (between 0 and 1).
+     * @return an EarlyStop.
+     */
+    static EarlyStop confidence(double delta) {
+        if (delta <= 0 || delta >= 1) throw new IllegalArgumentException("EarlyStop: delta must be between 0 and 1: " + delta);
+        double log = Math.log(2 / delta) / 2;
+        return (playouts, means, best, remaining, range) -> {
+            if (playouts[best] == 0) return false;
+            double lower = means[best] - range * Math.sqrt(log / playouts[best]);
+            for (int i = 0; i < playouts.length; i++)
+                if (i != best && (playouts[i] == 0 || means[i] + range * Math.sqrt(log / playouts[i]) >= lower)) return false;
+            return true;
+        };
+    }
+}
@@ -0,0 +1,25 @@
+/*
+ * Copyright (c) 2024. Robin Hillyard
+ */
+
+package com.phasmidsoftware.dsaipg.projects.mcts.core;
+
+/**
+ * This interface defines the behavior of a leaf evaluator: something which an MCTS engine may use
+ * in lieu of a (random) rollout to estimate the result of a non-terminal State.
+ *
+ * @param <G> the type of the Game.
+ */
+@FunctionalInterface
+public interface LeafEvaluator<G extends Game> {
+
+    /**
+     * Method to evaluate a State.
+     *
+     * @param state  the State to be evaluated.
+     * @param player the player from whose point of view the result is expressed.
+     * @return a result on the same scale as the engine's rollouts
+     * (for the two-player games, 2 for a win, 1 for a draw, and 0 for a loss).
+     */
+    int evaluate(State<G> state, int player);
+}
@@ -16,4 +16,14 @@ public interface Move<G extends Game> {
      * @return the player.
      */
     int player();
+
+    /**
+     * A compact encoding of this Move.
+     * The code must be unique amongst the moves available to one player from any one State,
+     * so that (together with the player) it is sufficient for equality and hashing,
+     * and so that a Node may use it to index its children without calling equals.
+     *
+     * @return a non-negative long.
+     */
+    long code();
 }
\ No newline at end of file
@@ -0,0 +1,35 @@
+/*
+ * Copyright (c) 2024. Robin Hillyard
+ */
+
+package com.phasmidsoftware.dsaipg.projects.mcts.core;
+
+import java.util.Collection;
+
+/**
+ * The prior probability of a move, as used by {@link SelectionPolicy#puct(double)}.
+ * An engine records the prior of each move on the child node when it is expanded.
+ *
+ * @param <G> the underlying Game type.
+ */
+@FunctionalInterface
+public interface MovePrior<G extends Game> {
+
+    /**
+     * Method to yield the prior probability of a move.
+     *
+     * @param state the state from which the move is made.
+     * @param moves all of the moves available in state (so that the prior can be normalized).
+     * @param move  the move.
+     * @return a probability between 0 and 1.
+     */
+    double prior(State<G> state, Collection<Move<G>> moves, Move<G> move);
+
+    /**
+     * @param <G> the underlying Game type.
+     * @return a MovePrior which gives each move the same probability.
+     */
+    static <G extends Game> MovePrior<G> uniform() {
+        return (state, moves, move) -> 1.0 / moves.size();
+    }
+}
@@ -35,17 +35,37 @@ public interface Node<G extends Game> {
     /**
      * Method to yield the children of this Node.
      *
-     * @return a Collection of Nodes.
+     * @return a (read-only) Collection of Nodes.
      */
     Collection<Node<G>> children();
 
+    /**
+     * @return the number of children of this Node.
+     */
+    default int childCount() {
+        return children().size();
+    }
+
+    /**
+     * Method to yield one of the children of this Node, in the order in which they were added.
+     * Together with {@link #childCount()}, this allows the children to be traversed without allocation.
+     *
+     * @param i the index of the child (from 0 until childCount()).
+     * @return the ith child.
+     */
+    default Node<G> child(int i) {
+        Iterator<Node<G>> iterator = children().iterator();
+        for (int j = 0; j < i; j++) iterator.next();
+        return iterator.next();
+    }
+
     /**
      * Method which adds the immediate children of this Node.
      * NOTE this is a mutating method. I'm not sure if that's best.
      */
     default void explore() {
         if (isLeaf()) return;
-        if (children().isEmpty()) {
+        if (childCount() == 0) {
             addChildren(state());
             backPropagate();
         } else throw new RuntimeException("exploration done already for " + this);
@@ -73,6 +93,13 @@ public interface Node<G extends Game> {
      */
     int playouts();
 
+    /**
+     * @return the Move which led to this Node, or null if this Node is a root (or does not record its Move).
+     */
+    default Move<G> move() {
+        return null;
+    }
+
     private void addChildren(final State<G> state) {
         for (Iterator<Move<G>> it = state.moveIterator(state.player()); it.hasNext(); )
             addChild(state.next(it.next()));
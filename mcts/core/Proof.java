@@ -0,0 +1,63 @@
+/*
+ * Copyright (c) 2024. Robin Hillyard
+ */
+
+package com.phasmidsoftware.dsaipg.projects.mcts.core;
+
+/**
+ * Utilities for MCTS-Solver (Winands, Björnsson and Saito, 2008), in which a Node may be proven
+ * (to be won by a particular player, or drawn) and the proofs are propagated up the tree by the minimax rules.
+ * A proof is represented as an int: the winning player, {@link #DRAW}, or {@link #UNSOLVED}.
+ */
+public class Proof {
+
+    public static final int UNSOLVED = -2;
+    public static final int DRAW = -1;
+
+    /**
+     * Method to yield the proof of a terminal state.
+     *
+     * @param state a State.
+     * @return the winner, DRAW, or (if the state is not terminal) UNSOLVED.
+     */
+    public static int of(State<?> state) {
+        if (!state.isTerminal()) return UNSOLVED;
+        return state.winner().orElse(DRAW);
+    }
+
+    /**
+     * Method to combine the proofs of the children of a node by the minimax rules:
+     * the node is won by the player to move if any child is won by that player;
+     * otherwise, if every move has been expanded and every child is proven, it is drawn if any child is drawn,
+     * and lost if none is.
+     *
+     * @param mover    the player to move at the node.
+     * @param proofs   the proofs of the children.
+     * @param complete true if every move of the node has a child.
+     * @return the proof of the node.
+     */
+    public static int solve(int mover, int[] proofs, boolean complete) {
+        boolean drawn = false;
+        boolean open = !complete;
+        for (int proof : proofs) {
+            if (proof == mover) return mover;
+            if (proof == DRAW) drawn = true;
+            else if (proof == UNSOLVED) open = true;
+        }
+        if (open || proofs.length == 0) return UNSOLVED;
+        if (drawn) return DRAW;
+        return proofs[0];
+    }
+
+    /**
+     * Method to convert a proof into a result on the 2 (win), 1 (draw), 0 (loss) scale.
+     *
+     * @param proof  a proof (not UNSOLVED).
+     * @param player the player from whose point of view the result is required.
+     * @return 2, 1, or 0.
+     */
+    public static int score(int proof, int player) {
+        if (proof == DRAW) return 1;
+        return proof == player ? 2 : 0;
+    }
+}
@@ -4,9 +4,21 @@
 
 package com.phasmidsoftware.dsaipg.projects.mcts.core;
 
+import java.util.List;
 import java.util.Objects;
 import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.random.RandomGenerator;
 
+/**
+ * A seedable source of random values, which is also a factory of independent random streams (see {@link #split()}).
+ * <p>
+ * The streams are SplittableRandom generators split, in sequence, from one seeded by the same seed as this RandomState.
+ * Each worker thread of a parallel search should have its own stream (a SplittableRandom is not thread-safe,
+ * but neither does it contend, as a shared java.util.Random does).
+ * Provided that the streams are split in the same order (for example, in one thread before the workers start),
+ * a parallel search is reproducible however its work is scheduled.
+ */
 public class RandomState {
     public RandomState next() {
         return new RandomState(x, longValue());
@@ -24,8 +36,46 @@ public class RandomState {
         return random.nextBoolean();
     }
 
+    /**
+     * Method to yield the next independent stream of this RandomState.
+     * NOTE: this method is not thread-safe: split the streams in one thread and then hand them out.
+     *
+     * @return a new SplittableRandom.
+     */
+    public SplittableRandom split() {
+        return streams.split();
+    }
+
+    /**
+     * Method to yield the next n independent streams of this RandomState, for example, one for each of n workers.
+     *
+     * @param n the number of streams.
+     * @return an array of n new SplittableRandoms.
+     */
+    public SplittableRandom[] split(int n) {
+        SplittableRandom[] result = new SplittableRandom[n];
+        for (int i = 0; i < n; i++) result[i] = split();
+        return result;
+    }
+
+    /**
+     * Method to shuffle a list (as Collections.shuffle, which before Java 21 only accepts a java.util.Random).
+     *
+     * @param list   the list to be shuffled.
+     * @param random the random source.
+     * @param <T>    the type of the elements.
+     */
+    public static <T> void shuffle(List<T> list, RandomGenerator random) {
+        for (int i = list.size() - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            list.set(i, list.set(j, list.get(i)));
+        }
+    }
+
     public RandomState(int x, long seed) {
-        this(x, new Random(seed));
+        this.x = x;
+        this.random = new Random(seed);
+        this.streams = new SplittableRandom(seed);
     }
 
     public RandomState(int x) {
@@ -52,12 +102,8 @@ public class RandomState {
                 '}';
     }
 
-    private RandomState(int x, Random random) {
-        this.x = x;
-        this.random = random;
-    }
-
     private final int x;
     private final Random random;
+    private final SplittableRandom streams;
 
-}
\ No newline at end of file
+}
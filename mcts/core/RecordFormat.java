@@ -0,0 +1,96 @@
+/*
+ * Copyright (c) 2024. Robin Hillyard
+ */
+
+package com.phasmidsoftware.dsaipg.projects.mcts.core;
+
+import java.nio.ByteBuffer;
+
+/**
+ * The binary format of self-play records, as written by {@link RecordWriter} and read by {@link RecordReader}.
+ * <p>
+ * A file begins with a header: the MAGIC int, a VERSION byte, and a byte identifying the game (see {@link StateCodec#game()}).
+ * Then follow the records, each of which is the varint length of its body, followed by the body:
+ * <ul>
+ *     <li>the outcome of the game (a zigzag varint);</li>
+ *     <li>the varint length of the encoded State, then the State itself (see {@link StateCodec});</li>
+ *     <li>the varint number of children of the root, then the move code and the (varint) visits of each child;</li>
+ *     <li>the code of the move chosen.</li>
+ * </ul>
+ * Move codes are written as (unsigned) varints, so they should not be negative.
+ * A varint uses seven bits per byte, least significant first, with the high bit set on all but the last byte.
+ */
+public class RecordFormat {
+
+    /**
+     * The magic number with which a record file begins: "MCTR".
+     */
+    public static final int MAGIC = 0x4D435452;
+
+    /**
+     * The current version of the format.
+     */
+    public static final int VERSION = 1;
+
+    /**
+     * The size of the header, in bytes.
+     */
+    public static final int HEADER = 6;
+
+    public static final int GAME_TICTACTOE = 1;
+    public static final int GAME_BLACKJACK = 2;
+    public static final int GAME_BALATRO = 3;
+
+    /**
+     * Method to put an unsigned varint.
+     *
+     * @param buffer the buffer.
+     * @param value  the value (treated as unsigned).
+     */
+    public static void putVarint(ByteBuffer buffer, long value) {
+        while ((value & ~0x7FL) != 0) {
+            buffer.put((byte) (value & 0x7F | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    /**
+     * Method to get an unsigned varint.
+     *
+     * @param buffer the buffer.
+     * @return the value.
+     */
+    public static long getVarint(ByteBuffer buffer) {
+        long result = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = buffer.get();
+            result |= (long) (b & 0x7F) << shift;
+            if (b >= 0) return result;
+        }
+    }
+
+    /**
+     * Method to put a signed value as a zigzag varint (so that small negative values are also short).
+     *
+     * @param buffer the buffer.
+     * @param value  the value.
+     */
+    public static void putSigned(ByteBuffer buffer, long value) {
+        putVarint(buffer, value << 1 ^ value >> 63);
+    }
+
+    /**
+     * Method to get a signed value which was put by putSigned.
+     *
+     * @param buffer the buffer.
+     * @return the value.
+     */
+    public static long getSigned(ByteBuffer buffer) {
+        long value = getVarint(buffer);
+        return value >>> 1 ^ -(value & 1);
+    }
+
+    private RecordFormat() {
+    }
+}
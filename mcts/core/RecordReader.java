@@ -0,0 +1,158 @@
+/*
+ * Copyright (c) 2024. Robin Hillyard
+ */
+
+package com.phasmidsoftware.dsaipg.projects.mcts.core;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A reader of self-play records (see {@link RecordFormat}) which memory-maps the file and streams through its records.
+ * <p>
+ * The reader is a cursor: {@link #next()} advances to the next record, whose fields are then available from the accessors.
+ * No objects are created per record: the State is exposed as a (reused) view of the mapped file,
+ * and the moves and visits are decoded into arrays which are reused (and grown as necessary).
+ * <p>
+ * NOTE: a single mapping is limited to 2GB, which is the limit on the size of a record file.
+ */
+public class RecordReader implements Closeable {
+
+    /**
+     * Constructor which maps the given file and checks its header.
+     *
+     * @param path the file.
+     * @throws IOException if the file cannot be mapped, or is not a record file of the current version.
+     */
+    public RecordReader(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) throw new IOException("record file is too large to map: " + path);
+            this.buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        if (buffer.remaining() < RecordFormat.HEADER || buffer.getInt() != RecordFormat.MAGIC)
+            throw new IOException("not a record file: " + path);
+        this.version = buffer.get();
+        if (version != RecordFormat.VERSION) throw new IOException("unsupported version " + version + " of record file: " + path);
+        this.game = buffer.get();
+        this.state = buffer.duplicate();
+    }
+
+    /**
+     * @return the identifier of the game (see {@link StateCodec#game()}).
+     */
+    public int game() {
+        return game;
+    }
+
+    /**
+     * @return the version of the format of the file.
+     */
+    public int version() {
+        return version;
+    }
+
+    /**
+     * Method to advance to the next record.
+     *
+     * @return true if there is a record; false at the end of the file.
+     */
+    public boolean next() {
+        if (!buffer.hasRemaining()) return false;
+        int length = (int) RecordFormat.getVarint(buffer);
+        int end = buffer.position() + length;
+        outcome = (int) RecordFormat.getSigned(buffer);
+        int stateLength = (int) RecordFormat.getVarint(buffer);
+        state.limit(buffer.position() + stateLength).position(buffer.position());
+        buffer.position(buffer.position() + stateLength);
+        moves = (int) RecordFormat.getVarint(buffer);
+        if (codes.length < moves) {
+            codes = new long[Math.max(moves, 2 * codes.length)];
+            visits = new int[codes.length];
+        }
+        for (int i = 0; i < moves; i++) {
+            codes[i] = RecordFormat.getVarint(buffer);
+            visits[i] = (int) RecordFormat.getVarint(buffer);
+        }
+        chosen = RecordFormat.getVarint(buffer);
+        // NOTE: skip any fields added by a later (compatible) version.
+        buffer.position(end);
+        records++;
+        return true;
+    }
+
+    /**
+     * @return the outcome of the game of the current record.
+     */
+    public int outcome() {
+        return outcome;
+    }
+
+    /**
+     * Method to yield the encoded State of the current record, which may be decoded by {@link StateCodec#decode(ByteBuffer)}.
+     * NOTE: the same buffer is reused for every record, so it is only valid until the next call of next.
+     *
+     * @return a read-only view of the encoded State, positioned at its start and limited at its end.
+     */
+    public ByteBuffer state() {
+        return state;
+    }
+
+    /**
+     * @return the number of children of the root in the current record.
+     */
+    public int moves() {
+        return moves;
+    }
+
+    /**
+     * @param i the index of a child of the root (less than moves()).
+     * @return the code of the move to the child.
+     */
+    public long move(int i) {
+        return codes[i];
+    }
+
+    /**
+     * @param i the index of a child of the root (less than moves()).
+     * @return the visits of the child.
+     */
+    public int visits(int i) {
+        return visits[i];
+    }
+
+    /**
+     * @return the code of the move chosen in the current record.
+     */
+    public long chosen() {
+        return chosen;
+    }
+
+    /**
+     * @return the number of records read so far.
+     */
+    public int records() {
+        return records;
+    }
+
+    @Override
+    public void close() {
+        // NOTE: the channel is closed once mapped; the mapping itself is released when the buffer is collected.
+        buffer.position(buffer.limit());
+    }
+
+    private final MappedByteBuffer buffer;
+    private final ByteBuffer state;
+    private final int version;
+    private final int game;
+    private int outcome;
+    private int moves;
+    private long[] codes = new long[16];
+    private int[] visits = new int[16];
+    private long chosen;
+    private int records;
+}
@@ -0,0 +1,155 @@
+/*
+ * Copyright (c) 2024. Robin Hillyard
+ */
+
+package com.phasmidsoftware.dsaipg.projects.mcts.core;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * A writer of self-play records (see {@link RecordFormat}) which appends to a file through a FileChannel while games run.
+ * <p>
+ * For each move of a game, call {@link #add(Node, Move)} with the root of the search and the move chosen;
+ * then, when the game is over, call {@link #endGame(int)} with its outcome, which is written into every record of the game.
+ * The records are buffered, and written to the channel whenever the buffer fills (or on flush or close).
+ * The records of a game which has not ended when the writer is closed are discarded.
+ *
+ * @param <G> the underlying Game type.
+ */
+public class RecordWriter<G extends Game> implements Closeable {
+
+    /**
+     * Constructor which opens the given file for appending, writing the header if the file is new (or empty).
+     *
+     * @param path  the file.
+     * @param codec the codec for the States of the game.
+     * @throws IOException if the file cannot be opened, or if it is a record file of another game or version.
+     */
+    public RecordWriter(Path path, StateCodec<G> codec) throws IOException {
+        this.codec = codec;
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        if (channel.size() == 0) {
+            output.putInt(RecordFormat.MAGIC).put((byte) RecordFormat.VERSION).put((byte) codec.game());
+        } else {
+            ByteBuffer header = ByteBuffer.allocate(RecordFormat.HEADER);
+            while (header.hasRemaining()) {
+                if (channel.read(header, header.position()) < 0) break;
+            }
+            header.flip();
+            if (header.remaining() < RecordFormat.HEADER || header.getInt() != RecordFormat.MAGIC || header.get() != RecordFormat.VERSION || header.get() != codec.game()) {
+                channel.close();
+                throw new IOException("not a (version " + RecordFormat.VERSION + ") record file for game " + codec.game() + ": " + path);
+            }
+            channel.position(channel.size());
+        }
+    }
+
+    /**
+     * Method to add a record of the current game: the State of the root, the visits of each of its children, and the move chosen.
+     *
+     * @param root   the root of the search (its children are those which have been expanded).
+     * @param chosen the move chosen.
+     */
+    public void add(Node<G> root, Move<G> chosen) {
+        scratch.clear();
+        codec.encode(root.state(), scratch);
+        scratch.flip();
+        int children = root.childCount();
+        pending = ensure(pending, scratch.remaining() + 20 * (children + 2));
+        offsets = ensure(offsets, pendingRecords + 1);
+        offsets[pendingRecords] = pending.position();
+        RecordFormat.putVarint(pending, scratch.remaining());
+        pending.put(scratch);
+        RecordFormat.putVarint(pending, children);
+        for (int i = 0; i < children; i++) {
+            Node<G> child = root.child(i);
+            RecordFormat.putVarint(pending, moveCode(child));
+            RecordFormat.putVarint(pending, child.playouts());
+        }
+        RecordFormat.putVarint(pending, chosen.code());
+        pendingRecords++;
+    }
+
+    /**
+     * Method to end the current game, writing its records with the given outcome.
+     *
+     * @param outcome the outcome of the game, for example the winner (or -1 for a draw), or the final score.
+     * @throws IOException if the records cannot be written.
+     */
+    public void endGame(int outcome) throws IOException {
+        ByteBuffer bodies = pending.duplicate().flip();
+        for (int i = 0; i < pendingRecords; i++) {
+            bodies.limit(i + 1 < pendingRecords ? offsets[i + 1] : pending.position()).position(offsets[i]);
+            ByteBuffer outcomeBytes = scratch.clear();
+            RecordFormat.putSigned(outcomeBytes, outcome);
+            outcomeBytes.flip();
+            int length = outcomeBytes.remaining() + bodies.remaining();
+            if (output.remaining() < length + 10) flush();
+            output = ensure(output, length + 10);
+            RecordFormat.putVarint(output, length);
+            output.put(outcomeBytes).put(bodies);
+            records++;
+        }
+        pending.clear();
+        pendingRecords = 0;
+    }
+
+    /**
+     * @return the number of records written (or buffered for writing) so far, excluding those of the current game.
+     */
+    public int records() {
+        return records;
+    }
+
+    /**
+     * Method to write any buffered records to the file.
+     *
+     * @throws IOException if the records cannot be written.
+     */
+    public void flush() throws IOException {
+        output.flip();
+        while (output.hasRemaining()) channel.write(output);
+        output.clear();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            channel.close();
+        }
+    }
+
+    private static <G extends Game> long moveCode(Node<G> child) {
+        Move<G> move = child.move();
+        if (move == null) throw new IllegalArgumentException("cannot determine the move of a child: " + child);
+        return move.code();
+    }
+
+    private static ByteBuffer ensure(ByteBuffer buffer, int needed) {
+        if (buffer.remaining() >= needed) return buffer;
+        ByteBuffer result = (buffer.isDirect() ? ByteBuffer.allocateDirect(Math.max(2 * buffer.capacity(), buffer.position() + needed)) :
+                ByteBuffer.allocate(Math.max(2 * buffer.capacity(), buffer.position() + needed)));
+        return result.put(buffer.flip());
+    }
+
+    private static int[] ensure(int[] array, int needed) {
+        return array.length >= needed ? array : Arrays.copyOf(array, Math.max(2 * array.length, needed));
+    }
+
+    private final StateCodec<G> codec;
+    private final FileChannel channel;
+    private ByteBuffer output = ByteBuffer.allocateDirect(1 << 16);
+    private ByteBuffer pending = ByteBuffer.allocate(1 << 12);
+    private final ByteBuffer scratch = ByteBuffer.allocate(1 << 12);
+    private int[] offsets = new int[16];
+    private int pendingRecords;
+    private int records;
+}
@@ -0,0 +1,49 @@
+/*
+ * Copyright (c) 2024. Robin Hillyard
+ */
+
+package com.phasmidsoftware.dsaipg.projects.mcts.core;
+
+/**
+ * This interface defines the behavior of a rollout (default) policy: the strategy by which an MCTS engine
+ * chooses moves when it plays out a game from a newly expanded node.
+ * The uniformly random policy is the classic choice, but a cheap heuristic usually converges in far fewer iterations.
+ *
+ * @param <G> the type of the Game.
+ */
+@FunctionalInterface
+public interface RolloutPolicy<G extends Game> {
+
+    /**
+     * Method to choose a move in a rollout.
+     *
+     * @param state  the current (non-terminal) State.
+     * @param player the player to move.
+     * @return a legal Move for player.
+     */
+    Move<G> choose(State<G> state, int player);
+
+    /**
+     * The uniformly random policy, i.e. {@link State#chooseMove(int)}.
+     *
+     * @param <G> the type of the Game.
+     * @return a RolloutPolicy of G.
+     */
+    static <G extends Game> RolloutPolicy<G> random() {
+        return State::chooseMove;
+    }
+
+    /**
+     * Method to wrap a policy such that, with probability epsilon, a uniformly random move is chosen instead.
+     * This keeps some diversity in the rollouts of a deterministic (greedy) policy.
+     *
+     * @param policy  the underlying (typically greedy) policy.
+     * @param epsilon the probability of choosing a random move (between 0 and 1).
+     * @param <G>     the type of the Game.
+     * @return a RolloutPolicy of G.
+     */
+    static <G extends Game> RolloutPolicy<G> epsilonGreedy(RolloutPolicy<G> policy, double epsilon) {
+        if (epsilon < 0 || epsilon > 1) throw new IllegalArgumentException("epsilon must be between 0 and 1: " + epsilon);
+        return (state, player) -> state.random().nextDouble() < epsilon ? state.chooseMove(player) : policy.choose(state, player);
+    }
+}
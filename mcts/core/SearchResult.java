@@ -0,0 +1,74 @@
+/*
+ * Copyright (c) 2024. Robin Hillyard
+ */
+
+package com.phasmidsoftware.dsaipg.projects.mcts.core;
+
+/**
+ * The result of one search by an MCTS engine: the move chosen, together with the effort it took.
+ *
+ * @param <G> the underlying Game type.
+ */
+public class SearchResult<G extends Game> {
+
+    /**
+     * @return the move chosen (null if the root was terminal).
+     */
+    public Move<G> move() {
+        return move;
+    }
+
+    /**
+     * @return the number of iterations actually run.
+     */
+    public int iterations() {
+        return iterations;
+    }
+
+    /**
+     * @return the maximum number of iterations allowed.
+     */
+    public int budget() {
+        return budget;
+    }
+
+    /**
+     * @return the number of iterations saved by stopping early (whether because the root was solved,
+     * or because of an {@link EarlyStop} rule).
+     */
+    public int saved() {
+        return budget - iterations;
+    }
+
+    /**
+     * @return the elapsed time of the search, in nanoseconds.
+     */
+    public long nanos() {
+        return nanos;
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param move       the move chosen.
+     * @param iterations the number of iterations run.
+     * @param budget     the maximum number of iterations.
+     * @param nanos      the elapsed time in nanoseconds.
+     */
+    public SearchResult(Move<G> move, int iterations, int budget, long nanos) {
+        this.move = move;
+        this.iterations = iterations;
+        this.budget = budget;
+        this.nanos = nanos;
+    }
+
+    @Override
+    public String toString() {
+        return "SearchResult{move=" + move + ", iterations=" + iterations + ", budget=" + budget + ", nanos=" + nanos + '}';
+    }
+
+    private final Move<G> move;
+    private final int iterations;
+    private final int budget;
+    private final long nanos;
+}
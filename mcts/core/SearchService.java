@@ -0,0 +1,189 @@
+/*
+ * Copyright (c) 2024. Robin Hillyard
+ */
+
+package com.phasmidsoftware.dsaipg.projects.mcts.core;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A service which runs searches (see {@link Searcher}) in the background, for a front-end which must stay responsive.
+ * Each search yields a CompletableFuture of its result.
+ * <p>
+ * A service has at most one search outstanding: submitting a search cancels the previous one (if it is still queued or running),
+ * so that stale searches are never queued behind the current one; {@link #cancel()} cancels it explicitly
+ * (for example when a new game starts), and {@link #close()} does so for good (for example when the window closes).
+ * A running search is cancelled by interrupting its thread (which the engine checks after each iteration).
+ * <p>
+ * A service may also ponder (see {@link #ponder(Searcher)}): that is, search with no budget in the background
+ * (for example while the front-end animates a move), until {@link #stop()} is called,
+ * whereupon the search completes at once with the best move found so far, from a tree already grown.
+ * <p>
+ * The searches of all services run on one shared pool of daemon threads, which is bounded both in threads
+ * (one fewer than the processors, but at least one) and in the searches which may wait for a thread;
+ * a search which cannot be queued completes exceptionally with a RejectedExecutionException.
+ */
+public class SearchService implements AutoCloseable {
+
+    /**
+     * Constructor with no time budget (each search is limited by its iterations alone).
+     */
+    public SearchService() {
+        this(0);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param timeBudget the time budget of each search in milliseconds (0 for no limit).
+     */
+    public SearchService(long timeBudget) {
+        setTimeBudget(timeBudget);
+    }
+
+    /**
+     * Method to set the time budget given to each search subsequently submitted (see {@link Searcher#setTimeBudget(long)}).
+     *
+     * @param millis the time budget in milliseconds (0 to leave the searcher's own budget alone).
+     */
+    public void setTimeBudget(long millis) {
+        if (millis < 0) throw new IllegalArgumentException("SearchService: time budget must not be negative: " + millis);
+        this.timeBudget = millis;
+    }
+
+    /**
+     * Method to submit a search, cancelling the previous one.
+     * If the future returned is cancelled, so is the search.
+     *
+     * @param searcher the engine, which should not be used elsewhere until the search is done.
+     * @param <G>      the underlying Game type.
+     * @return a CompletableFuture of the result.
+     */
+    public synchronized <G extends Game> CompletableFuture<SearchResult<G>> submit(Searcher<G> searcher) {
+        return run(searcher, timeBudget);
+    }
+
+    /**
+     * Method to submit a search which runs until it is stopped (see {@link #stop()}), cancelling the previous one.
+     * The time budget of this service does not apply; the budget of the searcher itself should be unlimited
+     * (for example, an engine constructed with Integer.MAX_VALUE iterations).
+     * <p>
+     * The tree grown by the searcher remains once it is stopped, so a further search from the same root
+     * (for example, by a new engine on the same node) continues from where pondering left off.
+     *
+     * @param searcher the engine, which should not be used elsewhere until the search is done.
+     * @param <G>      the underlying Game type.
+     * @return a CompletableFuture of the result.
+     */
+    public synchronized <G extends Game> CompletableFuture<SearchResult<G>> ponder(Searcher<G> searcher) {
+        return run(searcher, 0);
+    }
+
+    /**
+     * Method to stop the outstanding search (if any): if it is running, it completes (normally) with the best move so far;
+     * if it has not yet started, it is cancelled.
+     *
+     * @return true if a running search was stopped.
+     */
+    public synchronized boolean stop() {
+        if (current == null) return false;
+        boolean result = runner != null;
+        if (result) runner.interrupt();
+        else current.cancel(true);
+        current = null;
+        runner = null;
+        return result;
+    }
+
+    private <G extends Game> CompletableFuture<SearchResult<G>> run(Searcher<G> searcher, long timeBudget) {
+        cancel();
+        CompletableFuture<SearchResult<G>> result = new CompletableFuture<>();
+        if (closed) {
+            result.completeExceptionally(new RejectedExecutionException("SearchService: closed"));
+            return result;
+        }
+        if (timeBudget > 0) searcher.setTimeBudget(timeBudget);
+        FutureTask<Void> task = new FutureTask<>(() -> {
+            synchronized (this) {
+                // NOTE: the search may have been cancelled (or stopped) after the pool took it from its queue,
+                // in which case it must not touch the tree, which its caller may already be searching afresh.
+                if (current != result) return;
+                runner = Thread.currentThread();
+            }
+            try {
+                result.complete(searcher.search());
+            } catch (Throwable e) {
+                result.completeExceptionally(e);
+            } finally {
+                synchronized (this) {
+                    if (current == result) runner = null;
+                }
+            }
+        }, null);
+        try {
+            pool.execute(task);
+        } catch (RejectedExecutionException e) {
+            result.completeExceptionally(e);
+            return result;
+        }
+        result.whenComplete((r, x) -> {
+            if (result.isCancelled()) {
+                task.cancel(true);
+                pool.remove(task);
+            }
+        });
+        current = result;
+        return result;
+    }
+
+    /**
+     * Method to cancel the outstanding search (if any).
+     *
+     * @return true if a search was cancelled.
+     */
+    public synchronized boolean cancel() {
+        boolean result = current != null && current.cancel(true);
+        current = null;
+        runner = null;
+        return result;
+    }
+
+    /**
+     * Method to cancel the outstanding search and to refuse any more.
+     * The shared pool is not shut down (its threads are daemons, which expire when idle).
+     */
+    @Override
+    public synchronized void close() {
+        cancel();
+        closed = true;
+    }
+
+    /**
+     * The maximum number of searches which may wait for a thread of the shared pool.
+     */
+    public static final int QUEUE_CAPACITY = 16;
+
+    private static ThreadPoolExecutor createPool() {
+        int threads = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+        ThreadPoolExecutor result = new ThreadPoolExecutor(threads, threads, 30, TimeUnit.SECONDS, new ArrayBlockingQueue<>(QUEUE_CAPACITY), runnable -> {
+            Thread thread = new Thread(runnable, "mcts-search");
+            thread.setDaemon(true);
+            return thread;
+        });
+        result.allowCoreThreadTimeOut(true);
+        return result;
+    }
+
+    private static final ThreadPoolExecutor pool = createPool();
+
+    private long timeBudget;
+    private CompletableFuture<?> current;
+    // NOTE: the thread running the current search (if it has started), which stop() interrupts.
+    private Thread runner;
+    private boolean closed;
+}
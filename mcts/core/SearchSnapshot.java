@@ -0,0 +1,124 @@
+/*
+ * Copyright (c) 2024. Robin Hillyard
+ */
+
+package com.phasmidsoftware.dsaipg.projects.mcts.core;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * An immutable summary of a search in progress: the most-visited moves of the root so far,
+ * with their visits and mean results, as published by an engine every so often (so that a front-end may show
+ * a suggestion which refines as the search goes on).
+ * <p>
+ * A snapshot is taken by the thread running the search, between iterations, so the tree need not be locked;
+ * once taken, it shares nothing with the tree and may be passed to any other thread.
+ *
+ * @param <G> the underlying Game type.
+ */
+public class SearchSnapshot<G extends Game> {
+
+    /**
+     * Method to take a snapshot of the children of a root.
+     *
+     * @param root       the root of the search.
+     * @param size       the maximum number of moves to include (the most visited).
+     * @param iterations the number of iterations run so far.
+     * @param nanos      the elapsed time of the search so far, in nanoseconds.
+     * @param <G>        the underlying Game type.
+     * @return a SearchSnapshot.
+     */
+    public static <G extends Game> SearchSnapshot<G> of(Node<G> root, int size, int iterations, long nanos) {
+        if (size <= 0) throw new IllegalArgumentException("SearchSnapshot: size must be positive: " + size);
+        List<Entry<G>> entries = new ArrayList<>();
+        for (int i = 0, n = root.childCount(); i < n; i++) {
+            Node<G> child = root.child(i);
+            int playouts = child.playouts();
+            if (playouts > 0) entries.add(new Entry<>(child.move(), playouts, (double) child.wins() / playouts));
+        }
+        entries.sort((x, y) -> Integer.compare(y.playouts, x.playouts));
+        if (entries.size() > size) entries = new ArrayList<>(entries.subList(0, size));
+        return new SearchSnapshot<>(Collections.unmodifiableList(entries), iterations, nanos);
+    }
+
+    /**
+     * @return the moves of the root included, most visited first (the first being the move the search would now choose).
+     */
+    public List<Entry<G>> entries() {
+        return entries;
+    }
+
+    /**
+     * @return the most-visited move so far (or null if no move has been visited).
+     */
+    public Move<G> best() {
+        return entries.isEmpty() ? null : entries.get(0).move();
+    }
+
+    /**
+     * @return the number of iterations run so far.
+     */
+    public int iterations() {
+        return iterations;
+    }
+
+    /**
+     * @return the elapsed time of the search so far, in nanoseconds.
+     */
+    public long nanos() {
+        return nanos;
+    }
+
+    @Override
+    public String toString() {
+        return "SearchSnapshot{iterations=" + iterations + ", nanos=" + nanos + ", entries=" + entries + '}';
+    }
+
+    /**
+     * A move of the root, with its visits and mean result (on the scale of the engine,
+     * from the point of view of the player to move at the root).
+     *
+     * @param <G> the underlying Game type.
+     */
+    public static class Entry<G extends Game> {
+
+        public Entry(Move<G> move, int playouts, double mean) {
+            this.move = move;
+            this.playouts = playouts;
+            this.mean = mean;
+        }
+
+        public Move<G> move() {
+            return move;
+        }
+
+        public int playouts() {
+            return playouts;
+        }
+
+        public double mean() {
+            return mean;
+        }
+
+        @Override
+        public String toString() {
+            return move + ": " + playouts + " (" + mean + ")";
+        }
+
+        private final Move<G> move;
+        private final int playouts;
+        private final double mean;
+    }
+
+    private SearchSnapshot(List<Entry<G>> entries, int iterations, long nanos) {
+        this.entries = entries;
+        this.iterations = iterations;
+        this.nanos = nanos;
+    }
+
+    private final List<Entry<G>> entries;
+    private final int iterations;
+    private final long nanos;
+}
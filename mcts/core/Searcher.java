@@ -0,0 +1,30 @@
+/*
+ * Copyright (c) 2024. Robin Hillyard
+ */
+
+package com.phasmidsoftware.dsaipg.projects.mcts.core;
+
+/**
+ * An engine which may be run by a {@link SearchService}: it searches (once) for the best move,
+ * within its budget of iterations and, if one is set, of time.
+ * A search should also stop (returning the best move found so far) as soon as its thread is interrupted.
+ *
+ * @param <G> the underlying Game type.
+ */
+public interface Searcher<G extends Game> {
+
+    /**
+     * Method to search for the best move.
+     *
+     * @return a SearchResult.
+     */
+    SearchResult<G> search();
+
+    /**
+     * Method to limit the time of each search: once the time is up, the search stops (after at least one iteration)
+     * with the best move found so far.
+     *
+     * @param millis the time budget in milliseconds (0 for no limit).
+     */
+    void setTimeBudget(long millis);
+}
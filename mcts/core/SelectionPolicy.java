@@ -0,0 +1,90 @@
+/*
+ * Copyright (c) 2024. Robin Hillyard
+ */
+
+package com.phasmidsoftware.dsaipg.projects.mcts.core;
+
+/**
+ * The policy by which the selection phase of MCTS chooses amongst the children of a node.
+ * Results are normalized by the engine to lie (nominally) between 0 and 1, from the point of view of the player to move at the parent.
+ * The logarithm of the parent's playouts is computed by the engine once per parent, not once per child.
+ */
+@FunctionalInterface
+public interface SelectionPolicy {
+
+    /**
+     * Method to score a visited child: the child with the highest score is selected.
+     *
+     * @param mean              the mean (normalized) result of the child.
+     * @param variance          the variance of the (normalized) results of the child.
+     * @param playouts          the playouts of the child (at least 1).
+     * @param prior             the prior probability of the move to the child (see {@link MovePrior}).
+     * @param parentPlayouts    the playouts of the parent.
+     * @param logParentPlayouts the natural logarithm of parentPlayouts.
+     * @return the score of the child.
+     */
+    double score(double mean, double variance, int playouts, double prior, int parentPlayouts, double logParentPlayouts);
+
+    /**
+     * The first-play urgency (FPU) is the score given to a move which has not yet been expanded.
+     * A node is only descended through while the score of its best child is at least its FPU; otherwise an unexpanded move is expanded.
+     * The default (infinity) expands every move of a node before any is selected.
+     *
+     * @return the first-play urgency.
+     */
+    default double firstPlayUrgency() {
+        return Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * Method to yield this policy with the given first-play urgency.
+     *
+     * @param urgency the score of an unexpanded move.
+     * @return a SelectionPolicy.
+     */
+    default SelectionPolicy withFirstPlayUrgency(double urgency) {
+        SelectionPolicy policy = this;
+        return new SelectionPolicy() {
+            public double score(double mean, double variance, int playouts, double prior, int parentPlayouts, double logParentPlayouts) {
+                return policy.score(mean, variance, playouts, prior, parentPlayouts, logParentPlayouts);
+            }
+
+            public double firstPlayUrgency() {
+                return urgency;
+            }
+        };
+    }
+
+    /**
+     * UCB1 (Auer, Cesa-Bianchi and Fischer, 2002): mean + c * sqrt(ln N / n).
+     *
+     * @param c the exploration constant (sqrt(2) in the original analysis).
+     * @return a SelectionPolicy.
+     */
+    static SelectionPolicy ucb1(double c) {
+        return (mean, variance, playouts, prior, parentPlayouts, logParentPlayouts) -> mean + c * Math.sqrt(logParentPlayouts / playouts);
+    }
+
+    /**
+     * UCB1-Tuned (Auer et al.): mean + sqrt(ln N / n * min(1/4, V)), where V = variance + sqrt(2 ln N / n)
+     * is an upper confidence bound on the variance (1/4 being the greatest variance of a result between 0 and 1).
+     *
+     * @return a SelectionPolicy.
+     */
+    static SelectionPolicy ucb1Tuned() {
+        return (mean, variance, playouts, prior, parentPlayouts, logParentPlayouts) -> {
+            double ratio = logParentPlayouts / playouts;
+            return mean + Math.sqrt(ratio * Math.min(0.25, variance + Math.sqrt(2 * ratio)));
+        };
+    }
+
+    /**
+     * PUCT (as in AlphaZero): mean + c * prior * sqrt(N) / (1 + n).
+     *
+     * @param c the exploration constant.
+     * @return a SelectionPolicy.
+     */
+    static SelectionPolicy puct(double c) {
+        return (mean, variance, playouts, prior, parentPlayouts, logParentPlayouts) -> mean + c * prior * Math.sqrt(parentPlayouts) / (1 + playouts);
+    }
+}
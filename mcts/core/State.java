@@ -10,7 +10,7 @@ import com.phasmidsoftware.dsaipg.projects.adt.bqs.UnorderedIterator;
 import java.util.Collection;
 import java.util.Iterator;
 import java.util.Optional;
-import java.util.Random;
+import java.util.random.RandomGenerator;
 
 /**
  * This interface defines the behavior of a State of a game (G).
@@ -50,10 +50,15 @@ public interface State<G extends Game> {
 
     /**
      * A random source associated with this State.
+     * NOTE: a RandomGenerator is not in general thread-safe, so a State (and its successors) should be used by one thread at a time;
+     * parallel rollouts should each have their own generator (see {@link RandomState#split()}).
+     * The States of a game typically share the generator of the game, so an engine which searches on another thread
+     * (see {@link SearchService}) should not draw on this, but on a generator of its own, given to the States it rolls out
+     * (see {@link #resample(RandomGenerator)}, for example).
      *
-     * @return the appropriate RandomState.
+     * @return the appropriate RandomGenerator.
      */
-    Random random();
+    RandomGenerator random();
 
     /**
      * Get the moves that can be made directly from the given state.
@@ -72,6 +77,19 @@ public interface State<G extends Game> {
      */
     State<G> next(Move<G> move);
 
+    /**
+     * Method to yield a State which the player to move cannot distinguish from this one,
+     * but whose hidden chance outcomes (for example, the order of a deck) are drawn afresh.
+     * This is how an open-loop search samples the future on each iteration.
+     * The default is this State (as for a game without chance or hidden information).
+     *
+     * @param random the random source for the resampling (which is also passed on to the new State).
+     * @return a State.
+     */
+    default State<G> resample(RandomGenerator random) {
+        return this;
+    }
+
     /**
      * Method to yield a (random) iterator of moves for the given player.
      *
@@ -0,0 +1,37 @@
+/*
+ * Copyright (c) 2024. Robin Hillyard
+ */
+
+package com.phasmidsoftware.dsaipg.projects.mcts.core;
+
+import java.nio.ByteBuffer;
+
+/**
+ * This interface defines the binary encoding of the States of a Game, as stored in self-play records
+ * (see {@link RecordWriter} and {@link RecordReader}).
+ *
+ * @param <G> the underlying Game type.
+ */
+public interface StateCodec<G extends Game> {
+
+    /**
+     * @return the identifier of the Game, as written in the header of a record file (one of the GAME_ constants of {@link RecordFormat}).
+     */
+    int game();
+
+    /**
+     * Method to encode a State.
+     *
+     * @param state  the State.
+     * @param buffer the buffer into which the State is encoded, at its position.
+     */
+    void encode(State<G> state, ByteBuffer buffer);
+
+    /**
+     * Method to decode a State which was encoded by encode.
+     *
+     * @param buffer a buffer positioned at the encoded State (and whose position is advanced past it).
+     * @return the State.
+     */
+    State<G> decode(ByteBuffer buffer);
+}
@@ -0,0 +1,409 @@
+package com.phasmidsoftware.dsaipg.projects.mcts.miniBalatro;
+
+import com.phasmidsoftware.dsaipg.projects.mcts.core.Move;
+import com.phasmidsoftware.dsaipg.projects.mcts.core.RandomState;
+import com.phasmidsoftware.dsaipg.projects.mcts.core.RecordReader;
+import com.phasmidsoftware.dsaipg.projects.mcts.core.RecordWriter;
+import com.phasmidsoftware.dsaipg.projects.mcts.core.RolloutPolicy;
+import com.phasmidsoftware.dsaipg.projects.mcts.core.State;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.random.RandomGenerator;
+import java.util.stream.IntStream;
+
+/**
+ * Benchmarks of the options of {@link BalatroMCTS}: each compares settings of the engine
+ * by the average final score (and time) of whole games over a range of iteration budgets, and by whatever else it measures.
+ */
+public class BalatroBenchmarks {
+
+    /**
+     * Method to run benchmarks.
+     *
+     * @param args the names of the benchmarks to run (for example, "openLoop"); by default, all of them.
+     */
+    public static void main(String[] args) {
+        Map<String, Runnable> benchmarks = new LinkedHashMap<>();
+        benchmarks.put("balatro", BalatroMCTS::benchmarkBalatro);
+        benchmarks.put("rave", BalatroBenchmarks::benchmarkRave);
+        benchmarks.put("progressiveWidening", BalatroBenchmarks::benchmarkProgressiveWidening);
+        benchmarks.put("canonicalMoves", BalatroBenchmarks::benchmarkCanonicalMoves);
+        benchmarks.put("macroActions", BalatroBenchmarks::benchmarkMacroActions);
+        benchmarks.put("sequentialHalving", BalatroBenchmarks::benchmarkSequentialHalving);
+        benchmarks.put("cutoffRollouts", BalatroBenchmarks::benchmarkCutoffRollouts);
+        benchmarks.put("valueModel", BalatroBenchmarks::benchmarkValueModel);
+        benchmarks.put("records", BalatroBenchmarks::benchmarkRecords);
+        benchmarks.put("randomStreams", BalatroBenchmarks::benchmarkRandomStreams);
+        benchmarks.put("openLoop", BalatroBenchmarks::benchmarkOpenLoop);
+        benchmarks.put("chanceNodes", BalatroBenchmarks::benchmarkChanceNodes);
+        benchmarks.put("rolloutPolicies", BalatroBenchmarks::benchmarkRolloutPolicies);
+        for (String name : args.length > 0 ? Arrays.asList(args) : benchmarks.keySet()) {
+            Runnable benchmark = benchmarks.get(name);
+            if (benchmark == null) throw new IllegalArgumentException("BalatroBenchmarks: no such benchmark: " + name + " (try one of " + benchmarks.keySet() + ")");
+            System.out.println("=== " + name + " ===");
+            benchmark.run();
+        }
+    }
+
+    /**
+     * Method to compare full expansion with progressive widening by average final score over a range of iteration budgets,
+     * and by the size and depth of the tree built from one starting position.
+     */
+    public static void benchmarkProgressiveWidening() {
+        int[] iterationLimits = {50, 100, 200, 500, 1000};
+        double[][] settings = {{0, 0}, {1, 0.5}, {2, 0.5}, {4, 0.25}};
+        for (double[] setting : settings) {
+            System.out.println("Progressive widening: k=" + setting[0] + ", alpha=" + setting[1]);
+            benchmarkBalatro(iterationLimits, 20, mcts -> mcts.setProgressiveWidening(setting[0], setting[1]));
+            for (int iter : iterationLimits) {
+                BalatroNode root = new BalatroNode(new BalatroGame(0L).start());
+                BalatroMCTS mcts = new BalatroMCTS(root, iter);
+                mcts.setProgressiveWidening(setting[0], setting[1]);
+                mcts.findBestMove();
+                System.out.printf("Iterations: %d | Nodes: %d | Depth: %d | Root children: %d\n",
+                        iter, root.size(), root.depth(), root.childCount());
+            }
+        }
+    }
+
+    /**
+     * Method to measure the reduction in branching factor due to canonical moves (over random starting positions),
+     * and to compare the average final score with and without them.
+     */
+    public static void benchmarkCanonicalMoves() {
+        RandomGenerator random = new SplittableRandom(0L);
+        long moves = 0, canonical = 0;
+        for (int i = 0; i < 100; i++) {
+            BalatroState state = (BalatroState) new BalatroGame(random.nextLong()).start();
+            moves += state.moves(state.player()).size();
+            canonical += state.canonicalMoves().size();
+        }
+        System.out.printf("Branching factor: %.1f | Canonical: %.1f%n", moves / 100.0, canonical / 100.0);
+        int[] iterationLimits = {50, 100, 200, 500};
+        System.out.println("All moves, progressive widening (k=2, alpha=0.5)");
+        benchmarkBalatro(iterationLimits, 20, mcts -> mcts.setProgressiveWidening(2, 0.5));
+        System.out.println("Canonical moves, progressive widening (k=2, alpha=0.5)");
+        benchmarkBalatro(iterationLimits, 20, mcts -> {
+            mcts.setProgressiveWidening(2, 0.5);
+            mcts.setCanonicalMoves(true);
+        });
+        System.out.println("Canonical moves, full expansion");
+        benchmarkBalatro(iterationLimits, 20, mcts -> mcts.setCanonicalMoves(true));
+    }
+
+    /**
+     * Method to compare the search over raw moves with that over macro-actions, by average final score,
+     * and by the depth of the tree built from one starting position with 1000 iterations (as in BalatroFX).
+     */
+    public static void benchmarkMacroActions() {
+        int[] iterationLimits = {50, 100, 200, 500, 1000};
+        Map<String, Consumer<BalatroMCTS>> settings = new LinkedHashMap<>();
+        settings.put("Raw moves", mcts -> {
+        });
+        settings.put("Macro-actions", mcts -> mcts.setMacroActions(true));
+        settings.put("Macro-actions, random macro rollouts", mcts -> {
+            mcts.setMacroActions(true);
+            mcts.setRolloutPolicy(BalatroMacro.randomMacros());
+        });
+        for (Map.Entry<String, Consumer<BalatroMCTS>> entry : settings.entrySet()) {
+            System.out.println(entry.getKey());
+            benchmarkBalatro(iterationLimits, 20, entry.getValue());
+            BalatroNode root = new BalatroNode(new BalatroGame(0L).start());
+            BalatroMCTS mcts = new BalatroMCTS(root, 1000);
+            entry.getValue().accept(mcts);
+            mcts.findBestMove();
+            System.out.printf("Iterations: 1000 | Nodes: %d | Depth: %d | Root children: %d\n",
+                    root.size(), root.depth(), root.childCount());
+        }
+    }
+
+    /**
+     * Method to compare UCT with Sequential Halving (sequential and parallel) by average final score and time,
+     * over a range of small budgets.
+     */
+    public static void benchmarkSequentialHalving() {
+        int[] iterationLimits = {50, 100, 200, 400};
+        System.out.println("UCT");
+        benchmarkBalatro(iterationLimits, 20, mcts -> {
+        });
+        System.out.println("UCT, progressive widening (k=2, alpha=0.5)");
+        benchmarkBalatro(iterationLimits, 20, mcts -> mcts.setProgressiveWidening(2, 0.5));
+        System.out.println("Sequential Halving");
+        benchmarkBalatro(iterationLimits, 20, mcts -> mcts.setSequentialHalving(true));
+        System.out.println("Sequential Halving, parallel rollouts");
+        benchmarkBalatro(iterationLimits, 20, mcts -> {
+            mcts.setSequentialHalving(true);
+            mcts.setParallel(true);
+        });
+    }
+
+    /**
+     * Method to compare plain UCT with RAVE (for several equivalence parameters) by average final score
+     * over a range of iteration budgets.
+     */
+    public static void benchmarkRave() {
+        int[] iterationLimits = {25, 50, 100, 200, 400};
+        for (int equivalence : new int[]{0, 50, 200}) {
+            System.out.println("RAVE equivalence: " + equivalence);
+            benchmarkBalatro(iterationLimits, 20, mcts -> mcts.setRave(equivalence));
+        }
+    }
+
+    /**
+     * Method to compare full (random) rollouts with rollouts cut off by a {@link BalatroEvaluator} after a few moves:
+     * first by the time of one iteration from the opening state, then by average final score.
+     */
+    public static void benchmarkCutoffRollouts() {
+        BalatroEvaluator evaluator = new BalatroEvaluator();
+        int[] depths = {-1, 0, 1, 2, 4};
+        for (int depth : depths) {
+            Consumer<BalatroMCTS> configure = mcts -> {
+                if (depth >= 0) mcts.setCutoff(depth, evaluator);
+            };
+            String name = depth < 0 ? "full rollouts" : "cutoff at depth " + depth;
+            int iterations = 200;
+            int runs = 20;
+            long nanos = 0;
+            // NOTE: the first runs are for warm-up only.
+            for (int i = -runs; i < runs; i++) {
+                BalatroMCTS mcts = new BalatroMCTS(new BalatroNode(new BalatroGame(i).start()), iterations);
+                configure.accept(mcts);
+                long start = System.nanoTime();
+                mcts.findBestMove();
+                if (i >= 0) nanos += System.nanoTime() - start;
+            }
+            System.out.printf("Rollouts: %s | Time per iteration: %.1f us%n", name, nanos / 1.0E3 / runs / iterations);
+            benchmarkBalatro(new int[]{50, 100, 200}, 200, configure);
+        }
+    }
+
+    /**
+     * Method to train a {@link BalatroValueModel} from self-play, and then to compare random rollouts with the model
+     * (alone, and blended with rollouts) by average final score over a range of iteration budgets.
+     */
+    public static void benchmarkValueModel() {
+        long start = System.currentTimeMillis();
+        List<BalatroValueModel.Sample> samples = BalatroValueModel.selfPlay(5000, RolloutPolicy.epsilonGreedy(new BalatroGreedyPolicy(), 0.2), 0L);
+        BalatroValueModel model = BalatroValueModel.fit(samples, 1.0);
+        System.out.printf("Trained on %d positions in %d ms | RMSE: %.2f%n", samples.size(), System.currentTimeMillis() - start, model.rmse(samples));
+        int[] iterationLimits = {10, 20, 50, 100, 200};
+        System.out.println("Rollouts");
+        benchmarkBalatro(iterationLimits, 100, mcts -> {
+        });
+        System.out.println("Value model");
+        benchmarkBalatro(iterationLimits, 100, mcts -> mcts.setValueFunction(model, 1));
+        System.out.println("Value model blended with rollouts (weight=0.5)");
+        benchmarkBalatro(iterationLimits, 100, mcts -> mcts.setValueFunction(model, 0.5));
+    }
+
+    /**
+     * Method to measure the record format: self-play games are recorded to a temporary file,
+     * which is then read back (decoding every State); reporting the size of a record and the rates of writing and reading.
+     */
+    public static void benchmarkRecords() {
+        try {
+            Path path = Files.createTempFile("balatro", ".mctr");
+            BalatroGame game = new BalatroGame(0L);
+            BalatroCodec codec = new BalatroCodec(game, new SplittableRandom(0L));
+            int games = 200;
+            long searchNanos = 0;
+            long writeNanos = 0;
+            try (RecordWriter<BalatroGame> writer = new RecordWriter<>(path, codec)) {
+                for (int i = 0; i < games; i++) {
+                    State<BalatroGame> state = game.start();
+                    while (!state.isTerminal()) {
+                        BalatroNode rootNode = new BalatroNode(state);
+                        long start = System.nanoTime();
+                        Move<BalatroGame> move = new BalatroMCTS(rootNode, 100).findBestMove();
+                        long searched = System.nanoTime();
+                        writer.add(rootNode, move);
+                        writeNanos += System.nanoTime() - searched;
+                        searchNanos += searched - start;
+                        state = state.next(move);
+                    }
+                    long start = System.nanoTime();
+                    writer.endGame(((BalatroState) state).getScore());
+                    writeNanos += System.nanoTime() - start;
+                }
+                System.out.printf("Recorded %d records | Write: %.2f us per record | Search: %.0f us per move%n",
+                        writer.records(), writeNanos / 1.0E3 / writer.records(), searchNanos / 1.0E3 / writer.records());
+            }
+            long size = Files.size(path);
+            long start = System.nanoTime();
+            int records = 0;
+            long visits = 0;
+            long scores = 0;
+            try (RecordReader reader = new RecordReader(path)) {
+                while (reader.next()) {
+                    records++;
+                    for (int i = 0; i < reader.moves(); i++) visits += reader.visits(i);
+                    scores += ((BalatroState) codec.decode(reader.state())).getScore();
+                }
+            }
+            long end = System.nanoTime();
+            System.out.printf("File: %d bytes (%.1f bytes per record) | Read (and decode): %.2f us per record | Visits: %d | Scores: %d%n",
+                    size, (double) size / records, (end - start) / 1.0E3 / records, visits, scores);
+            Files.delete(path);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Method to compare parallel rollouts which share one java.util.Random with rollouts which each have their own split stream.
+     */
+    public static void benchmarkRandomStreams() {
+        BalatroState state = (BalatroState) new BalatroGame(0L).start();
+        int rollouts = 100_000;
+        Random shared = new Random(0L);
+        RandomState streams = new RandomState(1, 0L);
+        for (int pass = 0; pass < 2; pass++) {
+            long start = System.nanoTime();
+            long total = IntStream.range(0, rollouts).parallel().mapToLong(x -> rollout(state.withRandom(shared))).sum();
+            long middle = System.nanoTime();
+            SplittableRandom[] generators = streams.split(rollouts);
+            long total2 = IntStream.range(0, rollouts).parallel().mapToLong(x -> rollout(state.withRandom(generators[x]))).sum();
+            long end = System.nanoTime();
+            if (pass > 0) {
+                System.out.printf("Shared java.util.Random: %.2f us per rollout (mean %.2f)%n", (middle - start) / 1.0E3 / rollouts, (double) total / rollouts);
+                System.out.printf("Split SplittableRandom streams: %.2f us per rollout (mean %.2f)%n", (end - middle) / 1.0E3 / rollouts, (double) total2 / rollouts);
+            }
+        }
+    }
+
+    /**
+     * Method to compare closed-loop search (which, since each node holds a state, in effect knows the order of the deck)
+     * with open-loop search (which does not) by average final score,
+     * and by the size and depth of the tree built from one starting position with 1000 iterations.
+     */
+    public static void benchmarkOpenLoop() {
+        int[] iterationLimits = {100, 200, 500, 1000};
+        Map<String, Consumer<BalatroMCTS>> settings = new LinkedHashMap<>();
+        settings.put("Closed loop", mcts -> mcts.setProgressiveWidening(2, 0.5));
+        settings.put("Open loop", mcts -> {
+            mcts.setProgressiveWidening(2, 0.5);
+            mcts.setOpenLoop(true);
+        });
+        for (Map.Entry<String, Consumer<BalatroMCTS>> entry : settings.entrySet()) {
+            System.out.println(entry.getKey() + ", progressive widening (k=2, alpha=0.5)");
+            benchmarkBalatro(iterationLimits, 20, entry.getValue());
+            BalatroNode root = new BalatroNode(new BalatroGame(0L).start());
+            BalatroMCTS mcts = new BalatroMCTS(root, 1000);
+            entry.getValue().accept(mcts);
+            mcts.findBestMove();
+            System.out.printf("Iterations: 1000 | Nodes: %d | Depth: %d | Root children: %d\n",
+                    root.size(), root.depth(), root.childCount());
+        }
+    }
+
+    /**
+     * Method to compare open-loop search (with progressive widening) with and without chance nodes:
+     * by the stability of the decision (how often two searches of the same position, with different seeds,
+     * agree on the action, play or discard, and on the move itself), and by average final score.
+     */
+    public static void benchmarkChanceNodes() {
+        int[] iterationLimits = {100, 200, 500};
+        Map<String, Consumer<BalatroMCTS>> settings = new LinkedHashMap<>();
+        settings.put("Open loop", mcts -> {
+            mcts.setProgressiveWidening(2, 0.5);
+            mcts.setOpenLoop(true);
+        });
+        settings.put("Open loop, chance nodes", mcts -> {
+            mcts.setProgressiveWidening(2, 0.5);
+            mcts.setChanceNodes(true);
+        });
+        for (Map.Entry<String, Consumer<BalatroMCTS>> entry : settings.entrySet()) {
+            System.out.println(entry.getKey() + ", progressive widening (k=2, alpha=0.5)");
+            for (int iterLimit : iterationLimits) {
+                int positions = 50;
+                int actions = 0;
+                int agreements = 0;
+                for (int i = 0; i < positions; i++) {
+                    State<BalatroGame> state = new BalatroGame(i).start();
+                    List<BalatroMove> moves = new ArrayList<>();
+                    for (int j = 0; j < 2; j++) {
+                        BalatroMCTS mcts = new BalatroMCTS(new BalatroNode(state), iterLimit);
+                        entry.getValue().accept(mcts);
+                        mcts.setSeed(i * 2L + j);
+                        moves.add((BalatroMove) mcts.findBestMove());
+                    }
+                    if (moves.get(0).getAction() == moves.get(1).getAction()) actions++;
+                    if (moves.get(0).equals(moves.get(1))) agreements++;
+                }
+                System.out.printf("Iterations: %d | Action agreement: %.1f%% | Move agreement: %.1f%%%n",
+                        iterLimit, actions * 100.0 / positions, agreements * 100.0 / positions);
+            }
+            benchmarkBalatro(iterationLimits, 20, entry.getValue());
+        }
+    }
+
+    /**
+     * Method to compare the random rollout policy with the greedy policy (pure, and epsilon-greedy)
+     * by average final score over a range of iteration budgets.
+     */
+    public static void benchmarkRolloutPolicies() {
+        int[] iterationLimits = {10, 25, 50, 100, 200};
+        System.out.println("Rollout policy: random");
+        benchmarkBalatro(iterationLimits, 20, mcts -> mcts.setRolloutPolicy(RolloutPolicy.random()));
+        System.out.println("Rollout policy: greedy");
+        benchmarkBalatro(iterationLimits, 20, mcts -> mcts.setRolloutPolicy(new BalatroGreedyPolicy()));
+        System.out.println("Rollout policy: greedy (epsilon=0.2)");
+        benchmarkBalatro(iterationLimits, 20, mcts -> mcts.setRolloutPolicy(RolloutPolicy.epsilonGreedy(new BalatroGreedyPolicy(), 0.2)));
+    }
+
+    /**
+     * Method to play numRuns games with each iteration limit, reporting the average time and score
+     * (with the standard error of the score). Game i is dealt from seed i, so every setting plays the same deals.
+     */
+    static void benchmarkBalatro(int[] iterationLimits, int numRuns, Consumer<BalatroMCTS> configure) {
+        for (int iter : iterationLimits) {
+            long totalTime = 0;
+            int totalScore = 0;
+            long sumOfSquares = 0;
+
+            for (int i = 0; i < numRuns; i++) {
+                BalatroGame game = new BalatroGame(i);
+                State<BalatroGame> state = game.start();
+                long start = System.currentTimeMillis();
+
+                while (!state.isTerminal()) {
+                    BalatroNode rootNode = new BalatroNode(state);
+                    BalatroMCTS mcts = new BalatroMCTS(rootNode, iter);
+                    configure.accept(mcts);
+                    Move<BalatroGame> move = mcts.findBestMove();
+                    if (move == null) break;
+                    state = state.next(move);
+                }
+
+                long end = System.currentTimeMillis();
+                totalTime += (end - start);
+
+                int finalScore = ((BalatroState) state).getScore();
+                totalScore += finalScore;
+                sumOfSquares += (long) finalScore * finalScore;
+            }
+
+            double avgTime = totalTime / (double) numRuns;
+            double avgScore = totalScore / (double) numRuns;
+            double standardError = Math.sqrt(Math.max(0, sumOfSquares / (double) numRuns - avgScore * avgScore) / numRuns);
+
+            System.out.printf("Iterations: %d | Avg Time: %.2f ms | Avg Score: %.2f (+/- %.2f)\n",
+                    iter, avgTime, avgScore, standardError);
+        }
+    }
+
+    /**
+     * Method to play uniformly random moves from the given state to the end of the game.
+     *
+     * @return the final score.
+     */
+    private static int rollout(State<BalatroGame> state) {
+        while (!state.isTerminal()) state = state.next(state.chooseMove(state.player()));
+        return ((BalatroState) state).getScore();
+    }
+}
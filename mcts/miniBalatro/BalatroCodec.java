@@ -0,0 +1,75 @@
+package com.phasmidsoftware.dsaipg.projects.mcts.miniBalatro;
+
+import com.phasmidsoftware.dsaipg.projects.mcts.core.RecordFormat;
+import com.phasmidsoftware.dsaipg.projects.mcts.core.State;
+import com.phasmidsoftware.dsaipg.projects.mcts.core.StateCodec;
+
+import java.nio.ByteBuffer;
+import java.util.*;
+import java.util.random.RandomGenerator;
+
+/**
+ * The binary encoding of a Balatro State: the hand, the table and the deck, each as a byte count followed by a packed byte per card
+ * (the suit in the high nibble, the rank in the low nibble); then a byte each for the plays and discards remaining,
+ * and the accumulated score (as a varint).
+ */
+public class BalatroCodec implements StateCodec<BalatroGame> {
+
+    public BalatroCodec(BalatroGame game, RandomGenerator random) {
+        this.game = game;
+        this.random = random;
+    }
+
+    public int game() {
+        return RecordFormat.GAME_BALATRO;
+    }
+
+    public void encode(State<BalatroGame> state, ByteBuffer buffer) {
+        BalatroState balatroState = (BalatroState) state;
+        putCards(buffer, balatroState.hand);
+        putCards(buffer, balatroState.table);
+        putCards(buffer, balatroState.deck);
+        buffer.put((byte) balatroState.remainingPlays);
+        buffer.put((byte) balatroState.remainingDiscards);
+        RecordFormat.putVarint(buffer, balatroState.accumulatedScore);
+    }
+
+    public State<BalatroGame> decode(ByteBuffer buffer) {
+        List<Card> hand = getCards(buffer, new ArrayList<>());
+        List<Card> table = getCards(buffer, new ArrayList<>());
+        Deque<Card> deck = getCards(buffer, new ArrayDeque<>());
+        int plays = buffer.get();
+        int discards = buffer.get();
+        return new BalatroState(game, hand, table, deck, plays, discards, random, (int) RecordFormat.getVarint(buffer));
+    }
+
+    /**
+     * @param card a Card.
+     * @return the card packed into a byte.
+     */
+    static byte pack(Card card) {
+        return (byte) (card.getSuit().ordinal() << 4 | card.getRank());
+    }
+
+    /**
+     * @param b a card packed by pack.
+     * @return the Card.
+     */
+    static Card unpack(byte b) {
+        return new Card(b & 0xF, Card.Suit.values()[b >> 4]);
+    }
+
+    private static void putCards(ByteBuffer buffer, Collection<Card> cards) {
+        buffer.put((byte) cards.size());
+        for (Card card : cards) buffer.put(pack(card));
+    }
+
+    private static <C extends Collection<Card>> C getCards(ByteBuffer buffer, C cards) {
+        int n = buffer.get() & 0xFF;
+        for (int i = 0; i < n; i++) cards.add(unpack(buffer.get()));
+        return cards;
+    }
+
+    private final BalatroGame game;
+    private final RandomGenerator random;
+}
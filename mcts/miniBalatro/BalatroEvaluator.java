@@ -0,0 +1,89 @@
+package com.phasmidsoftware.dsaipg.projects.mcts.miniBalatro;
+
+import com.phasmidsoftware.dsaipg.projects.mcts.core.LeafEvaluator;
+import com.phasmidsoftware.dsaipg.projects.mcts.core.State;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.random.RandomGenerator;
+
+/**
+ * A fast evaluator of a (non-terminal) Balatro state, for cutting rollouts short:
+ * the accumulated score, plus the score of the best play in hand (see {@link BalatroGreedyPolicy#bestPlay(List)}),
+ * plus the expected best play of each of the plays remaining after that one,
+ * estimated by sampling hands from the cards remaining in the deck (see {@link #expectedBestPlay(List, int, int, RandomGenerator)}).
+ * <p>
+ * NOTE: the hands to come are modelled as drawn from the deck alone (ignoring the cards left in hand after the first play),
+ * and the remaining discards are credited to the first of them, as though all were saved for it:
+ * each discard shows it five more cards, of which it keeps the best play.
+ */
+public class BalatroEvaluator implements LeafEvaluator<BalatroGame> {
+
+    /**
+     * Constructor.
+     *
+     * @param samples the number of hands sampled from the deck for each expectation.
+     */
+    public BalatroEvaluator(int samples) {
+        if (samples <= 0) throw new IllegalArgumentException("BalatroEvaluator: samples must be positive: " + samples);
+        this.samples = samples;
+    }
+
+    public BalatroEvaluator() {
+        this(16);
+    }
+
+    @Override
+    public int evaluate(State<BalatroGame> state, int player) {
+        BalatroState balatroState = (BalatroState) state;
+        int result = balatroState.getScore();
+        if (state.isTerminal() || balatroState.hand.isEmpty()) return result;
+        result += BalatroState.bestPlayScore(balatroState.hand);
+        int plays = balatroState.remainingPlays - 1;
+        if (plays == 0 || balatroState.deck.isEmpty()) return result;
+        List<Card> deck = new ArrayList<>(balatroState.deck);
+        int handSize = balatroState.hand.size();
+        double expected = expectedBestPlay(deck, handSize, samples, state.random());
+        int discards = balatroState.remainingDiscards;
+        double first = discards == 0 ? expected : expectedBestPlay(deck, handSize + 5 * discards, samples, state.random());
+        return result + (int) Math.round(first + (plays - 1) * expected);
+    }
+
+    /**
+     * Method to estimate the expected score of the best play from a hand drawn from the given cards.
+     *
+     * @param cards    the cards from which hands are drawn (which are reordered).
+     * @param handSize the number of cards in hand (if there are fewer cards, the hand is all of them).
+     * @param samples  the number of hands to sample.
+     * @param random   the source of randomness.
+     * @return the mean score of the best play of each sampled hand.
+     */
+    public static double expectedBestPlay(List<Card> cards, int handSize, int samples, RandomGenerator random) {
+        int n = Math.min(handSize, cards.size());
+        long total = 0;
+        for (int i = 0; i < samples; i++) {
+            // NOTE: only the first n cards need be shuffled.
+            for (int j = 0; j < n; j++) Collections.swap(cards, j, j + random.nextInt(cards.size() - j));
+            total += BalatroState.bestPlayScore(cards.subList(0, n));
+        }
+        return (double) total / samples;
+    }
+
+    /**
+     * Method to estimate the expected score of the best play from a hand drawn from a full deck.
+     *
+     * @param handSize the number of cards in hand.
+     * @param samples  the number of hands to sample.
+     * @param random   the source of randomness.
+     * @return the mean score of the best play of each sampled hand.
+     */
+    public static double expectedBestPlay(int handSize, int samples, RandomGenerator random) {
+        List<Card> deck = new ArrayList<>();
+        for (Card.Suit suit : Card.Suit.values())
+            for (int rank = 1; rank <= 13; rank++) deck.add(new Card(rank, suit));
+        return expectedBestPlay(deck, handSize, samples, random);
+    }
+
+    private final int samples;
+}
@@ -1,6 +1,9 @@
 package com.phasmidsoftware.dsaipg.projects.mcts.miniBalatro;
 
 import com.phasmidsoftware.dsaipg.projects.mcts.core.Move;
+import com.phasmidsoftware.dsaipg.projects.mcts.core.SearchResult;
+import com.phasmidsoftware.dsaipg.projects.mcts.core.SearchService;
+import com.phasmidsoftware.dsaipg.projects.mcts.core.SearchSnapshot;
 import com.phasmidsoftware.dsaipg.projects.mcts.core.State;
 import javafx.animation.KeyFrame;
 import javafx.animation.KeyValue;
@@ -22,8 +25,10 @@ import javafx.stage.Stage;
 import javafx.util.Duration;
 
 import java.util.*;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Consumer;
 
 public class BalatroFX extends Application {
 
@@ -46,8 +51,12 @@ public class BalatroFX extends Application {
     private Button newGameButton;
     private Button viewAllTableCardsButton;
     private ToggleButton autoPlayToggle;
+    private Label suggestionLabel;
 
-    private ExecutorService executor = Executors.newSingleThreadExecutor();
+    private final SearchService searchService = new SearchService(SEARCH_TIME_BUDGET);
+    private State<BalatroGame> ponderState;
+    private BalatroNode ponderRoot;
+    private CompletableFuture<SearchResult<BalatroGame>> ponder;
 
     private boolean autoPlayEnabled = false;
 
@@ -55,6 +64,13 @@ public class BalatroFX extends Application {
     private final double CARD_HEIGHT = 140;
     private final double CARD_SPACING = 10;
 
+    private static final int SEARCH_ITERATIONS = 1000;
+    private static final long SEARCH_TIME_BUDGET = 2000;
+    // NOTE: a suggestion is limited by the time budget (or by the user accepting it) rather than by its iterations.
+    private static final int SUGGESTION_ITERATIONS = 1_000_000;
+    private static final long SNAPSHOT_INTERVAL = 100;
+    private static final int SNAPSHOT_SIZE = 3;
+
     public static void main(String[] args) {
         launch(args);
     }
@@ -164,9 +180,9 @@ public class BalatroFX extends Application {
         discardButton.setPrefWidth(150);
         discardButton.setOnAction(e -> discardSelectedCards());
 
-        mctsButton = new Button("Suggest Move (MCTS)");
+        mctsButton = new Button();
         mctsButton.setPrefWidth(150);
-        mctsButton.setOnAction(e -> suggestMoveWithMCTS());
+        resetSuggestButton();
 
         newGameButton = new Button("New Game");
         newGameButton.setPrefWidth(100);
@@ -184,12 +200,18 @@ public class BalatroFX extends Application {
         logLabel.setFont(Font.font("Arial", FontWeight.BOLD, 14));
         logLabel.setFill(Color.WHITE);
 
-        bottomArea.getChildren().addAll(controls, logLabel, gameLogArea);
+        suggestionLabel = new Label();
+        suggestionLabel.setFont(Font.font("Arial", 14));
+        suggestionLabel.setTextFill(Color.WHITE);
+
+        bottomArea.getChildren().addAll(controls, suggestionLabel, logLabel, gameLogArea);
 
         return bottomArea;
     }
 
     private void startNewGame() {
+        searchService.cancel();
+        suggestionLabel.setText("");
         selectedCards.clear();
         lastPlayedCards.clear();
         allTableCards.clear();
@@ -200,6 +222,7 @@ public class BalatroFX extends Application {
         updateUI();
 
         logGameEvent("New game started. Make your first move!");
+        setControlsEnabled(true);
 
         if (autoPlayEnabled) {
             performAutoPlay();
@@ -208,6 +231,7 @@ public class BalatroFX extends Application {
 
     private void toggleAutoPlay() {
         autoPlayEnabled = autoPlayToggle.isSelected();
+        if (!autoPlayEnabled) searchService.cancel();
         autoPlayToggle.setText("Auto-Play: " + (autoPlayEnabled ? "ON" : "OFF"));
 
         if (autoPlayEnabled && !currentState.isTerminal()) {
@@ -223,71 +247,66 @@ public class BalatroFX extends Application {
         logGameEvent("Auto-Play: Calculating next move...");
         setControlsEnabled(false);
 
-        executor.submit(() -> {
-            BalatroNode rootNode = new BalatroNode(currentState);
-            BalatroMCTS mcts = new BalatroMCTS(rootNode, 1000);
-            Move<BalatroGame> bestMove = mcts.findBestMove();
+        searchForBestMove(SEARCH_ITERATIONS, null, bestMove -> {
+            if (bestMove == null) {
+                logGameEvent("Auto-Play: No valid moves found");
+                setControlsEnabled(true);
+                return;
+            }
 
-            Platform.runLater(() -> {
-                if (bestMove == null) {
-                    logGameEvent("Auto-Play: No valid moves found");
-                    setControlsEnabled(true);
-                    return;
-                }
+            BalatroMove balatroMove = (BalatroMove) bestMove;
+            List<Card> moveCards = balatroMove.getCards();
 
-                BalatroMove balatroMove = (BalatroMove) bestMove;
-                List<Card> moveCards = balatroMove.getCards();
+            selectedCards.clear();
 
-                selectedCards.clear();
+            BalatroState state = (BalatroState) currentState;
+            List<Card> playerHand = state.hand;
 
-                BalatroState state = (BalatroState) currentState;
-                List<Card> playerHand = state.hand;
-
-                List<Card> alreadySelected = new ArrayList<>();
+            List<Card> alreadySelected = new ArrayList<>();
 
-                for (Card moveCard : moveCards) {
-                    for (Card handCard : playerHand) {
-                        if (!alreadySelected.contains(handCard) &&
-                                handCard.getRank() == moveCard.getRank() &&
-                                handCard.getSuit() == moveCard.getSuit()) {
-                            selectedCards.add(handCard);
-                            alreadySelected.add(handCard);
-                            break;
-                        }
+            for (Card moveCard : moveCards) {
+                for (Card handCard : playerHand) {
+                    if (!alreadySelected.contains(handCard) &&
+                            handCard.getRank() == moveCard.getRank() &&
+                            handCard.getSuit() == moveCard.getSuit()) {
+                        selectedCards.add(handCard);
+                        alreadySelected.add(handCard);
+                        break;
                     }
                 }
+            }
 
-                updateUI();
+            updateUI();
 
-                logGameEvent("Auto-Play: " + balatroMove.getAction() + " " + moveCards);
+            logGameEvent("Auto-Play: " + balatroMove.getAction() + " " + moveCards);
 
-                Timeline timeline = new Timeline(
-                        new KeyFrame(Duration.seconds(1), e -> {
-                            if (balatroMove.getAction() == BalatroMove.Action.PLAY) {
-                                playSelectedCardsWithoutChecks();
-                            } else {
-                                discardSelectedCardsWithoutChecks();
-                            }
+            Timeline timeline = new Timeline(
+                    new KeyFrame(Duration.seconds(1), e -> {
+                        if (balatroMove.getAction() == BalatroMove.Action.PLAY) {
+                            playSelectedCardsWithoutChecks();
+                        } else {
+                            discardSelectedCardsWithoutChecks();
+                        }
 
-                            if (!currentState.isTerminal() && autoPlayEnabled) {
-                                Timeline nextMoveTimeline = new Timeline(
-                                        new KeyFrame(Duration.seconds(0.5), event -> performAutoPlay())
-                                );
-                                nextMoveTimeline.play();
-                            } else {
-                                setControlsEnabled(true);
-
-                                if (currentState.isTerminal()) {
-                                    int finalScore = ((BalatroState)currentState).getScore();
-                                    logGameEvent("\n=== GAME OVER ===");
-                                    logGameEvent("Final Score: " + finalScore);
-                                    logGameEvent("Start a new game to play again!");
-                                }
+                        if (!currentState.isTerminal() && autoPlayEnabled) {
+                            startPondering();
+                            Timeline nextMoveTimeline = new Timeline(
+                                    new KeyFrame(Duration.seconds(0.5), event -> performAutoPlay())
+                            );
+                            nextMoveTimeline.play();
+                        } else {
+                            setControlsEnabled(true);
+
+                            if (currentState.isTerminal()) {
+                                int finalScore = ((BalatroState)currentState).getScore();
+                                logGameEvent("\n=== GAME OVER ===");
+                                logGameEvent("Final Score: " + finalScore);
+                                logGameEvent("Start a new game to play again!");
                             }
-                        })
-                );
-                timeline.play();
-            });
+                        }
+                    })
+            );
+            timeline.play();
         });
     }
 
@@ -598,46 +617,125 @@ public class BalatroFX extends Application {
     private void suggestMoveWithMCTS() {
         setControlsEnabled(false);
         logGameEvent("Calculating best move with MCTS...");
+        suggestionLabel.setText("");
 
-        executor.submit(() -> {
-            BalatroNode rootNode = new BalatroNode(currentState);
-            BalatroMCTS mcts = new BalatroMCTS(rootNode, 1000);
+        // NOTE: while the search refines its suggestion, the button accepts the suggestion so far.
+        mctsButton.setText("Accept Suggestion");
+        mctsButton.setOnAction(e -> searchService.stop());
+        mctsButton.setDisable(false);
 
-            Move<BalatroGame> bestMove = mcts.findBestMove();
-
-            Platform.runLater(() -> {
-                if (bestMove == null) {
-                    logGameEvent("No valid moves found");
-                } else {
-                    BalatroMove balatroMove = (BalatroMove) bestMove;
-                    List<Card> moveCards = balatroMove.getCards();
+        searchForBestMove(SUGGESTION_ITERATIONS, this::showSnapshot, bestMove -> {
+            if (bestMove == null) {
+                logGameEvent("No valid moves found");
+            } else {
+                BalatroMove balatroMove = (BalatroMove) bestMove;
+                List<Card> moveCards = balatroMove.getCards();
 
-                    selectedCards.clear();
+                selectedCards.clear();
 
-                    BalatroState state = (BalatroState) currentState;
-                    List<Card> playerHand = state.hand;
+                BalatroState state = (BalatroState) currentState;
+                List<Card> playerHand = state.hand;
 
-                    List<Card> alreadySelected = new ArrayList<>();
+                List<Card> alreadySelected = new ArrayList<>();
 
-                    for (Card moveCard : moveCards) {
-                        for (Card handCard : playerHand) {
-                            if (!alreadySelected.contains(handCard) &&
-                                    handCard.getRank() == moveCard.getRank() &&
-                                    handCard.getSuit() == moveCard.getSuit()) {
-                                selectedCards.add(handCard);
-                                alreadySelected.add(handCard);
-                                break;
-                            }
+                for (Card moveCard : moveCards) {
+                    for (Card handCard : playerHand) {
+                        if (!alreadySelected.contains(handCard) &&
+                                handCard.getRank() == moveCard.getRank() &&
+                                handCard.getSuit() == moveCard.getSuit()) {
+                            selectedCards.add(handCard);
+                            alreadySelected.add(handCard);
+                            break;
                         }
                     }
+                }
 
-                    updateUI();
+                updateUI();
 
-                    logGameEvent("Suggested move: " + balatroMove.getAction() + " " + moveCards);
-                }
+                logGameEvent("Suggested move: " + balatroMove.getAction() + " " + moveCards);
+            }
+
+            setControlsEnabled(true);
+        }).whenComplete((result, exception) -> Platform.runLater(this::resetSuggestButton));
+    }
+
+    private void resetSuggestButton() {
+        mctsButton.setText("Suggest Move (MCTS)");
+        mctsButton.setOnAction(e -> suggestMoveWithMCTS());
+    }
+
+    /**
+     * Method to show the best moves so far of a search in progress.
+     */
+    private void showSnapshot(SearchSnapshot<BalatroGame> snapshot) {
+        StringBuilder text = new StringBuilder("MCTS (" + snapshot.iterations() + " iterations):");
+        for (SearchSnapshot.Entry<BalatroGame> entry : snapshot.entries()) {
+            BalatroMove move = (BalatroMove) entry.move();
+            text.append(String.format("  %s %s [%d visits, mean %.0f]", move.getAction(), move.getCards(), entry.playouts(), entry.mean()));
+        }
+        suggestionLabel.setText(text.toString());
+    }
 
+    /**
+     * Method to search for the best move from the current state in the background,
+     * passing it (on the JavaFX thread) to the given action, unless the game has moved on in the meantime.
+     *
+     * @param iterations the budget of the search (unless it continues from pondering, see {@link #commitPondering()}).
+     * @param progress   the action to which snapshots of the search are passed as it goes on (or null).
+     * @param action     the action to which the best move is passed.
+     * @return the search.
+     */
+    private CompletableFuture<SearchResult<BalatroGame>> searchForBestMove(int iterations, Consumer<SearchSnapshot<BalatroGame>> progress, Consumer<Move<BalatroGame>> action) {
+        State<BalatroGame> state = currentState;
+        CompletableFuture<SearchResult<BalatroGame>> search;
+        if (ponder != null && ponderState == state) search = commitPondering();
+        else {
+            BalatroMCTS mcts = new BalatroMCTS(new BalatroNode(state), iterations);
+            if (progress != null)
+                mcts.setSnapshots(SNAPSHOT_INTERVAL, SNAPSHOT_SIZE, snapshot -> Platform.runLater(() -> {
+                    if (state == currentState) progress.accept(snapshot);
+                }));
+            search = searchService.submit(mcts);
+        }
+        ponder = null;
+        ponderState = null;
+        ponderRoot = null;
+        search.whenComplete((result, exception) -> Platform.runLater(() -> {
+            if (state != currentState) return;
+            if (exception != null) {
+                Throwable cause = exception instanceof CompletionException ? exception.getCause() : exception;
+                if (!(cause instanceof CancellationException)) logGameEvent("MCTS search failed: " + cause);
                 setControlsEnabled(true);
-            });
+                return;
+            }
+            action.accept(result.move());
+        }));
+        return search;
+    }
+
+    /**
+     * Method to ponder on the current state (see {@link SearchService#ponder}) while the move just made is animated,
+     * so that the next auto-play move can be found at once from the tree grown meanwhile.
+     */
+    private void startPondering() {
+        ponderState = currentState;
+        ponderRoot = new BalatroNode(currentState);
+        ponder = searchService.ponder(new BalatroMCTS(ponderRoot, Integer.MAX_VALUE));
+    }
+
+    /**
+     * Method to stop pondering and to yield the move from the pondered tree,
+     * topped up (by a new engine on the same root) to SEARCH_ITERATIONS if pondering ran fewer
+     * (or did not start at all).
+     */
+    private CompletableFuture<SearchResult<BalatroGame>> commitPondering() {
+        BalatroNode root = ponderRoot;
+        CompletableFuture<SearchResult<BalatroGame>> pondered = ponder;
+        searchService.stop();
+        return pondered.handle((result, exception) -> result).thenCompose(result -> {
+            int iterations = result == null ? 0 : result.iterations();
+            return iterations >= SEARCH_ITERATIONS ? CompletableFuture.completedFuture(result) :
+                    searchService.submit(new BalatroMCTS(root, SEARCH_ITERATIONS - iterations));
         });
     }
 
@@ -657,6 +755,6 @@ public class BalatroFX extends Application {
 
     @Override
     public void stop() {
-        executor.shutdownNow();
+        searchService.close();
     }
 }
\ No newline at end of file
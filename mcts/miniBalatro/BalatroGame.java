@@ -1,11 +1,27 @@
 package com.phasmidsoftware.dsaipg.projects.mcts.miniBalatro;
 
 import com.phasmidsoftware.dsaipg.projects.mcts.core.Game;
+import com.phasmidsoftware.dsaipg.projects.mcts.core.RandomState;
 import com.phasmidsoftware.dsaipg.projects.mcts.core.State;
 
 import java.util.*;
+import java.util.random.RandomGenerator;
 
 public class BalatroGame implements Game<BalatroGame> {
+    private final RandomGenerator random;
+
+    public BalatroGame(RandomGenerator random) {
+        this.random = random;
+    }
+
+    public BalatroGame(long seed) {
+        this(new SplittableRandom(seed));
+    }
+
+    public BalatroGame() {
+        this(new SplittableRandom());
+    }
+
     @Override
     public State<BalatroGame> start() {
         List<Card> deckList = new ArrayList<>();
@@ -14,7 +30,7 @@ public class BalatroGame implements Game<BalatroGame> {
                 deckList.add(new Card(rank, suit));
             }
         }
-        java.util.Collections.shuffle(deckList);
+        RandomState.shuffle(deckList, random);
         Deque<Card> deck = new ArrayDeque<>(deckList);
 
         List<Card> playerHand = new ArrayList<>();
@@ -22,7 +38,7 @@ public class BalatroGame implements Game<BalatroGame> {
             playerHand.add(deck.pop());
         }
         List<Card> table = new ArrayList<>();
-        return new BalatroState(this, playerHand, table, deck, 5, 3, new Random(), 0);
+        return new BalatroState(this, playerHand, table, deck, 5, 3, random, 0);
     }
 
     @Override
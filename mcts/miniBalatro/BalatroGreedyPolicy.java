@@ -0,0 +1,80 @@
+package com.phasmidsoftware.dsaipg.projects.mcts.miniBalatro;
+
+import com.phasmidsoftware.dsaipg.projects.mcts.core.Move;
+import com.phasmidsoftware.dsaipg.projects.mcts.core.RolloutPolicy;
+import com.phasmidsoftware.dsaipg.projects.mcts.core.State;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * A greedy rollout policy for Balatro: play the best-scoring hand unless it scores below a threshold,
+ * in which case (if there are discards left) discard up to three of the lowest cards which are not part of it.
+ * <p>
+ * NOTE: only plays of min(5, hand size) cards are considered, since adding cards to a play never lowers its score
+ * (each extra card scores at least as a high card), so the best play is always found amongst them.
+ */
+public class BalatroGreedyPolicy implements RolloutPolicy<BalatroGame> {
+
+    public BalatroGreedyPolicy(int threshold) {
+        this.threshold = threshold;
+    }
+
+    public BalatroGreedyPolicy() {
+        this(DEFAULT_THRESHOLD);
+    }
+
+    @Override
+    public Move<BalatroGame> choose(State<BalatroGame> state, int player) {
+        BalatroState balatroState = (BalatroState) state;
+        List<Card> hand = balatroState.hand;
+        if (hand.isEmpty()) return state.chooseMove(player);
+        List<Card> best = bestPlay(hand);
+        if (balatroState.remainingDiscards > 0 && !balatroState.deck.isEmpty() && BalatroState.evaluatePlayScore(best) < threshold) {
+            List<Card> discards = new ArrayList<>(hand);
+            discards.removeAll(best);
+            if (!discards.isEmpty()) {
+                discards.sort(Comparator.comparingInt(Card::getRank));
+                return new BalatroMove(BalatroMove.Action.DISCARD, new ArrayList<>(discards.subList(0, Math.min(3, discards.size()))), player);
+            }
+        }
+        return new BalatroMove(BalatroMove.Action.PLAY, best, player);
+    }
+
+    /**
+     * Method to find the best-scoring play of min(5, hand size) cards from the given hand.
+     *
+     * @param hand the cards in hand (not empty).
+     * @return the cards to play.
+     */
+    public static List<Card> bestPlay(List<Card> hand) {
+        int k = Math.min(5, hand.size());
+        int[] indices = new int[k];
+        for (int i = 0; i < k; i++) indices[i] = i;
+        List<Card> best = null;
+        int bestScore = -1;
+        while (true) {
+            List<Card> play = new ArrayList<>(k);
+            for (int index : indices) play.add(hand.get(index));
+            int score = BalatroState.evaluatePlayScore(play);
+            if (score > bestScore) {
+                bestScore = score;
+                best = play;
+            }
+            // Advance to the next combination in lexicographic order.
+            int i = k - 1;
+            while (i >= 0 && indices[i] == hand.size() - k + i) i--;
+            if (i < 0) return best;
+            indices[i]++;
+            for (int j = i + 1; j < k; j++) indices[j] = indices[j - 1] + 1;
+        }
+    }
+
+    /**
+     * The default threshold: anything less than two pair is discarded.
+     */
+    public static final int DEFAULT_THRESHOLD = 20;
+
+    private final int threshold;
+}
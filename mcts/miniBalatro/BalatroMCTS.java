@@ -1,16 +1,59 @@
 package com.phasmidsoftware.dsaipg.projects.mcts.miniBalatro;
 
+import com.phasmidsoftware.dsaipg.projects.mcts.core.AmafTable;
+import com.phasmidsoftware.dsaipg.projects.mcts.core.ChanceTable;
+import com.phasmidsoftware.dsaipg.projects.mcts.core.EarlyStop;
+import com.phasmidsoftware.dsaipg.projects.mcts.core.LeafEvaluator;
 import com.phasmidsoftware.dsaipg.projects.mcts.core.Move;
-import com.phasmidsoftware.dsaipg.projects.mcts.core.Node;
+import com.phasmidsoftware.dsaipg.projects.mcts.core.MovePrior;
+import com.phasmidsoftware.dsaipg.projects.mcts.core.RecordWriter;
+import com.phasmidsoftware.dsaipg.projects.mcts.core.RolloutPolicy;
+import com.phasmidsoftware.dsaipg.projects.mcts.core.SearchResult;
+import com.phasmidsoftware.dsaipg.projects.mcts.core.SearchSnapshot;
+import com.phasmidsoftware.dsaipg.projects.mcts.core.Searcher;
+import com.phasmidsoftware.dsaipg.projects.mcts.core.SelectionPolicy;
 import com.phasmidsoftware.dsaipg.projects.mcts.core.State;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.random.RandomGenerator;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
 
-public class BalatroMCTS {
+public class BalatroMCTS implements Searcher<BalatroGame> {
     private final double explorationParameter = Math.sqrt(2);
+    // NOTE: scores are raw points, so they are divided by this (about the best single hand) for the selection policy.
+    private static final double RESULT_SCALE = 1000;
     private final int maxIterations;
-    private final Random random;
+    private SplittableRandom random;
     private final BalatroNode root;
+    private RolloutPolicy<BalatroGame> rolloutPolicy = RolloutPolicy.random();
+    private int raveEquivalence;
+    private double wideningConstant;
+    private double wideningExponent;
+    private boolean canonicalMoves;
+    private boolean macroActions;
+    private boolean sequentialHalving;
+    private boolean parallel;
+    private EarlyStop earlyStop = EarlyStop.never();
+    private int iterations;
+    private int maxResult;
+    private SelectionPolicy selectionPolicy = SelectionPolicy.ucb1(explorationParameter / RESULT_SCALE);
+    private MovePrior<BalatroGame> movePrior = MovePrior.uniform();
+    private int cutoffDepth;
+    private LeafEvaluator<BalatroGame> leafEvaluator;
+    private LeafEvaluator<BalatroGame> valueFunction;
+    private double valueWeight;
+    private boolean openLoop;
+    private boolean chanceNodes;
+    private long timeBudget;
+    private long deadline;
+    private Consumer<SearchSnapshot<BalatroGame>> snapshotListener;
+    private long snapshotInterval;
+    private int snapshotSize;
+    private long nextSnapshot;
 
     public static void main(String[] args) {
         BalatroGame game = new BalatroGame();
@@ -19,6 +62,22 @@ public class BalatroMCTS {
     }
 
     public static void playGame(BalatroGame game) {
+        try {
+            playGame(game, null);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Method to play a game, recording each move (see {@link RecordWriter}).
+     * The outcome of each record is the final score.
+     *
+     * @param game     the game.
+     * @param recorder the RecordWriter (or null not to record the game).
+     * @throws IOException if the records cannot be written.
+     */
+    public static void playGame(BalatroGame game, RecordWriter<BalatroGame> recorder) throws IOException {
         long startTime = System.currentTimeMillis();  
         State<BalatroGame> currentState = game.start();
 
@@ -36,6 +95,7 @@ public class BalatroMCTS {
                 break;
             }
 
+            if (recorder != null) recorder.add(rootNode, bestMove);
             System.out.println("MCTS chose move: " + bestMove);
             int previousScore = ((BalatroState)currentState).getScore();
             currentState = currentState.next(bestMove);
@@ -45,6 +105,7 @@ public class BalatroMCTS {
             System.out.println(currentState);
         }
 
+        if (recorder != null) recorder.endGame(((BalatroState) currentState).getScore());
         System.out.println("\nGame Over!");
         System.out.println("Final Score: " + ((BalatroState)currentState).getScore());
 
@@ -57,7 +118,127 @@ public class BalatroMCTS {
     public BalatroMCTS(BalatroNode root, int maxIterations) {
         this.root = root;
         this.maxIterations = maxIterations;
-        this.random = new Random();
+        this.random = new SplittableRandom();
+    }
+
+    /**
+     * Method to seed the random source of this engine (by default, it is unseeded).
+     * NOTE: the search draws on this random source alone (never on that of the game, which may be in use on another thread),
+     * so a search from a given tree is reproducible from this seed.
+     *
+     * @param seed the seed.
+     */
+    public void setSeed(long seed) {
+        this.random = new SplittableRandom(seed);
+    }
+
+    /**
+     * Method to set the policy by which moves are chosen in rollouts (the default is uniformly random).
+     *
+     * @param rolloutPolicy the policy, for example a {@link BalatroGreedyPolicy}.
+     */
+    public void setRolloutPolicy(RolloutPolicy<BalatroGame> rolloutPolicy) {
+        this.rolloutPolicy = rolloutPolicy;
+    }
+
+    /**
+     * Method to enable RAVE: selection then blends each child's own value with its all-moves-as-first value
+     * (the value of playing or discarding a group of cards depends little on when it is done).
+     *
+     * @param equivalence the number of playouts of a child at which both values carry equal weight
+     *                    (see {@link AmafTable#beta(int, int)}), or 0 for plain UCT.
+     */
+    public void setRave(int equivalence) {
+        this.raveEquivalence = equivalence;
+    }
+
+    /**
+     * Method to enable progressive widening: a node with n playouts may have at most ceil(k * n^alpha) children,
+     * which are added in the order of {@link BalatroState#byPrior(List)}.
+     * Without it, all of the (typically 300 or so) moves of a node must be expanded before the search can go deeper.
+     *
+     * @param k     the widening constant (positive), or 0 to disable progressive widening.
+     * @param alpha the widening exponent, between 0 and 1.
+     */
+    public void setProgressiveWidening(double k, double alpha) {
+        if (k < 0 || alpha < 0 || alpha > 1)
+            throw new IllegalArgumentException("BalatroMCTS: invalid progressive widening parameters: k=" + k + ", alpha=" + alpha);
+        this.wideningConstant = k;
+        this.wideningExponent = alpha;
+    }
+
+    /**
+     * Method to restrict the search to one representative of each class of strategically identical moves
+     * (see {@link BalatroState#canonicalMoves()}), which reduces both the branching factor and the size of each node.
+     *
+     * @param canonicalMoves true to expand only canonical moves.
+     */
+    public void setCanonicalMoves(boolean canonicalMoves) {
+        this.canonicalMoves = canonicalMoves;
+    }
+
+    /**
+     * Method to restrict the search to the moves resolved from {@link BalatroMacro}s,
+     * so that it branches over hand-level decisions rather than card subsets.
+     *
+     * @param macroActions true to expand only macro-actions (this takes precedence over canonical moves).
+     */
+    public void setMacroActions(boolean macroActions) {
+        this.macroActions = macroActions;
+    }
+
+    /**
+     * Method to replace the tree search by a flat search of the root moves using Sequential Halving
+     * (Karnin, Koren and Somekh, 2013): the budget is divided equally between ceil(log2 K) rounds;
+     * in each round, every surviving move gets an equal share of rollouts and the worse half is eliminated.
+     * This minimizes simple regret, which is what matters when only the move finally chosen counts,
+     * and suits small budgets (where UCT cannot even visit each child of the root).
+     *
+     * @param sequentialHalving true to use Sequential Halving in findBestMove.
+     */
+    public void setSequentialHalving(boolean sequentialHalving) {
+        this.sequentialHalving = sequentialHalving;
+    }
+
+    /**
+     * Method to run the rollouts of each round of Sequential Halving in parallel (using the common fork-join pool).
+     * The rollout policy must then be thread-safe (the policies provided are).
+     * Each rollout has its own random stream, split from this engine's (see {@link #setSeed(long)}),
+     * so the result is the same as that of the sequential search.
+     *
+     * @param parallel true to run rollouts in parallel.
+     */
+    public void setParallel(boolean parallel) {
+        this.parallel = parallel;
+    }
+
+    /**
+     * Method to enable open-loop search: on each iteration, the deck is reshuffled (see {@link BalatroState#resample(RandomGenerator)})
+     * and the tree is descended by moves alone, the states being regenerated by playing those moves on the resampled state.
+     * A node then stands for a sequence of moves rather than for one deal (whose draws, with the deck known, the engine could otherwise exploit),
+     * and its statistics are averaged over deals.
+     * NOTE: the resampling draws on this engine's random source (see {@link #setSeed(long)}), which is also passed on to the rollouts.
+     * NOTE: since a hand below the root differs from deal to deal, the candidate moves cannot be cached in the nodes,
+     * which (with progressive widening) means ordering them afresh on each expansion.
+     *
+     * @param openLoop true for open-loop search.
+     */
+    public void setOpenLoop(boolean openLoop) {
+        this.openLoop = openLoop;
+    }
+
+    /**
+     * Method to treat each play or discard in the tree (which draws cards) as a chance node (see {@link ChanceTable}),
+     * whose outcomes are stratified by the rank of the first card drawn, weighted by the composition of the deck:
+     * the draws are spread over the ranks in proportion to their probabilities,
+     * and the value of the move is the probability-weighted mean over the ranks, rather than the plain mean of its results.
+     * (The full set of outcomes, all the combinations of cards which might be drawn, is far too large to enumerate.)
+     * Chance nodes apply only to open-loop search, which this implies (see {@link #setOpenLoop(boolean)}).
+     *
+     * @param chanceNodes true for chance nodes.
+     */
+    public void setChanceNodes(boolean chanceNodes) {
+        this.chanceNodes = chanceNodes;
     }
 
     private static void analyzeResult(BalatroState state) {
@@ -70,37 +251,224 @@ public class BalatroMCTS {
         System.out.println("Final score: " + state.getScore());
     }
 
+    /**
+     * Method to cut rollouts short: after the given number of (rollout) moves, the state is scored by the evaluator
+     * instead of being played out to the end.
+     *
+     * @param depth     the number of moves played before the evaluator is applied (at least 0).
+     * @param evaluator the evaluator, for example a {@link BalatroEvaluator}, or null to restore full rollouts.
+     */
+    public void setCutoff(int depth, LeafEvaluator<BalatroGame> evaluator) {
+        if (depth < 0) throw new IllegalArgumentException("cutoff depth must not be negative: " + depth);
+        this.cutoffDepth = depth;
+        this.leafEvaluator = evaluator;
+    }
+
+    /**
+     * Method to evaluate each newly expanded node by a value function (for example a {@link BalatroValueModel}),
+     * blended with its rollout: the result is weight * value + (1 - weight) * rollout.
+     * With a weight of 1, there is no rollout at all.
+     *
+     * @param valueFunction the value function, or null to restore rollouts alone.
+     * @param weight        the weight of the value function (between 0 and 1).
+     */
+    public void setValueFunction(LeafEvaluator<BalatroGame> valueFunction, double weight) {
+        if (weight < 0 || weight > 1) throw new IllegalArgumentException("weight must be between 0 and 1: " + weight);
+        this.valueFunction = valueFunction;
+        this.valueWeight = weight;
+    }
+
+    /**
+     * Method to set the selection policy.
+     * The default is UCB1 with c = sqrt(2) on the original (unscaled) scores, as before.
+     *
+     * @param selectionPolicy for example {@link SelectionPolicy#ucb1Tuned()} or {@link SelectionPolicy#puct(double)}.
+     */
+    public void setSelectionPolicy(SelectionPolicy selectionPolicy) {
+        this.selectionPolicy = selectionPolicy;
+    }
+
+    /**
+     * Method to set the prior probabilities of moves, as used by PUCT (the default is uniform).
+     *
+     * @param movePrior the prior.
+     */
+    public void setMovePrior(MovePrior<BalatroGame> movePrior) {
+        this.movePrior = movePrior;
+    }
+
+    /**
+     * Method to set a rule by which the (UCT) search may stop before maxIterations (the default never stops early).
+     * Since Balatro scores are unbounded, the range given to the rule is the highest result seen so far.
+     *
+     * @param earlyStop for example {@link EarlyStop#visits()} or {@link EarlyStop#confidence(double)}.
+     */
+    public void setEarlyStop(EarlyStop earlyStop) {
+        this.earlyStop = earlyStop;
+    }
+
+    /**
+     * Method to limit the time of each search (see {@link Searcher#setTimeBudget(long)}).
+     * Whether or not a time budget is set, the search also stops if its thread is interrupted.
+     * Sequential Halving checks the time only between rounds, and then chooses the best of the surviving moves.
+     *
+     * @param millis the time budget in milliseconds (0 for no limit).
+     */
+    @Override
+    public void setTimeBudget(long millis) {
+        if (millis < 0) throw new IllegalArgumentException("time budget must not be negative: " + millis);
+        this.timeBudget = millis;
+    }
+
+    /**
+     * Method to publish a snapshot of the search (see {@link SearchSnapshot}) every so often, and once more at its end.
+     * The listener is called by the thread running the search, so it should return quickly
+     * (for example, by handing the snapshot to the thread of a front-end).
+     * Sequential Halving (which has no tree) publishes no snapshots.
+     *
+     * @param intervalMillis the interval between snapshots in milliseconds (positive).
+     * @param size           the number of moves in each snapshot (the most visited).
+     * @param listener       the listener, or null to publish no snapshots.
+     */
+    public void setSnapshots(long intervalMillis, int size, Consumer<SearchSnapshot<BalatroGame>> listener) {
+        if (listener != null && intervalMillis <= 0) throw new IllegalArgumentException("snapshot interval must be positive: " + intervalMillis);
+        if (listener != null && size <= 0) throw new IllegalArgumentException("snapshot size must be positive: " + size);
+        this.snapshotListener = listener;
+        this.snapshotInterval = TimeUnit.MILLISECONDS.toNanos(intervalMillis);
+        this.snapshotSize = size;
+    }
+
+    /**
+     * @return the number of iterations (or, for Sequential Halving, rollouts) run by the last search.
+     */
+    public int getIterations() {
+        return iterations;
+    }
+
     public Move<BalatroGame> findBestMove() {
+        return search().move();
+    }
+
+    /**
+     * Method to search for the best move, reporting also the iterations run (and so saved).
+     *
+     * @return a SearchResult.
+     */
+    @Override
+    public SearchResult<BalatroGame> search() {
+        long start = System.nanoTime();
+        deadline = start + TimeUnit.MILLISECONDS.toNanos(timeBudget);
+        nextSnapshot = start + snapshotInterval;
+        iterations = 0;
         if (root.isLeaf()) {
-            return null;
+            return new SearchResult<>(null, 0, maxIterations, System.nanoTime() - start);
         }
 
-        for (int i = 0; i < maxIterations; i++) {
+        if (sequentialHalving) {
+            Move<BalatroGame> move = sequentialHalving();
+            return new SearchResult<>(move, iterations, maxIterations, System.nanoTime() - start);
+        }
+
+        for (; iterations < maxIterations && !stopEarly() && !outOfTime(); iterations++) {
+            if (snapshotListener != null) publishSnapshot(start, false);
+            if (openLoop || chanceNodes) {
+                iterateOpenLoop();
+                continue;
+            }
             List<BalatroNode> path = new ArrayList<>();
             BalatroNode selectedNode = selectWithPath(root, path);
 
             BalatroNode expandedNode = selectedNode;
             if (!selectedNode.isLeaf()) {
                 expandedNode = expand(selectedNode);
-                path.add(expandedNode);
+                if (expandedNode != selectedNode) path.add(expandedNode);
             }
 
-            int simulationResult = simulate(expandedNode);
+            List<Move<BalatroGame>> rollout = raveEquivalence > 0 ? new ArrayList<>() : null;
+            // NOTE: the rollout draws on this engine's random source, not on the game's (see State.random()).
+            int simulationResult = evaluate(((BalatroState) expandedNode.state()).withRandom(random), rollout);
 
             backpropagate(path, simulationResult);
+            if (rollout != null) updateAmaf(path, rollout, simulationResult);
+            maxResult = Math.max(maxResult, simulationResult);
         }
 
-        return getMostVisitedChild(root).getMove();
+        if (snapshotListener != null) publishSnapshot(start, true);
+        return new SearchResult<>(getMostVisitedChild(root).getMove(), iterations, maxIterations, System.nanoTime() - start);
     }
 
-    private BalatroNode getMostVisitedChild(BalatroNode node) {
-        Collection<Node<BalatroGame>> children = node.children();
+    private boolean stopEarly() {
+        if (iterations == 0 || root.childCount() < root.candidateMoves(this::candidateMoves).size()) return false;
+        int n = root.childCount();
+        int[] playouts = new int[n];
+        double[] means = new double[n];
+        int best = 0;
+        for (int i = 0; i < n; i++) {
+            BalatroNode child = root.child(i);
+            playouts[i] = child.playouts();
+            means[i] = playouts[i] == 0 ? 0 : (double) child.wins() / playouts[i];
+            if (playouts[i] > playouts[best]) best = i;
+        }
+        return earlyStop.test(playouts, means, best, maxIterations - iterations, maxResult);
+    }
 
+    private void publishSnapshot(long start, boolean last) {
+        long now = System.nanoTime();
+        if (!last && now - nextSnapshot < 0) return;
+        nextSnapshot = now + snapshotInterval;
+        snapshotListener.accept(SearchSnapshot.of(root, snapshotSize, iterations, now - start));
+    }
+
+    private boolean outOfTime() {
+        return iterations > 0 && (Thread.currentThread().isInterrupted() || timeBudget > 0 && System.nanoTime() - deadline >= 0);
+    }
+
+    /**
+     * Method to choose a root move by Sequential Halving, within a budget of maxIterations rollouts.
+     * If the budget cannot give each candidate one rollout per round, only the most promising candidates
+     * (by {@link BalatroState#byPrior(List)}) are considered.
+     */
+    private Move<BalatroGame> sequentialHalving() {
+        BalatroState state = (BalatroState) root.state();
+        List<Move<BalatroGame>> candidates = candidateMoves(state);
+        if (wideningConstant == 0) candidates = state.byPrior(candidates);
+        int arms = candidates.size();
+        while (arms > 2 && arms * rounds(arms) > maxIterations) arms--;
+        candidates = new ArrayList<>(candidates.subList(0, arms));
+        int rounds = rounds(arms);
+        Map<Move<BalatroGame>, long[]> totals = new HashMap<>();
+        for (Move<BalatroGame> move : candidates) totals.put(move, new long[2]);
+
+        for (int round = 0; round < rounds && candidates.size() > 1 && !outOfTime(); round++) {
+            int rollouts = Math.max(1, maxIterations / (candidates.size() * rounds));
+            for (Move<BalatroGame> move : candidates) {
+                BalatroState next = (BalatroState) state.next(move);
+                // NOTE: each rollout has its own random stream, split here (in order) so that the result does not depend on scheduling.
+                SplittableRandom[] streams = new SplittableRandom[rollouts];
+                for (int i = 0; i < rollouts; i++) streams[i] = random.split();
+                IntStream range = IntStream.range(0, rollouts);
+                long total = (parallel ? range.parallel() : range).mapToLong(x -> simulate(next.withRandom(streams[x]), null)).sum();
+                long[] statistics = totals.get(move);
+                statistics[0] += total;
+                statistics[1] += rollouts;
+                iterations += rollouts;
+            }
+            candidates.sort(Comparator.comparingDouble(move -> -(double) totals.get(move)[0] / totals.get(move)[1]));
+            candidates = new ArrayList<>(candidates.subList(0, (candidates.size() + 1) / 2));
+        }
+        return candidates.get(0);
+    }
+
+    private static int rounds(int arms) {
+        return Math.max(1, 32 - Integer.numberOfLeadingZeros(arms - 1));
+    }
+
+    private BalatroNode getMostVisitedChild(BalatroNode node) {
         BalatroNode mostVisitedChild = null;
         int mostVisits = -1;
 
-        for (Node<BalatroGame> childNode : children) {
-            BalatroNode child = (BalatroNode) childNode;
+        for (int i = 0, n = node.childCount(); i < n; i++) {
+            BalatroNode child = node.child(i);
             if (child.playouts() > mostVisits) {
                 mostVisits = child.playouts();
                 mostVisitedChild = child;
@@ -115,11 +483,16 @@ public class BalatroMCTS {
         BalatroNode currentNode = node;
         path.add(currentNode);
 
-        while (!currentNode.isLeaf() && currentNode.isFullyExpanded()) {
-            BalatroNode bestChild = getBestChild(currentNode, explorationParameter);
+        while (!currentNode.isLeaf()) {
+            boolean fullyExpanded = isFullyExpanded(currentNode);
+            double urgency = selectionPolicy.firstPlayUrgency();
+            if (!fullyExpanded && urgency == Double.POSITIVE_INFINITY) break;
+            BalatroNode bestChild = getBestChild(currentNode);
             if (bestChild == null) {
                 break;
             }
+            // NOTE: descend before full expansion only if the best child beats the first-play urgency.
+            if (!fullyExpanded && value(currentNode, bestChild, Math.log(currentNode.playouts())) < urgency) break;
             currentNode = bestChild;
             path.add(currentNode);
         }
@@ -127,24 +500,20 @@ public class BalatroMCTS {
         return currentNode;
     }
 
-    private BalatroNode getBestChild(BalatroNode node, double explorationValue) {
-        Collection<Node<BalatroGame>> children = node.children();
-
+    private BalatroNode getBestChild(BalatroNode node) {
         BalatroNode bestChild = null;
         double bestValue = Double.NEGATIVE_INFINITY;
 
-        for (Node<BalatroGame> childNode : children) {
-            BalatroNode child = (BalatroNode) childNode;
+        double logPlayouts = Math.log(node.playouts());
 
-            if (child.playouts() == 0) continue;
+        for (int i = 0, n = node.childCount(); i < n; i++) {
+            BalatroNode child = node.child(i);
 
-            double exploitationTerm = (double) child.wins() / child.playouts();
-            double explorationTerm = explorationValue *
-                    Math.sqrt(Math.log(node.playouts()) / child.playouts());
-            double uctValue = exploitationTerm + explorationTerm;
+            if (child.playouts() == 0) continue;
 
-            if (uctValue > bestValue) {
-                bestValue = uctValue;
+            double value = value(node, child, logPlayouts);
+            if (value > bestValue) {
+                bestValue = value;
                 bestChild = child;
             }
         }
@@ -152,29 +521,60 @@ public class BalatroMCTS {
         return bestChild;
     }
 
-    private BalatroNode expand(BalatroNode node) {
-        Collection<Move<BalatroGame>> possibleMoves = node.state().moves(node.state().player());
-
-        List<Move<BalatroGame>> untriedMoves = new ArrayList<>();
+    /**
+     * Method to evaluate a (visited) child for selection, with scores divided by RESULT_SCALE.
+     */
+    private double value(BalatroNode node, BalatroNode child, double logPlayouts) {
+        int playouts = child.playouts();
+        double mean = (double) child.wins() / playouts;
+        double variance = Math.max(0, (double) child.getSumOfSquares() / playouts - mean * mean) / (RESULT_SCALE * RESULT_SCALE);
+        ChanceTable chance = child.getChance();
+        if (chance != null && chance.playouts() > 0) mean = chance.mean();
+        if (raveEquivalence > 0) {
+            long code = child.getMove().code();
+            int amafPlayouts = node.amaf().playouts(code);
+            if (amafPlayouts > 0) {
+                double beta = AmafTable.beta(playouts, raveEquivalence);
+                mean = (1 - beta) * mean + beta * node.amaf().wins(code) / amafPlayouts;
+            }
+        }
+        return selectionPolicy.score(mean / RESULT_SCALE, variance, playouts, child.getPrior(), node.playouts(), logPlayouts);
+    }
 
-        for (Move<BalatroGame> move : possibleMoves) {
-            if (move == null) continue; 
+    private boolean isFullyExpanded(BalatroNode node) {
+        int limit = wideningConstant > 0 ? childLimit(node) : Integer.MAX_VALUE;
+        return node.childCount() >= Math.min(limit, node.candidateMoves(this::candidateMoves).size());
+    }
 
-            boolean alreadyTried = false;
+    private int childLimit(BalatroNode node) {
+        return (int) Math.ceil(wideningConstant * Math.pow(Math.max(1, node.playouts()), wideningExponent));
+    }
 
-            List<Node<BalatroGame>> childrenSnapshot = new ArrayList<>(node.children());
+    /**
+     * Method to yield the moves which may be expanded from the given state: all of them, only the canonical ones,
+     * or only those resolved from macro-actions;
+     * ordered by the prior when progressive widening is enabled.
+     */
+    private List<Move<BalatroGame>> candidateMoves(BalatroState state) {
+        List<Move<BalatroGame>> moves = macroActions ? BalatroMacro.moves(state) :
+                canonicalMoves ? state.canonicalMoves() : new ArrayList<>(state.moves(state.player()));
+        return wideningConstant > 0 ? state.byPrior(moves) : moves;
+    }
 
-            for (Node<BalatroGame> childNode : childrenSnapshot) {
-                BalatroNode child = (BalatroNode) childNode;
-                Move<BalatroGame> childMove = child.getMove();
+    private BalatroNode expand(BalatroNode node) {
+        List<Move<BalatroGame>> moves = node.candidateMoves(this::candidateMoves);
+        if (wideningConstant > 0) {
+            // NOTE: children are only ever added here, in prior order, so the next move is the one at index childCount.
+            int children = node.childCount();
+            if (children >= Math.min(childLimit(node), moves.size())) return node;
+            Move<BalatroGame> move = moves.get(children);
+            return withPrior(node, node.addChild(node.state().next(move), move), moves);
+        }
 
-                if (childMove != null && moveEquals(childMove, move)) {
-                    alreadyTried = true;
-                    break;
-                }
-            }
+        List<Move<BalatroGame>> untriedMoves = new ArrayList<>();
 
-            if (!alreadyTried) {
+        for (Move<BalatroGame> move : moves) {
+            if (move != null && !node.hasChildForMove(move)) {
                 untriedMoves.add(move);
             }
         }
@@ -184,36 +584,122 @@ public class BalatroMCTS {
         Move<BalatroGame> move = untriedMoves.get(random.nextInt(untriedMoves.size()));
         State<BalatroGame> newState = node.state().next(move);
 
-        node.addChild(newState, move);
-        return new BalatroNode(newState, move);
+        return withPrior(node, node.addChild(newState, move), moves);
     }
 
-    private boolean moveEquals(Move<BalatroGame> move1, Move<BalatroGame> move2) {
-        if (move1 == move2) return true;
-        if (move1 == null || move2 == null) return false;
+    private BalatroNode withPrior(BalatroNode node, BalatroNode child, List<Move<BalatroGame>> moves) {
+        child.setPrior(movePrior.prior(node.state(), moves, child.getMove()));
+        return child;
+    }
 
-        if (!(move1 instanceof BalatroMove) || !(move2 instanceof BalatroMove)) {
-            return false;
+    /**
+     * Method to run one iteration of open-loop search (see {@link #setOpenLoop(boolean)}).
+     */
+    private void iterateOpenLoop() {
+        State<BalatroGame> state = root.state().resample(random);
+        List<BalatroNode> path = new ArrayList<>();
+        List<Draw> draws = new ArrayList<>();
+        BalatroNode node = root;
+        path.add(node);
+        while (!state.isTerminal()) {
+            BalatroState balatroState = (BalatroState) state;
+            BalatroNode bestChild = null;
+            double bestValue = Double.NEGATIVE_INFINITY;
+            double logPlayouts = Math.log(node.playouts());
+            // NOTE: only the children whose moves are legal in this state (i.e. whose cards are in this hand) may be selected.
+            for (int i = 0, n = node.childCount(); i < n; i++) {
+                BalatroNode child = node.child(i);
+                if (child.playouts() == 0 || !balatroState.isLegal(child.getMove())) continue;
+                double value = value(node, child, logPlayouts);
+                if (value > bestValue) {
+                    bestValue = value;
+                    bestChild = child;
+                }
+            }
+            // NOTE: the candidate moves (which are costly to generate) are only needed if a child may be added here.
+            boolean expandable = wideningConstant == 0 || node.childCount() < childLimit(node);
+            if (expandable && (bestChild == null || bestValue < selectionPolicy.firstPlayUrgency())) {
+                List<Move<BalatroGame>> moves = candidateMoves(balatroState);
+                List<Move<BalatroGame>> untriedMoves = new ArrayList<>();
+                for (Move<BalatroGame> move : moves) if (!node.hasChildForMove(move)) untriedMoves.add(move);
+                if (!untriedMoves.isEmpty()) {
+                    // NOTE: with progressive widening, the moves are in prior order, so the untried move with the highest prior is expanded.
+                    Move<BalatroGame> move = wideningConstant > 0 ? untriedMoves.get(0) : untriedMoves.get(random.nextInt(untriedMoves.size()));
+                    // NOTE: the first draw through a new chance node is not stratified: it is the card on top of the sampled deck.
+                    boolean draw = isDraw(balatroState, move);
+                    double[] probabilities = draw ? balatroState.drawProbabilities() : null;
+                    int stratum = draw ? balatroState.deck.peek().getRank() - 1 : -1;
+                    State<BalatroGame> next = state.next(move);
+                    BalatroNode child = node.addChild(next, move);
+                    child.setPrior(movePrior.prior(state, moves, move));
+                    if (draw) draws.add(new Draw(child, probabilities, stratum));
+                    state = next;
+                    path.add(child);
+                    break;
+                }
+            }
+            if (bestChild == null) break;
+            node = bestChild;
+            if (isDraw(balatroState, node.getMove())) {
+                double[] probabilities = balatroState.drawProbabilities();
+                int stratum = node.chance(BalatroState.DRAW_STRATA).choose(probabilities);
+                draws.add(new Draw(node, probabilities, stratum));
+                state = balatroState.withNextDraw(stratum, random);
+            }
+            state = state.next(node.getMove());
+            path.add(node);
         }
 
-        BalatroMove bMove1 = (BalatroMove) move1;
-        BalatroMove bMove2 = (BalatroMove) move2;
+        List<Move<BalatroGame>> rollout = raveEquivalence > 0 ? new ArrayList<>() : null;
+        int simulationResult = evaluate(state, rollout);
+        backpropagate(path, simulationResult);
+        for (Draw draw : draws) draw.node.chance(BalatroState.DRAW_STRATA).update(draw.probabilities, draw.stratum, simulationResult);
+        if (rollout != null) updateAmaf(path, rollout, simulationResult);
+        maxResult = Math.max(maxResult, simulationResult);
+    }
+
+    /**
+     * Method to determine if a move is to be treated as a chance node: if it draws cards, and the game is not then over.
+     */
+    private boolean isDraw(BalatroState state, Move<BalatroGame> move) {
+        if (!chanceNodes || state.deck.isEmpty()) return false;
+        return ((BalatroMove) move).getAction() == BalatroMove.Action.DISCARD || state.remainingPlays > 1;
+    }
 
-        if (bMove1.getAction() != bMove2.getAction() || bMove1.player() != bMove2.player())
-            return false;
+    /**
+     * The stratum of a draw through a chance node in one iteration, and the probabilities of the strata at the time.
+     */
+    private static class Draw {
+        Draw(BalatroNode node, double[] probabilities, int stratum) {
+            this.node = node;
+            this.probabilities = probabilities;
+            this.stratum = stratum;
+        }
 
-        List<Card> cards1 = new ArrayList<>(bMove1.getCards());
-        List<Card> cards2 = new ArrayList<>(bMove2.getCards());
+        final BalatroNode node;
+        final double[] probabilities;
+        final int stratum;
+    }
 
-        return cards1.equals(cards2);
+    /**
+     * Method to evaluate a newly expanded state: by the value function (if any), blended with a rollout.
+     */
+    private int evaluate(State<BalatroGame> state, List<Move<BalatroGame>> rollout) {
+        if (valueFunction == null) return simulate(state, rollout);
+        int value = valueFunction.evaluate(state, state.player());
+        if (valueWeight == 1) return value;
+        return (int) Math.round(valueWeight * value + (1 - valueWeight) * simulate(state, rollout));
     }
 
-    private int simulate(BalatroNode node) {
-        State<BalatroGame> currentState = node.state();
+    private int simulate(State<BalatroGame> state, List<Move<BalatroGame>> rollout) {
+        State<BalatroGame> currentState = state;
 
-        while (!currentState.isTerminal()) {
-            Move<BalatroGame> randomMove = currentState.chooseMove(currentState.player());
-            currentState = currentState.next(randomMove);
+        for (int depth = 0; !currentState.isTerminal(); depth++) {
+            if (leafEvaluator != null && depth >= cutoffDepth)
+                return leafEvaluator.evaluate(currentState, currentState.player());
+            Move<BalatroGame> move = rolloutPolicy.choose(currentState, currentState.player());
+            if (rollout != null) rollout.add(move);
+            currentState = currentState.next(move);
         }
 
         return ((BalatroState) currentState).getScore();
@@ -225,39 +711,22 @@ public class BalatroMCTS {
         }
     }
 
-    public static void benchmarkBalatro() {
-        int[] iterationLimits = {50, 100, 200, 400};
-        int numRuns = 20;
-
-        for (int iter : iterationLimits) {
-            long totalTime = 0;
-            int totalScore = 0;
-
-            for (int i = 0; i < numRuns; i++) {
-                BalatroGame game = new BalatroGame();
-                State<BalatroGame> state = game.start();
-                long start = System.currentTimeMillis();
-
-                while (!state.isTerminal()) {
-                    BalatroNode rootNode = new BalatroNode(state);
-                    BalatroMCTS mcts = new BalatroMCTS(rootNode, iter);
-                    Move<BalatroGame> move = mcts.findBestMove();
-                    if (move == null) break;
-                    state = state.next(move);
-                }
-
-                long end = System.currentTimeMillis();
-                totalTime += (end - start);
-
-                int finalScore = ((BalatroState) state).getScore();
-                totalScore += finalScore;
-            }
-
-            double avgTime = totalTime / (double) numRuns;
-            double avgScore = totalScore / (double) numRuns;
-
-            System.out.printf("Iterations: %d | Avg Time: %.2f ms | Avg Score: %.2f\n",
-                    iter, avgTime, avgScore);
+    /**
+     * Method to credit, at each node of the path, every subsequent move of the iteration.
+     * NOTE: cards leave the hand once played or discarded, so no move can recur and need be credited twice.
+     */
+    private void updateAmaf(List<BalatroNode> path, List<Move<BalatroGame>> rollout, int result) {
+        for (int i = 0; i < path.size(); i++) {
+            BalatroNode node = path.get(i);
+            if (node.isLeaf()) continue;
+            AmafTable amaf = node.amaf();
+            for (int j = i + 1; j < path.size(); j++) amaf.update(path.get(j).getMove().code(), result);
+            for (Move<BalatroGame> move : rollout) amaf.update(move.code(), result);
         }
     }
-}
\ No newline at end of file
+
+    public static void benchmarkBalatro() {
+        BalatroBenchmarks.benchmarkBalatro(new int[]{50, 100, 200, 400}, 20, mcts -> {
+        });
+    }
+}
@@ -0,0 +1,155 @@
+package com.phasmidsoftware.dsaipg.projects.mcts.miniBalatro;
+
+import com.phasmidsoftware.dsaipg.projects.mcts.core.ChildIndex;
+import com.phasmidsoftware.dsaipg.projects.mcts.core.Move;
+import com.phasmidsoftware.dsaipg.projects.mcts.core.RolloutPolicy;
+
+import java.util.*;
+
+/**
+ * Macro-actions for Balatro: decisions at the level of hand types ("play the best flush", "discard toward a flush", etc.)
+ * rather than card subsets. Each macro is resolved to a concrete {@link BalatroMove} by a fast, deterministic routine,
+ * so that a search over the (at most fourteen) macros can go much deeper than one over the (three hundred or so) raw moves.
+ */
+public enum BalatroMacro {
+    PLAY_HIGH_CARD(BalatroState.HandType.HIGH_CARD),
+    PLAY_PAIR(BalatroState.HandType.PAIR),
+    PLAY_TWO_PAIR(BalatroState.HandType.TWO_PAIR),
+    PLAY_THREE_OF_A_KIND(BalatroState.HandType.THREE_OF_A_KIND),
+    PLAY_STRAIGHT(BalatroState.HandType.STRAIGHT),
+    PLAY_FLUSH(BalatroState.HandType.FLUSH),
+    PLAY_FULL_HOUSE(BalatroState.HandType.FULL_HOUSE),
+    PLAY_FOUR_OF_A_KIND(BalatroState.HandType.FOUR_OF_A_KIND),
+    PLAY_STRAIGHT_FLUSH(BalatroState.HandType.STRAIGHT_FLUSH),
+    PLAY_ROYAL_FLUSH(BalatroState.HandType.ROYAL_FLUSH),
+    DISCARD_TOWARD_FLUSH(null),
+    DISCARD_TOWARD_STRAIGHT(null),
+    DISCARD_TOWARD_SETS(null),
+    DISCARD_LOW(null);
+
+    /**
+     * Method to resolve this macro in the given state.
+     *
+     * @param state a non-terminal state.
+     * @return the concrete move, or null if this macro does not apply.
+     */
+    public BalatroMove resolve(BalatroState state) {
+        if (handType != null) return resolve(state, BalatroMacro.bestPlays(state.hand));
+        return resolveDiscard(state);
+    }
+
+    /**
+     * Method to resolve all of the applicable macros in the given state.
+     * Where two macros resolve to the same move, only the first is kept.
+     *
+     * @param state a non-terminal state.
+     * @return the distinct concrete moves, in the order of the macros.
+     */
+    public static List<Move<BalatroGame>> moves(BalatroState state) {
+        Map<BalatroState.HandType, List<Card>> bestPlays = bestPlays(state.hand);
+        ChildIndex codes = new ChildIndex(values().length);
+        List<Move<BalatroGame>> result = new ArrayList<>();
+        for (BalatroMacro macro : values()) {
+            BalatroMove move = macro.handType != null ? macro.resolve(state, bestPlays) : macro.resolveDiscard(state);
+            if (move != null && !codes.contains(move.code())) {
+                codes.put(move.code(), result.size());
+                result.add(move);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Method to yield a rollout policy which resolves a randomly chosen applicable macro.
+     *
+     * @return a RolloutPolicy for Balatro.
+     */
+    public static RolloutPolicy<BalatroGame> randomMacros() {
+        return (state, player) -> {
+            List<Move<BalatroGame>> moves = moves((BalatroState) state);
+            return moves.get(state.random().nextInt(moves.size()));
+        };
+    }
+
+    /**
+     * Method to find, for each hand type, the best-scoring play of that type from the given hand
+     * (ties are broken in favor of fewer cards, so as to keep cards in hand).
+     *
+     * @param hand the cards in hand.
+     * @return a map from each hand type which can be played to the cards to play.
+     */
+    static Map<BalatroState.HandType, List<Card>> bestPlays(List<Card> hand) {
+        Map<BalatroState.HandType, List<Card>> result = new EnumMap<>(BalatroState.HandType.class);
+        Map<BalatroState.HandType, Integer> scores = new EnumMap<>(BalatroState.HandType.class);
+        int n = hand.size();
+        for (int mask = 1; mask < 1 << n; mask++) {
+            int k = Integer.bitCount(mask);
+            if (k > 5) continue;
+            List<Card> play = new ArrayList<>(k);
+            for (int i = 0; i < n; i++) if ((mask & 1 << i) != 0) play.add(hand.get(i));
+            BalatroState.HandType type = BalatroState.handType(play);
+            int score = BalatroState.score(type, k);
+            Integer best = scores.get(type);
+            if (best == null || score > best || score == best && k < result.get(type).size()) {
+                scores.put(type, score);
+                result.put(type, play);
+            }
+        }
+        return result;
+    }
+
+    private BalatroMove resolve(BalatroState state, Map<BalatroState.HandType, List<Card>> bestPlays) {
+        List<Card> cards = bestPlays.get(handType);
+        return cards == null ? null : new BalatroMove(BalatroMove.Action.PLAY, cards, state.player());
+    }
+
+    private BalatroMove resolveDiscard(BalatroState state) {
+        if (state.remainingDiscards == 0 || state.deck.isEmpty()) return null;
+        List<Card> hand = state.hand;
+        List<Card> candidates = new ArrayList<>();
+        switch (this) {
+            case DISCARD_TOWARD_FLUSH: {
+                int[] counts = new int[4];
+                for (Card card : hand) counts[card.getSuit().ordinal()]++;
+                int suit = 0;
+                for (int i = 1; i < 4; i++) if (counts[i] > counts[suit]) suit = i;
+                for (Card card : hand) if (card.getSuit().ordinal() != suit) candidates.add(card);
+                break;
+            }
+            case DISCARD_TOWARD_STRAIGHT: {
+                // Find the window of five consecutive ranks (the ace counting as 1 or 14) which holds the most ranks of the hand.
+                int ranks = 0;
+                for (Card card : hand) ranks |= 1 << card.getRank() | (card.getRank() == 1 ? 1 << 14 : 0);
+                int bestLow = 1;
+                for (int low = 2; low <= 10; low++)
+                    if (Integer.bitCount(ranks >> low & 0x1F) > Integer.bitCount(ranks >> bestLow & 0x1F)) bestLow = low;
+                int kept = 0;
+                for (Card card : hand) {
+                    int rank = card.getRank() == 1 && bestLow == 10 ? 14 : card.getRank();
+                    if (rank >= bestLow && rank < bestLow + 5 && (kept & 1 << rank) == 0) kept |= 1 << rank;
+                    else candidates.add(card);
+                }
+                break;
+            }
+            case DISCARD_TOWARD_SETS: {
+                Map<Integer, Integer> counts = new HashMap<>();
+                for (Card card : hand) counts.merge(card.getRank(), 1, Integer::sum);
+                for (Card card : hand) if (counts.get(card.getRank()) == 1) candidates.add(card);
+                break;
+            }
+            default: {
+                candidates.addAll(hand);
+                candidates.removeAll(BalatroGreedyPolicy.bestPlay(hand));
+            }
+        }
+        if (candidates.isEmpty()) return null;
+        candidates.sort(Comparator.comparingInt(Card::getRank));
+        return new BalatroMove(BalatroMove.Action.DISCARD, new ArrayList<>(candidates.subList(0, Math.min(3, candidates.size()))), state.player());
+    }
+
+    BalatroMacro(BalatroState.HandType handType) {
+        this.handType = handType;
+    }
+
+    private final BalatroState.HandType handType;
+}
@@ -10,11 +10,24 @@ public class BalatroMove implements Move<BalatroGame> {
     private final Action action;
     private final List<Card> cards; 
     private final int player;
+    private final long code;
 
     public BalatroMove(Action action, List<Card> cards, int player) {
         this.action = action;
         this.cards = cards;
         this.player = player;
+        this.code = encode(action, cards);
+    }
+
+    /**
+     * Bits 0 thru 51 are the mask of the cards (by {@link Card#index()}); bit 52 is set for a DISCARD.
+     */
+    private static long encode(Action action, List<Card> cards) {
+        long result = action == Action.DISCARD ? 1L << 52 : 0L;
+        for (Card card : cards) {
+            if (card != null) result |= 1L << card.index();
+        }
+        return result;
     }
 
     public Action getAction() {
@@ -30,6 +43,11 @@ public class BalatroMove implements Move<BalatroGame> {
         return player;
     }
 
+    @Override
+    public long code() {
+        return code;
+    }
+
     public String toString() {
         return action + " " + cards;
     }
@@ -41,19 +59,11 @@ public class BalatroMove implements Move<BalatroGame> {
 
         BalatroMove other = (BalatroMove) obj;
 
-        List<Card> thisList = new ArrayList<>(this.getCards());
-        List<Card> otherList = new ArrayList<>(other.getCards());
-
-        return action == other.action &&
-                thisList.equals(otherList) &&
-                player == other.player;
+        return code == other.code && player == other.player;
     }
 
     @Override
     public int hashCode() {
-        int result = action.hashCode();
-        result = 31 * result + cards.hashCode();
-        result = 31 * result + player;
-        return result;
+        return 31 * Long.hashCode(code) + player;
     }
 }
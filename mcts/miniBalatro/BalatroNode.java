@@ -1,17 +1,27 @@
 package com.phasmidsoftware.dsaipg.projects.mcts.miniBalatro;
 
+import com.phasmidsoftware.dsaipg.projects.mcts.core.AmafTable;
+import com.phasmidsoftware.dsaipg.projects.mcts.core.ChanceTable;
+import com.phasmidsoftware.dsaipg.projects.mcts.core.ChildIndex;
 import com.phasmidsoftware.dsaipg.projects.mcts.core.Move;
 import com.phasmidsoftware.dsaipg.projects.mcts.core.Node;
 import com.phasmidsoftware.dsaipg.projects.mcts.core.State;
 
 import java.util.*;
+import java.util.function.Function;
 
 public class BalatroNode implements Node<BalatroGame> {
     private final State<BalatroGame> state;
     private final ArrayList<BalatroNode> children;
+    private final ChildIndex childIndex = new ChildIndex();
     private int wins;
     private int playouts;
+    private long sumOfSquares;
+    private double prior = 1;
     private final Move<BalatroGame> move;
+    private AmafTable amaf;
+    private ChanceTable chance;
+    private List<Move<BalatroGame>> candidateMoves;
 
     public BalatroNode(State<BalatroGame> state) {
         this(state, null);
@@ -21,18 +31,7 @@ public class BalatroNode implements Node<BalatroGame> {
         this.state = state;
         this.move = move;
         this.children = new ArrayList<>();
-
-        if (state.isTerminal()) {
-            this.playouts = 1;
-            this.wins = evaluateTerminalState((BalatroState) state);
-        } else {
-            this.playouts = 0;
-            this.wins = 0;
-        }
-    }
-
-    private int evaluateTerminalState(BalatroState state) {
-        return state.getScore();
+        // NOTE: even a terminal node starts with no statistics: each iteration which reaches it backs up its score.
     }
 
     @Override
@@ -52,17 +51,53 @@ public class BalatroNode implements Node<BalatroGame> {
     }
 
     public Collection<Node<BalatroGame>> children() {
-        return new ArrayList<>(children);
+        return Collections.unmodifiableList(children);
     }
     @Override
     public void addChild(State<BalatroGame> state) {
-        BalatroNode child = new BalatroNode(state, null);
-        children.add(child);
+        addChildNode(new BalatroNode(state, null));
     }
 
-    public void addChild(State<BalatroGame> state, Move<BalatroGame> move) {
-        BalatroNode child = new BalatroNode(state, move);
+    public BalatroNode addChild(State<BalatroGame> state, Move<BalatroGame> move) {
+        return addChildNode(new BalatroNode(state, move));
+    }
+
+    /**
+     * Method to add a child, indexed by its move (if it has one) for {@link #hasChildForMove(Move)}.
+     *
+     * @param child the child.
+     * @return the child.
+     */
+    public BalatroNode addChildNode(BalatroNode child) {
+        if (child.move != null) childIndex.put(child.move.code(), children.size());
         children.add(child);
+        return child;
+    }
+
+
+    public AmafTable amaf() {
+        if (amaf == null) amaf = new AmafTable();
+        return amaf;
+    }
+
+    /**
+     * @return the chance table of this node (see {@link ChanceTable}), or null if its move has not been treated as a chance node.
+     */
+    public ChanceTable getChance() {
+        return chance;
+    }
+
+    /**
+     * @param strata the number of strata (used only if the table must be created).
+     * @return the chance table of this node, created if necessary.
+     */
+    public ChanceTable chance(int strata) {
+        if (chance == null) chance = new ChanceTable(strata);
+        return chance;
+    }
+
+    public boolean hasChildForMove(Move<BalatroGame> move) {
+        return childIndex.contains(move.code());
     }
 
     @Override
@@ -71,15 +106,18 @@ public class BalatroNode implements Node<BalatroGame> {
 
         int totalWins = 0;
         int totalPlayouts = 0;
+        long totalSquares = 0;
 
         for (BalatroNode child : children) {
             child.backPropagate();
             totalWins += child.wins();
             totalPlayouts += child.playouts();
+            totalSquares += child.getSumOfSquares();
         }
 
         this.wins = totalWins;
         this.playouts = totalPlayouts;
+        this.sumOfSquares = totalSquares;
     }
 
     @Override
@@ -96,12 +134,80 @@ public class BalatroNode implements Node<BalatroGame> {
         return move;
     }
 
+    @Override
+    public Move<BalatroGame> move() {
+        return move;
+    }
+
     public boolean isFullyExpanded() {
         return children.size() >= state.moves(state.player()).size();
     }
 
+    /**
+     * Method to get the moves which the search may expand from this node (computed once, on demand).
+     *
+     * @param generator the function which yields the candidate moves of a state, for example
+     *                  {@link BalatroState#movesByPrior()} or {@link BalatroState#canonicalMoves()}.
+     *                  It is used only on the first call.
+     * @return the candidate moves.
+     */
+    public List<Move<BalatroGame>> candidateMoves(Function<BalatroState, List<Move<BalatroGame>>> generator) {
+        if (candidateMoves == null) candidateMoves = generator.apply((BalatroState) state);
+        return candidateMoves;
+    }
+
+    /**
+     * @return the number of children of this node.
+     */
+    @Override
+    public int childCount() {
+        return children.size();
+    }
+
+    @Override
+    public BalatroNode child(int i) {
+        return children.get(i);
+    }
+
+    /**
+     * @return the number of nodes in the subtree rooted at this node (including this node).
+     */
+    public int size() {
+        int result = 1;
+        for (BalatroNode child : children) result += child.size();
+        return result;
+    }
+
+    /**
+     * @return the length of the longest path from this node to a node of the subtree.
+     */
+    public int depth() {
+        int result = 0;
+        for (BalatroNode child : children) result = Math.max(result, 1 + child.depth());
+        return result;
+    }
+
+    /**
+     * @return the sum of the squares of the results backpropagated through this node (for the variance).
+     */
+    public long getSumOfSquares() {
+        return sumOfSquares;
+    }
+
+    /**
+     * @return the prior probability of the move to this node (1 unless set by the engine).
+     */
+    public double getPrior() {
+        return prior;
+    }
+
+    public void setPrior(double prior) {
+        this.prior = prior;
+    }
+
     public void updateStats(int result) {
         wins += result;
+        sumOfSquares += (long) result * result;
         playouts++;
     }
 }
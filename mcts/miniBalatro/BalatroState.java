@@ -2,8 +2,10 @@ package com.phasmidsoftware.dsaipg.projects.mcts.miniBalatro;
 
 import com.phasmidsoftware.dsaipg.projects.mcts.blackJack.BlackjackGame;
 import com.phasmidsoftware.dsaipg.projects.mcts.core.Move;
+import com.phasmidsoftware.dsaipg.projects.mcts.core.RandomState;
 import com.phasmidsoftware.dsaipg.projects.mcts.core.State;
 import java.util.*;
+import java.util.random.RandomGenerator;
 import java.util.stream.Collectors;
 
 public class BalatroState implements State<BalatroGame> {
@@ -27,11 +29,11 @@ public class BalatroState implements State<BalatroGame> {
     final Deque<Card> deck;
     final int remainingPlays;
     final int remainingDiscards;
-    final Random random;
+    final RandomGenerator random;
     final int player;
     final int accumulatedScore;
 
-    public BalatroState(BalatroGame game, List<Card> hand, List<Card> table, Deque<Card> deck, int remainingPlays, int remainingDiscards, Random random, int accumulatedScore) {
+    public BalatroState(BalatroGame game, List<Card> hand, List<Card> table, Deque<Card> deck, int remainingPlays, int remainingDiscards, RandomGenerator random, int accumulatedScore) {
         this.game = game;
         this.hand = hand;
         this.table = table;
@@ -59,10 +61,84 @@ public class BalatroState implements State<BalatroGame> {
     }
 
     @Override
-    public Random random() {
+    public RandomGenerator random() {
         return random;
     }
 
+    /**
+     * Method to yield this state with a different random source (which is passed on to its successors),
+     * for example, so that parallel rollouts from the same state do not share one.
+     *
+     * @param random the random source.
+     * @return a BalatroState which differs from this only in its random source.
+     */
+    public BalatroState withRandom(RandomGenerator random) {
+        return new BalatroState(game, hand, table, deck, remainingPlays, remainingDiscards, random, accumulatedScore);
+    }
+
+    /**
+     * Method to yield this state with the deck reshuffled (the hand, table and score are known to the player).
+     *
+     * @param random the random source for the shuffle (which is also passed on to the new state).
+     * @return a BalatroState.
+     */
+    @Override
+    public BalatroState resample(RandomGenerator random) {
+        List<Card> cards = new ArrayList<>(deck);
+        RandomState.shuffle(cards, random);
+        return new BalatroState(game, hand, table, new ArrayDeque<>(cards), remainingPlays, remainingDiscards, random, accumulatedScore);
+    }
+
+    /**
+     * The number of strata of a draw (see {@link #drawProbabilities()}): the ranks, from 1 (ace) thru 13 (king).
+     */
+    public static final int DRAW_STRATA = 13;
+
+    /**
+     * @return the probability of each rank (stratum rank - 1) of the next card to be drawn, from the composition of the deck.
+     */
+    public double[] drawProbabilities() {
+        double[] result = new double[DRAW_STRATA];
+        for (Card card : deck) result[card.getRank() - 1]++;
+        for (int i = 0; i < DRAW_STRATA; i++) result[i] /= deck.size();
+        return result;
+    }
+
+    /**
+     * Method to yield this state with the deck rearranged so that the first card drawn is in the given stratum:
+     * the top card is swapped with a card of that rank, chosen at random.
+     *
+     * @param stratum the stratum (rank - 1) of the first card drawn.
+     * @param random  the random source.
+     * @return a BalatroState.
+     */
+    public BalatroState withNextDraw(int stratum, RandomGenerator random) {
+        List<Card> cards = new ArrayList<>(deck);
+        int count = 0;
+        for (Card card : cards) if (card.getRank() - 1 == stratum) count++;
+        if (count == 0) throw new IllegalArgumentException("no card in the deck for stratum " + stratum);
+        int choice = random.nextInt(count);
+        for (int i = 0; i < cards.size(); i++)
+            if (cards.get(i).getRank() - 1 == stratum && choice-- == 0) {
+                Collections.swap(cards, 0, i);
+                break;
+            }
+        return new BalatroState(game, hand, table, new ArrayDeque<>(cards), remainingPlays, remainingDiscards, random, accumulatedScore);
+    }
+
+    /**
+     * Method to determine if a move may be made from this state: if its cards are all in the hand
+     * and there is a play (or discard) remaining.
+     *
+     * @param move a BalatroMove.
+     * @return true if the move is legal.
+     */
+    public boolean isLegal(Move<BalatroGame> move) {
+        BalatroMove balatroMove = (BalatroMove) move;
+        int remaining = balatroMove.getAction() == BalatroMove.Action.PLAY ? remainingPlays : remainingDiscards;
+        return remaining > 0 && hand.containsAll(balatroMove.getCards());
+    }
+
     @Override
     public boolean isTerminal() {
         return remainingPlays == 0;
@@ -87,6 +163,117 @@ public class BalatroState implements State<BalatroGame> {
         return possibleMoves;
     }
 
+    /**
+     * Method to list the moves of this state in the order of a cheap prior, for progressive widening.
+     *
+     * @return the same moves as moves(player), but ordered by {@link #byPrior(List)}.
+     */
+    public List<Move<BalatroGame>> movesByPrior() {
+        return byPrior(new ArrayList<>(moves(player)));
+    }
+
+    /**
+     * Method to order the given moves of this state from most to least promising.
+     * Plays are ordered by descending score; they are interleaved with discards, ordered by how few of the cards
+     * of the best play they throw away (then by lowest rank).
+     *
+     * @param moves moves of this state.
+     * @return the same moves, in order of the prior.
+     */
+    public List<Move<BalatroGame>> byPrior(List<Move<BalatroGame>> moves) {
+        List<Move<BalatroGame>> plays = new ArrayList<>();
+        List<Move<BalatroGame>> discards = new ArrayList<>();
+        for (Move<BalatroGame> move : moves)
+            (((BalatroMove) move).getAction() == BalatroMove.Action.PLAY ? plays : discards).add(move);
+
+        int[] playPriors = new int[plays.size()];
+        for (int i = 0; i < playPriors.length; i++) playPriors[i] = -evaluatePlayScore(((BalatroMove) plays.get(i)).getCards());
+        int[] discardPriors = new int[discards.size()];
+        if (!discards.isEmpty()) {
+            List<Card> best = BalatroGreedyPolicy.bestPlay(hand);
+            for (int i = 0; i < discardPriors.length; i++)
+                for (Card card : ((BalatroMove) discards.get(i)).getCards())
+                    discardPriors[i] += (best.contains(card) ? 100 : 0) + card.getRank();
+        }
+        plays = sortByKey(plays, playPriors);
+        discards = sortByKey(discards, discardPriors);
+
+        List<Move<BalatroGame>> result = new ArrayList<>(plays.size() + discards.size());
+        for (int i = 0; i < Math.max(plays.size(), discards.size()); i++) {
+            if (i < plays.size()) result.add(plays.get(i));
+            if (i < discards.size()) result.add(discards.get(i));
+        }
+        return result;
+    }
+
+    /**
+     * Method to sort moves by the given keys, keeping the order of moves with equal keys (as List.sort would),
+     * but sorting primitives: each key is packed with the index of its move into a long.
+     */
+    private static List<Move<BalatroGame>> sortByKey(List<Move<BalatroGame>> moves, int[] keys) {
+        long[] packed = new long[keys.length];
+        for (int i = 0; i < keys.length; i++) packed[i] = (long) keys[i] << 32 | i;
+        Arrays.sort(packed);
+        List<Move<BalatroGame>> result = new ArrayList<>(keys.length);
+        for (long key : packed) result.add(moves.get((int) key));
+        return result;
+    }
+
+    /**
+     * Method to list one representative of each class of strategically identical moves of this state.
+     * Two moves are identical if they have the same action, the same score (and so the same scoring category),
+     * and leave residual hands of the same structure: the same ranks, and the same suit counts up to a permutation
+     * of those suits which are interchangeable in this state, that is, which have the same number of unseen cards
+     * (13 less those in the hand and those played to the table; see {@link #canonicalKey(BalatroMove)}).
+     * <p>
+     * NOTE: this treats the deck as unknown (as it is to a player): with a known deck order,
+     * the suits of the cards to be drawn would break the symmetry.
+     * It also ignores which ranks share a suit, which matters only to straight flushes,
+     * and which cards have been discarded (they are not kept), so suits are told apart only by the table.
+     *
+     * @return a subset of moves(player), in the same order.
+     */
+    public List<Move<BalatroGame>> canonicalMoves() {
+        Set<Long> keys = new HashSet<>();
+        List<Move<BalatroGame>> result = new ArrayList<>();
+        for (Move<BalatroGame> move : moves(player))
+            if (keys.add(canonicalKey((BalatroMove) move))) result.add(move);
+        return result;
+    }
+
+    /**
+     * Method to encode the equivalence class of a move of this state.
+     * Bits 0 thru 38 are the counts (3 bits each) of the thirteen ranks in the residual hand;
+     * bits 39 thru 50 are its four suit counts (3 bits each), ordered by the number of unseen cards of each suit
+     * and then by the count itself, so as to be independent of the labels of interchangeable suits;
+     * bit 51 is set for a DISCARD; bits 52 and up are the score of a PLAY.
+     * <p>
+     * NOTE: the unseen counts are the same for every move of this state, so they need not be in the key itself,
+     * but the keys of moves of different states are not comparable.
+     *
+     * @param move a move of this state.
+     * @return the canonical key of the move.
+     */
+    long canonicalKey(BalatroMove move) {
+        List<Card> residual = new ArrayList<>(hand);
+        List<Card> cards = move.getCards();
+        residual.removeAll(cards);
+        long result = 0;
+        int[] suits = new int[4];
+        for (Card card : residual) {
+            result += 1L << 3 * (card.getRank() - 1);
+            suits[card.getSuit().ordinal()]++;
+        }
+        int[] unseen = {13, 13, 13, 13};
+        for (Card card : hand) unseen[card.getSuit().ordinal()]--;
+        for (Card card : table) unseen[card.getSuit().ordinal()]--;
+        for (int i = 0; i < 4; i++) suits[i] |= unseen[i] << 3;
+        Arrays.sort(suits);
+        for (int i = 0; i < 4; i++) result |= (long) (suits[i] & 7) << 39 + 3 * i;
+        if (move.getAction() == BalatroMove.Action.DISCARD) return result | 1L << 51;
+        return result | (long) evaluatePlayScore(cards) << 52;
+    }
+
     private void generateCombinations(List<Card> cards, int k, List<Card> current, int start, List<Move<BalatroGame>> moves, BalatroMove.Action action) {
         if (current.size() == k) {
             moves.add(new BalatroMove(action, new ArrayList<>(current), player));
@@ -156,7 +343,20 @@ public class BalatroState implements State<BalatroGame> {
         return accumulatedScore;
     }
 
-    private int evaluatePlayScore(List<Card> playedCards) {
+    /**
+     * The categories of a play, from lowest to highest.
+     */
+    public enum HandType {
+        HIGH_CARD, PAIR, TWO_PAIR, THREE_OF_A_KIND, STRAIGHT, FLUSH, FULL_HOUSE, FOUR_OF_A_KIND, STRAIGHT_FLUSH, ROYAL_FLUSH
+    }
+
+    /**
+     * Method to score a play of the given cards.
+     *
+     * @param playedCards the cards played.
+     * @return the score of the play.
+     */
+    static int evaluatePlayScore(List<Card> playedCards) {
         if (playedCards == null || playedCards.isEmpty()) {
             return 0;
         }
@@ -171,91 +371,135 @@ public class BalatroState implements State<BalatroGame> {
             }
         }
 
-        int score = 0;
-
-        Map<Integer, List<Card>> rankGroups = playedCards.stream()
-                .collect(Collectors.groupingBy(Card::getRank));
+        return score(handType(playedCards), playedCards.size());
+    }
 
-        if (isRoyalFlush(playedCards)) {
-            score += ROYAL_FLUSH_SCORE;
-            return score; 
+    /**
+     * Method to score a play of the given type and number of cards.
+     *
+     * @param type the HandType of the play.
+     * @param size the number of cards played.
+     * @return the score of the play.
+     */
+    static int score(HandType type, int size) {
+        switch (type) {
+            case ROYAL_FLUSH:
+                return ROYAL_FLUSH_SCORE;
+            case STRAIGHT_FLUSH:
+                return STRAIGHT_FLUSH_SCORE;
+            case FOUR_OF_A_KIND:
+                return FOUR_OF_A_KIND_SCORE + (size - 4) * HIGH_CARD_SCORE;
+            case FULL_HOUSE:
+                return FULL_HOUSE_SCORE;
+            case FLUSH:
+                return FLUSH_SCORE + size * HIGH_CARD_SCORE;
+            case STRAIGHT:
+                return STRAIGHT_SCORE + size * HIGH_CARD_SCORE;
+            case THREE_OF_A_KIND:
+                return THREE_OF_A_KIND_SCORE + (size - 3) * HIGH_CARD_SCORE;
+            case TWO_PAIR:
+                return TWO_PAIR_SCORE + (size - 4) * HIGH_CARD_SCORE;
+            case PAIR:
+                return PAIR_SCORE + (size - 2) * HIGH_CARD_SCORE;
+            default:
+                return size * HIGH_CARD_SCORE;
         }
+    }
 
-        if (playedCards.size() >= 5 && isSequential(playedCards) && isSameFlush(playedCards)) {
-            score += STRAIGHT_FLUSH_SCORE;
-            return score; 
+    /**
+     * Method to find the score of the best play from the given hand, without enumerating the plays
+     * (it gives the same result as scoring {@link BalatroGreedyPolicy#bestPlay(List)}, but much faster).
+     * The best play has min(5, hand size) cards, of the best HandType that so many cards can make.
+     *
+     * @param hand the cards in hand.
+     * @return the score of the best play.
+     */
+    static int bestPlayScore(List<Card> hand) {
+        int k = Math.min(5, hand.size());
+        if (k == 0) return 0;
+        int[] ranks = new int[14];
+        int[] suitMasks = new int[Card.Suit.values().length];
+        int rankMask = 0;
+        for (Card card : hand) {
+            ranks[card.getRank()]++;
+            rankMask |= 1 << card.getRank();
+            suitMasks[card.getSuit().ordinal()] |= 1 << card.getRank();
         }
-
-        boolean hasFourOfAKind = rankGroups.values().stream().anyMatch(list -> list.size() == 4);
-        if (hasFourOfAKind) {
-            score += FOUR_OF_A_KIND_SCORE;
-            int singleCards = playedCards.size() - 4;
-            score += singleCards * HIGH_CARD_SCORE;
-            return score;
+        if (k == 5) {
+            boolean straightFlush = false;
+            for (int mask : suitMasks) {
+                // NOTE: a royal flush is 10 thru King with the Ace (bit 1).
+                if ((mask & ROYAL_MASK) == ROYAL_MASK) return score(HandType.ROYAL_FLUSH, k);
+                if (straight(mask)) straightFlush = true;
+            }
+            if (straightFlush) return score(HandType.STRAIGHT_FLUSH, k);
+        }
+        int pairs = 0;
+        int threes = 0;
+        for (int count : ranks) {
+            if (count >= 4) return score(HandType.FOUR_OF_A_KIND, k);
+            if (count == 3) threes++;
+            else if (count == 2) pairs++;
+        }
+        if (k == 5) {
+            if (threes > 0 && pairs + threes > 1) return score(HandType.FULL_HOUSE, k);
+            for (int mask : suitMasks) if (Integer.bitCount(mask) >= 5) return score(HandType.FLUSH, k);
+            if (straight(rankMask)) return score(HandType.STRAIGHT, k);
         }
+        if (threes > 0) return score(HandType.THREE_OF_A_KIND, k);
+        if (pairs > 1 && k >= 4) return score(HandType.TWO_PAIR, k);
+        if (pairs > 0) return score(HandType.PAIR, k);
+        return score(HandType.HIGH_CARD, k);
+    }
+
+    private static final int ROYAL_MASK = 1 << 1 | 0xF << 10;
+
+    /**
+     * Method to determine whether a mask of ranks (bit r for rank r) includes five consecutive ranks,
+     * where the Ace (rank 1) may also count high.
+     */
+    private static boolean straight(int mask) {
+        int ranks = (mask & 1 << 1) != 0 ? mask | 1 << 14 : mask;
+        return (ranks & ranks >> 1 & ranks >> 2 & ranks >> 3 & ranks >> 4) != 0;
+    }
+
+    /**
+     * Method to categorize a play of the given (non-null) cards.
+     *
+     * @param playedCards the cards played (not empty).
+     * @return the HandType of the play.
+     */
+    static HandType handType(List<Card> playedCards) {
+        if (isRoyalFlush(playedCards)) return HandType.ROYAL_FLUSH;
+
+        if (playedCards.size() >= 5 && isSequential(playedCards) && isSameFlush(playedCards))
+            return HandType.STRAIGHT_FLUSH;
+
+        Map<Integer, List<Card>> rankGroups = playedCards.stream()
+                .collect(Collectors.groupingBy(Card::getRank));
+
+        if (rankGroups.values().stream().anyMatch(list -> list.size() == 4)) return HandType.FOUR_OF_A_KIND;
 
         if (rankGroups.size() == 2 && playedCards.size() == 5) {
             boolean hasPair = rankGroups.values().stream().anyMatch(list -> list.size() == 2);
             boolean hasThree = rankGroups.values().stream().anyMatch(list -> list.size() == 3);
-            if (hasPair && hasThree) {
-                score += FULL_HOUSE_SCORE;
-                return score;
-            }
-        }
-
-        if (playedCards.size() > 4 && isSameFlush(playedCards)) {
-            score += FLUSH_SCORE;
-            score += playedCards.size() * HIGH_CARD_SCORE;
-            return score;
-        }
-
-        if (playedCards.size() >= 5 && isSequential(playedCards)) {
-            score += STRAIGHT_SCORE;
-            score += playedCards.size() * HIGH_CARD_SCORE;
-            return score;
+            if (hasPair && hasThree) return HandType.FULL_HOUSE;
         }
 
-        boolean hasThreeOfAKind = rankGroups.values().stream().anyMatch(list -> list.size() == 3);
-        if (hasThreeOfAKind) {
-            score += THREE_OF_A_KIND_SCORE;
-            for (List<Card> cards : rankGroups.values()) {
-                if (cards.size() != 3) {
-                    score += cards.size() * HIGH_CARD_SCORE;
-                }
-            }
-            return score;
-        }
+        if (playedCards.size() > 4 && isSameFlush(playedCards)) return HandType.FLUSH;
 
-        if (rankGroups.size() >= 2) {
-            long pairCount = rankGroups.values().stream().filter(list -> list.size() == 2).count();
-            if (pairCount >= 2) {
-                score += TWO_PAIR_SCORE;
-                for (List<Card> cards : rankGroups.values()) {
-                    if (cards.size() != 2) {
-                        score += cards.size() * HIGH_CARD_SCORE;
-                    }
-                }
-                return score;
-            }
-        }
+        if (playedCards.size() >= 5 && isSequential(playedCards)) return HandType.STRAIGHT;
 
-        boolean hasPair = rankGroups.values().stream().anyMatch(list -> list.size() == 2);
-        if (hasPair) {
-            score += PAIR_SCORE;
-            for (List<Card> cards : rankGroups.values()) {
-                if (cards.size() != 2) {
-                    score += cards.size() * HIGH_CARD_SCORE;
-                }
-            }
-            return score;
-        }
+        if (rankGroups.values().stream().anyMatch(list -> list.size() == 3)) return HandType.THREE_OF_A_KIND;
 
-        score += playedCards.size() * HIGH_CARD_SCORE;
+        long pairCount = rankGroups.values().stream().filter(list -> list.size() == 2).count();
+        if (pairCount >= 2) return HandType.TWO_PAIR;
+        if (pairCount == 1) return HandType.PAIR;
 
-        return score;
+        return HandType.HIGH_CARD;
     }
 
-    private boolean isSequential(List<Card> cards) {
+    private static boolean isSequential(List<Card> cards) {
         if (cards.size() < 5) return false;
 
         List<Integer> ranks = cards.stream()
@@ -277,7 +521,7 @@ public class BalatroState implements State<BalatroGame> {
         return isConsecutive(ranks);
     }
 
-    private boolean isConsecutive(List<Integer> sortedRanks) {
+    private static boolean isConsecutive(List<Integer> sortedRanks) {
         List<Integer> distinct = new ArrayList<>(new HashSet<>(sortedRanks));
         Collections.sort(distinct);
 
@@ -291,14 +535,14 @@ public class BalatroState implements State<BalatroGame> {
         return true;
     }
 
-    private boolean isSameFlush(List<Card> cards) {
+    private static boolean isSameFlush(List<Card> cards) {
         if (cards.size() < 3) return false;
 
         Card.Suit firstSuit = cards.get(0).getSuit();
         return cards.stream().allMatch(c -> c.getSuit() == firstSuit);
     }
 
-    private boolean isRoyalFlush(List<Card> cards) {
+    private static boolean isRoyalFlush(List<Card> cards) {
         if (cards.size() < 5 || !isSameFlush(cards)) return false;
 
         Set<Integer> ranks = cards.stream()
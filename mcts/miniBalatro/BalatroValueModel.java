@@ -0,0 +1,268 @@
+package com.phasmidsoftware.dsaipg.projects.mcts.miniBalatro;
+
+import com.phasmidsoftware.dsaipg.projects.mcts.core.LeafEvaluator;
+import com.phasmidsoftware.dsaipg.projects.mcts.core.Move;
+import com.phasmidsoftware.dsaipg.projects.mcts.core.RolloutPolicy;
+import com.phasmidsoftware.dsaipg.projects.mcts.core.State;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * A linear value function for Balatro, learned offline from self-play: it predicts the final score of a game
+ * from a few features of a state (see {@link #features(BalatroState)}), and may be used as a leaf evaluator by BalatroMCTS.
+ * <p>
+ * The pipeline is: {@link #selfPlay(int, RolloutPolicy, long)} to generate positions with their final scores,
+ * {@link #fit(List, double)} to fit the weights (by ridge regression), and {@link #save(Path)} / {@link #load(Path)}.
+ * The main method runs the whole pipeline.
+ */
+public class BalatroValueModel implements LeafEvaluator<BalatroGame> {
+
+    public BalatroValueModel(double[] weights) {
+        if (weights.length != FEATURES)
+            throw new IllegalArgumentException("expected " + FEATURES + " weights but got " + weights.length);
+        this.weights = weights.clone();
+    }
+
+    /**
+     * Method to generate positions from self-play, fit a model, report its error on fresh positions, and save it.
+     *
+     * @param args the file to which the model is saved (default balatro-value.txt), and the number of games (default 5000).
+     */
+    public static void main(String[] args) throws IOException {
+        Path path = Paths.get(args.length > 0 ? args[0] : "balatro-value.txt");
+        int games = args.length > 1 ? Integer.parseInt(args[1]) : 5000;
+        RolloutPolicy<BalatroGame> policy = RolloutPolicy.epsilonGreedy(new BalatroGreedyPolicy(), 0.2);
+        long start = System.currentTimeMillis();
+        List<Sample> samples = selfPlay(games, policy, 0L);
+        BalatroValueModel model = fit(samples, 1.0);
+        long end = System.currentTimeMillis();
+        System.out.printf("Positions: %d | Time: %d ms | RMSE (training): %.2f | RMSE (test): %.2f%n",
+                samples.size(), end - start, model.rmse(samples), model.rmse(selfPlay(games / 5, policy, 1L)));
+        model.save(path);
+        System.out.println("Saved to " + path.toAbsolutePath());
+    }
+
+    @Override
+    public int evaluate(State<BalatroGame> state, int player) {
+        BalatroState balatroState = (BalatroState) state;
+        if (state.isTerminal()) return balatroState.getScore();
+        return (int) Math.round(Math.max(balatroState.getScore(), predict(balatroState)));
+    }
+
+    /**
+     * Method to predict the final score of a game from the given state.
+     *
+     * @param state a BalatroState.
+     * @return the predicted final score.
+     */
+    public double predict(BalatroState state) {
+        return dot(weights, features(state));
+    }
+
+    /**
+     * @return a copy of the weights of this model.
+     */
+    public double[] weights() {
+        return weights.clone();
+    }
+
+    /**
+     * Method to compute the root-mean-square error of this model on the given samples.
+     *
+     * @param samples positions with their final scores.
+     * @return the RMSE.
+     */
+    public double rmse(List<Sample> samples) {
+        double total = 0;
+        for (Sample sample : samples) {
+            double error = dot(weights, sample.features) - sample.score;
+            total += error * error;
+        }
+        return Math.sqrt(total / samples.size());
+    }
+
+    /**
+     * Method to save this model as text, one weight per line.
+     *
+     * @param path the file.
+     */
+    public void save(Path path) throws IOException {
+        Files.write(path, Arrays.stream(weights).mapToObj(Double::toString).collect(Collectors.toList()));
+    }
+
+    /**
+     * Method to load a model saved by {@link #save(Path)}.
+     *
+     * @param path the file.
+     * @return a BalatroValueModel.
+     */
+    public static BalatroValueModel load(Path path) throws IOException {
+        return new BalatroValueModel(Files.readAllLines(path).stream().filter(line -> !line.isBlank()).mapToDouble(Double::parseDouble).toArray());
+    }
+
+    /**
+     * A position from self-play: its features and the final score of its game.
+     */
+    public static class Sample {
+        public Sample(double[] features, int score) {
+            this.features = features;
+            this.score = score;
+        }
+
+        final double[] features;
+        final int score;
+    }
+
+    /**
+     * Method to play games with the given policy, recording every non-terminal position together with the final score.
+     *
+     * @param games  the number of games.
+     * @param policy the policy for both plays and discards.
+     * @param seed   the seed for the deals (and the policy's randomness).
+     * @return the samples.
+     */
+    public static List<Sample> selfPlay(int games, RolloutPolicy<BalatroGame> policy, long seed) {
+        BalatroGame game = new BalatroGame(seed);
+        List<Sample> result = new ArrayList<>();
+        List<double[]> positions = new ArrayList<>();
+        for (int i = 0; i < games; i++) {
+            State<BalatroGame> state = game.start();
+            positions.clear();
+            while (!state.isTerminal()) {
+                positions.add(features((BalatroState) state));
+                Move<BalatroGame> move = policy.choose(state, state.player());
+                state = state.next(move);
+            }
+            int score = ((BalatroState) state).getScore();
+            for (double[] features : positions) result.add(new Sample(features, score));
+        }
+        return result;
+    }
+
+    /**
+     * Method to fit a model to the given samples by ridge regression (least squares with an L2 penalty),
+     * solving the normal equations by Gaussian elimination.
+     *
+     * @param samples positions with their final scores.
+     * @param ridge   the L2 penalty (which is not applied to the bias).
+     * @return a BalatroValueModel.
+     */
+    public static BalatroValueModel fit(List<Sample> samples, double ridge) {
+        double[][] a = new double[FEATURES][FEATURES + 1];
+        for (Sample sample : samples) {
+            double[] x = sample.features;
+            for (int i = 0; i < FEATURES; i++) {
+                for (int j = i; j < FEATURES; j++) a[i][j] += x[i] * x[j];
+                a[i][FEATURES] += x[i] * sample.score;
+            }
+        }
+        for (int i = 0; i < FEATURES; i++) {
+            for (int j = 0; j < i; j++) a[i][j] = a[j][i];
+            if (i > 0) a[i][i] += ridge;
+        }
+        return new BalatroValueModel(solve(a));
+    }
+
+    /**
+     * The number of features, including the bias.
+     */
+    public static final int FEATURES = 29;
+
+    /**
+     * Method to compute the features of a state:
+     * the bias; the score so far; the plays and discards remaining (and their product);
+     * the score of the best play in hand (and its product with the plays remaining);
+     * the pairs, sets and longest run of ranks in hand; the size of the deck;
+     * the number of cards in the deck of the hand's longest suit;
+     * the suit counts of the hand in descending order; and the rank histogram of the hand.
+     *
+     * @param state a BalatroState.
+     * @return an array of FEATURES features.
+     */
+    public static double[] features(BalatroState state) {
+        double[] result = new double[FEATURES];
+        int[] ranks = new int[14];
+        int[] suits = new int[Card.Suit.values().length];
+        int rankMask = 0;
+        for (Card card : state.hand) {
+            ranks[card.getRank()]++;
+            suits[card.getSuit().ordinal()]++;
+            rankMask |= 1 << card.getRank();
+        }
+        int longestSuit = 0;
+        for (int i = 1; i < suits.length; i++) if (suits[i] > suits[longestSuit]) longestSuit = i;
+        int pairs = 0;
+        int sets = 0;
+        for (int count : ranks) {
+            if (count == 2) pairs++;
+            else if (count >= 3) sets++;
+        }
+        // NOTE: the Ace (rank 1) also counts high, as bit 14.
+        int mask = (rankMask & 1 << 1) != 0 ? rankMask | 1 << 14 : rankMask;
+        int run = 0;
+        for (int m = mask; m != 0; m &= m << 1) run++;
+        int deckSuit = 0;
+        for (Card card : state.deck) if (card.getSuit().ordinal() == longestSuit) deckSuit++;
+        int best = BalatroState.bestPlayScore(state.hand);
+
+        result[0] = 1;
+        result[1] = state.accumulatedScore;
+        result[2] = state.remainingPlays;
+        result[3] = state.remainingDiscards;
+        result[4] = state.remainingPlays * state.remainingDiscards;
+        result[5] = best;
+        result[6] = best * state.remainingPlays;
+        result[7] = pairs;
+        result[8] = sets;
+        result[9] = run;
+        result[10] = state.deck.size();
+        result[11] = deckSuit;
+        int[] sorted = suits.clone();
+        Arrays.sort(sorted);
+        for (int i = 0; i < 4; i++) result[12 + i] = sorted[3 - i];
+        for (int rank = 1; rank <= 13; rank++) result[15 + rank] = ranks[rank];
+        return result;
+    }
+
+    private static double dot(double[] weights, double[] features) {
+        double result = 0;
+        for (int i = 0; i < weights.length; i++) result += weights[i] * features[i];
+        return result;
+    }
+
+    /**
+     * Method to solve the linear system whose augmented matrix is given, by Gaussian elimination with partial pivoting.
+     * The matrix is overwritten.
+     */
+    private static double[] solve(double[][] a) {
+        int n = a.length;
+        for (int col = 0; col < n; col++) {
+            int pivot = col;
+            for (int row = col + 1; row < n; row++) if (Math.abs(a[row][col]) > Math.abs(a[pivot][col])) pivot = row;
+            double[] swap = a[col];
+            a[col] = a[pivot];
+            a[pivot] = swap;
+            if (a[col][col] == 0) continue;
+            for (int row = col + 1; row < n; row++) {
+                double factor = a[row][col] / a[col][col];
+                for (int k = col; k <= n; k++) a[row][k] -= factor * a[col][k];
+            }
+        }
+        double[] result = new double[n];
+        for (int row = n - 1; row >= 0; row--) {
+            double sum = a[row][n];
+            for (int k = row + 1; k < n; k++) sum -= a[row][k] * result[k];
+            result[row] = a[row][row] == 0 ? 0 : sum / a[row][row];
+        }
+        return result;
+    }
+
+    private final double[] weights;
+}
@@ -36,6 +36,13 @@ public class Card implements Comparable<Card> {
         return suit;
     }
 
+    /**
+     * @return the position of this card in a 52-card deck ordered by suit then rank (0 thru 51).
+     */
+    public int index() {
+        return suit.ordinal() * 13 + rank - 1;
+    }
+
     public String getFaceValue() {
         switch (rank) {
             case 1: return "A";
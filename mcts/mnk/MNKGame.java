@@ -0,0 +1,174 @@
+/*
+ * Copyright (c) 2024. Robin Hillyard
+ */
+
+package com.phasmidsoftware.dsaipg.projects.mcts.mnk;
+
+import com.phasmidsoftware.dsaipg.projects.mcts.core.Game;
+import com.phasmidsoftware.dsaipg.projects.mcts.core.State;
+
+import java.util.SplittableRandom;
+import java.util.random.RandomGenerator;
+
+/**
+ * Class which models an m,n,k-game: two players take turns to place a stone on an m x n board
+ * and the first to get k (or more) stones in a row (horizontally, vertically or diagonally) wins.
+ * TicTacToe is the 3,3,3-game; Gomoku (free-style) is the 15,15,5-game.
+ * <p>
+ * The purpose of this game is to provide a realistic workload (large branching factor, long games)
+ * for benchmarking the tree search.
+ */
+public class MNKGame implements Game<MNKGame> {
+
+    /**
+     * Main program to run a random game of Gomoku.
+     *
+     * @param args command-line arguments.
+     */
+    public static void main(String[] args) {
+        MNKGame game = gomoku();
+        State<MNKGame> state = game.start();
+        while (!state.isTerminal()) state = state.next(state.chooseMove(state.player()));
+        System.out.println(state);
+        System.out.println(state.winner().map(w -> "Winner: " + (w == X ? "X" : "O")).orElse("Draw!"));
+    }
+
+    public static final int X = 1;
+    public static final int O = 0;
+    public static final int blank = -1;
+
+    /**
+     * Method to create a game of (free-style) Gomoku, i.e. the 15,15,5-game.
+     *
+     * @return an MNKGame.
+     */
+    public static MNKGame gomoku() {
+        return new MNKGame(15, 15, 5);
+    }
+
+    /**
+     * This method determines the opening player.
+     *
+     * @return the opening player (X).
+     */
+    public int opener() {
+        return X;
+    }
+
+    /**
+     * Get the starting state for this game.
+     *
+     * @return an empty board.
+     */
+    public State<MNKGame> start() {
+        return new MNKState(this);
+    }
+
+    /**
+     * Method to get the (shared, immutable) Move for the given player and cell.
+     *
+     * @param player the player (X or O).
+     * @param row    the row (0 thru m-1).
+     * @param column the column (0 thru n-1).
+     * @return an MNKMove.
+     */
+    public MNKMove move(int player, int row, int column) {
+        if (row < 0 || row >= m || column < 0 || column >= n)
+            throw new IllegalArgumentException("MNKGame: no such cell: " + row + ", " + column);
+        return move(player, row * n + column);
+    }
+
+    /**
+     * @return the number of rows.
+     */
+    public int m() {
+        return m;
+    }
+
+    /**
+     * @return the number of columns.
+     */
+    public int n() {
+        return n;
+    }
+
+    /**
+     * @return the number in a row required to win.
+     */
+    public int k() {
+        return k;
+    }
+
+    /**
+     * @return the number of cells on the board.
+     */
+    public int size() {
+        return m * n;
+    }
+
+    /**
+     * @return the random source shared by the states of this game.
+     */
+    public RandomGenerator random() {
+        return random;
+    }
+
+    @Override
+    public String toString() {
+        return "MNKGame{" + m + "," + n + "," + k + '}';
+    }
+
+    /**
+     * Primary constructor.
+     *
+     * @param m      the number of rows.
+     * @param n      the number of columns.
+     * @param k      the number in a row required to win.
+     * @param random a random source.
+     */
+    public MNKGame(int m, int n, int k, RandomGenerator random) {
+        if (m < 1 || n < 1 || k < 1)
+            throw new IllegalArgumentException("MNKGame: invalid parameters: " + m + "," + n + "," + k);
+        this.m = m;
+        this.n = n;
+        this.k = k;
+        this.random = random;
+        moves = new MNKMove[2][m * n];
+        for (int player = O; player <= X; player++)
+            for (int cell = 0; cell < m * n; cell++)
+                moves[player][cell] = new MNKMove(player, cell, n);
+    }
+
+    /**
+     * Secondary constructor.
+     *
+     * @param m    the number of rows.
+     * @param n    the number of columns.
+     * @param k    the number in a row required to win.
+     * @param seed a seed for the random source.
+     */
+    public MNKGame(int m, int n, int k, long seed) {
+        this(m, n, k, new SplittableRandom(seed));
+    }
+
+    /**
+     * Secondary constructor which uses the current time as seed.
+     *
+     * @param m the number of rows.
+     * @param n the number of columns.
+     * @param k the number in a row required to win.
+     */
+    public MNKGame(int m, int n, int k) {
+        this(m, n, k, System.currentTimeMillis());
+    }
+
+    MNKMove move(int player, int cell) {
+        return moves[player][cell];
+    }
+
+    private final int m;
+    private final int n;
+    private final int k;
+    private final RandomGenerator random;
+    private final MNKMove[][] moves;
+}
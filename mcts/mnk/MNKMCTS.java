@@ -0,0 +1,153 @@
+/*
+ * Copyright (c) 2024. Robin Hillyard
+ */
+
+package com.phasmidsoftware.dsaipg.projects.mcts.mnk;
+
+import com.phasmidsoftware.dsaipg.projects.mcts.core.Move;
+import com.phasmidsoftware.dsaipg.projects.mcts.core.State;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.random.RandomGenerator;
+
+/**
+ * Monte Carlo Tree Search for m,n,k-games.
+ * This follows the same scheme as the TicTacToe engine (UCT selection, one expansion per iteration, random rollouts)
+ * but, since Gomoku-sized boards produce deep trees with hundreds of children per node, it is also the workload
+ * for benchmarking the scaling and memory use of the tree search (see {@link #benchmark}).
+ */
+public class MNKMCTS {
+
+    public static void main(String[] args) {
+        benchmark(MNKGame.gomoku(), new int[]{1000, 5000, 20000});
+    }
+
+    /**
+     * Method to benchmark a search from the starting position of the given game.
+     *
+     * @param game            the game.
+     * @param iterationLimits the numbers of iterations to try.
+     */
+    public static void benchmark(MNKGame game, int[] iterationLimits) {
+        System.out.println("Benchmark: " + game);
+        for (int iterations : iterationLimits) {
+            MNKNode root = new MNKNode(game.start());
+            MNKMCTS mcts = new MNKMCTS(root, iterations);
+            long start = System.nanoTime();
+            Move<MNKGame> move = mcts.findBestMove();
+            long elapsed = System.nanoTime() - start;
+            System.out.printf("Iterations: %d | Time: %.1f ms | %.0f iterations/s | Tree size: %d nodes | Move: %s%n",
+                    iterations, elapsed / 1.0E6, iterations * 1.0E9 / elapsed, root.size(), move);
+        }
+    }
+
+    public MNKMCTS(MNKNode root, int maxIterations) {
+        this.root = root;
+        this.maxIterations = maxIterations;
+        this.random = new SplittableRandom();
+    }
+
+    public Move<MNKGame> findBestMove() {
+        if (root.isLeaf()) {
+            return null;
+        }
+
+        for (int i = 0; i < maxIterations; i++) {
+            List<MNKNode> path = new ArrayList<>();
+            MNKNode selectedNode = selectWithPath(path);
+
+            MNKNode expandedNode = selectedNode;
+            if (!selectedNode.isLeaf() && !selectedNode.isFullyExpanded()) {
+                expandedNode = expand(selectedNode);
+                path.add(expandedNode);
+            }
+
+            int simulationResult = simulate(expandedNode);
+
+            backpropagate(path, simulationResult);
+        }
+
+        return getMostVisitedChild(root).getMove();
+    }
+
+    private MNKNode selectWithPath(List<MNKNode> path) {
+        MNKNode currentNode = root;
+        path.add(currentNode);
+        while (!currentNode.isLeaf() && currentNode.isFullyExpanded()) {
+            currentNode = getBestChild(currentNode);
+            path.add(currentNode);
+        }
+        return currentNode;
+    }
+
+    private MNKNode expand(MNKNode node) {
+        MNKState state = (MNKState) node.state();
+        int player = state.player();
+        // Choose uniformly amongst the untried moves (by rank) without building a list of them.
+        int untried = node.state().game().size() - state.count() - node.childCount();
+        int r = random.nextInt(untried);
+        for (int cell = 0; ; cell++) {
+            if (!state.isFree(cell)) continue;
+            MNKMove move = state.game().move(player, cell);
+            if (node.hasChildForMove(move)) continue;
+            if (r-- == 0) return node.addChild(state.next(move), move);
+        }
+    }
+
+    private int simulate(MNKNode node) {
+        State<MNKGame> currentState = node.state();
+        while (!currentState.isTerminal())
+            currentState = currentState.next(currentState.chooseMove(currentState.player()));
+        return evaluateTerminalState(currentState);
+    }
+
+    private int evaluateTerminalState(State<MNKGame> state) {
+        if (state.winner().isEmpty()) return 1;
+        return state.winner().get() == root.state().player() ? 2 : 0;
+    }
+
+    private void backpropagate(List<MNKNode> path, int result) {
+        for (MNKNode node : path) node.updateStats(result);
+    }
+
+    private MNKNode getBestChild(MNKNode node) {
+        // NOTE: results are from the point of view of the root player, so the opponent prefers low scores.
+        boolean opponent = node.state().player() != root.state().player();
+        double logParent = Math.log(node.playouts());
+        MNKNode bestChild = null;
+        double bestValue = Double.NEGATIVE_INFINITY;
+        for (int i = 0, n = node.childCount(); i < n; i++) {
+            MNKNode child = node.child(i);
+            if (child.playouts() == 0) return child;
+            double score = (double) child.wins() / child.playouts();
+            double exploitationTerm = opponent ? 2 - score : score;
+            double uctValue = exploitationTerm + explorationParameter * Math.sqrt(logParent / child.playouts());
+            if (uctValue > bestValue) {
+                bestValue = uctValue;
+                bestChild = child;
+            }
+        }
+        return bestChild;
+    }
+
+    private MNKNode getMostVisitedChild(MNKNode node) {
+        MNKNode mostVisitedChild = null;
+        int mostVisits = -1;
+        for (int i = 0, n = node.childCount(); i < n; i++) {
+            MNKNode child = node.child(i);
+            if (child.playouts() > mostVisits) {
+                mostVisits = child.playouts();
+                mostVisitedChild = child;
+            }
+        }
+        if (mostVisitedChild == null) throw new IllegalStateException("No child");
+        return mostVisitedChild;
+    }
+
+    private final double explorationParameter = Math.sqrt(2);
+    private final int maxIterations;
+    private final RandomGenerator random;
+    private final MNKNode root;
+}
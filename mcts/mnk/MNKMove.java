@@ -0,0 +1,76 @@
+/*
+ * Copyright (c) 2024. Robin Hillyard
+ */
+
+package com.phasmidsoftware.dsaipg.projects.mcts.mnk;
+
+import com.phasmidsoftware.dsaipg.projects.mcts.core.Move;
+
+/**
+ * Class to define a Move of an m,n,k-game: the placing of a stone on a cell.
+ * Instances are shared (see {@link MNKGame#move(int, int, int)}) and immutable.
+ */
+public class MNKMove implements Move<MNKGame> {
+
+    /**
+     * @return the player for this Move.
+     */
+    public int player() {
+        return player;
+    }
+
+    /**
+     * @return the index of the cell in row-major order.
+     */
+    public long code() {
+        return cell;
+    }
+
+    /**
+     * @return the index of the cell in row-major order.
+     */
+    public int cell() {
+        return cell;
+    }
+
+    /**
+     * @return the row of the cell.
+     */
+    public int row() {
+        return cell / n;
+    }
+
+    /**
+     * @return the column of the cell.
+     */
+    public int column() {
+        return cell % n;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof MNKMove that)) return false;
+        return player == that.player && cell == that.cell;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * player + cell;
+    }
+
+    @Override
+    public String toString() {
+        return "Player " + player + " move to (" + row() + ", " + column() + ")";
+    }
+
+    MNKMove(int player, int cell, int n) {
+        this.player = player;
+        this.cell = cell;
+        this.n = n;
+    }
+
+    private final int player;
+    private final int cell;
+    private final int n;
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright (c) 2024. Robin Hillyard
+ */
+
+package com.phasmidsoftware.dsaipg.projects.mcts.mnk;
+
+import com.phasmidsoftware.dsaipg.projects.mcts.core.ChildIndex;
+import com.phasmidsoftware.dsaipg.projects.mcts.core.Move;
+import com.phasmidsoftware.dsaipg.projects.mcts.core.Node;
+import com.phasmidsoftware.dsaipg.projects.mcts.core.State;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+
+/**
+ * Class to define a Node of the search tree for an m,n,k-game.
+ * Children are indexed by the code (cell) of their move.
+ */
+public class MNKNode implements Node<MNKGame> {
+
+    public MNKNode(State<MNKGame> state) {
+        this(state, null);
+    }
+
+    public MNKNode(State<MNKGame> state, Move<MNKGame> move) {
+        this.state = state;
+        this.move = move;
+    }
+
+    public Move<MNKGame> getMove() {
+        return move;
+    }
+
+    @Override
+    public boolean isLeaf() {
+        return state.isTerminal();
+    }
+
+    @Override
+    public State<MNKGame> state() {
+        return state;
+    }
+
+    @Override
+    public boolean white() {
+        return state.player() == state.game().opener();
+    }
+
+    @Override
+    public Collection<Node<MNKGame>> children() {
+        return Collections.unmodifiableList(children);
+    }
+
+    @Override
+    public int childCount() {
+        return children.size();
+    }
+
+    @Override
+    public MNKNode child(int i) {
+        return children.get(i);
+    }
+
+    public Collection<MNKNode> getChildren() {
+        return children;
+    }
+
+    @Override
+    public void addChild(State<MNKGame> state) {
+        children.add(new MNKNode(state));
+    }
+
+    public MNKNode addChild(State<MNKGame> state, Move<MNKGame> move) {
+        MNKNode child = new MNKNode(state, move);
+        childIndex.put(move.code(), children.size());
+        children.add(child);
+        return child;
+    }
+
+    public boolean hasChildForMove(Move<MNKGame> move) {
+        return childIndex.contains(move.code());
+    }
+
+    public boolean isFullyExpanded() {
+        return children.size() >= state.game().size() - ((MNKState) state).count();
+    }
+
+    public void updateStats(int score) {
+        wins += score;
+        playouts++;
+    }
+
+    @Override
+    public void backPropagate() {
+    }
+
+    @Override
+    public int wins() {
+        return wins;
+    }
+
+    @Override
+    public int playouts() {
+        return playouts;
+    }
+
+    /**
+     * @return the number of nodes in the subtree rooted at this node (including this node).
+     */
+    public int size() {
+        int result = 1;
+        for (MNKNode child : children) result += child.size();
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return "MNKNode{" +
+                "move=" + move +
+                ", wins=" + wins +
+                ", playouts=" + playouts +
+                '}';
+    }
+
+    private final State<MNKGame> state;
+    private final Move<MNKGame> move;
+    private final ArrayList<MNKNode> children = new ArrayList<>();
+    private final ChildIndex childIndex = new ChildIndex();
+    private int wins;
+    private int playouts;
+}
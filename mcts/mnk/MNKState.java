@@ -0,0 +1,243 @@
+/*
+ * Copyright (c) 2024. Robin Hillyard
+ */
+
+package com.phasmidsoftware.dsaipg.projects.mcts.mnk;
+
+import com.phasmidsoftware.dsaipg.projects.mcts.core.Move;
+import com.phasmidsoftware.dsaipg.projects.mcts.core.State;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.random.RandomGenerator;
+
+/**
+ * Class to define a State of an m,n,k-game.
+ * <p>
+ * The board is held as one bitboard per player: an array of longs with bit (row * n + column) set for each stone.
+ * The win test is incremental: only the four lines through the last stone are examined, when the State is created.
+ */
+public class MNKState implements State<MNKGame> {
+
+    public MNKGame game() {
+        return game;
+    }
+
+    /**
+     * @return the player to move.
+     */
+    public int player() {
+        return last == MNKGame.X ? MNKGame.O : MNKGame.X;
+    }
+
+    /**
+     * @return the last player to move (or blank for the starting state).
+     */
+    public int last() {
+        return last;
+    }
+
+    public Optional<Integer> winner() {
+        return won ? Optional.of(last) : Optional.empty();
+    }
+
+    /**
+     * @return true if the last player has k in a row.
+     */
+    public boolean won() {
+        return won;
+    }
+
+    public boolean isTerminal() {
+        return won || count == game.size();
+    }
+
+    public RandomGenerator random() {
+        return game.random();
+    }
+
+    /**
+     * @return the number of stones on the board.
+     */
+    public int count() {
+        return count;
+    }
+
+    /**
+     * Method to get the stone on a cell.
+     *
+     * @param row    the row.
+     * @param column the column.
+     * @return X, O, or blank.
+     */
+    public int cell(int row, int column) {
+        int cell = row * game.n() + column;
+        if (isSet(xs, cell)) return MNKGame.X;
+        if (isSet(os, cell)) return MNKGame.O;
+        return MNKGame.blank;
+    }
+
+    /**
+     * Method to determine if a cell is empty.
+     *
+     * @param cell the index of the cell (row * n + column).
+     * @return true if there is no stone on it.
+     */
+    public boolean isFree(int cell) {
+        return !isSet(xs, cell) && !isSet(os, cell);
+    }
+
+    public Collection<Move<MNKGame>> moves(int player) {
+        if (player == last) throw new RuntimeException("consecutive moves by same player: " + player);
+        List<Move<MNKGame>> result = new ArrayList<>(game.size() - count);
+        for (int w = 0; w < xs.length; w++)
+            for (long free = freeWord(w); free != 0; free &= free - 1)
+                result.add(game.move(player, w * 64 + Long.numberOfTrailingZeros(free)));
+        return result;
+    }
+
+    /**
+     * Method to choose a (uniformly) random move for the given player, without generating all the moves.
+     * While the board is at most half full, a random cell is drawn until an empty one is found (fewer than two draws on average).
+     * Thereafter, the r-th empty cell is located by counting the bits of each word of the board.
+     *
+     * @param player the player who will be making the move.
+     * @return a move.
+     */
+    public Move<MNKGame> chooseMove(int player) {
+        if (player == last) throw new RuntimeException("consecutive moves by same player: " + player);
+        int size = game.size();
+        int free = size - count;
+        if (free == 0) throw new RuntimeException("empty move iterator");
+        RandomGenerator random = random();
+        if (2 * count <= size)
+            while (true) {
+                int cell = random.nextInt(size);
+                if (isFree(cell)) return game.move(player, cell);
+            }
+        int r = random.nextInt(free);
+        for (int w = 0; ; w++) {
+            long bits = freeWord(w);
+            int c = Long.bitCount(bits);
+            if (r < c) {
+                for (; r > 0; r--) bits &= bits - 1;
+                return game.move(player, w * 64 + Long.numberOfTrailingZeros(bits));
+            }
+            r -= c;
+        }
+    }
+
+    public State<MNKGame> next(Move<MNKGame> move) {
+        MNKMove mnkMove = (MNKMove) move;
+        int player = mnkMove.player();
+        int cell = mnkMove.cell();
+        if (player == last) throw new RuntimeException("consecutive moves by same player: " + player);
+        if (won) throw new RuntimeException("game is over: " + this);
+        if (!isFree(cell)) throw new RuntimeException("cell is occupied: " + move);
+        long[] newXs = xs;
+        long[] newOs = os;
+        if (player == MNKGame.X) newXs = with(xs, cell);
+        else newOs = with(os, cell);
+        return new MNKState(game, newXs, newOs, player, cell, count + 1);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof MNKState that)) return false;
+        return game == that.game && last == that.last && Arrays.equals(xs, that.xs) && Arrays.equals(os, that.os);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Arrays.hashCode(xs) + Arrays.hashCode(os);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < game.m(); i++) {
+            for (int j = 0; j < game.n(); j++) {
+                int stone = cell(i, j);
+                sb.append(stone == MNKGame.X ? 'X' : stone == MNKGame.O ? 'O' : '.');
+                if (j < game.n() - 1) sb.append(' ');
+            }
+            if (i < game.m() - 1) sb.append('\n');
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Constructor for the starting (empty) state.
+     *
+     * @param game the game.
+     */
+    MNKState(MNKGame game) {
+        this(game, new long[words(game)], new long[words(game)], MNKGame.blank, -1, 0);
+    }
+
+    private MNKState(MNKGame game, long[] xs, long[] os, int last, int lastCell, int count) {
+        this.game = game;
+        this.xs = xs;
+        this.os = os;
+        this.last = last;
+        this.count = count;
+        this.won = lastCell >= 0 && count >= 2 * game.k() - 1 && kInARow(last == MNKGame.X ? xs : os, lastCell);
+    }
+
+    /**
+     * Method to determine if the stone on lastCell is part of a line of at least k stones.
+     */
+    private boolean kInARow(long[] stones, int lastCell) {
+        int n = game.n();
+        int row = lastCell / n;
+        int column = lastCell % n;
+        return run(stones, row, column, 0, 1) >= game.k() ||
+                run(stones, row, column, 1, 0) >= game.k() ||
+                run(stones, row, column, 1, 1) >= game.k() ||
+                run(stones, row, column, 1, -1) >= game.k();
+    }
+
+    /**
+     * Method to count the stones in the line through (row, column) in direction (dr, dc), both ways.
+     */
+    private int run(long[] stones, int row, int column, int dr, int dc) {
+        int result = 1;
+        for (int sign = -1; sign <= 1; sign += 2)
+            for (int i = row + sign * dr, j = column + sign * dc; i >= 0 && i < game.m() && j >= 0 && j < game.n(); i += sign * dr, j += sign * dc) {
+                if (!isSet(stones, i * game.n() + j)) break;
+                result++;
+            }
+        return result;
+    }
+
+    private long freeWord(int w) {
+        long free = ~(xs[w] | os[w]);
+        int remaining = game.size() - w * 64;
+        return remaining >= 64 ? free : free & ((1L << remaining) - 1);
+    }
+
+    private static boolean isSet(long[] bits, int cell) {
+        return (bits[cell >>> 6] & 1L << cell) != 0;
+    }
+
+    private static long[] with(long[] bits, int cell) {
+        long[] result = bits.clone();
+        result[cell >>> 6] |= 1L << cell;
+        return result;
+    }
+
+    private static int words(MNKGame game) {
+        return (game.size() + 63) / 64;
+    }
+
+    private final MNKGame game;
+    private final long[] xs;
+    private final long[] os;
+    private final int last;
+    private final int count;
+    private final boolean won;
+}
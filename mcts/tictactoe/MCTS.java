@@ -4,24 +4,232 @@
 
 package com.phasmidsoftware.dsaipg.projects.mcts.tictactoe;
 
+import com.phasmidsoftware.dsaipg.projects.mcts.core.AmafTable;
+import com.phasmidsoftware.dsaipg.projects.mcts.core.EarlyStop;
+import com.phasmidsoftware.dsaipg.projects.mcts.core.LeafEvaluator;
 import com.phasmidsoftware.dsaipg.projects.mcts.core.Move;
+import com.phasmidsoftware.dsaipg.projects.mcts.core.MovePrior;
 import com.phasmidsoftware.dsaipg.projects.mcts.core.Node;
+import com.phasmidsoftware.dsaipg.projects.mcts.core.RecordWriter;
+import com.phasmidsoftware.dsaipg.projects.mcts.core.Proof;
+import com.phasmidsoftware.dsaipg.projects.mcts.core.RolloutPolicy;
+import com.phasmidsoftware.dsaipg.projects.mcts.core.SearchResult;
+import com.phasmidsoftware.dsaipg.projects.mcts.core.SelectionPolicy;
 import com.phasmidsoftware.dsaipg.projects.mcts.core.State;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.*;
+import java.util.random.RandomGenerator;
+import java.util.function.Consumer;
 
 public class MCTS {
     private final double explorationParameter = Math.sqrt(2);
     private final int maxIterations;
-    private final Random random;
+    private RandomGenerator random;
     private final Node<TicTacToe> root;
+    private LeafEvaluator<TicTacToe> leafEvaluator;
+    private RolloutPolicy<TicTacToe> rolloutPolicy = RolloutPolicy.random();
+    private int raveEquivalence;
+    private boolean solver;
+    private int iterations;
+    private EarlyStop earlyStop = EarlyStop.never();
+    // NOTE: results are on the 2/1/0 scale, so this is the same as UCB1 with explorationParameter on the original scale.
+    private SelectionPolicy selectionPolicy = SelectionPolicy.ucb1(explorationParameter / 2);
+    private MovePrior<TicTacToe> movePrior = MovePrior.uniform();
 
     public static void main(String[] args) {
         TicTacToe game = new TicTacToe();
         playFullGame(game);
+//        benchmarkRolloutPolicies();
+//        benchmarkRave();
+//        benchmarkSolver();
+//        benchmarkEarlyStop();
+//        benchmarkSelectionPolicies();
+    }
+
+    /**
+     * Method to compare selection policies by decision accuracy over a range of iteration budgets,
+     * and by the time taken for one selection amongst the children of a well-visited root.
+     */
+    public static void benchmarkSelectionPolicies() {
+        List<State<TicTacToe>> positions = samplePositions(200, 0L);
+        Map<String, Consumer<MCTS>> policies = new LinkedHashMap<>();
+        policies.put("UCB1", mcts -> {
+        });
+        policies.put("UCB1-Tuned", mcts -> mcts.setSelectionPolicy(SelectionPolicy.ucb1Tuned()));
+        policies.put("UCB1-Tuned (FPU=1)", mcts -> mcts.setSelectionPolicy(SelectionPolicy.ucb1Tuned().withFirstPlayUrgency(1)));
+        policies.put("PUCT (uniform)", mcts -> mcts.setSelectionPolicy(SelectionPolicy.puct(1.5)));
+        policies.put("PUCT (heuristic)", mcts -> {
+            mcts.setSelectionPolicy(SelectionPolicy.puct(1.5));
+            mcts.setMovePrior(TicTacToeRolloutPolicy.prior());
+        });
+        int[] iterationLimits = {10, 25, 50, 100, 200, 400, 800};
+        for (Map.Entry<String, Consumer<MCTS>> entry : policies.entrySet()) {
+            for (int iterations : iterationLimits) {
+                double accuracy = accuracy(positions, iterations, entry.getValue());
+                System.out.printf("Policy: %s | Iterations: %d | Accuracy: %.1f%%%n", entry.getKey(), iterations, accuracy * 100);
+            }
+            MCTS mcts = new MCTS(new TicTacToeNode(new TicTacToe().start()), 2000);
+            entry.getValue().accept(mcts);
+            mcts.search();
+            int selections = 1_000_000;
+            long start = System.nanoTime();
+            int checksum = 0;
+            for (int i = 0; i < selections; i++) checksum += mcts.getBestChild(mcts.root).getPlayouts();
+            long end = System.nanoTime();
+            System.out.printf("Policy: %s | Selection: %.1f ns (%d)%n", entry.getKey(), (double) (end - start) / selections, checksum & 1);
+        }
+    }
+
+    /**
+     * Method to compare plain UCT with MCTS-Solver by decision accuracy and by the iterations actually run.
+     */
+    public static void benchmarkSolver() {
+        List<State<TicTacToe>> positions = samplePositions(200, 0L);
+        for (boolean solver : new boolean[]{false, true}) {
+            for (int iterations : new int[]{50, 100, 200, 400, 800, 1600}) {
+                int[] run = new int[1];
+                long start = System.nanoTime();
+                double accuracy = accuracy(positions, iterations, mcts -> mcts.setSolver(solver), mcts -> run[0] += mcts.getIterations());
+                long end = System.nanoTime();
+                System.out.printf("Solver: %b | Iterations: %d | Avg Iterations Run: %.1f | Accuracy: %.1f%% | Avg Time: %.3f ms%n",
+                        solver, iterations, (double) run[0] / positions.size(), accuracy * 100, (end - start) / 1.0E6 / positions.size());
+            }
+        }
+    }
+
+    /**
+     * Method to compare early-stopping rules by decision accuracy and by the iterations actually run.
+     */
+    public static void benchmarkEarlyStop() {
+        List<State<TicTacToe>> positions = samplePositions(200, 0L);
+        Map<String, EarlyStop> rules = new LinkedHashMap<>();
+        rules.put("never", EarlyStop.never());
+        rules.put("visits", EarlyStop.visits());
+        rules.put("confidence (delta=0.05)", EarlyStop.confidence(0.05));
+        for (Map.Entry<String, EarlyStop> entry : rules.entrySet()) {
+            for (int iterations : new int[]{100, 400, 1600, 5000}) {
+                int[] run = new int[1];
+                long start = System.nanoTime();
+                double accuracy = accuracy(positions, iterations, mcts -> mcts.setEarlyStop(entry.getValue()), mcts -> run[0] += mcts.getIterations());
+                long end = System.nanoTime();
+                System.out.printf("Early stop: %s | Iterations: %d | Avg Iterations Run: %.1f | Accuracy: %.1f%% | Avg Time: %.3f ms%n",
+                        entry.getKey(), iterations, (double) run[0] / positions.size(), accuracy * 100, (end - start) / 1.0E6 / positions.size());
+            }
+        }
+    }
+
+    /**
+     * Method to compare plain UCT with RAVE (for several equivalence parameters) by decision accuracy,
+     * as judged by {@link TicTacToeSolver}, over a fixed sample of positions and a range of iteration budgets.
+     */
+    public static void benchmarkRave() {
+        List<State<TicTacToe>> positions = samplePositions(200, 0L);
+        int[] equivalences = {0, 25, 100, 400};
+        int[] iterationLimits = {10, 25, 50, 100, 200, 400, 800};
+        for (int equivalence : equivalences) {
+            for (int iterations : iterationLimits) {
+                long start = System.nanoTime();
+                double accuracy = accuracy(positions, iterations, mcts -> mcts.setRave(equivalence));
+                long end = System.nanoTime();
+                System.out.printf("RAVE equivalence: %d | Iterations: %d | Accuracy: %.1f%% | Avg Time: %.3f ms%n",
+                        equivalence, iterations, accuracy * 100, (end - start) / 1.0E6 / positions.size());
+            }
+        }
+    }
+
+    /**
+     * Method to compare rollout policies by decision accuracy, as judged by {@link TicTacToeSolver},
+     * over a fixed sample of positions and a range of iteration budgets.
+     * The iterations needed to reach a given accuracy show how much a heuristic policy saves.
+     */
+    public static void benchmarkRolloutPolicies() {
+        List<State<TicTacToe>> positions = samplePositions(200, 0L);
+        Map<String, RolloutPolicy<TicTacToe>> policies = new LinkedHashMap<>();
+        policies.put("random", RolloutPolicy.random());
+        policies.put("win/block", new TicTacToeRolloutPolicy());
+        policies.put("win/block (epsilon=0.2)", RolloutPolicy.epsilonGreedy(new TicTacToeRolloutPolicy(), 0.2));
+        int[] iterationLimits = {10, 25, 50, 100, 200, 400, 800};
+        for (Map.Entry<String, RolloutPolicy<TicTacToe>> entry : policies.entrySet()) {
+            for (int iterations : iterationLimits) {
+                long start = System.nanoTime();
+                double accuracy = accuracy(positions, iterations, mcts -> mcts.setRolloutPolicy(entry.getValue()));
+                long end = System.nanoTime();
+                System.out.printf("Policy: %s | Iterations: %d | Accuracy: %.1f%% | Avg Time: %.3f ms%n",
+                        entry.getKey(), iterations, accuracy * 100, (end - start) / 1.0E6 / positions.size());
+            }
+        }
+    }
+
+    /**
+     * Method to determine the fraction of the given positions for which the engine chooses a move
+     * which preserves the game-theoretic value.
+     *
+     * @param positions  the (non-terminal) positions.
+     * @param iterations the number of iterations per search.
+     * @param configure  a function to configure each engine.
+     * @return the accuracy, between 0 and 1.
+     */
+    static double accuracy(List<State<TicTacToe>> positions, int iterations, Consumer<MCTS> configure) {
+        return accuracy(positions, iterations, configure, mcts -> {
+        });
+    }
+
+    private static double accuracy(List<State<TicTacToe>> positions, int iterations, Consumer<MCTS> configure, Consumer<MCTS> report) {
+        TicTacToeSolver solver = TicTacToeSolver.getInstance();
+        int correct = 0;
+        for (State<TicTacToe> state : positions) {
+            MCTS mcts = new MCTS(new TicTacToeNode(state), iterations);
+            configure.accept(mcts);
+            int player = state.player();
+            if (solver.value(state.next(mcts.findBestMove()), player) == solver.value(state, player)) correct++;
+            report.accept(mcts);
+        }
+        return (double) correct / positions.size();
+    }
+
+    /**
+     * Method to sample distinct non-terminal positions (at which the choice of move matters) by random play.
+     *
+     * @param n    the number of positions required.
+     * @param seed the seed.
+     * @return a list of States.
+     */
+    static List<State<TicTacToe>> samplePositions(int n, long seed) {
+        TicTacToeSolver solver = TicTacToeSolver.getInstance();
+        TicTacToe game = new TicTacToe(seed);
+        RandomGenerator random = new SplittableRandom(seed);
+        Map<State<TicTacToe>, Boolean> result = new LinkedHashMap<>();
+        while (result.size() < n) {
+            State<TicTacToe> state = game.start();
+            int moves = random.nextInt(7);
+            for (int i = 0; i < moves && !state.isTerminal(); i++) state = state.next(state.chooseMove(state.player()));
+            if (state.isTerminal()) continue;
+            Set<Integer> values = new HashSet<>();
+            for (Move<TicTacToe> move : state.moves(state.player())) values.add(solver.value(state.next(move), state.player()));
+            if (values.size() > 1) result.put(state, true);
+        }
+        return new ArrayList<>(result.keySet());
     }
 
     public static void playFullGame(TicTacToe game) {
+        try {
+            playFullGame(game, null);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Method to play a game, recording each move (see {@link RecordWriter}).
+     * The outcome of each record is the winner (or -1 for a draw).
+     *
+     * @param game     the game.
+     * @param recorder the RecordWriter (or null not to record the game).
+     * @throws IOException if the records cannot be written.
+     */
+    public static void playFullGame(TicTacToe game, RecordWriter<TicTacToe> recorder) throws IOException {
         long startTime = System.currentTimeMillis();
 
         State<TicTacToe> currentState = game.start();
@@ -38,6 +246,7 @@ public class MCTS {
             MCTS mcts = new MCTS(rootNode, 1000);
 
             Move<TicTacToe> bestMove = mcts.findBestMove();
+            if (recorder != null) recorder.add(rootNode, bestMove);
             currentState = currentState.next(bestMove);
 
             System.out.println("Move: " + bestMove);
@@ -48,6 +257,7 @@ public class MCTS {
         }
 
         long endTime = System.currentTimeMillis(); 
+        if (recorder != null) recorder.endGame(currentState.winner().orElse(-1));
         System.out.println("\nGame Over!");
         System.out.println("Time taken: " + (endTime - startTime) + " ms");
 
@@ -62,45 +272,171 @@ public class MCTS {
     public MCTS(Node<TicTacToe> root, int maxIterations) {
         this.root = root;
         this.maxIterations = maxIterations;
-        this.random = new Random();
+        this.random = new SplittableRandom();
     }
 
     public MCTS(Node<TicTacToe> root) {
         this(root, 1000);
     }
 
+    /**
+     * Method to replace the random rollouts of non-terminal nodes by a leaf evaluator
+     * (for example, one of those provided by {@link TicTacToeSolver}).
+     *
+     * @param leafEvaluator the evaluator, or null to restore random rollouts.
+     */
+    public void setLeafEvaluator(LeafEvaluator<TicTacToe> leafEvaluator) {
+        this.leafEvaluator = leafEvaluator;
+    }
+
+    /**
+     * Method to seed the random source of this engine (by default, it is unseeded).
+     * NOTE: the search draws on this random source alone (never on that of the game, which may be in use on another thread),
+     * so a search from a given tree is reproducible from this seed.
+     *
+     * @param seed the seed.
+     */
+    public void setSeed(long seed) {
+        this.random = new SplittableRandom(seed);
+    }
+
+    /**
+     * Method to set the policy by which moves are chosen in rollouts (the default is uniformly random).
+     *
+     * @param rolloutPolicy the policy, for example a {@link TicTacToeRolloutPolicy}.
+     */
+    public void setRolloutPolicy(RolloutPolicy<TicTacToe> rolloutPolicy) {
+        this.rolloutPolicy = rolloutPolicy;
+    }
+
+    /**
+     * Method to enable RAVE: selection then blends each child's own value with its all-moves-as-first value
+     * (in TicTacToe the value of a square depends little on when it is taken).
+     *
+     * @param equivalence the number of playouts of a child at which both values carry equal weight
+     *                    (see {@link AmafTable#beta(int, int)}), or 0 for plain UCT.
+     */
+    public void setRave(int equivalence) {
+        this.raveEquivalence = equivalence;
+    }
+
+    /**
+     * Method to enable MCTS-Solver: nodes are proven won, lost or drawn (see {@link Proof}), the proofs are propagated
+     * up the tree, solved nodes are no longer searched below, and the search stops as soon as the root is solved.
+     *
+     * @param solver true to enable MCTS-Solver.
+     */
+    public void setSolver(boolean solver) {
+        this.solver = solver;
+    }
+
+    /**
+     * @return the number of iterations run by the last search (fewer than maxIterations if the root was solved or the search stopped early).
+     */
+    public int getIterations() {
+        return iterations;
+    }
+
+    /**
+     * Method to set a rule by which the search may stop before maxIterations (the default never stops early).
+     *
+     * @param earlyStop for example {@link EarlyStop#visits()} or {@link EarlyStop#confidence(double)}.
+     */
+    public void setEarlyStop(EarlyStop earlyStop) {
+        this.earlyStop = earlyStop;
+    }
+
+    /**
+     * Method to set the selection policy (the default is UCB1 with c = sqrt(2) on the original scale of results).
+     *
+     * @param selectionPolicy for example {@link SelectionPolicy#ucb1Tuned()} or {@link SelectionPolicy#puct(double)}.
+     */
+    public void setSelectionPolicy(SelectionPolicy selectionPolicy) {
+        this.selectionPolicy = selectionPolicy;
+    }
+
+    /**
+     * Method to set the prior probabilities of moves, as used by PUCT (the default is uniform).
+     *
+     * @param movePrior for example {@link TicTacToeRolloutPolicy#prior()}.
+     */
+    public void setMovePrior(MovePrior<TicTacToe> movePrior) {
+        this.movePrior = movePrior;
+    }
+
     public Move<TicTacToe> findBestMove() {
+        return search().move();
+    }
+
+    /**
+     * Method to search for the best move, reporting also the iterations run (and so saved).
+     *
+     * @return a SearchResult.
+     */
+    public SearchResult<TicTacToe> search() {
+        long start = System.nanoTime();
         if (root.isLeaf()) {
-            return null;
+            return new SearchResult<>(null, 0, maxIterations, System.nanoTime() - start);
         }
 
-        for (int i = 0; i < maxIterations; i++) {
+        TicTacToeNode rootNode = (TicTacToeNode) root;
+        for (iterations = 0; iterations < maxIterations && !(solver && rootNode.solve()) && !stopEarly(rootNode); iterations++) {
             List<TicTacToeNode> path = new ArrayList<>();
             TicTacToeNode selectedNode = selectWithPath(root, path);
 
             TicTacToeNode expandedNode = selectedNode;
-            if (!selectedNode.isLeaf() && !selectedNode.isFullyExpanded()) {
+            if (!selectedNode.isLeaf() && !isSolved(selectedNode) && !selectedNode.isFullyExpanded()) {
                 expandedNode = expand(selectedNode);
                 path.add(expandedNode);
             }
 
-            int simulationResult = simulate(expandedNode);
+            List<Move<TicTacToe>> rollout = raveEquivalence > 0 ? new ArrayList<>() : null;
+            int simulationResult = simulate(expandedNode, rollout);
 
             backpropagate(path, simulationResult);
+            if (rollout != null) updateAmaf(path, rollout, simulationResult);
+            if (solver) for (int j = path.size() - 1; j >= 0 && path.get(j).solve(); j--) ;
+        }
+
+        return new SearchResult<>(getMostVisitedChild(root).getMove(), iterations, maxIterations, System.nanoTime() - start);
+    }
+
+    private boolean stopEarly(TicTacToeNode rootNode) {
+        if (iterations == 0 || !rootNode.isFullyExpanded()) return false;
+        int[] playouts = new int[rootNode.childCount()];
+        double[] means = new double[playouts.length];
+        int best = 0;
+        for (int i = 0; i < playouts.length; i++) {
+            TicTacToeNode child = rootNode.child(i);
+            playouts[i] = child.getPlayouts();
+            means[i] = playouts[i] == 0 ? 0 : (double) child.getWins() / playouts[i];
+            if (playouts[i] > playouts[best]) best = i;
         }
+        return earlyStop.test(playouts, means, best, maxIterations - iterations, 2);
+    }
 
-        return getMostVisitedChild(root).getMove();
+    private boolean isSolved(TicTacToeNode node) {
+        return solver && node.isSolved();
     }
 
     private TicTacToeNode selectWithPath(Node<TicTacToe> node, List<TicTacToeNode> path) {
         TicTacToeNode currentNode = (TicTacToeNode) node;
         path.add(currentNode);
 
-        if (currentNode.isLeaf() || !currentNode.isFullyExpanded()) {
+        if (currentNode.isLeaf() || isSolved(currentNode)) {
             return currentNode;
         }
 
-        TicTacToeNode bestChild = getBestChild(currentNode, explorationParameter);
+        if (!currentNode.isFullyExpanded()) {
+            double urgency = selectionPolicy.firstPlayUrgency();
+            if (urgency == Double.POSITIVE_INFINITY) return currentNode;
+            TicTacToeNode bestChild = getBestChild(currentNode);
+            if (bestChild == null || value(currentNode, bestChild, Math.log(currentNode.getPlayouts())) < urgency)
+                return currentNode;
+            return selectWithPath(bestChild, path);
+        }
+
+        TicTacToeNode bestChild = getBestChild(currentNode);
         return selectWithPath(bestChild, path);
     }
 
@@ -121,21 +457,33 @@ public class MCTS {
         Move<TicTacToe> move = unexpandedMoves.get(random.nextInt(unexpandedMoves.size()));
         State<TicTacToe> newState = node.state().next(move);
         TicTacToeNode newNode = new TicTacToeNode(newState, move);
+        newNode.setPrior(movePrior.prior(node.state(), possibleMoves, move));
         node.addChildNode(newNode);
         return newNode;
     }
 
-    private int simulate(TicTacToeNode node) {
+    private int simulate(TicTacToeNode node, List<Move<TicTacToe>> rollout) {
         if (node.isLeaf()) {
             return evaluateTerminalState(node.state());
         }
 
-        State<TicTacToe> currentState = node.state();
+        if (isSolved(node)) {
+            return Proof.score(node.proof(), root.state().player());
+        }
+
+        // NOTE: the rollout (or evaluation) draws on this engine's random source, not on the game's (see State.random()).
+        State<TicTacToe> currentState = ((TicTacToe.TicTacToeState) node.state()).withRandom(random);
+
+        if (leafEvaluator != null) {
+            return leafEvaluator.evaluate(currentState, root.state().player());
+        }
+
         int currentPlayer = currentState.player();
 
         while (!currentState.isTerminal()) {
-            Move<TicTacToe> randomMove = currentState.chooseMove(currentPlayer);
-            currentState = currentState.next(randomMove);
+            Move<TicTacToe> move = rolloutPolicy.choose(currentState, currentPlayer);
+            if (rollout != null) rollout.add(move);
+            currentState = currentState.next(move);
             currentPlayer = 1 - currentPlayer;
         }
 
@@ -163,51 +511,108 @@ public class MCTS {
         }
     }
 
-    private TicTacToeNode getBestChild(Node<TicTacToe> node, double explorationValue) {
+    /**
+     * Method to credit, at each node of the path, every subsequent move by the player to move at that node.
+     * NOTE: in TicTacToe a square can be taken only once, so each move is (as it should be) credited at most once per node.
+     */
+    private void updateAmaf(List<TicTacToeNode> path, List<Move<TicTacToe>> rollout, int result) {
+        for (int i = 0; i < path.size(); i++) {
+            TicTacToeNode node = path.get(i);
+            if (node.isLeaf()) continue;
+            int player = node.state().player();
+            AmafTable amaf = node.amaf();
+            for (int j = i + 1; j < path.size(); j++) {
+                Move<TicTacToe> move = path.get(j).getMove();
+                if (move.player() == player) amaf.update(move.code(), result);
+            }
+            for (Move<TicTacToe> move : rollout)
+                if (move.player() == player) amaf.update(move.code(), result);
+        }
+    }
+
+    private TicTacToeNode getBestChild(Node<TicTacToe> node) {
         TicTacToeNode parentNode = (TicTacToeNode) node;
-        Collection<TicTacToeNode> children = parentNode.getChildren();
+        int n = parentNode.childCount();
 
         TicTacToeNode bestChild = null;
         double bestValue = Double.NEGATIVE_INFINITY;
+        double logPlayouts = Math.log(parentNode.getPlayouts());
 
-        for (TicTacToeNode child : children) {
+        int mover = parentNode.state().player();
+        for (int i = 0; i < n; i++) {
+            TicTacToeNode child = parentNode.child(i);
             if (child.getPlayouts() == 0) {
                 continue;
             }
-            double exploitationTerm = (double) child.getWins() / child.getPlayouts();
-            double explorationTerm = explorationValue * Math.sqrt(Math.log(parentNode.getPlayouts()) / child.getPlayouts());
-            double uctValue = exploitationTerm + explorationTerm;
-            if (uctValue > bestValue) {
-                bestValue = uctValue;
+            // NOTE: a child proven lost (for the player to move) is never worth selecting.
+            if (isSolved(child) && child.proof() == 1 - mover) {
+                continue;
+            }
+            double value = value(parentNode, child, logPlayouts);
+            if (value > bestValue) {
+                bestValue = value;
                 bestChild = child;
             }
         }
 
-        if (bestChild == null && !children.isEmpty()) {
-            bestChild = children.iterator().next();
+        if (bestChild == null && n > 0) {
+            bestChild = parentNode.child(0);
         }
 
         return bestChild;
     }
 
+    /**
+     * Method to evaluate a (visited) child for selection, according to the selection policy.
+     * The results are normalized from the 2/1/0 scale to 1/0.5/0.
+     */
+    private double value(TicTacToeNode parentNode, TicTacToeNode child, double logPlayouts) {
+        int playouts = child.getPlayouts();
+        double score = (double) child.getWins() / playouts;
+        double variance = Math.max(0, (double) child.getSumOfSquares() / playouts - score * score) / 4;
+        if (raveEquivalence > 0) {
+            long code = child.getMove().code();
+            int amafPlayouts = parentNode.amaf().playouts(code);
+            if (amafPlayouts > 0) {
+                double beta = AmafTable.beta(playouts, raveEquivalence);
+                score = (1 - beta) * score + beta * parentNode.amaf().wins(code) / amafPlayouts;
+            }
+        }
+        // NOTE: results are from the point of view of the root player, so the opponent prefers low scores.
+        double mean = (parentNode.state().player() != root.state().player() ? 2 - score : score) / 2;
+        return selectionPolicy.score(mean, variance, playouts, child.getPrior(), parentNode.getPlayouts(), logPlayouts);
+    }
+
     private TicTacToeNode getMostVisitedChild(Node<TicTacToe> node) {
         TicTacToeNode parentNode = (TicTacToeNode) node;
-        Collection<TicTacToeNode> children = parentNode.getChildren();
+        int n = parentNode.childCount();
 
-        if (children.isEmpty()) {
+        if (n == 0) {
             throw new IllegalStateException("No child");
         }
 
         TicTacToeNode mostVisitedChild = null;
         int mostVisits = -1;
 
-        for (TicTacToeNode child : children) {
+        if (isSolved(parentNode)) {
+            // The proof of the root is that of its best child.
+            for (int i = 0; i < n; i++)
+                if (parentNode.child(i).proof() == parentNode.proof()) return parentNode.child(i);
+        }
+
+        int mover = parentNode.state().player();
+        for (int i = 0; i < n; i++) {
+            TicTacToeNode child = parentNode.child(i);
+            if (isSolved(child) && child.proof() == 1 - mover) {
+                continue;
+            }
             if (child.getPlayouts() > mostVisits) {
                 mostVisits = child.getPlayouts();
                 mostVisitedChild = child;
             }
         }
 
-        return mostVisitedChild;
+        // NOTE: if every child so far is proven lost, any of them will do.
+        return mostVisitedChild != null ? mostVisitedChild : parentNode.child(0);
     }
 }
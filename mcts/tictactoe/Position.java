@@ -5,13 +5,17 @@
 package com.phasmidsoftware.dsaipg.projects.mcts.tictactoe;
 
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
 
 /**
  * This class represents the board of the Tic-tac-toe game.
- * It is a 3x3 matrix of 0s, 1s, and -1s for O, X, and . respectively.
+ * Conceptually, it is a 3x3 matrix of 0s, 1s, and -1s for O, X, and . respectively.
+ * <p>
+ * Internally, the board is a pair of 9-bit masks (bitboards), one for each player,
+ * where bit 3i+j represents the cell in row i and column j.
+ * Making a move, generating moves, and testing for a win are therefore a few bitwise operations,
+ * and the two masks together form an 18-bit index which uniquely identifies the board.
  */
 public class Position {
 
@@ -23,18 +27,18 @@ public class Position {
      * @return a Position.
      */
     public static Position parsePosition(final String grid, final int last) {
-        int[][] matrix = new int[gridSize][gridSize];
-        int count = 0;
+        int xs = 0;
+        int os = 0;
         String[] rows = grid.split("\\n", gridSize);
         for (int i = 0; i < gridSize; i++) {
             String[] cells = rows[i].split(" ", gridSize);
             for (int j = 0; j < gridSize; j++) {
                 int cell = parseCell(cells[j].trim());
-                if (cell >= 0) count++;
-                matrix[i][j] = cell;
+                if (cell == TicTacToe.X) xs |= bit(i, j);
+                else if (cell == TicTacToe.O) os |= bit(i, j);
             }
         }
-        return new Position(matrix, count, last);
+        return new Position(xs, os, last);
     }
 
     /**
@@ -62,18 +66,26 @@ public class Position {
     public Position move(int player, int x, int y) {
         if (full()) throw new RuntimeException("Position is full");
         if (player == last) throw new RuntimeException("consecutive moves by same player: " + player);
-        int[][] matrix = copyGrid();
-        if (matrix[x][y] < 0) {
+        if ((free() & bit(x, y)) != 0) {
             // TO BE IMPLEMENTED
-            matrix[x][y] = player;
-            int count = this.count + 1;
-            int last = player;
-            return new Position(matrix, count, last);
+            return move(player, gridSize * x + y);
             // END SOLUTION
         }
         throw new RuntimeException("Position is occupied: " + x + ", " + y);
     }
 
+    /**
+     * Effect a player's move on this Position, without any validation.
+     *
+     * @param player the player (0: O, 1: X)
+     * @param cell   the index of an empty cell (3 * row + column).
+     * @return the new Position.
+     */
+    public Position move(int player, int cell) {
+        int mask = 1 << cell;
+        return player == TicTacToe.X ? new Position(xs | mask, os, player) : new Position(xs, os | mask, player);
+    }
+
     /**
      * Method to yield all the possible moves available on this Position.
      *
@@ -82,15 +94,25 @@ public class Position {
     public List<int[]> moves(int player) {
         if (player == last) throw new RuntimeException("consecutive moves by same player: " + player);
         List<int[]> result = new ArrayList<>();
-        for (int i = 0; i < gridSize; i++)
-            for (int j = 0; j < gridSize; j++)
-                if (grid[i][j] < 0)
-                    // TO BE IMPLEMENTED
-                    result.add(new int[]{i, j});
+        // TO BE IMPLEMENTED
+        for (int free = free(); free != 0; free &= free - 1) {
+            int cell = Integer.numberOfTrailingZeros(free);
+            result.add(new int[]{cell / gridSize, cell % gridSize});
+        }
         // END SOLUTION
         return result;
     }
 
+    /**
+     * Method to yield the empty cells of this Position.
+     * This is the allocation-free equivalent of moves.
+     *
+     * @return a 9-bit mask with bit 3i+j set if the cell at (i, j) is empty.
+     */
+    public int free() {
+        return ~(xs | os) & fullMask;
+    }
+
     /**
      * Method to yield a copy of this Position but reflected.
      * <p>
@@ -100,18 +122,12 @@ public class Position {
      * @return a new Position.
      */
     public Position reflect(int axis) {
-        int[][] matrix = copyGrid();
-        switch (axis) {
-            case 0:
-                for (int j = 0; j < gridSize; j++) swap(matrix, 0, j, 2, j); // middle row
-                break;
-            case 1:
-                for (int i = 0; i < gridSize; i++) swap(matrix, i, 0, i, 2); // middle column
-                break;
-            default:
-                throw new RuntimeException("reflect not implemented for " + axis);
-        }
-        return new Position(matrix, count, last);
+        int[] permutation = switch (axis) {
+            case 0 -> reflectRows; // middle row
+            case 1 -> reflectColumns; // middle column
+            default -> throw new RuntimeException("reflect not implemented for " + axis);
+        };
+        return new Position(permute(xs, permutation), permute(os, permutation), last);
     }
 
     /**
@@ -121,11 +137,7 @@ public class Position {
      * @return a new Position which is rotated from this.
      */
     public Position rotate() {
-        int[][] matrix = new int[gridSize][gridSize];
-        for (int i = 0; i < gridSize; i++)
-            for (int j = 0; j < gridSize; j++)
-                matrix[i][j] = grid[j][gridSize - i - 1];
-        return new Position(matrix, count, last);
+        return new Position(permute(xs, rotation), permute(os, rotation), last);
     }
 
     /**
@@ -134,25 +146,32 @@ public class Position {
      * @return an Optional Integer.
      */
     public Optional<Integer> winner() {
-        if (count > 4 && threeInARow()) return Optional.of(last);
+        if (won()) return Optional.of(last);
         return Optional.empty();
     }
 
+    /**
+     * Determine if this Position represents a win for the last player.
+     * This is the allocation-free equivalent of winner().isPresent().
+     *
+     * @return true if the last player has three in a row.
+     */
+    public boolean won() {
+        return count > 4 && threeInARow();
+    }
+
     /**
      * Method to determine if this Position has three in a row (i.e. a winning position).
      * Don't forget to check for columns and diagonals as well.
      * <p>
-     * NOTE: you may find the instance field xxx to be useful, as well as the projectRow, projectCol, etc. private methods.
+     * NOTE: each of the eight lines is a mask, so the test is eight mask comparisons against the cells of the last player.
      *
      * @return true if there are three cells in a line that are the same and equal to the last player.
      */
     public boolean threeInARow() {
-        for (int i = 0; i < gridSize; i++) {
-            if (grid[i][0] == last && grid[i][1] == last && grid[i][2] == last) return true;
-            if (grid[0][i] == last && grid[1][i] == last && grid[2][i] == last) return true;
-        }
-        if (grid[0][0] == last && grid[1][1] == last && grid[2][2] == last) return true;
-        if (grid[0][2] == last && grid[1][1] == last && grid[2][0] == last) return true;
+        int mask = cells(last);
+        for (int line : lines)
+            if ((mask & line) == line) return true;
         return false;
     }
 
@@ -163,7 +182,10 @@ public class Position {
      * @return an array of three ints.
      */
     public int[] projectRow(int i) {
-        return grid[i];
+        int[] result = new int[gridSize];
+        for (int j = 0; j < gridSize; j++)
+            result[j] = cell(i, j);
+        return result;
     }
 
     /**
@@ -175,7 +197,7 @@ public class Position {
     public int[] projectCol(int j) {
         int[] result = new int[gridSize];
         for (int i = 0; i < gridSize; i++)
-            result[i] = grid[i][j];
+            result[i] = cell(i, j);
         return result;
     }
 
@@ -189,7 +211,7 @@ public class Position {
         int[] result = new int[gridSize];
         for (int j = 0; j < gridSize; j++) {
             int i = b ? j : gridSize - j - 1;
-            result[j] = grid[i][j];
+            result[j] = cell(i, j);
         }
         return result;
     }
@@ -201,6 +223,44 @@ public class Position {
         return count == 9;
     }
 
+    /**
+     * Method to yield the value of one cell.
+     *
+     * @param i the row index.
+     * @param j the column index.
+     * @return 1 for X, 0 for O, -1 for empty.
+     */
+    public int cell(int i, int j) {
+        int mask = bit(i, j);
+        if ((xs & mask) != 0) return TicTacToe.X;
+        if ((os & mask) != 0) return TicTacToe.O;
+        return TicTacToe.blank;
+    }
+
+    /**
+     * Method to yield the cells occupied by the given player.
+     *
+     * @param player 1 for X, 0 for O, -1 for the empty cells.
+     * @return a 9-bit mask.
+     */
+    public int cells(int player) {
+        return switch (player) {
+            case TicTacToe.X -> xs;
+            case TicTacToe.O -> os;
+            case TicTacToe.blank -> free();
+            default -> 0;
+        };
+    }
+
+    /**
+     * Method to yield a unique index for this Position, suitable for indexing a table of 2^18 elements.
+     *
+     * @return the X mask in bits 9 thru 17 and the O mask in bits 0 thru 8.
+     */
+    public int index() {
+        return xs << 9 | os;
+    }
+
     /**
      * Method to render this Position in a pleasing manner.
      *
@@ -210,7 +270,7 @@ public class Position {
         StringBuilder sb = new StringBuilder();
         for (int i = 0; i < gridSize; i++) {
             for (int j = 0; j < gridSize; j++) {
-                sb.append(render(grid[i][j]));
+                sb.append(render(cell(i, j)));
                 if (j < gridSize - 1) sb.append(' ');
             }
             if (i < gridSize - 1) sb.append('\n');
@@ -223,7 +283,7 @@ public class Position {
         StringBuilder sb = new StringBuilder();
         for (int i = 0; i < gridSize; i++) {
             for (int j = 0; j < gridSize; j++) {
-                sb.append(grid[i][j]);
+                sb.append(cell(i, j));
                 if (j < gridSize - 1) sb.append(',');
             }
             if (i < gridSize - 1) sb.append('\n');
@@ -235,25 +295,44 @@ public class Position {
     public boolean equals(Object o) {
         if (this == o) return true;
         if (!(o instanceof Position position)) return false;
-        return Arrays.deepEquals(grid, position.grid);
+        return xs == position.xs && os == position.os;
     }
 
     @Override
     public int hashCode() {
-        return Arrays.deepHashCode(grid);
+        return index();
     }
 
+    /**
+     * Constructor which takes a grid.
+     *
+     * @param grid  a 3x3 matrix of 0s, 1s, and -1s.
+     * @param count the number of occupied cells (this is also derivable from grid).
+     * @param last  the last player.
+     */
     public Position(int[][] grid, int count, int last) {
-        this.grid = grid;
-        this.count = count;
+        this(mask(grid, TicTacToe.X), mask(grid, TicTacToe.O), last);
+    }
+
+    /**
+     * Primary constructor.
+     *
+     * @param xs   the 9-bit mask of cells occupied by X.
+     * @param os   the 9-bit mask of cells occupied by O.
+     * @param last the last player.
+     */
+    public Position(int xs, int os, int last) {
+        this.xs = xs;
+        this.os = os;
+        this.count = Integer.bitCount(xs | os);
         this.last = last;
-        xxx = new int[]{last, last, last};
     }
 
     public int[][] copyGrid() {
         int[][] result = new int[gridSize][gridSize];
         for (int i = 0; i < gridSize; i++)
-            result[i] = Arrays.copyOf(grid[i], gridSize);
+            for (int j = 0; j < gridSize; j++)
+                result[i][j] = cell(i, j);
         return result;
     }
 
@@ -280,9 +359,43 @@ public class Position {
         matrix[i2][j2] = temp;
     }
 
-    private final int[][] grid;
+    private static int bit(int i, int j) {
+        return 1 << (gridSize * i + j);
+    }
+
+    private static int mask(int[][] grid, int player) {
+        int result = 0;
+        for (int i = 0; i < gridSize; i++)
+            for (int j = 0; j < gridSize; j++)
+                if (grid[i][j] == player) result |= bit(i, j);
+        return result;
+    }
+
+    /**
+     * Method to move the bits of mask such that the bit for cell k ends up in cell permutation[k].
+     */
+    private static int permute(int mask, int[] permutation) {
+        int result = 0;
+        for (; mask != 0; mask &= mask - 1)
+            result |= 1 << permutation[Integer.numberOfTrailingZeros(mask)];
+        return result;
+    }
+
+    private final int xs;
+    private final int os;
     final int last;
     private final int count;
     private final static int gridSize = 3;
-    private final int[] xxx;
+    private final static int fullMask = 0x1FF;
+    final static int[] lines = {
+            0b000_000_111, 0b000_111_000, 0b111_000_000, // rows
+            0b001_001_001, 0b010_010_010, 0b100_100_100, // columns
+            0b100_010_001, 0b001_010_100 // diagonals
+    };
+    // (i, j) -> (2 - i, j)
+    private final static int[] reflectRows = {6, 7, 8, 3, 4, 5, 0, 1, 2};
+    // (i, j) -> (i, 2 - j)
+    private final static int[] reflectColumns = {2, 1, 0, 5, 4, 3, 8, 7, 6};
+    // the new (i, j) is the old (j, 2 - i), i.e. old (i, j) -> new (2 - j, i)
+    private final static int[] rotation = {6, 3, 0, 7, 4, 1, 8, 5, 2};
 }
\ No newline at end of file
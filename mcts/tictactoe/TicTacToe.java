@@ -9,6 +9,7 @@ import com.phasmidsoftware.dsaipg.projects.mcts.core.Move;
 import com.phasmidsoftware.dsaipg.projects.mcts.core.State;
 
 import java.util.*;
+import java.util.random.RandomGenerator;
 
 /**
  * Class which models the game of TicTacToe.
@@ -83,7 +84,7 @@ public class TicTacToe implements Game<TicTacToe> {
      *
      * @param random a random source.
      */
-    public TicTacToe(Random random) {
+    public TicTacToe(RandomGenerator random) {
         this.random = random;
     }
 
@@ -93,7 +94,7 @@ public class TicTacToe implements Game<TicTacToe> {
      * @param seed a seed for the random source.
      */
     public TicTacToe(long seed) {
-        this(new Random(seed));
+        this(new SplittableRandom(seed));
     }
 
     /**
@@ -103,7 +104,7 @@ public class TicTacToe implements Game<TicTacToe> {
         this(System.currentTimeMillis());
     }
 
-    private final Random random;
+    private final RandomGenerator random;
 
     /**
      * Inner class to define a Move of TicTacToe.
@@ -129,6 +130,17 @@ public class TicTacToe implements Game<TicTacToe> {
             this.j = j;
         }
 
+        /**
+         * Method to yield the (shared, immutable) Move for the given player and cell.
+         *
+         * @param player the player.
+         * @param cell   the index of the cell (3 * row + column).
+         * @return a TicTacToeMove.
+         */
+        static TicTacToeMove of(int player, int cell) {
+            return moves[player][cell];
+        }
+
         /**
          * @return this move as an array of two coordinates: row and column.
          */
@@ -136,6 +148,25 @@ public class TicTacToe implements Game<TicTacToe> {
             return new int[]{i, j};
         }
 
+        /**
+         * @return the index of the target cell in row-major order (0 thru 8).
+         */
+        public long code() {
+            return 3L * i + j;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof TicTacToeMove that)) return false;
+            return player == that.player && i == that.i && j == that.j;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * player + (int) code();
+        }
+
         @Override
         public String toString() {
             return "Player " + player + " move to (" + i + ", " + j + ")";
@@ -145,6 +176,14 @@ public class TicTacToe implements Game<TicTacToe> {
         private final int player;
         private final int i;
         private final int j;
+
+        private static final TicTacToeMove[][] moves = new TicTacToeMove[2][9];
+
+        static {
+            for (int player = O; player <= X; player++)
+                for (int cell = 0; cell < 9; cell++)
+                    moves[player][cell] = new TicTacToeMove(player, cell / 3, cell % 3);
+        }
     }
 
     /**
@@ -192,15 +231,25 @@ public class TicTacToe implements Game<TicTacToe> {
 
         /**
          * A random source associated with this State.
-         * Currently, it is set to the same random as used by TicTacToe.
-         * If you need a different random for each state, override this.
+         * Unless it is given one (see {@link #withRandom(RandomGenerator)}), it is the same random as used by TicTacToe.
          *
-         * @return the appropriate RandomState.
+         * @return the appropriate RandomGenerator.
          */
-        public Random random() {
+        public RandomGenerator random() {
             return random;
         }
 
+        /**
+         * Method to yield this state with a different random source (which is passed on to its successors),
+         * for example, so that a search does not share the random source of the game.
+         *
+         * @param random the random source.
+         * @return a TicTacToeState which differs from this only in its random source.
+         */
+        public TicTacToeState withRandom(RandomGenerator random) {
+            return new TicTacToeState(position, random);
+        }
+
         /**
          * Get the moves that can be made directly from the given state.
          * The moves can be in any order--the order will be randomized for usage.
@@ -209,12 +258,29 @@ public class TicTacToe implements Game<TicTacToe> {
          */
         public Collection<Move<TicTacToe>> moves(int player) {
             if (player == position.last) throw new RuntimeException("consecutive moves by same player: " + player);
-            List<int[]> moves = position.moves(player);
-            ArrayList<Move<TicTacToe>> list = new ArrayList<>();
-            for (int[] coordinates : moves) list.add(new TicTacToeMove(player, coordinates[0], coordinates[1]));
+            int free = position.free();
+            ArrayList<Move<TicTacToe>> list = new ArrayList<>(Integer.bitCount(free));
+            for (; free != 0; free &= free - 1)
+                list.add(TicTacToeMove.of(player, Integer.numberOfTrailingZeros(free)));
             return list;
         }
 
+        /**
+         * Method to choose a (random) move for the given player.
+         * This picks the same move as the default implementation would (given the same random state)
+         * but it selects directly from the mask of free cells rather than building a list of moves.
+         *
+         * @param player the player who will be making the move.
+         * @return a move.
+         */
+        public Move<TicTacToe> chooseMove(int player) {
+            if (player == position.last) throw new RuntimeException("consecutive moves by same player: " + player);
+            int free = position.free();
+            if (free == 0) throw new RuntimeException("empty move iterator");
+            for (int r = random.nextInt(Integer.bitCount(free)); r > 0; r--) free &= free - 1;
+            return TicTacToeMove.of(player, Integer.numberOfTrailingZeros(free));
+        }
+
         /**
          * Implement the given move on the given state.
          *
@@ -222,9 +288,10 @@ public class TicTacToe implements Game<TicTacToe> {
          * @return a new state.
          */
         public State<TicTacToe> next(Move<TicTacToe> move) {
-            TicTacToeMove ticTacToeMove = (TicTacToeMove) move;
-            int[] ints = ticTacToeMove.move();
-            return new TicTacToeState(position.move(move.player(), ints[0], ints[1]));
+            if (move.player() == position.last) throw new RuntimeException("consecutive moves by same player: " + move.player());
+            int cell = (int) move.code();
+            if ((position.free() & 1 << cell) == 0) throw new RuntimeException("Position is occupied: " + move);
+            return new TicTacToeState(position.move(move.player(), cell), random);
         }
 
         /**
@@ -233,7 +300,7 @@ public class TicTacToe implements Game<TicTacToe> {
          * @return true if position is full or if position is a winner.
          */
         public boolean isTerminal() {
-            return position.full() || position.winner().isPresent();
+            return position.full() || position.won();
         }
 
         @Override
@@ -241,9 +308,26 @@ public class TicTacToe implements Game<TicTacToe> {
             return position().render();
         }
 
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof TicTacToeState that)) return false;
+            return position.equals(that.position) && position.last == that.position.last;
+        }
+
+        @Override
+        public int hashCode() {
+            return position.hashCode();
+        }
+
 
         public TicTacToeState(Position position) {
+            this(position, TicTacToe.this.random);
+        }
+
+        public TicTacToeState(Position position, RandomGenerator random) {
             this.position = position;
+            this.random = random;
         }
 
         public TicTacToeState() {
@@ -251,5 +335,6 @@ public class TicTacToe implements Game<TicTacToe> {
         }
 
         private final Position position;
+        private final RandomGenerator random;
     }
 }
\ No newline at end of file
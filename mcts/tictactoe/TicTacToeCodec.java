@@ -0,0 +1,40 @@
+/*
+ * Copyright (c) 2024. Robin Hillyard
+ */
+
+package com.phasmidsoftware.dsaipg.projects.mcts.tictactoe;
+
+import com.phasmidsoftware.dsaipg.projects.mcts.core.RecordFormat;
+import com.phasmidsoftware.dsaipg.projects.mcts.core.State;
+import com.phasmidsoftware.dsaipg.projects.mcts.core.StateCodec;
+
+import java.nio.ByteBuffer;
+
+/**
+ * The binary encoding of a TicTacToe State: the 9-bit masks of the Xs and the Os (as varints), and a byte for the last player (plus one).
+ */
+public class TicTacToeCodec implements StateCodec<TicTacToe> {
+
+    public TicTacToeCodec(TicTacToe game) {
+        this.game = game;
+    }
+
+    public int game() {
+        return RecordFormat.GAME_TICTACTOE;
+    }
+
+    public void encode(State<TicTacToe> state, ByteBuffer buffer) {
+        Position position = ((TicTacToe.TicTacToeState) state).position();
+        RecordFormat.putVarint(buffer, position.cells(TicTacToe.X));
+        RecordFormat.putVarint(buffer, position.cells(TicTacToe.O));
+        buffer.put((byte) (position.last + 1));
+    }
+
+    public State<TicTacToe> decode(ByteBuffer buffer) {
+        int xs = (int) RecordFormat.getVarint(buffer);
+        int os = (int) RecordFormat.getVarint(buffer);
+        return game.new TicTacToeState(new Position(xs, os, buffer.get() - 1));
+    }
+
+    private final TicTacToe game;
+}
@@ -4,21 +4,29 @@
 
 package com.phasmidsoftware.dsaipg.projects.mcts.tictactoe;
 
+import com.phasmidsoftware.dsaipg.projects.mcts.core.AmafTable;
 import com.phasmidsoftware.dsaipg.projects.mcts.core.Node;
+import com.phasmidsoftware.dsaipg.projects.mcts.core.Proof;
 import com.phasmidsoftware.dsaipg.projects.mcts.core.State;
 import com.phasmidsoftware.dsaipg.projects.mcts.core.Move;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Objects;
 
 public class TicTacToeNode implements Node<TicTacToe> {
 
     private final State<TicTacToe> state;
     private final ArrayList<TicTacToeNode> children;
+    private final TicTacToeNode[] childrenByCode = new TicTacToeNode[9];
     private int wins;
     private int playouts;
+    private long sumOfSquares;
+    private double prior = 1;
     private final Move<TicTacToe> move;
+    private int proof;
+    private AmafTable amaf;
 
     public TicTacToeNode(State<TicTacToe> state) {
         this(state, null);
@@ -28,22 +36,20 @@ public class TicTacToeNode implements Node<TicTacToe> {
         this.state = state;
         this.move = move;
         this.children = new ArrayList<>();
-        if (state.isTerminal()) {
-            playouts = 1;
-            if (state.winner().isPresent())
-                wins = 2; 
-            else
-                wins = 1; 
-        } else {
-            playouts = 0;
-            wins = 0;
-        }
+        this.proof = Proof.of(state);
+        // NOTE: even a terminal node starts with no statistics: each iteration which reaches it backs up its result
+        // (from the point of view of the player to move at the root).
     }
 
     public Move<TicTacToe> getMove() {
         return move;
     }
 
+    @Override
+    public Move<TicTacToe> move() {
+        return move;
+    }
+
     @Override
     public boolean isLeaf() {
         return state().isTerminal();
@@ -66,10 +72,30 @@ public class TicTacToeNode implements Node<TicTacToe> {
 
     public void addChildNode(TicTacToeNode child) {
         children.add(child);
+        if (child.getMove() != null) childrenByCode[(int) child.getMove().code()] = child;
+    }
+
+    /**
+     * @return the sum of the squares of the results backpropagated through this node (for the variance).
+     */
+    public long getSumOfSquares() {
+        return sumOfSquares;
+    }
+
+    /**
+     * @return the prior probability of the move to this node (1 unless set by the engine).
+     */
+    public double getPrior() {
+        return prior;
+    }
+
+    public void setPrior(double prior) {
+        this.prior = prior;
     }
 
     public void updateStats(int score) {
         wins += score;
+        sumOfSquares += (long) score * score;
         playouts += 1;
     }
 
@@ -91,12 +117,42 @@ public class TicTacToeNode implements Node<TicTacToe> {
         return children.size() >= possibleMoves;
     }
 
+    /**
+     * Method to get the all-moves-as-first statistics of the moves available here (created on demand).
+     *
+     * @return the AmafTable of this node.
+     */
+    public AmafTable amaf() {
+        if (amaf == null) amaf = new AmafTable(9);
+        return amaf;
+    }
+
+    /**
+     * @return the proof of this node (see {@link Proof}): the winner, Proof.DRAW, or Proof.UNSOLVED.
+     */
+    public int proof() {
+        return proof;
+    }
+
+    public boolean isSolved() {
+        return proof != Proof.UNSOLVED;
+    }
+
+    /**
+     * Method to try to prove this node from the proofs of its children.
+     *
+     * @return true if this node is (now) solved.
+     */
+    public boolean solve() {
+        if (isSolved()) return true;
+        int[] proofs = new int[children.size()];
+        for (int i = 0; i < proofs.length; i++) proofs[i] = children.get(i).proof;
+        proof = Proof.solve(state.player(), proofs, isFullyExpanded());
+        return isSolved();
+    }
+
     public boolean hasChildForMove(Move<TicTacToe> move) {
-        for (TicTacToeNode child : children) {
-            if (child.getMove() != null && child.getMove().equals(move))
-                return true;
-        }
-        return false;
+        return childrenByCode[(int) move.code()] != null;
     }
 
     @Override
@@ -120,7 +176,17 @@ public class TicTacToeNode implements Node<TicTacToe> {
 
     @Override
     public Collection<Node<TicTacToe>> children() {
-        return new ArrayList<>(children);
+        return Collections.unmodifiableList(children);
+    }
+
+    @Override
+    public int childCount() {
+        return children.size();
+    }
+
+    @Override
+    public TicTacToeNode child(int i) {
+        return children.get(i);
     }
 
     @Override
@@ -0,0 +1,70 @@
+/*
+ * Copyright (c) 2024. Robin Hillyard
+ */
+
+package com.phasmidsoftware.dsaipg.projects.mcts.tictactoe;
+
+import com.phasmidsoftware.dsaipg.projects.mcts.core.Move;
+import com.phasmidsoftware.dsaipg.projects.mcts.core.MovePrior;
+import com.phasmidsoftware.dsaipg.projects.mcts.core.RolloutPolicy;
+import com.phasmidsoftware.dsaipg.projects.mcts.core.State;
+
+/**
+ * A heuristic rollout policy for TicTacToe: win if possible; otherwise block if needed; otherwise play at random.
+ * The tests are done on the bitboards of the Position, so the policy is (almost) as cheap as the random policy.
+ */
+public class TicTacToeRolloutPolicy implements RolloutPolicy<TicTacToe> {
+
+    public Move<TicTacToe> choose(State<TicTacToe> state, int player) {
+        Position position = ((TicTacToe.TicTacToeState) state).position();
+        int free = position.free();
+        int win = completions(position.cells(player), free);
+        if (win != 0) return TicTacToe.TicTacToeMove.of(player, Integer.numberOfTrailingZeros(win));
+        int block = completions(position.cells(1 - player), free);
+        if (block != 0) return TicTacToe.TicTacToeMove.of(player, Integer.numberOfTrailingZeros(block));
+        return state.chooseMove(player);
+    }
+
+    /**
+     * Method to yield a MovePrior based on the same heuristic: a winning move, or else a blocking move,
+     * gets (almost) all of the probability; otherwise each move is weighted by the number of lines through its cell.
+     *
+     * @return a MovePrior for TicTacToe.
+     */
+    public static MovePrior<TicTacToe> prior() {
+        return (state, moves, move) -> {
+            Position position = ((TicTacToe.TicTacToeState) state).position();
+            int player = state.player();
+            int free = position.free();
+            int urgent = completions(position.cells(player), free);
+            if (urgent == 0) urgent = completions(position.cells(1 - player), free);
+            int cell = (int) move.code();
+            if (urgent != 0) return (urgent & 1 << cell) != 0 ? 0.9 / Integer.bitCount(urgent) : 0.1 / (moves.size() - Integer.bitCount(urgent));
+            int total = 0;
+            for (Move<TicTacToe> m : moves) total += lines((int) m.code());
+            return (double) lines(cell) / total;
+        };
+    }
+
+    private static int lines(int cell) {
+        int result = 0;
+        for (int line : Position.lines) if ((line & 1 << cell) != 0) result++;
+        return result;
+    }
+
+    /**
+     * Method to find the free cells which would complete a line for the given stones.
+     *
+     * @param stones the cells of one player.
+     * @param free   the free cells.
+     * @return a mask of the winning cells.
+     */
+    static int completions(int stones, int free) {
+        int result = 0;
+        for (int line : Position.lines) {
+            int missing = line & ~stones;
+            if (Integer.bitCount(missing) == 1 && (missing & free) != 0) result |= missing;
+        }
+        return result;
+    }
+}
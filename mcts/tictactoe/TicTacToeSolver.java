@@ -0,0 +1,245 @@
+/*
+ * Copyright (c) 2024. Robin Hillyard
+ */
+
+package com.phasmidsoftware.dsaipg.projects.mcts.tictactoe;
+
+import com.phasmidsoftware.dsaipg.projects.mcts.core.LeafEvaluator;
+import com.phasmidsoftware.dsaipg.projects.mcts.core.Move;
+import com.phasmidsoftware.dsaipg.projects.mcts.core.State;
+
+/**
+ * This class holds the exact solution of TicTacToe.
+ * <p>
+ * The (5,478) reachable positions are enumerated once, by memoized minimax from the empty board, and for each one we record:
+ * <ul>
+ *     <li>the game-theoretic value, i.e. the result if both players play perfectly;</li>
+ *     <li>the exact probability that X (or O) wins if both players play uniformly at random,
+ *     i.e. the expected result of the random rollouts used by {@link MCTS}.</li>
+ * </ul>
+ * The table is compact: a 2^18 element short array maps {@link Position#index()} to a dense slot,
+ * and the values and probabilities are held in arrays of one element per reachable position.
+ * <p>
+ * The solver can be used as an instant (perfect) engine, as a leaf evaluator for {@link MCTS},
+ * and as an oracle against which to test the engine.
+ */
+public class TicTacToeSolver {
+
+    /**
+     * Main program to show the solution for the starting position and to play a perfect game.
+     *
+     * @param args command-line arguments (ignored).
+     */
+    public static void main(String[] args) {
+        long start = System.nanoTime();
+        TicTacToeSolver solver = getInstance();
+        long end = System.nanoTime();
+        Position position = TicTacToe.startingPosition();
+        System.out.printf("Solved %d positions in %.2f ms%n", solver.size(), (end - start) / 1.0E6);
+        System.out.printf("Starting position: value=%d, P(X wins)=%.4f, P(O wins)=%.4f, P(draw)=%.4f (random play)%n",
+                solver.value(position), solver.probability(position, TicTacToe.X), solver.probability(position, TicTacToe.O), solver.drawProbability(position));
+        State<TicTacToe> state = new TicTacToe().start();
+        while (!state.isTerminal()) state = state.next(solver.bestMove(state));
+        System.out.println(state);
+        System.out.println(state.winner().map(w -> "Winner: " + (w == TicTacToe.X ? "X" : "O")).orElse("Draw!"));
+    }
+
+    /**
+     * Method to get the (lazily computed) solution.
+     *
+     * @return the singleton TicTacToeSolver.
+     */
+    public static TicTacToeSolver getInstance() {
+        return Holder.instance;
+    }
+
+    /**
+     * @return the number of reachable positions (including the empty board and all terminal positions).
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Method to determine if a position is reachable from the empty board by legal play (with X opening).
+     *
+     * @param position a Position.
+     * @return true if the position is in the table.
+     */
+    public boolean contains(Position position) {
+        return slots[position.index()] > 0;
+    }
+
+    /**
+     * Method to get the game-theoretic value of a position.
+     *
+     * @param position a reachable Position.
+     * @return 1 if X wins with perfect play, -1 if O wins, and 0 if it's a draw.
+     */
+    public int value(Position position) {
+        return values[slot(position)];
+    }
+
+    /**
+     * Method to get the probability that a player wins from this position, if both players play uniformly at random.
+     *
+     * @param position a reachable Position.
+     * @param player   the player (X or O).
+     * @return the exact probability of a win by player.
+     */
+    public double probability(Position position, int player) {
+        int slot = slot(position);
+        return player == TicTacToe.X ? xWins[slot] : oWins[slot];
+    }
+
+    /**
+     * Method to get the probability of a draw from this position, if both players play uniformly at random.
+     *
+     * @param position a reachable Position.
+     * @return the exact probability of a draw.
+     */
+    public double drawProbability(Position position) {
+        int slot = slot(position);
+        return 1.0 - xWins[slot] - oWins[slot];
+    }
+
+    /**
+     * Method to get the game-theoretic value of a state, from the point of view of the given player.
+     *
+     * @param state  a TicTacToe State.
+     * @param player the player.
+     * @return 1 if player wins with perfect play, -1 if player loses, and 0 if it's a draw.
+     */
+    public int value(State<TicTacToe> state, int player) {
+        int value = value(position(state));
+        return player == TicTacToe.X ? value : -value;
+    }
+
+    /**
+     * Method to choose a perfect move for the player to move.
+     * Amongst the moves which preserve the game-theoretic value, it prefers the one
+     * which gives the best chance of winning against a random opponent.
+     *
+     * @param state a non-terminal TicTacToe State.
+     * @return the best Move.
+     */
+    public Move<TicTacToe> bestMove(State<TicTacToe> state) {
+        Position position = position(state);
+        int player = state.player();
+        int bestCell = -1;
+        int bestValue = Integer.MIN_VALUE;
+        double bestProbability = -1;
+        for (int free = position.free(); free != 0; free &= free - 1) {
+            int cell = Integer.numberOfTrailingZeros(free);
+            Position next = position.move(player, cell);
+            int value = player == TicTacToe.X ? value(next) : -value(next);
+            double probability = probability(next, player);
+            if (value > bestValue || value == bestValue && probability > bestProbability) {
+                bestCell = cell;
+                bestValue = value;
+                bestProbability = probability;
+            }
+        }
+        if (bestCell < 0) throw new RuntimeException("TicTacToeSolver: no moves for " + position);
+        return TicTacToe.TicTacToeMove.of(player, bestCell);
+    }
+
+    /**
+     * Method to yield a leaf evaluator which is the exact equivalent of a random rollout:
+     * it draws the result of a single rollout from the exact distribution of random-play outcomes.
+     * It therefore costs one random number rather than a game's worth of moves.
+     *
+     * @return a LeafEvaluator of TicTacToe.
+     */
+    public LeafEvaluator<TicTacToe> exactRollouts() {
+        return (state, player) -> {
+            Position position = position(state);
+            double r = state.random().nextDouble();
+            double win = probability(position, player);
+            if (r < win) return 2;
+            return r < win + drawProbability(position) ? 1 : 0;
+        };
+    }
+
+    /**
+     * Method to yield a leaf evaluator which returns the result under perfect play.
+     *
+     * @return a LeafEvaluator of TicTacToe.
+     */
+    public LeafEvaluator<TicTacToe> perfectPlay() {
+        return (state, player) -> value(state, player) + 1;
+    }
+
+    private int slot(Position position) {
+        int slot = slots[position.index()] - 1;
+        if (slot < 0) throw new IllegalArgumentException("TicTacToeSolver: unreachable position:\n" + position.render());
+        return slot;
+    }
+
+    private static Position position(State<TicTacToe> state) {
+        return ((TicTacToe.TicTacToeState) state).position();
+    }
+
+    /**
+     * Method to solve the position given by the two masks (and all positions reachable from it).
+     *
+     * @return the slot of the position.
+     */
+    private int solve(int xs, int os) {
+        int index = xs << 9 | os;
+        if (slots[index] > 0) return slots[index] - 1;
+        int xCount = Integer.bitCount(xs);
+        int oCount = Integer.bitCount(os);
+        int last = xCount == 0 ? TicTacToe.blank : xCount > oCount ? TicTacToe.X : TicTacToe.O;
+        Position position = new Position(xs, os, last);
+        byte value;
+        double x = 0;
+        double o = 0;
+        if (position.won()) {
+            value = (byte) (last == TicTacToe.X ? 1 : -1);
+            if (last == TicTacToe.X) x = 1;
+            else o = 1;
+        } else if (position.full()) {
+            value = 0;
+        } else {
+            int player = last == TicTacToe.X ? TicTacToe.O : TicTacToe.X;
+            int best = player == TicTacToe.X ? -1 : 1;
+            int free = position.free();
+            int n = Integer.bitCount(free);
+            for (; free != 0; free &= free - 1) {
+                int mask = free & -free;
+                int child = player == TicTacToe.X ? solve(xs | mask, os) : solve(xs, os | mask);
+                best = player == TicTacToe.X ? Math.max(best, values[child]) : Math.min(best, values[child]);
+                x += xWins[child] / n;
+                o += oWins[child] / n;
+            }
+            value = (byte) best;
+        }
+        int slot = size++;
+        values[slot] = value;
+        xWins[slot] = (float) x;
+        oWins[slot] = (float) o;
+        slots[index] = (short) (slot + 1);
+        return slot;
+    }
+
+    private TicTacToeSolver() {
+        solve(0, 0);
+    }
+
+    private static class Holder {
+        private static final TicTacToeSolver instance = new TicTacToeSolver();
+    }
+
+    /**
+     * The number of reachable positions of TicTacToe.
+     */
+    public static final int POSITIONS = 5478;
+
+    // NOTE: each element is one more than the slot for that index, so that zero means unreachable.
+    private final short[] slots = new short[1 << 18];
+    private final byte[] values = new byte[POSITIONS];
+    private final float[] xWins = new float[POSITIONS];
+    private final float[] oWins = new float[POSITIONS];
+    private int size = 0;
+}